@@ -0,0 +1,116 @@
+package com.bank.transaction.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows observed latency
+ *
+ * Gradient style: the limit shrinks when the short-term latency drifts above the long-term
+ * (no-load) latency and grows again by a small queue allowance while latency stays flat.
+ * Reads may only use part of the limit, so writes are still admitted when reads pile up.
+ *
+ * @author YUNING TAO
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_RTT_SMOOTHING = 0.1;
+    private static final double LONG_RTT_SMOOTHING = 0.01;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double readShare;
+    private final double latencyTolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+
+    private volatile double limit;
+
+    // Guarded by sampleLock
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double readShare, double latencyTolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.readShare = readShare;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Try to admit a request
+     *
+     * @param write write requests may use the whole limit, reads only their share of it
+     * @return admitted or not, an admitted request must call {@link #release(long)}
+     */
+    public boolean tryAcquire(boolean write) {
+        double current = limit;
+        int allowed = write ? (int) current : Math.max(1, (int) (current * readShare));
+        while (true) {
+            int running = inFlight.get();
+            if (running >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Complete an admitted request and feed its latency into the limit
+     *
+     * @param rttNanos request latency
+     */
+    public void release(long rttNanos) {
+        int running = inFlight.getAndDecrement();
+        // Sampling is best effort, a busy lock only skips this sample
+        if (!sampleLock.tryLock()) {
+            return;
+        }
+        try {
+            sample(rttNanos, running);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private void sample(long rttNanos, int running) {
+        if (shortRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_RTT_SMOOTHING;
+        longRtt += (rttNanos - longRtt) * LONG_RTT_SMOOTHING;
+
+        // The baseline creeps up under sustained overload, pull it back towards recent latency
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, latencyTolerance * longRtt / shortRtt));
+        // Do not grow a limit the traffic is not using
+        if (gradient >= 1.0 && running < current / 2) {
+            return;
+        }
+        double queueAllowance = Math.sqrt(current);
+        double target = current * gradient + queueAllowance;
+        double next = current * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING;
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,201 @@
+package com.bank.transaction.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the transaction API
+ *
+ * Each client first has to get a token from its own bucket (429 otherwise), then a slot
+ * under the adaptive concurrency limit (503 otherwise). Both rejections happen before any
+ * work is spent on the request and tell the client when to retry.
+ *
+ * Clients are the authenticated principal, or else the remote address, never anything the
+ * caller can pick freely: IPv6 callers are keyed by their /64 network, which is what one host
+ * usually gets. Once the bucket cap is reached, clients without a bucket share one overflow
+ * bucket until idle buckets expire, so new keys never buy fresh bursts.
+ *
+ * Behind a load balancer the remote address is the balancer's unless the server takes the
+ * client address from the forwarded headers of trusted proxies (server.forward-headers-strategy),
+ * otherwise every caller shares one bucket.
+ *
+ * @author YUNING TAO
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final byte[] RATE_LIMITED_BODY = errorBody(HttpStatus.TOO_MANY_REQUESTS,
+            "Client request rate exceeded, please retry later");
+    private static final byte[] OVERLOADED_BODY = errorBody(HttpStatus.SERVICE_UNAVAILABLE,
+            "Service is overloaded, please retry later");
+
+    private static final String LOOKUP_PATH = "/bank/transactions/lookup";
+
+    private final AdmissionProperties properties;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final TokenBucket overflowBucket;
+    private final String overloadRetryAfter;
+
+    private final Counter rateLimitedReads;
+    private final Counter rateLimitedWrites;
+    private final Counter overloadedReads;
+    private final Counter overloadedWrites;
+
+    public AdmissionControlFilter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiter = new AdaptiveConcurrencyLimiter(
+                properties.getInitialLimit(),
+                properties.getMinLimit(),
+                properties.getMaxLimit(),
+                properties.getReadShare(),
+                properties.getLatencyTolerance());
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build();
+        this.overflowBucket = new TokenBucket(properties.getClientRatePerSecond(), properties.getClientBurst(),
+                System.nanoTime());
+        this.overloadRetryAfter = String.valueOf(Math.max(1, properties.getOverloadRetryAfter().toSeconds()));
+
+        this.rateLimitedReads = shedCounter(meterRegistry, "rate_limited", "read");
+        this.rateLimitedWrites = shedCounter(meterRegistry, "rate_limited", "write");
+        this.overloadedReads = shedCounter(meterRegistry, "overloaded", "read");
+        this.overloadedWrites = shedCounter(meterRegistry, "overloaded", "write");
+        Gauge.builder("transaction.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("transaction.admission.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = isWrite(request);
+
+        long now = System.nanoTime();
+        long waitNanos = bucketOf(clientKey(request), now).tryAcquire(now);
+        if (waitNanos > 0) {
+            (write ? rateLimitedWrites : rateLimitedReads).increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, String.valueOf(retryAfter), RATE_LIMITED_BODY);
+            return;
+        }
+
+        if (!limiter.tryAcquire(write)) {
+            (write ? overloadedWrites : overloadedReads).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, overloadRetryAfter, OVERLOADED_BODY);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private TokenBucket bucketOf(String client, long now) {
+        TokenBucket bucket = clientBuckets.getIfPresent(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.estimatedSize() >= properties.getMaxClients()) {
+            return overflowBucket;
+        }
+        return clientBuckets.get(client, key -> new TokenBucket(
+                properties.getClientRatePerSecond(), properties.getClientBurst(), now));
+    }
+
+    static String clientKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && principal.getName() != null) {
+            return "user:" + principal.getName();
+        }
+        return "address:" + network(request.getRemoteAddr());
+    }
+
+    /**
+     * The address itself, or the /64 network of an IPv6 address
+     */
+    private static String network(String remoteAddress) {
+        if (remoteAddress == null || remoteAddress.indexOf(':') < 0) {
+            return remoteAddress;
+        }
+        try {
+            // An address literal, nothing is resolved
+            InetAddress address = InetAddress.getByName(remoteAddress);
+            if (address instanceof Inet6Address) {
+                byte[] bytes = address.getAddress();
+                StringBuilder prefix = new StringBuilder();
+                for (int i = 0; i < 8; i += 2) {
+                    prefix.append(Integer.toHexString(((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff))).append(':');
+                }
+                return prefix.append(":/64").toString();
+            }
+            return address.getHostAddress();
+        } catch (UnknownHostException e) {
+            return remoteAddress;
+        }
+    }
+
+    /**
+     * Reads may only use their share of the limit, lookups by id read even though they are posted
+     */
+    static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !("POST".equals(method) && LOOKUP_PATH.equals(path));
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String retryAfter, byte[] body)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason, String priority) {
+        return Counter.builder("transaction.admission.shed")
+                .description("Requests rejected by admission control")
+                .tag("reason", reason)
+                .tag("priority", priority)
+                .register(meterRegistry);
+    }
+
+    private static byte[] errorBody(HttpStatus status, String message) {
+        return ("{\"status\":" + status.value()
+                + ",\"error\":\"" + status.getReasonPhrase()
+                + "\",\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
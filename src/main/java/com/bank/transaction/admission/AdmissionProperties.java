@@ -0,0 +1,157 @@
+package com.bank.transaction.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Admission control settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.admission")
+public class AdmissionProperties {
+
+    /**
+     * Turn admission control on or off
+     */
+    private boolean enabled = true;
+
+    /**
+     * Sustained requests per second allowed for one client
+     */
+    private double clientRatePerSecond = 500;
+
+    /**
+     * Requests one client may burst above its sustained rate
+     */
+    private int clientBurst = 1000;
+
+    /**
+     * Number of client buckets kept, further clients share one bucket until idle ones expire
+     */
+    private int maxClients = 10_000;
+
+    /**
+     * How long an idle client bucket is kept
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Concurrency limit at startup
+     */
+    private int initialLimit = 50;
+
+    /**
+     * Lowest concurrency limit
+     */
+    private int minLimit = 4;
+
+    /**
+     * Highest concurrency limit
+     */
+    private int maxLimit = 400;
+
+    /**
+     * Share of the concurrency limit reads may use, the rest is kept for writes
+     */
+    private double readShare = 0.8;
+
+    /**
+     * Latency over the no-load latency tolerated before the limit shrinks
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * Retry-After sent with 503 responses
+     */
+    private Duration overloadRetryAfter = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getClientRatePerSecond() {
+        return clientRatePerSecond;
+    }
+
+    public void setClientRatePerSecond(double clientRatePerSecond) {
+        this.clientRatePerSecond = clientRatePerSecond;
+    }
+
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    public void setClientBurst(int clientBurst) {
+        this.clientBurst = clientBurst;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getClientIdleTimeout() {
+        return clientIdleTimeout;
+    }
+
+    public void setClientIdleTimeout(Duration clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getReadShare() {
+        return readShare;
+    }
+
+    public void setReadShare(double readShare) {
+        this.readShare = readShare;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public void setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public Duration getOverloadRetryAfter() {
+        return overloadRetryAfter;
+    }
+
+    public void setOverloadRetryAfter(Duration overloadRetryAfter) {
+        this.overloadRetryAfter = overloadRetryAfter;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.transaction.admission;
+
+/**
+ * Token bucket for one client
+ *
+ * @author YUNING TAO
+ */
+class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = Math.max(1, burst);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Take one token
+     *
+     * @param nowNanos current nano time
+     * @return 0 when a token was taken, otherwise the nanos until the next token is available
+     */
+    synchronized long tryAcquire(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= 1d) {
+            tokens -= 1d;
+            return 0L;
+        }
+        return (long) Math.ceil((1d - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,157 @@
+package com.bank.transaction.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache manager that tells the other instances about local invalidations
+ *
+ * Caches are the target manager's caches wrapped so that evict and clear are also published
+ * on the bus. Invalidations from other instances are applied straight to the target caches,
+ * so they are not sent on again.
+ *
+ * @author YUNING TAO
+ */
+public class BroadcastingCacheManager implements CacheManager, CacheInvalidationBus.Listener {
+
+    private final CacheManager target;
+    private final CacheInvalidationBus bus;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public BroadcastingCacheManager(CacheManager target, CacheInvalidationBus bus) {
+        this.target = target;
+        this.bus = bus;
+        bus.setListener(this);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache targetCache = target.getCache(name);
+        if (targetCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new BroadcastingCache(targetCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        Cache cache = target.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        Cache cache = target.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        for (String cacheName : target.getCacheNames()) {
+            clear(cacheName);
+        }
+    }
+
+    /**
+     * Cache publishing its evictions, everything else goes to the target cache
+     */
+    private final class BroadcastingCache implements Cache {
+        private final Cache cache;
+
+        private BroadcastingCache(Cache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public String getName() {
+            return cache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return cache.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return cache.get(key, valueLoader);
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return cache.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return cache.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return cache.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            cache.evict(key);
+            bus.publishEvict(getName(), key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean evicted = cache.evictIfPresent(key);
+            // Other instances may hold the key even if this one did not
+            bus.publishEvict(getName(), key);
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+            bus.publishClear(getName());
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = cache.invalidate();
+            bus.publishClear(getName());
+            return invalidated;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.bank.transaction.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * UDP bus carrying cache invalidations between instances
+ *
+ * Invalidations are collected for a short interval and sent to every peer as one datagram,
+ * an evicted key or cleared cache is only sent once per interval, and a clear swallows the
+ * evictions of the same cache. Datagrams carry a per-sender sequence: a receiver that sees
+ * a gap lost some invalidations and clears all its caches. A heartbeat repeats the last
+ * sequence, so a lost datagram is noticed even when nothing follows it.
+ *
+ * Every datagram is signed with an HMAC of the shared secret, unsigned ones and replays of
+ * older sequences are dropped. The bus only listens on the configured address.
+ *
+ * @author YUNING TAO
+ */
+public class CacheInvalidationBus implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final int MAGIC = 0x54584956;
+    private static final int MAX_DATAGRAM = 8192;
+    private static final int HEADER_SIZE = 4 + 8 + 8 + 2;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_SIZE = 32;
+    private static final byte EVICT = 1;
+    private static final byte CLEAR = 2;
+
+    /**
+     * Applies invalidations received from other instances
+     */
+    public interface Listener {
+
+        void evict(String cacheName, String key);
+
+        void clear(String cacheName);
+
+        /**
+         * Invalidations were lost, everything may be stale
+         */
+        void clearAll();
+    }
+
+    private final DatagramChannel channel;
+    private final List<SocketAddress> peers = new CopyOnWriteArrayList<>();
+    private final long nodeId = new SecureRandom().nextLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Long> lastSequences = new ConcurrentHashMap<>();
+    // One per thread, Mac instances are not thread safe
+    private final Mac signer;
+    private final Mac verifier;
+
+    // Guarded by pendingLock, swapped out on every flush
+    private final Object pendingLock = new Object();
+    private Map<String, Set<String>> pendingEvicts = new HashMap<>();
+    private Set<String> pendingClears = new HashSet<>();
+
+    private volatile Listener listener;
+    private final ScheduledExecutorService sender;
+    private final Thread receiver;
+
+    private final Counter datagramsSent;
+    private final Counter invalidationsReceived;
+    private final Counter gaps;
+    private final Counter rejected;
+
+    public CacheInvalidationBus(CacheInvalidationProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            throw new IllegalArgumentException("transaction.cache.invalidation.secret must be set");
+        }
+        this.signer = mac(properties.getSecret());
+        this.verifier = mac(properties.getSecret());
+        InetSocketAddress bindAddress = bindAddress(properties);
+        try {
+            this.channel = DatagramChannel.open(StandardProtocolFamily.INET).bind(bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to bind cache invalidation bus on " + bindAddress, e);
+        }
+        for (String peer : properties.getPeers()) {
+            int separator = peer.lastIndexOf(':');
+            addPeer(new InetSocketAddress(peer.substring(0, separator), Integer.parseInt(peer.substring(separator + 1))));
+        }
+
+        this.datagramsSent = Counter.builder("transaction.cache.invalidation.sent")
+                .description("Invalidation datagrams sent to peers")
+                .register(meterRegistry);
+        this.invalidationsReceived = Counter.builder("transaction.cache.invalidation.received")
+                .description("Invalidations received from peers")
+                .register(meterRegistry);
+        this.gaps = Counter.builder("transaction.cache.invalidation.gaps")
+                .description("Lost invalidation datagrams, each one clears the local caches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("transaction.cache.invalidation.rejected")
+                .description("Datagrams dropped for a bad signature or an old sequence")
+                .register(meterRegistry);
+
+        long interval = Math.max(1, properties.getFlushInterval().toMillis());
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sender.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        long heartbeat = Math.max(1, properties.getHeartbeatInterval().toMillis());
+        this.sender.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        this.receiver = new Thread(this::receive, "cache-invalidation-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    public int getLocalPort() {
+        return ((InetSocketAddress) localAddress()).getPort();
+    }
+
+    public void addPeer(SocketAddress peer) {
+        peers.add(peer);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queue the eviction of one key, keys that are not strings clear the whole cache
+     */
+    public void publishEvict(String cacheName, Object key) {
+        if (!(key instanceof String id)) {
+            publishClear(cacheName);
+            return;
+        }
+        synchronized (pendingLock) {
+            if (!pendingClears.contains(cacheName)) {
+                pendingEvicts.computeIfAbsent(cacheName, name -> new HashSet<>()).add(id);
+            }
+        }
+    }
+
+    public void publishClear(String cacheName) {
+        synchronized (pendingLock) {
+            pendingClears.add(cacheName);
+            pendingEvicts.remove(cacheName);
+        }
+    }
+
+    /**
+     * Send the collected invalidations to every peer
+     */
+    void flush() {
+        Map<String, Set<String>> evicts;
+        Set<String> clears;
+        synchronized (pendingLock) {
+            if (pendingEvicts.isEmpty() && pendingClears.isEmpty()) {
+                return;
+            }
+            evicts = pendingEvicts;
+            clears = pendingClears;
+            pendingEvicts = new HashMap<>();
+            pendingClears = new HashSet<>();
+        }
+        if (peers.isEmpty()) {
+            return;
+        }
+
+        try {
+            Datagram datagram = new Datagram();
+            for (String cacheName : clears) {
+                datagram = datagram.add(CLEAR, cacheName, null);
+            }
+            for (Map.Entry<String, Set<String>> cacheEvicts : evicts.entrySet()) {
+                for (String key : cacheEvicts.getValue()) {
+                    datagram = datagram.add(EVICT, cacheEvicts.getKey(), key);
+                }
+            }
+            datagram.send();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to send cache invalidations", e);
+        }
+    }
+
+    /**
+     * Repeat the last sequence to every peer, so they notice a lost datagram
+     */
+    void heartbeat() {
+        if (peers.isEmpty()) {
+            return;
+        }
+        try {
+            new Datagram().send(sequence.get());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to send cache invalidation heartbeat", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        sender.shutdown();
+        try {
+            sender.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close cache invalidation bus", e);
+        }
+    }
+
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                apply(buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to read cache invalidations", e);
+            }
+        }
+    }
+
+    private void apply(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE + MAC_SIZE || !verified(buffer)) {
+            rejected.increment();
+            return;
+        }
+        if (buffer.getInt() != MAGIC) {
+            return;
+        }
+        long sender = buffer.getLong();
+        long datagramSequence = buffer.getLong();
+        int count = buffer.getShort() & 0xffff;
+        Listener target = listener;
+        if (sender == nodeId || target == null) {
+            return;
+        }
+
+        // Data takes the next sequence, a heartbeat repeats the last one. Sequences start at 1,
+        // so a lost first datagram of a sender is a gap as well
+        long last = lastSequences.getOrDefault(sender, 0L);
+        long expected = count > 0 ? last + 1 : last;
+        if (datagramSequence < expected) {
+            // Duplicate or replayed
+            rejected.increment();
+            return;
+        }
+        lastSequences.put(sender, datagramSequence);
+        if (datagramSequence > expected) {
+            gaps.increment();
+            target.clearAll();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            byte operation = buffer.get();
+            String cacheName = readString(buffer);
+            if (operation == CLEAR) {
+                target.clear(cacheName);
+            } else {
+                target.evict(cacheName, readString(buffer));
+            }
+        }
+        invalidationsReceived.increment(count);
+    }
+
+    /**
+     * Check the trailing signature and leave the signed part as the remaining bytes
+     */
+    private boolean verified(ByteBuffer buffer) {
+        int signedLength = buffer.remaining() - MAC_SIZE;
+        byte[] signature = new byte[MAC_SIZE];
+        buffer.get(buffer.position() + signedLength, signature);
+        ByteBuffer signed = buffer.duplicate().limit(buffer.position() + signedLength);
+        verifier.update(signed);
+        if (!MessageDigest.isEqual(verifier.doFinal(), signature)) {
+            return false;
+        }
+        buffer.limit(buffer.position() + signedLength);
+        return true;
+    }
+
+    private SocketAddress localAddress() {
+        try {
+            return channel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InetSocketAddress bindAddress(CacheInvalidationProperties properties) {
+        if (properties.getBindAddress() == null || properties.getBindAddress().isBlank()) {
+            throw new IllegalArgumentException("transaction.cache.invalidation.bind-address must be set");
+        }
+        InetSocketAddress address = new InetSocketAddress(properties.getBindAddress(), properties.getPort());
+        InetAddress host = address.getAddress();
+        if (host == null || host.isAnyLocalAddress()) {
+            throw new IllegalArgumentException("transaction.cache.invalidation.bind-address must name one interface: "
+                    + properties.getBindAddress());
+        }
+        return address;
+    }
+
+    private static Mac mac(String secret) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to set up " + MAC_ALGORITHM, e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Datagram being filled, sent and replaced by a new one when full
+     */
+    private final class Datagram {
+        private final ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+        private int count;
+
+        private Datagram() {
+            buffer.position(HEADER_SIZE);
+        }
+
+        private Datagram add(byte operation, String cacheName, String key) throws IOException {
+            byte[] name = cacheName.getBytes(StandardCharsets.UTF_8);
+            byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            int size = 1 + 2 + name.length + (key != null ? 2 + keyBytes.length : 0);
+            if (HEADER_SIZE + size + MAC_SIZE > MAX_DATAGRAM) {
+                throw new IllegalArgumentException("Cache key too long to invalidate: " + key);
+            }
+            Datagram target = this;
+            if (buffer.remaining() - MAC_SIZE < size || count == 0xffff) {
+                send();
+                target = new Datagram();
+            }
+            target.buffer.put(operation).putShort((short) name.length).put(name);
+            if (key != null) {
+                target.buffer.putShort((short) keyBytes.length).put(keyBytes);
+            }
+            target.count++;
+            return target;
+        }
+
+        private void send() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            send(sequence.incrementAndGet());
+            datagramsSent.increment();
+        }
+
+        private void send(long datagramSequence) throws IOException {
+            buffer.putInt(0, MAGIC)
+                    .putLong(4, nodeId)
+                    .putLong(12, datagramSequence)
+                    .putShort(20, (short) count);
+            synchronized (signer) {
+                signer.update(buffer.duplicate().flip());
+                buffer.put(signer.doFinal());
+            }
+            buffer.flip();
+            for (SocketAddress peer : peers) {
+                channel.send(buffer.duplicate(), peer);
+            }
+        }
+    }
+}
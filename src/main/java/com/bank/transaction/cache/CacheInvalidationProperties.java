@@ -0,0 +1,107 @@
+package com.bank.transaction.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cross-instance cache invalidation settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.cache.invalidation")
+public class CacheInvalidationProperties {
+
+    /**
+     * Turn the invalidation bus on, only useful with more than one instance
+     */
+    private boolean enabled = false;
+
+    /**
+     * Local address the bus listens on, the interface the peers reach, never a wildcard
+     */
+    private String bindAddress;
+
+    /**
+     * Local UDP port the bus listens on, 0 picks a free port
+     */
+    private int port = 7600;
+
+    /**
+     * Other instances, as host:port
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * How long invalidations are collected before they are sent together
+     */
+    private Duration flushInterval = Duration.ofMillis(5);
+
+    /**
+     * How often the last sequence is repeated, so peers notice a lost datagram
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+    /**
+     * Shared secret signing the datagrams, the same on every instance
+     */
+    private String secret;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getBindAddress() {
+        return bindAddress;
+    }
+
+    public void setBindAddress(String bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(List<String> peers) {
+        this.peers = peers;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.monitor.CacheAccessEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine cache manager whose caches record a flight recorder event for every read
+ *
+ * The caches stay Caffeine caches, so cache metrics and native cache access are unchanged.
+ *
+ * @author YUNING TAO
+ */
+public class RecordingCaffeineCacheManager extends CaffeineCacheManager {
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        return new RecordingCaffeineCache(name, cache, isAllowNullValues());
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, AsyncCache<Object, Object> cache) {
+        return new RecordingCaffeineCache(name, cache, isAllowNullValues());
+    }
+
+    /**
+     * Caffeine cache timing its reads, a read counts as a miss when this caller ran the loader
+     */
+    private static final class RecordingCaffeineCache extends CaffeineCache {
+
+        private RecordingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                       boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+
+        private RecordingCaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            CacheAccessEvent event = CacheAccessEvent.start();
+            Object value = super.lookup(key);
+            event.record(getName(), key, value != null);
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            CacheAccessEvent event = CacheAccessEvent.start();
+            boolean[] loaded = new boolean[1];
+            T value = super.get(key, () -> {
+                loaded[0] = true;
+                return valueLoader.call();
+            });
+            event.record(getName(), key, !loaded[0]);
+            return value;
+        }
+    }
+}
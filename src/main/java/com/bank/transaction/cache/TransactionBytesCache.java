@@ -0,0 +1,203 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.model.dto.ProjectedTransaction;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.bank.transaction.model.json.TransactionProjection;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Pre-serialized transaction cache
+ *
+ * Keeps the encoded bytes of a transaction per id, content type and projection, so a hot id
+ * is written to the response without going through the object mapper again.
+ * Entries are evicted together with the transaction on update and delete. A miss is loaded
+ * inside the cache's own atomic load of the id, so an eviction arriving while it runs waits
+ * for it and then removes what it loaded, never the other way round.
+ *
+ * @author YUNING TAO
+ */
+@Component
+public class TransactionBytesCache {
+
+    private final CacheManager cacheManager;
+    private final List<AbstractJackson2HttpMessageConverter> converters = new ArrayList<>();
+
+    public TransactionBytesCache(CacheManager cacheManager, HttpMessageConverters httpMessageConverters) {
+        this.cacheManager = cacheManager;
+        // Keep the MVC converter order, so */* still resolves to JSON
+        for (HttpMessageConverter<?> converter : httpMessageConverters.getConverters()) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter jacksonConverter) {
+                this.converters.add(jacksonConverter);
+            }
+        }
+    }
+
+    /**
+     * Pick the converter for the best acceptable content type of an Accept header
+     *
+     * @param accept Accept header value, a malformed one is not acceptable
+     * @return converter used to encode the transaction
+     */
+    public AbstractJackson2HttpMessageConverter negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> acceptedMediaTypes;
+        try {
+            acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            throw new HttpMediaTypeNotAcceptableException("Could not parse Accept header: " + e.getMessage());
+        }
+        return negotiate(acceptedMediaTypes);
+    }
+
+    /**
+     * Pick the converter for the best acceptable content type
+     *
+     * @param acceptedMediaTypes media types from the Accept header
+     * @return converter used to encode the transaction
+     */
+    public AbstractJackson2HttpMessageConverter negotiate(List<MediaType> acceptedMediaTypes)
+            throws HttpMediaTypeNotAcceptableException {
+        AbstractJackson2HttpMessageConverter selected = null;
+        double selectedQuality = 0.0;
+        for (MediaType accepted : acceptedMediaTypes) {
+            double quality = accepted.getQualityValue();
+            if (quality <= selectedQuality) {
+                continue;
+            }
+            AbstractJackson2HttpMessageConverter converter = findConverter(accepted);
+            if (converter != null) {
+                selected = converter;
+                selectedQuality = quality;
+            }
+        }
+        if (selected == null) {
+            List<MediaType> supported = new ArrayList<>();
+            converters.forEach(converter -> supported.addAll(converter.getSupportedMediaTypes()));
+            throw new HttpMediaTypeNotAcceptableException(supported);
+        }
+        return selected;
+    }
+
+    /**
+     * Get the cached transaction, loading it when it is not cached yet
+     *
+     * @param id transaction id
+     * @param loader loads the transaction
+     * @return cached transaction
+     */
+    public CachedTransaction get(String id, Supplier<TransactionResponse> loader) {
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_BYTES_CACHE);
+        if (cache == null) {
+            return new CachedTransaction(loader.get());
+        }
+        try {
+            // Loaded under the lock of the id, an evict of the id waits until the entry is in
+            return cache.get(id, () -> new CachedTransaction(loader.get()));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Encode the cached transaction, each content type is encoded once
+     *
+     * @param cached cached transaction
+     * @param converter converter picked by {@link #negotiate(List)}
+     * @return encoded transaction
+     */
+    public EncodedTransaction encode(CachedTransaction cached, AbstractJackson2HttpMessageConverter converter) {
+        return encode(cached, converter, null);
+    }
+
+    /**
+     * Encode the selected fields of the cached transaction, each content type and projection is encoded once
+     *
+     * @param cached cached transaction
+     * @param converter converter picked by {@link #negotiate(List)}
+     * @param projection selected fields, null for all of them
+     * @return encoded transaction
+     */
+    public EncodedTransaction encode(CachedTransaction cached, AbstractJackson2HttpMessageConverter converter,
+                                     TransactionProjection projection) {
+        MediaType contentType = converter.getSupportedMediaTypes().get(0);
+        String key = projection == null ? contentType.toString() : contentType + ";fields=" + projection.key();
+        byte[] body = cached.bodies.computeIfAbsent(key, ignored -> encode(converter,
+                projection == null ? cached.response : new ProjectedTransaction(cached.response, projection)));
+        return new EncodedTransaction(contentType, body);
+    }
+
+    private AbstractJackson2HttpMessageConverter findConverter(MediaType accepted) {
+        for (AbstractJackson2HttpMessageConverter converter : converters) {
+            for (MediaType supported : converter.getSupportedMediaTypes()) {
+                if (accepted.isCompatibleWith(supported)) {
+                    return converter;
+                }
+            }
+        }
+        return null;
+    }
+
+    private byte[] encode(AbstractJackson2HttpMessageConverter converter, Object value) {
+        try {
+            return converter.getObjectMapper().writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Cached transaction with its encoded bodies, keyed by content type
+     */
+    public static final class CachedTransaction {
+        private final TransactionResponse response;
+        private final Map<String, byte[]> bodies = new ConcurrentHashMap<>(4);
+
+        CachedTransaction(TransactionResponse response) {
+            this.response = response;
+        }
+
+        public long getVersion() {
+            return response.getVersion();
+        }
+    }
+
+    /**
+     * Encoded transaction body and its content type
+     */
+    public static final class EncodedTransaction {
+        private final MediaType contentType;
+        private final byte[] body;
+
+        public EncodedTransaction(MediaType contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
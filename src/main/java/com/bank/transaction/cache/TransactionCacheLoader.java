@@ -0,0 +1,29 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+/**
+ * Reloads id cache entries from the store
+ *
+ * Only used for refresh-ahead: the first load of an id goes through the service.
+ * A deleted transaction loads as null, which drops the entry.
+ *
+ * @author YUNING TAO
+ */
+public class TransactionCacheLoader implements CacheLoader<Object, Object> {
+
+    private final TransactionDao transactionDao;
+
+    public TransactionCacheLoader(TransactionDao transactionDao) {
+        this.transactionDao = transactionDao;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return transactionDao.findById((String) key)
+                .map(TransactionResponse::from)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,189 @@
+package com.bank.transaction.changes;
+
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Store-wide sequence of transaction changes, kept for the most recent ones
+ *
+ * Every create, update and delete gets the next sequence number. The number is taken while
+ * the striped lock of the transaction id is held around the store write, so the changes of one
+ * transaction are numbered in the order the store applied them. Changes are kept in a ring
+ * indexed by sequence, reading the changes after a sequence costs only what is returned.
+ * Clients behind the retained window, or ahead of it after a restart, are told to resync.
+ *
+ * Sequences only mean something within one log: they start over on restart and every instance
+ * numbers its own changes. Each log therefore has a random epoch that clients send back with
+ * their sequence, a sequence of another epoch is never read against this log.
+ *
+ * @author YUNING TAO
+ */
+public class ChangeLog {
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final Change[] ring;
+    private final Object[] locks;
+    private final int mask;
+
+    // Last assigned sequence, guarded by the ring
+    private long latest;
+
+    public ChangeLog(int retention, int stripes) {
+        this.ring = new Change[Math.max(1, retention)];
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new Object[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Save a new transaction and record its creation
+     */
+    public Transaction create(String id, Supplier<Transaction> save) {
+        synchronized (lockOf(id)) {
+            Transaction saved = save.get();
+            append(ChangeType.CREATE, saved.getId(), saved, saved.getVersion());
+            return saved;
+        }
+    }
+
+    /**
+     * Update a transaction and record the update when it was applied
+     */
+    public Optional<Transaction> update(String id, Supplier<Optional<Transaction>> update) {
+        synchronized (lockOf(id)) {
+            Optional<Transaction> updated = update.get();
+            updated.ifPresent(transaction -> append(ChangeType.UPDATE, id, transaction, transaction.getVersion()));
+            return updated;
+        }
+    }
+
+    /**
+     * Delete a transaction and record a tombstone when there was one
+     */
+    public Optional<Transaction> delete(String id, Supplier<Optional<Transaction>> delete) {
+        synchronized (lockOf(id)) {
+            Optional<Transaction> deleted = delete.get();
+            deleted.ifPresent(transaction -> append(ChangeType.DELETE, id, null, transaction.getVersion()));
+            return deleted;
+        }
+    }
+
+    /**
+     * Changes after the given sequence, oldest first
+     *
+     * @param since last sequence the client has applied
+     * @param limit maximum number of changes
+     * @return changes and the latest sequence at the time of reading
+     */
+    public Slice changesSince(long since, int limit) {
+        synchronized (ring) {
+            long oldest = Math.max(1, latest - ring.length + 1);
+            if (since > latest || since < oldest - 1) {
+                throw TransactionException.resyncRequired(since, oldest - 1, latest);
+            }
+            long last = Math.min(latest, since + limit);
+            List<Change> changes = new ArrayList<>((int) (last - since));
+            for (long sequence = since + 1; sequence <= last; sequence++) {
+                changes.add(ring[(int) (sequence % ring.length)]);
+            }
+            return new Slice(changes, latest);
+        }
+    }
+
+    /**
+     * Epoch the sequences of this log belong to
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Latest assigned sequence, a starting point for clients that just copied the full store
+     */
+    public long latestSequence() {
+        synchronized (ring) {
+            return latest;
+        }
+    }
+
+    private void append(ChangeType type, String id, Transaction transaction, long version) {
+        synchronized (ring) {
+            long sequence = ++latest;
+            ring[(int) (sequence % ring.length)] = new Change(sequence, type, id, transaction, version);
+        }
+    }
+
+    private Object lockOf(String id) {
+        int hash = id.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    /**
+     * Recorded change, tombstones carry no transaction
+     */
+    public static final class Change {
+        private final long sequence;
+        private final ChangeType type;
+        private final String id;
+        private final Transaction transaction;
+        private final long version;
+
+        Change(long sequence, ChangeType type, String id, Transaction transaction, long version) {
+            this.sequence = sequence;
+            this.type = type;
+            this.id = id;
+            this.transaction = transaction;
+            this.version = version;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Transaction getTransaction() {
+            return transaction;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Changes read in one call and the latest sequence when they were read
+     */
+    public static final class Slice {
+        private final List<Change> changes;
+        private final long latestSequence;
+
+        Slice(List<Change> changes, long latestSequence) {
+            this.changes = changes;
+            this.latestSequence = latestSequence;
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        public long getLatestSequence() {
+            return latestSequence;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.transaction.changes;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Change log settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.changes")
+public class ChangeLogProperties {
+
+    /**
+     * Number of most recent changes kept, clients further behind have to resync
+     */
+    private int retention = 100_000;
+
+    /**
+     * Number of lock stripes writes are ordered by, rounded up to a power of two
+     */
+    private int stripes = 64;
+
+    public int getRetention() {
+        return retention;
+    }
+
+    public void setRetention(int retention) {
+        this.retention = retention;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.transaction.changes;
+
+/**
+ * Kind of a recorded transaction change, a delete is kept as a tombstone
+ *
+ * @author YUNING TAO
+ */
+public enum ChangeType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -1,11 +1,17 @@
 package com.bank.transaction.config;
 
+import com.bank.transaction.cache.BroadcastingCacheManager;
+import com.bank.transaction.cache.CacheInvalidationBus;
+import com.bank.transaction.cache.RecordingCaffeineCacheManager;
+import com.bank.transaction.cache.TransactionCacheLoader;
+import com.bank.transaction.dao.TransactionDao;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,17 +24,38 @@ public class CacheConfig {
 
     public static final String TRANSACTION_ID_CACHE = "transactions";
     public static final String TRANSACTION_LIST_CACHE = "transactionList";
+    public static final String TRANSACTION_BYTES_CACHE = "transactionBytes";
 
     /**
-     * Caffeine Cache configuration
+     * Cache manager, local evictions are published to the other instances when the
+     * invalidation bus is enabled
      */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    public CacheManager cacheManager(TransactionDao transactionDao, Optional<CacheInvalidationBus> invalidationBus) {
+        CaffeineCacheManager cacheManager = caffeineCacheManager(transactionDao);
+        return invalidationBus.<CacheManager>map(bus -> new BroadcastingCacheManager(cacheManager, bus))
+                .orElse(cacheManager);
+    }
+
+    /**
+     * Caffeine Cache configuration
+     *
+     * The id cache is asynchronous: concurrent misses of one id share a single load, and
+     * entries read after the refresh interval are reloaded in the background while the
+     * old value is still served.
+     */
+    public CaffeineCacheManager caffeineCacheManager(TransactionDao transactionDao) {
+        CaffeineCacheManager cacheManager = new RecordingCaffeineCacheManager();
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .maximumSize(500)
                 .expireAfterWrite(30, TimeUnit.MINUTES)
                 .recordStats());
+        cacheManager.registerCustomCache(TRANSACTION_ID_CACHE, Caffeine.newBuilder()
+                .maximumSize(500)
+                .expireAfterWrite(30, TimeUnit.MINUTES)
+                .refreshAfterWrite(5, TimeUnit.MINUTES)
+                .recordStats()
+                .buildAsync(new TransactionCacheLoader(transactionDao)));
         return cacheManager;
     }
 
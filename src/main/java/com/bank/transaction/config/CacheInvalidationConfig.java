@@ -0,0 +1,26 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.cache.CacheInvalidationBus;
+import com.bank.transaction.cache.CacheInvalidationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cross-instance cache invalidation configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+@ConditionalOnProperty(prefix = "transaction.cache.invalidation", name = "enabled", havingValue = "true")
+public class CacheInvalidationConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheInvalidationBus cacheInvalidationBus(CacheInvalidationProperties properties,
+                                                     MeterRegistry meterRegistry) {
+        return new CacheInvalidationBus(properties, meterRegistry);
+    }
+}
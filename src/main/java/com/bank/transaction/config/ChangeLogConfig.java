@@ -0,0 +1,22 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.changes.ChangeLog;
+import com.bank.transaction.changes.ChangeLogProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Change log configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(ChangeLogProperties.class)
+public class ChangeLogConfig {
+
+    @Bean
+    public ChangeLog changeLog(ChangeLogProperties properties) {
+        return new ChangeLog(properties.getRetention(), properties.getStripes());
+    }
+}
@@ -0,0 +1,44 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.monitor.FlightRecordingEndpoint;
+import com.bank.transaction.monitor.FlightRecordingProperties;
+import com.bank.transaction.monitor.RecordingTransactionDao;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Flight recording configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(FlightRecordingProperties.class)
+@ConditionalOnProperty(prefix = "transaction.jfr", name = "enabled", havingValue = "true")
+public class FlightRecordingConfig {
+
+    /**
+     * Wraps the transaction store so every call is recorded. It is not ordered, so it runs
+     * after the ordered post processors and @Scheduled methods stay on the store itself.
+     */
+    @Bean
+    public static BeanPostProcessor recordingTransactionDaoPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof TransactionDao transactionDao && !(bean instanceof RecordingTransactionDao)) {
+                    return new RecordingTransactionDao(transactionDao);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FlightRecordingEndpoint flightRecordingEndpoint(FlightRecordingProperties properties) {
+        return new FlightRecordingEndpoint(properties);
+    }
+}
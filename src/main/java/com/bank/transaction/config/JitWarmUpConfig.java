@@ -0,0 +1,35 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.warmup.JitWarmUp;
+import com.bank.transaction.warmup.JitWarmUpEndpoint;
+import com.bank.transaction.warmup.JitWarmUpProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JIT warm-up configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(JitWarmUpProperties.class)
+@ConditionalOnProperty(prefix = "transaction.jit-warmup", name = "enabled", havingValue = "true")
+public class JitWarmUpConfig {
+
+    @Bean
+    public JitWarmUp jitWarmUp(ObjectMapper objectMapper, HttpMessageConverters httpMessageConverters,
+                               Validator validator, JitWarmUpProperties properties) {
+        // The application's own mapper, converters and validator, so their code is what gets compiled
+        return new JitWarmUp(objectMapper, httpMessageConverters, validator, properties);
+    }
+
+    @Bean
+    public JitWarmUpEndpoint jitWarmUpEndpoint(JitWarmUp jitWarmUp) {
+        return new JitWarmUpEndpoint(jitWarmUp);
+    }
+}
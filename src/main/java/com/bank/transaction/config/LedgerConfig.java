@@ -0,0 +1,24 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.ledger.BalanceLedger;
+import com.bank.transaction.ledger.LedgerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Balance ledger configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(LedgerProperties.class)
+public class LedgerConfig {
+
+    @Bean
+    public BalanceLedger balanceLedger(TransactionDao transactionDao, LedgerProperties properties) {
+        // Balances are not stored, they are summed once from the transactions already in the store
+        return BalanceLedger.rebuild(transactionDao, properties.getStripes());
+    }
+}
@@ -0,0 +1,46 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.prefetch.PagePrefetcher;
+import com.bank.transaction.prefetch.PrefetchProperties;
+import com.bank.transaction.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * List page prefetch configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(PrefetchProperties.class)
+@ConditionalOnProperty(prefix = "transaction.prefetch", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PrefetchConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public PagePrefetcher pagePrefetcher(TransactionService transactionService, CacheManager cacheManager,
+                                         PrefetchProperties properties, MeterRegistry meterRegistry) {
+        // Not a bean, an executor bean would replace the application task executor
+        return new PagePrefetcher(transactionService, cacheManager, properties, meterRegistry,
+                prefetchExecutor(properties.getThreads()));
+    }
+
+    /**
+     * Threads loading prefetched pages, daemons so a pending load never holds up shutdown
+     */
+    private static ExecutorService prefetchExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "page-prefetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
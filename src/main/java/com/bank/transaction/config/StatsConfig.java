@@ -0,0 +1,27 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.stats.AmountStatistics;
+import com.bank.transaction.stats.StatsProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Amount statistics configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(StatsProperties.class)
+public class StatsConfig {
+
+    @Bean
+    public AmountStatistics amountStatistics(TransactionDao transactionDao, StatsProperties properties) {
+        // Like balances, the recent slots are filled once from the transactions already in the store
+        return AmountStatistics.rebuild(transactionDao, properties.getSlotWidth(), properties.getSlots(),
+                properties.getRelativeAccuracy(), Clock.systemDefaultZone());
+    }
+}
@@ -0,0 +1,23 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.monitor.TransactionStoreEndpoint;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transaction store configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(TransactionStoreProperties.class)
+public class StoreConfig {
+
+    @Bean
+    public TransactionStoreEndpoint transactionStoreEndpoint(TransactionDao transactionDao, CacheManager cacheManager) {
+        return new TransactionStoreEndpoint(transactionDao, cacheManager);
+    }
+}
@@ -0,0 +1,368 @@
+package com.bank.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Transaction store settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.store")
+public class TransactionStoreProperties {
+
+    /**
+     * Store engine: memory, tiered, jdbc or write-behind
+     */
+    private String engine = "memory";
+
+    /**
+     * Time span covered by one store segment
+     */
+    private Duration partitionDuration = Duration.ofDays(1);
+
+    /**
+     * How long transactions are kept, zero keeps them forever
+     */
+    private Duration retention = Duration.ZERO;
+
+    private final Tiered tiered = new Tiered();
+
+    private final Filter filter = new Filter();
+
+    private final Jdbc jdbc = new Jdbc();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public Duration getPartitionDuration() {
+        return partitionDuration;
+    }
+
+    public void setPartitionDuration(Duration partitionDuration) {
+        this.partitionDuration = partitionDuration;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public Tiered getTiered() {
+        return tiered;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public Jdbc getJdbc() {
+        return jdbc;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Hot / cold tier settings
+     */
+    public static class Tiered {
+
+        /**
+         * Age after which a partition moves to the cold tier
+         */
+        private Duration hotWindow = Duration.ofDays(7);
+
+        /**
+         * Directory holding the memory-mapped cold partitions
+         */
+        private String directory = Path.of(System.getProperty("java.io.tmpdir"), "transaction-cold").toString();
+
+        public Duration getHotWindow() {
+            return hotWindow;
+        }
+
+        public void setHotWindow(Duration hotWindow) {
+            this.hotWindow = hotWindow;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * Membership filters guarding negative id / reference lookups
+     */
+    public static class Filter {
+
+        /**
+         * Whether lookups outside the heap are guarded by Bloom filters
+         */
+        private boolean enabled = true;
+
+        /**
+         * Target false positive rate of the filters
+         */
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * Number of keys the store-wide filters are sized for
+         */
+        private int expectedInsertions = 1_000_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public int getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public void setExpectedInsertions(int expectedInsertions) {
+            this.expectedInsertions = expectedInsertions;
+        }
+    }
+
+    /**
+     * Embedded relational store settings
+     */
+    public static class Jdbc {
+
+        /**
+         * JDBC url of the database
+         */
+        private String url = "jdbc:h2:file:" + Path.of(System.getProperty("java.io.tmpdir"), "transactions")
+                + ";DB_CLOSE_ON_EXIT=FALSE";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        /**
+         * Maximum number of pooled connections
+         */
+        private int maximumPoolSize = 8;
+
+        /**
+         * Maximum number of saves written in one database transaction
+         */
+        private int batchSize = 256;
+
+        /**
+         * Saves waiting for the writer, callers block when it is full
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * How long the writer waits for more saves before committing a small batch
+         */
+        private Duration maxBatchDelay = Duration.ZERO;
+
+        /**
+         * How long a caller waits for its write to be committed
+         */
+        private Duration writeTimeout = Duration.ofSeconds(30);
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getMaxBatchDelay() {
+            return maxBatchDelay;
+        }
+
+        public void setMaxBatchDelay(Duration maxBatchDelay) {
+            this.maxBatchDelay = maxBatchDelay;
+        }
+
+        public Duration getWriteTimeout() {
+            return writeTimeout;
+        }
+
+        public void setWriteTimeout(Duration writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+    }
+
+    /**
+     * Write-behind settings, the in-memory store is written through to the JDBC store in the background
+     */
+    public static class WriteBehind {
+
+        /**
+         * Local log of the changes not flushed yet, replayed on startup
+         */
+        private String log = Path.of(System.getProperty("java.io.tmpdir"), "transaction-write-behind.log").toString();
+
+        /**
+         * Whether every change is forced to disk before the write is acknowledged
+         */
+        private boolean syncWrites = true;
+
+        /**
+         * Transactions waiting for the flush, writers block when it is full
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of changes flushed at once
+         */
+        private int batchSize = 500;
+
+        /**
+         * First wait after a failed flush, doubled on every further failure
+         */
+        private Duration retryBackoff = Duration.ofSeconds(1);
+
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+        /**
+         * Attempts at a change whose write keeps failing before it is set aside as a dead letter,
+         * 0 retries until it succeeds. A change the store rejects outright is set aside at once
+         */
+        private int maxAttempts = 20;
+
+        /**
+         * How long shutdown waits for the remaining changes to be flushed
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+        public String getLog() {
+            return log;
+        }
+
+        public void setLog(String log) {
+            this.log = log;
+        }
+
+        public boolean isSyncWrites() {
+            return syncWrites;
+        }
+
+        public void setSyncWrites(boolean syncWrites) {
+            this.syncWrites = syncWrites;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Duration getMaxRetryBackoff() {
+            return maxRetryBackoff;
+        }
+
+        public void setMaxRetryBackoff(Duration maxRetryBackoff) {
+            this.maxRetryBackoff = maxRetryBackoff;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
+}
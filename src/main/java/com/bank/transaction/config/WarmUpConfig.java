@@ -0,0 +1,41 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.warmup.CacheWarmUp;
+import com.bank.transaction.warmup.CacheWarmUpEndpoint;
+import com.bank.transaction.warmup.WarmUpProgress;
+import com.bank.transaction.warmup.WarmUpProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache warm-up configuration
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+@EnableConfigurationProperties(WarmUpProperties.class)
+@ConditionalOnProperty(prefix = "transaction.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WarmUpConfig {
+
+    @Bean
+    public WarmUpProgress warmUpProgress() {
+        return new WarmUpProgress();
+    }
+
+    @Bean
+    public CacheWarmUp cacheWarmUp(TransactionService transactionService, TransactionDao transactionDao,
+                                   CacheManager cacheManager, WarmUpProperties properties,
+                                   WarmUpProgress warmUpProgress) {
+        return new CacheWarmUp(transactionService, transactionDao, cacheManager, properties, warmUpProgress);
+    }
+
+    @Bean
+    public CacheWarmUpEndpoint cacheWarmUpEndpoint(WarmUpProgress warmUpProgress) {
+        return new CacheWarmUpEndpoint(warmUpProgress);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bank.transaction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Wire format configuration
+ *
+ * JSON stays the default. Internal callers can ask for CBOR or Smile through the
+ * Accept / Content-Type headers, the payloads are streamed by Jackson without building a tree.
+ *
+ * @author YUNING TAO
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final String APPLICATION_CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_CBOR = MediaType.APPLICATION_CBOR;
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    /**
+     * CBOR converter, shares the Spring Boot Jackson settings with the JSON converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.createXmlMapper(false)
+                .factory(new CBORFactory())
+                .build();
+        return new MappingJackson2CborHttpMessageConverter(objectMapper);
+    }
+
+    /**
+     * Smile converter, shares the Spring Boot Jackson settings with the JSON converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.createXmlMapper(false)
+                .factory(new SmileFactory())
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper);
+    }
+}
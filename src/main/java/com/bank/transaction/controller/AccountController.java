@@ -0,0 +1,39 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.model.dto.AccountBalanceResponse;
+import com.bank.transaction.service.TransactionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Account controller
+ *
+ * @author YUNING TAO
+ */
+@RestController
+@RequestMapping("/bank/accounts")
+@Tag(name = "Account balances", description = "Running balances of the accounts transactions post to")
+public class AccountController {
+
+    private final TransactionService transactionService;
+
+    @Autowired
+    public AccountController(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @GetMapping("/{id}/balance")
+    @Operation(summary = "Get Account Balance", description = "Running balance of an account by currency")
+    public ResponseEntity<AccountBalanceResponse> getAccountBalance(
+            @Parameter(required = true)
+            @PathVariable String id) {
+        return ResponseEntity.ok(transactionService.getAccountBalance(id));
+    }
+}
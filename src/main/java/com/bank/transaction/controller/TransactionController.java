@@ -1,17 +1,41 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.cache.TransactionBytesCache;
+import com.bank.transaction.exception.VersionConflictException;
+import com.bank.transaction.model.dto.AmountQuantilesResponse;
+import com.bank.transaction.model.dto.ChangeFeedResponse;
 import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.ProjectedTransaction;
+import com.bank.transaction.model.dto.TransactionLookupRequest;
+import com.bank.transaction.model.dto.TransactionLookupResponse;
 import com.bank.transaction.model.dto.TransactionRequest;
 import com.bank.transaction.model.dto.TransactionResponse;
+import com.bank.transaction.model.json.TransactionProjection;
+import com.bank.transaction.prefetch.PagePrefetcher;
 import com.bank.transaction.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Transaction controller
@@ -24,10 +48,15 @@ import org.springframework.web.bind.annotation.*;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionBytesCache transactionBytesCache;
+    private final Optional<PagePrefetcher> pagePrefetcher;
 
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, TransactionBytesCache transactionBytesCache,
+                                 Optional<PagePrefetcher> pagePrefetcher) {
         this.transactionService = transactionService;
+        this.transactionBytesCache = transactionBytesCache;
+        this.pagePrefetcher = pagePrefetcher;
     }
 
     @PostMapping
@@ -39,13 +68,21 @@ public class TransactionController {
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "update Transaction", description = "update Transaction")
+    @Operation(summary = "update Transaction", description = "update Transaction, If-Match makes it an optimistic update")
     public ResponseEntity<TransactionResponse> updateTransaction(
             @Parameter(required = true)
             @PathVariable String id,
-            @Valid @RequestBody TransactionRequest request) {
-        TransactionResponse response = transactionService.updateTransaction(id, request);
-        return ResponseEntity.ok(response);
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+            @Valid @RequestBody TransactionRequest request) throws HttpMediaTypeNotAcceptableException {
+        // Negotiated before the update, an unacceptable request changes nothing
+        MediaType contentType = contentType(transactionBytesCache.negotiate(accept));
+        TransactionResponse response = update(id, ifMatch, request);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .eTag(eTag(response.getVersion(), contentType, null))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(response);
     }
 
     @DeleteMapping("/{id}")
@@ -58,20 +95,206 @@ public class TransactionController {
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "get Transaction", description = "get Transaction By ID")
-    public ResponseEntity<TransactionResponse> getTransaction(
+    @Operation(summary = "get Transaction", description = "get Transaction By ID, fields selects the returned fields",
+            responses = @ApiResponse(responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = TransactionResponse.class))))
+    public ResponseEntity<byte[]> getTransaction(
             @Parameter(required = true)
-            @PathVariable String id) {
-        TransactionResponse response = transactionService.getTransactionById(id);
+            @PathVariable String id,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+            WebRequest webRequest) throws HttpMediaTypeNotAcceptableException {
+        TransactionProjection projection = TransactionProjection.parse(fields);
+        AbstractJackson2HttpMessageConverter converter = transactionBytesCache.negotiate(accept);
+        TransactionBytesCache.CachedTransaction cached =
+                transactionBytesCache.get(id, () -> transactionService.getTransactionById(id));
+
+        // Unchanged transactions are answered before any encoding happens
+        String eTag = eTag(cached.getVersion(), contentType(converter), projection);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+
+        // Hot ids are served from the pre-serialized bytes, without object mapping
+        TransactionBytesCache.EncodedTransaction encoded = transactionBytesCache.encode(cached, converter, projection);
+        return ResponseEntity.ok()
+                .contentType(encoded.getContentType())
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(encoded.getBody());
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "get Transaction Changes", description = "get creates, updates and deletes after a sequence, "
+            + "410 Gone when they are no longer kept and the client has to copy the full list again")
+    public ResponseEntity<ChangeFeedResponse> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) String epoch,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(transactionService.getChanges(since, epoch, limit));
+    }
+
+    @GetMapping("/stats/quantiles")
+    @Operation(summary = "get Amount Quantiles", description = "get amount quantiles of recent transactions per currency "
+            + "and type, within the returned relative accuracy")
+    public ResponseEntity<AmountQuantilesResponse> getAmountQuantiles(
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String window,
+            @RequestParam(name = "q", required = false) List<Double> quantiles) {
+        return ResponseEntity.ok(transactionService.getAmountQuantiles(currency, type, window, quantiles));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "get Transactions by IDs", description = "get several Transactions by ID in one call, unknown IDs are listed as missing")
+    public ResponseEntity<TransactionLookupResponse> getTransactionsByIds(
+            @RequestParam List<String> ids) {
+        TransactionLookupResponse response = transactionService.getTransactionsByIds(ids);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "lookup Transactions", description = "get several Transactions by ID in one call, for ID lists too long for a query string")
+    public ResponseEntity<TransactionLookupResponse> lookupTransactions(
+            @RequestBody TransactionLookupRequest request) {
+        TransactionLookupResponse response = transactionService.getTransactionsByIds(request.getIds());
         return ResponseEntity.ok(response);
     }
 
     @GetMapping
-    @Operation(summary = "get Transactions", description = "get Transactions with pagination result")
-    public ResponseEntity<PageableResponse<TransactionResponse>> getTransactions(
+    @Operation(summary = "get Transactions", description = "get Transactions with pagination result, fields selects the returned fields")
+    public ResponseEntity<PageableResponse<?>> getTransactions(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept,
+            HttpServletRequest request,
+            WebRequest webRequest) throws HttpMediaTypeNotAcceptableException {
+        TransactionProjection projection = TransactionProjection.parse(fields);
+        // Picked here, so the tag names the representation that is sent
+        MediaType contentType = contentType(transactionBytesCache.negotiate(accept));
+        // The cached page is shared by every projection, only its serialization differs. Its tag is
+        // the change count it was read at, so a tag always names the content it was sent with
         PageableResponse<TransactionResponse> response = transactionService.getTransactions(page, size);
-        return ResponseEntity.ok(response);
+        String eTag = eTag(response.getChangeCount(), contentType, projection);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+
+        pagePrefetcher.ifPresent(prefetcher -> prefetcher.onPage(
+                prefetcher.clientKey(request), page, size, response.getTotalPages()));
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(projection == null ? response : project(response, projection));
+    }
+
+    private static PageableResponse<ProjectedTransaction> project(PageableResponse<TransactionResponse> response,
+                                                                  TransactionProjection projection) {
+        List<ProjectedTransaction> content = new ArrayList<>(response.getContent().size());
+        for (TransactionResponse transaction : response.getContent()) {
+            content.add(new ProjectedTransaction(transaction, projection));
+        }
+        return new PageableResponse<>(content, response.getPage(), response.getSize(), response.getTotalElements());
+    }
+
+    /**
+     * Update as asked by If-Match: without it unconditionally, "*" when the transaction exists,
+     * otherwise when its current version is one of the listed ones
+     */
+    private TransactionResponse update(String id, String ifMatch, TransactionRequest request) {
+        if (ifMatch == null) {
+            return transactionService.updateTransaction(id, request);
+        }
+        Set<Long> expectedVersions = parseVersions(ifMatch);
+        if (expectedVersions == null) {
+            if (!transactionService.existsById(id)) {
+                throw VersionConflictException.missing(id);
+            }
+            return transactionService.updateTransaction(id, request);
+        }
+        if (expectedVersions.isEmpty()) {
+            throw VersionConflictException.notMatching(id, ifMatch);
+        }
+        return expectedVersions.size() == 1
+                ? transactionService.updateTransaction(id, request, expectedVersions.iterator().next())
+                : transactionService.updateTransaction(id, request, expectedVersions);
+    }
+
+    private static MediaType contentType(AbstractJackson2HttpMessageConverter converter) {
+        return converter.getSupportedMediaTypes().get(0);
+    }
+
+    /**
+     * Strong ETag of a transaction version or of the store change count in one representation,
+     * full JSON keeps the bare number, other formats and field selections are appended to it
+     */
+    private static String eTag(long version, MediaType contentType, TransactionProjection projection) {
+        StringBuilder tag = new StringBuilder().append('"').append(version);
+        if (!MediaType.APPLICATION_JSON.equalsTypeAndSubtype(contentType)) {
+            tag.append('-').append(contentType.getSubtype());
+        }
+        if (projection != null) {
+            tag.append("-f").append(Integer.toHexString(projection.mask()));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Versions named by an If-Match header, compared the strong way: weak tags and tags that are
+     * not of a transaction version never match, so they are left out
+     *
+     * @return versions, null for "*"
+     */
+    private static Set<Long> parseVersions(String ifMatch) {
+        Set<Long> versions = new LinkedHashSet<>();
+        int position = 0;
+        int length = ifMatch.length();
+        while (position < length) {
+            char c = ifMatch.charAt(position);
+            if (c == ',' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+            if (c == '*') {
+                return null;
+            }
+            boolean weak = ifMatch.startsWith("W/", position);
+            int open = weak ? position + 2 : position;
+            int close = open < length && ifMatch.charAt(open) == '"' ? ifMatch.indexOf('"', open + 1) : -1;
+            if (close < 0) {
+                throw VersionConflictException.invalidETag(ifMatch);
+            }
+            Long version = weak ? null : versionOf(ifMatch.substring(open + 1, close));
+            if (version != null) {
+                versions.add(version);
+            }
+            position = close + 1;
+        }
+        return versions;
+    }
+
+    /**
+     * Version of an opaque tag made by {@link #eTag}, null when it is not one
+     */
+    private static Long versionOf(String opaqueTag) {
+        int end = opaqueTag.indexOf('-');
+        String number = end >= 0 ? opaqueTag.substring(0, end) : opaqueTag;
+        if (number.isEmpty() || number.length() > 18) {
+            return null;
+        }
+        for (int i = 0; i < number.length(); i++) {
+            if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+                return null;
+            }
+        }
+        return Long.parseLong(number);
     }
-} 
\ No newline at end of file
+}
@@ -2,7 +2,11 @@ package com.bank.transaction.dao;
 
 import com.bank.transaction.model.Transaction;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -20,6 +24,24 @@ public interface TransactionDao {
      */
     Transaction save(Transaction transaction);
 
+    /**
+     * Save several transactions, stores that write in batches override it
+     *
+     * @param transactions transactions to save
+     */
+    default void saveAll(Collection<Transaction> transactions) {
+        transactions.forEach(this::save);
+    }
+
+    /**
+     * Replace transaction when the stored version still matches
+     *
+     * @param transaction updated transaction
+     * @param expectedVersion version the update is based on
+     * @return updated transaction, empty when the stored version has moved on or it was deleted
+     */
+    Optional<Transaction> update(Transaction transaction, long expectedVersion);
+
     /**
      * find transaction by ID
      * 
@@ -28,6 +50,28 @@ public interface TransactionDao {
      */
     Optional<Transaction> findById(String id);
 
+    /**
+     * find transactions by ID, stores with a bulk lookup override it
+     *
+     * @param ids transaction ids
+     * @return transactions found, in no particular order
+     */
+    default List<Transaction> findAllById(Collection<String> ids) {
+        List<Transaction> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * find transaction by reference
+     *
+     * @param transactionReference transaction reference
+     * @return transaction Object
+     */
+    Optional<Transaction> findByTransactionReference(String transactionReference);
+
     /**
      * find all transaction
      * 
@@ -44,6 +88,20 @@ public interface TransactionDao {
      */
     List<Transaction> findAll(int page, int size);
 
+    /**
+     * Transactions with a timestamp in the given range, newest first
+     *
+     * @param from range start, inclusive
+     * @param to range end, inclusive
+     * @return transaction list
+     */
+    default List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        return findAll().stream()
+                .filter(transaction -> !transaction.getTimestamp().isBefore(from)
+                        && !transaction.getTimestamp().isAfter(to))
+                .toList();
+    }
+
     /**
      * Get transaction count
      * 
@@ -51,6 +109,13 @@ public interface TransactionDao {
      */
     long count();
 
+    /**
+     * Get store change count, it moves on every save, update and delete
+     *
+     * @return change count
+     */
+    long changeCount();
+
     /**
      * Delete By ID
      * 
@@ -59,6 +124,17 @@ public interface TransactionDao {
      */
     boolean deleteById(String id);
 
+    /**
+     * Delete By ID, answering with the removed transaction, stores that can do it in one step override it
+     *
+     * @param id TransactionID
+     * @return removed transaction, empty when there was none
+     */
+    default Optional<Transaction> removeById(String id) {
+        Optional<Transaction> existing = findById(id);
+        return existing.isPresent() && deleteById(id) ? existing : Optional.empty();
+    }
+
     /**
      * If Transaction exists
      * 
@@ -74,4 +150,22 @@ public interface TransactionDao {
      * @return Exists or Not
      */
     boolean existsByTransactionReference(String transactionReference);
-} 
\ No newline at end of file
+
+    /**
+     * Drop the transactions past the retention period, stores without retention keep everything
+     *
+     * @return dropped transactions, as they were when dropped
+     */
+    default List<Transaction> purgeExpired() {
+        return List.of();
+    }
+
+    /**
+     * Store internals for monitoring, sizes and footprint, cheap enough to scrape continuously
+     *
+     * @return details by name
+     */
+    default Map<String, Object> storeDetails() {
+        return Map.of("transactions", count());
+    }
+}
@@ -0,0 +1,129 @@
+package com.bank.transaction.dao.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter over string keys
+ *
+ * Answers "definitely absent" or "maybe present". Used for immutable key sets such as
+ * a cold partition, where it is written next to the data and loaded with it.
+ *
+ * @author YUNING TAO
+ */
+class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    private BloomFilter(long[] bits, int hashFunctions) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length * Long.SIZE;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Create an empty filter
+     *
+     * @param expectedInsertions number of keys the filter is sized for
+     * @param falsePositiveRate target false positive rate at that size
+     */
+    static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long size = optimalSize(expectedInsertions, falsePositiveRate);
+        return new BloomFilter(new long[(int) ((size + Long.SIZE - 1) / Long.SIZE)],
+                optimalHashFunctions(expectedInsertions, size));
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(ByteBuffer)} at the given position
+     */
+    static BloomFilter readFrom(ByteBuffer buffer, int position) {
+        int hashFunctions = buffer.getInt(position);
+        int words = buffer.getInt(position + 4);
+        long[] bits = new long[words];
+        for (int i = 0; i < words; i++) {
+            bits[i] = buffer.getLong(position + 8 + 8 * i);
+        }
+        return new BloomFilter(bits, hashFunctions);
+    }
+
+    void put(String key) {
+        long hash = hash(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = index(hash1, hash2, i, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = index(hash1, hash2, i, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Size of the serialized filter
+     */
+    int serializedSize() {
+        return 8 + 8 * bits.length;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(hashFunctions).putInt(bits.length);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+
+    // Hashing shared with the counting filter
+
+    /**
+     * 64-bit hash of the UTF-8 bytes of a key, split in two for double hashing
+     */
+    static long hash(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // Murmur3 finalizer, spreads FNV's weak high bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    static long index(int hash1, int hash2, int i, long size) {
+        int combined = hash1 + i * hash2;
+        if (combined < 0) {
+            combined = ~combined;
+        }
+        return combined % size;
+    }
+
+    static long optimalSize(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedInsertions);
+        return Math.max(Long.SIZE, (long) (-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+    }
+
+    static int optimalHashFunctions(long expectedInsertions, long size) {
+        long n = Math.max(1, expectedInsertions);
+        return Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+    }
+}
@@ -0,0 +1,400 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, memory-mapped file holding one cold partition of the store
+ *
+ * Records are written newest first. Sorted offset tables on id and reference give
+ * binary-search lookups without loading the records on the heap. Bloom filters on id and
+ * reference are stored with the partition and answer most negative lookups without a search.
+ * Deletes and updates of cold records are kept as in-memory tombstones until the partition
+ * is rewritten.
+ *
+ * <pre>
+ * header   magic, format, partition start, count, reference count, index offsets
+ * records  id, reference, amount in minor units, currency numeric code, type code, timestamp, version,
+ *          source and destination account
+ * order    record offsets, timestamp desc
+ * ids      record offsets, sorted by id bytes
+ * refs     record offsets, sorted by reference bytes
+ * filters  id and reference Bloom filters, optional
+ * </pre>
+ *
+ * @author YUNING TAO
+ */
+class ColdSegmentFile {
+
+    private static final int MAGIC = 0x54584e43;
+    private static final int FORMAT = 4;
+    private static final int HEADER_SIZE = 64;
+
+    private final Path path;
+    private final long partitionStart;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int referenceCount;
+    private final int orderIndex;
+    private final int idIndex;
+    private final int referenceIndex;
+    private final BloomFilter idFilter;
+    private final BloomFilter referenceFilter;
+    private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+
+    private ColdSegmentFile(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IllegalStateException("Not a cold transaction segment: " + path);
+        }
+        this.partitionStart = buffer.getLong(8);
+        this.count = buffer.getInt(16);
+        this.referenceCount = buffer.getInt(20);
+        this.orderIndex = (int) buffer.getLong(24);
+        this.idIndex = (int) buffer.getLong(32);
+        this.referenceIndex = (int) buffer.getLong(40);
+        long idFilterOffset = buffer.getLong(48);
+        long referenceFilterOffset = buffer.getLong(56);
+        this.idFilter = idFilterOffset > 0 ? BloomFilter.readFrom(buffer, (int) idFilterOffset) : null;
+        this.referenceFilter = referenceFilterOffset > 0
+                ? BloomFilter.readFrom(buffer, (int) referenceFilterOffset) : null;
+    }
+
+    /**
+     * Write a partition to disk and map it
+     *
+     * @param path target file, replaced atomically
+     * @param partitionStart partition start in epoch millis
+     * @param transactions partition content, timestamp desc
+     * @param falsePositiveRate false positive rate of the Bloom filters, zero writes none
+     * @return mapped file
+     */
+    static ColdSegmentFile write(Path path, long partitionStart, List<Transaction> transactions,
+                                 double falsePositiveRate) {
+        int count = transactions.size();
+        byte[][] ids = new byte[count][];
+        byte[][] references = new byte[count][];
+        byte[][] records = new byte[count][];
+        int referenceCount = 0;
+        long recordBytes = 0;
+        BloomFilter idFilter = falsePositiveRate > 0 ? BloomFilter.create(count, falsePositiveRate) : null;
+        BloomFilter referenceFilter = falsePositiveRate > 0 ? BloomFilter.create(count, falsePositiveRate) : null;
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = transactions.get(i);
+            ids[i] = transaction.getId().getBytes(StandardCharsets.UTF_8);
+            if (transaction.getTransactionReference() != null) {
+                references[i] = transaction.getTransactionReference().getBytes(StandardCharsets.UTF_8);
+                referenceCount++;
+            }
+            if (idFilter != null) {
+                idFilter.put(transaction.getId());
+                if (transaction.getTransactionReference() != null) {
+                    referenceFilter.put(transaction.getTransactionReference());
+                }
+            }
+            records[i] = encode(transaction, ids[i], references[i]);
+            recordBytes += records[i].length;
+        }
+
+        long orderIndex = HEADER_SIZE + recordBytes;
+        long idIndex = orderIndex + 4L * count;
+        long referenceIndex = idIndex + 4L * count;
+        long idFilterOffset = idFilter != null ? referenceIndex + 4L * referenceCount : 0;
+        long referenceFilterOffset = idFilter != null ? idFilterOffset + idFilter.serializedSize() : 0;
+        long size = idFilter != null
+                ? referenceFilterOffset + referenceFilter.serializedSize()
+                : referenceIndex + 4L * referenceCount;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cold partition too large: " + size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.putInt(MAGIC).putInt(FORMAT).putLong(partitionStart)
+                .putInt(count).putInt(referenceCount)
+                .putLong(orderIndex).putLong(idIndex).putLong(referenceIndex)
+                .putLong(idFilterOffset).putLong(referenceFilterOffset);
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = out.position();
+            out.put(records[i]);
+        }
+        for (int offset : offsets) {
+            out.putInt(offset);
+        }
+        for (Integer i : sortedPositions(ids, count)) {
+            out.putInt(offsets[i]);
+        }
+        for (Integer i : sortedPositions(references, count)) {
+            out.putInt(offsets[i]);
+        }
+        if (idFilter != null) {
+            idFilter.writeTo(out);
+            referenceFilter.writeTo(out);
+        }
+        out.flip();
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cold partition " + path, e);
+        }
+    }
+
+    /**
+     * Map an existing partition file
+     */
+    static ColdSegmentFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColdSegmentFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    long getPartitionStart() {
+        return partitionStart;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int liveCount() {
+        return count - tombstones.size();
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    Set<String> tombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Bloom filter check, false means the id is not in this partition
+     */
+    boolean mightContainId(String id) {
+        return idFilter == null || idFilter.mightContain(id);
+    }
+
+    /**
+     * Bloom filter check, false means the reference is not in this partition
+     */
+    boolean mightContainReference(String reference) {
+        return referenceFilter == null || referenceFilter.mightContain(reference);
+    }
+
+    Transaction findById(String id) {
+        if (!mightContainId(id) || tombstones.contains(id)) {
+            return null;
+        }
+        int offset = search(idIndex, count, id.getBytes(StandardCharsets.UTF_8), false);
+        return offset >= 0 ? decode(offset) : null;
+    }
+
+    boolean containsId(String id) {
+        return mightContainId(id) && !tombstones.contains(id)
+                && search(idIndex, count, id.getBytes(StandardCharsets.UTF_8), false) >= 0;
+    }
+
+    String findIdByReference(String reference) {
+        if (!mightContainReference(reference)) {
+            return null;
+        }
+        int offset = search(referenceIndex, referenceCount, reference.getBytes(StandardCharsets.UTF_8), true);
+        if (offset < 0) {
+            return null;
+        }
+        String id = readString(offset);
+        return tombstones.contains(id) ? null : id;
+    }
+
+    /**
+     * Hide a record, it is dropped for good when the partition is rewritten
+     *
+     * @return true if the record was live
+     */
+    boolean tombstone(String id) {
+        return containsId(id) && tombstones.add(id);
+    }
+
+    /**
+     * Add up to limit live records after skipping the first ones
+     *
+     * @return skip count still left
+     */
+    long collect(long skip, int limit, List<Transaction> result) {
+        int added = 0;
+        for (int i = 0; i < count && added < limit; i++) {
+            int offset = buffer.getInt(orderIndex + 4 * i);
+            if (!tombstones.isEmpty() && tombstones.contains(readString(offset))) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(decode(offset));
+            added++;
+        }
+        return skip;
+    }
+
+    List<Transaction> liveTransactions() {
+        List<Transaction> result = new ArrayList<>(liveCount());
+        collect(0, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete cold partition " + path, e);
+        }
+    }
+
+    /**
+     * Binary search an offset table, the key is the first (id) or second (reference) string of a record
+     */
+    private int search(int index, int size, byte[] key, boolean byReference) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(index + 4 * mid);
+            int cmp = compare(byReference ? skipString(offset) : offset, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int position, byte[] key) {
+        int length = buffer.getShort(position);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(position + 2 + i) & 0xff, key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private Transaction decode(int offset) {
+        int position = offset;
+        String id = readString(position);
+        position = skipString(position);
+        String reference = readString(position);
+        position = skipString(position);
+        long amount = buffer.getLong(position);
+        CurrencyCode currency = CurrencyCode.fromNumericCode(buffer.getShort(position + 8));
+        TransactionType transactionType = TransactionType.fromBinaryCode(buffer.get(position + 10));
+        position += 11;
+        long epochSecond = buffer.getLong(position);
+        int nano = buffer.getInt(position + 8);
+        long version = buffer.getLong(position + 12);
+        position += 20;
+        String sourceAccountId = readString(position);
+        String destinationAccountId = readString(skipString(position));
+
+        return new Transaction(id, amount, currency, transactionType, reference, sourceAccountId,
+                destinationAccountId, LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC), version);
+    }
+
+    private String readString(int position) {
+        int length = buffer.getShort(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int position) {
+        return position + 2 + Math.max(0, buffer.getShort(position));
+    }
+
+    private static byte[] encode(Transaction transaction, byte[] id, byte[] reference) {
+        byte[] sourceAccountId = bytesOf(transaction.getSourceAccountId());
+        byte[] destinationAccountId = bytesOf(transaction.getDestinationAccountId());
+        int size = 2 + id.length + 2 + (reference != null ? reference.length : 0) + 8 + 2 + 1 + 8 + 4 + 8
+                + 2 + (sourceAccountId != null ? sourceAccountId.length : 0)
+                + 2 + (destinationAccountId != null ? destinationAccountId.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(size);
+        putString(record, id);
+        putString(record, reference);
+        record.putLong(transaction.getAmountMinorUnits());
+        record.putShort((short) transaction.getCurrency().getNumericCode());
+        record.put((byte) transaction.getTransactionType().getCode());
+        record.putLong(transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        record.putInt(transaction.getTimestamp().getNano());
+        record.putLong(transaction.getVersion());
+        putString(record, sourceAccountId);
+        putString(record, destinationAccountId);
+        return record.array();
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        if (value.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value too long for cold partition: " + value.length + " bytes");
+        }
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    /**
+     * Positions of the non-null keys, ordered by unsigned key bytes
+     */
+    private static List<Integer> sortedPositions(byte[][] keys, int count) {
+        List<Integer> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != null) {
+                positions.add(i);
+            }
+        }
+        positions.sort((a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+        return positions;
+    }
+}
@@ -0,0 +1,89 @@
+package com.bank.transaction.dao.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over string keys
+ *
+ * Keeps a 4-bit counter per slot instead of a bit, so keys can be removed again.
+ * A counter that reaches its maximum sticks there, which keeps the filter free of false
+ * negatives at the price of a few extra false positives. Safe for concurrent use.
+ *
+ * @author YUNING TAO
+ */
+class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray counters;
+    private final long counterCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions number of keys the filter is sized for
+     * @param falsePositiveRate target false positive rate at that size
+     */
+    CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long size = BloomFilter.optimalSize(expectedInsertions, falsePositiveRate);
+        int words = (int) ((size + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.counters = new AtomicLongArray(words);
+        this.counterCount = (long) words * COUNTERS_PER_WORD;
+        this.hashFunctions = BloomFilter.optimalHashFunctions(expectedInsertions, size);
+    }
+
+    long sizeInBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    void add(String key) {
+        long hash = BloomFilter.hash(key);
+        for (int i = 1; i <= hashFunctions; i++) {
+            update(BloomFilter.index((int) hash, (int) (hash >>> 32), i, counterCount), 1);
+        }
+    }
+
+    void remove(String key) {
+        long hash = BloomFilter.hash(key);
+        for (int i = 1; i <= hashFunctions; i++) {
+            update(BloomFilter.index((int) hash, (int) (hash >>> 32), i, counterCount), -1);
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = BloomFilter.hash(key);
+        for (int i = 1; i <= hashFunctions; i++) {
+            if (counter(BloomFilter.index((int) hash, (int) (hash >>> 32), i, counterCount)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long counter(long index) {
+        long word = counters.get((int) (index / COUNTERS_PER_WORD));
+        return (word >>> shift(index)) & COUNTER_MAX;
+    }
+
+    private void update(long index, int delta) {
+        int wordIndex = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long word = counters.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MAX;
+            // Saturated counters no longer know their count, they are never decremented
+            if (counter == COUNTER_MAX || (delta < 0 && counter == 0)) {
+                return;
+            }
+            long updated = word + ((long) delta << shift);
+            if (counters.compareAndSet(wordIndex, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+}
@@ -0,0 +1,757 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JDBC Transaction DAO
+ *
+ * Keeps transactions in an embedded H2 database for auditing. Saves and updates are handed
+ * to a single writer thread that commits whatever is queued as one database transaction,
+ * so concurrent callers share a commit instead of paying one each. The writer is also the
+ * only place that checks reference uniqueness, which keeps the check free of races.
+ * The counting filters in front of id and reference lookups follow the committed rows: a
+ * rejected write adds nothing, and a replaced reference is removed again.
+ *
+ * @author YUNING TAO
+ */
+@Repository
+@ConditionalOnProperty(prefix = "transaction.store", name = "engine", havingValue = "jdbc")
+public class JdbcTransactionDao implements TransactionDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcTransactionDao.class);
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS transactions ("
+                    + "id VARCHAR(64) PRIMARY KEY, "
+                    + "transaction_reference VARCHAR(255), "
+                    + "amount_minor BIGINT NOT NULL, "
+                    + "currency VARCHAR(16), "
+                    + "transaction_type VARCHAR(64), "
+                    + "created_at TIMESTAMP(9) NOT NULL, "
+                    + "row_version BIGINT NOT NULL, "
+                    + "source_account VARCHAR(64), "
+                    + "destination_account VARCHAR(64))",
+            "ALTER TABLE transactions ADD COLUMN IF NOT EXISTS source_account VARCHAR(64)",
+            "ALTER TABLE transactions ADD COLUMN IF NOT EXISTS destination_account VARCHAR(64)",
+            "CREATE INDEX IF NOT EXISTS ix_transactions_created_at ON transactions (created_at DESC, id)",
+            "CREATE INDEX IF NOT EXISTS ix_transactions_reference ON transactions (transaction_reference)"
+    };
+
+    // Tables created with decimal amounts, only run while the amount column is still there
+    private static final String LEGACY_AMOUNT_COLUMN = "AMOUNT";
+    private static final String[] LEGACY_AMOUNT_MIGRATION = {
+            "ALTER TABLE transactions ADD COLUMN IF NOT EXISTS amount_minor BIGINT",
+            "UPDATE transactions SET amount_minor = CAST(ROUND(amount * " + minorUnitScale() + ") AS BIGINT) "
+                    + "WHERE amount_minor IS NULL",
+            "ALTER TABLE transactions DROP COLUMN amount"
+    };
+
+    private static final String COLUMNS = "id, transaction_reference, amount_minor, currency, transaction_type, "
+            + "created_at, row_version, source_account, destination_account";
+    private static final String ORDER = " ORDER BY created_at DESC, id";
+
+    private static final String MERGE = "MERGE INTO transactions (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM transactions WHERE id = ?";
+    private static final String SELECT_BY_IDS = "SELECT " + COLUMNS + " FROM transactions WHERE id = ANY(?)";
+    private static final String SELECT_ID_BY_REFERENCE = "SELECT id FROM transactions WHERE transaction_reference = ?";
+    // Locks the rows a batch is about to write, a concurrent delete then sees the written state
+    private static final String SELECT_ROWS_FOR_UPDATE = "SELECT id, transaction_reference, row_version FROM transactions "
+            + "WHERE id = ANY(?) FOR UPDATE";
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM transactions" + ORDER;
+    private static final String SELECT_PAGE = SELECT_ALL + " LIMIT ? OFFSET ?";
+    // Keyset continuation after the last row of the previous page, served by the created_at index
+    private static final String SELECT_PAGE_AFTER = "SELECT " + COLUMNS + " FROM transactions "
+            + "WHERE created_at <= ? AND (created_at < ? OR id > ?)" + ORDER + " LIMIT ?";
+    private static final String SELECT_BETWEEN = "SELECT " + COLUMNS + " FROM transactions "
+            + "WHERE created_at BETWEEN ? AND ?" + ORDER;
+    private static final String SELECT_KEYS = "SELECT id, transaction_reference FROM transactions";
+    private static final String COUNT = "SELECT COUNT(*) FROM transactions";
+    private static final String DELETE = "DELETE FROM transactions WHERE id = ?";
+
+    private static final int MAX_PAGE_CURSORS = 1024;
+
+    private final HikariDataSource dataSource;
+    private final int batchSize;
+    private final long maxBatchDelayNanos;
+    private final long writeTimeoutNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Starts from the clock, so list ETags of an earlier run are not reused
+    private final AtomicLong changeCount = new AtomicLong(System.currentTimeMillis());
+    private final KeyFilter ids;
+    private final KeyFilter references;
+    // Last row of recently served pages, lets the next page continue with a keyset query
+    private final Map<Long, PageCursor> pageCursors = new ConcurrentHashMap<>();
+
+    private final DistributionSummary batchSizes;
+    private final Timer commitLatency;
+
+    public JdbcTransactionDao(TransactionStoreProperties properties, MeterRegistry meterRegistry) {
+        TransactionStoreProperties.Jdbc jdbc = properties.getJdbc();
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("transaction-store");
+        config.setJdbcUrl(jdbc.getUrl());
+        config.setUsername(jdbc.getUsername());
+        config.setPassword(jdbc.getPassword());
+        config.setMaximumPoolSize(jdbc.getMaximumPoolSize());
+        this.dataSource = new HikariDataSource(config);
+        this.batchSize = Math.max(1, jdbc.getBatchSize());
+        this.maxBatchDelayNanos = jdbc.getMaxBatchDelay().toNanos();
+        this.writeTimeoutNanos = jdbc.getWriteTimeout().toNanos();
+        this.queue = new LinkedBlockingQueue<>(jdbc.getQueueCapacity());
+
+        this.ids = new KeyFilter("id", properties.getFilter(), meterRegistry);
+        this.references = new KeyFilter("reference", properties.getFilter(), meterRegistry);
+        this.batchSizes = DistributionSummary.builder("transaction.store.jdbc.batch.size")
+                .description("Writes committed per database transaction")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.commitLatency = Timer.builder("transaction.store.jdbc.commit.latency")
+                .description("Time to write and commit one batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("transaction.store.jdbc.queue", queue, Collection::size)
+                .description("Writes waiting for the batch writer")
+                .register(meterRegistry);
+
+        createSchema();
+        loadFilters();
+
+        this.writer = new Thread(this::runWriter, "transaction-jdbc-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+        submit(new PendingWrite(transaction, -1));
+        return transaction;
+    }
+
+    @Override
+    public void saveAll(Collection<Transaction> transactions) {
+        List<PendingWrite> writes = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (transaction == null) {
+                throw new IllegalArgumentException("Transaction cannot be empty");
+            }
+            writes.add(new PendingWrite(transaction, -1));
+        }
+        // Queued together, so they usually share one batch and commit
+        enqueue(writes);
+        RuntimeException failure = null;
+        for (PendingWrite write : writes) {
+            try {
+                await(write);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public Optional<Transaction> update(Transaction transaction, long expectedVersion) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+        Transaction next = transaction.withVersion(expectedVersion + 1);
+        return submit(new PendingWrite(next, expectedVersion)) ? Optional.of(next) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Transaction> findById(String id) {
+        if (id == null || id.trim().isEmpty() || !ids.mightContain(id)) {
+            return Optional.empty();
+        }
+        List<Transaction> result = query(SELECT_BY_ID, statement -> statement.setString(1, id));
+        if (result.isEmpty()) {
+            ids.falsePositive();
+        }
+        return result.stream().findFirst();
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<String> ids) {
+        List<String> candidates = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (id != null && this.ids.mightContain(id)) {
+                candidates.add(id);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // One statement for any number of ids, the array is bound as a single parameter
+        return query(SELECT_BY_IDS, statement -> statement.setArray(1,
+                statement.getConnection().createArrayOf("VARCHAR", candidates.toArray())));
+    }
+
+    @Override
+    public Optional<Transaction> findByTransactionReference(String transactionReference) {
+        String id = findIdByReference(transactionReference);
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return query(SELECT_ALL, statement -> { });
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        if (page < 0 || size <= 0) {
+            return Collections.emptyList();
+        }
+
+        long changes = changeCount.get();
+        PageCursor previous = page > 0 ? pageCursors.get(cursorKey(page - 1, size)) : null;
+        List<Transaction> result;
+        if (previous != null && previous.changeCount == changes) {
+            result = query(SELECT_PAGE_AFTER, statement -> {
+                statement.setObject(1, previous.timestamp);
+                statement.setObject(2, previous.timestamp);
+                statement.setString(3, previous.id);
+                statement.setInt(4, size);
+            });
+        } else {
+            result = query(SELECT_PAGE, statement -> {
+                statement.setInt(1, size);
+                statement.setLong(2, (long) page * size);
+            });
+        }
+
+        if (!result.isEmpty()) {
+            if (pageCursors.size() >= MAX_PAGE_CURSORS) {
+                pageCursors.clear();
+            }
+            Transaction last = result.get(result.size() - 1);
+            pageCursors.put(cursorKey(page, size), new PageCursor(changes, last.getTimestamp(), last.getId()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            return Collections.emptyList();
+        }
+        return query(SELECT_BETWEEN, statement -> {
+            statement.setObject(1, from);
+            statement.setObject(2, to);
+        });
+    }
+
+    @Override
+    public long count() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(COUNT);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to count transactions", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> storeDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("engine", "jdbc");
+        details.put("transactions", count());
+        details.put("writeQueue", queue.size());
+        details.put("pageCursors", pageCursors.size());
+        details.put("filterBytes", ids.sizeInBytes() + references.sizeInBytes());
+        return details;
+    }
+
+    @Override
+    public long changeCount() {
+        return changeCount.get();
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return removeById(id).isPresent();
+    }
+
+    @Override
+    public Optional<Transaction> removeById(String id) {
+        if (id == null || id.trim().isEmpty() || !ids.mightContain(id)) {
+            return Optional.empty();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(SELECT_BY_ID + " FOR UPDATE");
+                 PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                select.setString(1, id);
+                Transaction removed;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    if (!resultSet.next()) {
+                        connection.rollback();
+                        ids.falsePositive();
+                        return Optional.empty();
+                    }
+                    removed = mapRow(resultSet);
+                }
+                delete.setString(1, id);
+                delete.executeUpdate();
+                connection.commit();
+                ids.remove(id);
+                references.remove(removed.getTransactionReference());
+                changeCount.incrementAndGet();
+                return Optional.of(removed);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to delete transaction " + id, e);
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public boolean existsByTransactionReference(String transactionReference) {
+        return findIdByReference(transactionReference) != null;
+    }
+
+    /**
+     * Commit what is still queued and close the pool
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Writes that raced with the shutdown are not waited for
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.result.completeExceptionally(new IllegalStateException("Transaction store is shutting down"));
+        }
+        dataSource.close();
+    }
+
+    private String findIdByReference(String reference) {
+        if (reference == null || reference.trim().isEmpty() || !references.mightContain(reference)) {
+            return null;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ID_BY_REFERENCE)) {
+            String id = findIdByReference(statement, reference);
+            if (id == null) {
+                references.falsePositive();
+            }
+            return id;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to look up transaction reference " + reference, e);
+        }
+    }
+
+    private boolean submit(PendingWrite write) {
+        enqueue(List.of(write));
+        return await(write);
+    }
+
+    private void enqueue(List<PendingWrite> writes) {
+        if (!running) {
+            throw new IllegalStateException("Transaction store is shutting down");
+        }
+        try {
+            for (PendingWrite write : writes) {
+                queue.put(write);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing transaction", e);
+        }
+    }
+
+    private boolean await(PendingWrite write) {
+        try {
+            return write.result.get(writeTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing transaction", e);
+        } catch (TimeoutException e) {
+            // The writer may still commit it, the caller only stops waiting
+            throw new IllegalStateException("Timed out waiting for the transaction writer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to write transaction", e.getCause());
+        }
+    }
+
+    // Batch writer
+
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        WriterSession session = null;
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                // Optionally linger a little to fill small batches
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < batchSize && maxBatchDelayNanos > 0) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                if (session == null) {
+                    session = new WriterSession(dataSource.getConnection());
+                }
+                writeBatch(session, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (SQLException | RuntimeException e) {
+                logger.error("Failed to write transaction batch of {}", batch.size(), e);
+                batch.forEach(write -> write.result.completeExceptionally(
+                        new IllegalStateException("Failed to write transaction", e)));
+                session = closeQuietly(session);
+            } finally {
+                batch.clear();
+            }
+        }
+        closeQuietly(session);
+    }
+
+    /**
+     * Apply a batch in queue order within one database transaction
+     *
+     * The rows the batch touches are locked first, so versions and references are checked
+     * against their state as each earlier write of the batch leaves it. A reference a write
+     * gives up is free for the writes after it, and a rejected write claims nothing. Every
+     * accepted write goes out as a merge of its full row, in order.
+     */
+    private void writeBatch(WriterSession session, List<PendingWrite> batch) throws SQLException {
+        long started = System.nanoTime();
+        List<PendingWrite> accepted = new ArrayList<>(batch.size());
+        List<PendingWrite> rejected = new ArrayList<>();
+        PreparedStatement merge = session.merge;
+        Map<String, StoredRow> stored;
+        try {
+            // State of every id the batch writes, as the writes so far leave it, absent for new ids
+            stored = storedRows(session, batch);
+            Map<String, StoredRow> rows = new HashMap<>(stored);
+            // Owner of every reference the writes so far took or gave up, null once given up
+            Map<String, String> owners = new HashMap<>();
+            for (PendingWrite write : batch) {
+                Transaction transaction = write.transaction;
+                StoredRow row = rows.get(transaction.getId());
+                if (write.expectedVersion >= 0 && (row == null || row.version != write.expectedVersion)) {
+                    rejected.add(write);
+                    continue;
+                }
+                String reference = transaction.getTransactionReference();
+                if (reference != null && !reference.trim().isEmpty()) {
+                    String owner = owners.containsKey(reference) ? owners.get(reference)
+                            : references.mightContain(reference) ? findIdByReference(session.lookup, reference) : null;
+                    if (owner != null && !owner.equals(transaction.getId())) {
+                        write.result.completeExceptionally(
+                                new IllegalArgumentException("Transaction reference already exists: " + reference));
+                        continue;
+                    }
+                    owners.put(reference, transaction.getId());
+                }
+                if (row != null && row.reference != null && !row.reference.equals(reference)) {
+                    owners.put(row.reference, null);
+                }
+                rows.put(transaction.getId(), new StoredRow(reference, transaction.getVersion()));
+
+                bindMerge(merge, transaction);
+                merge.addBatch();
+                accepted.add(write);
+            }
+
+            if (!accepted.isEmpty()) {
+                merge.executeBatch();
+            }
+            session.connection.commit();
+        } catch (SQLException e) {
+            merge.clearBatch();
+            session.connection.rollback();
+            throw e;
+        }
+
+        // Filters only learn committed rows, in batch order, and forget the references they replaced
+        for (PendingWrite write : accepted) {
+            Transaction transaction = write.transaction;
+            StoredRow previous = stored.put(transaction.getId(),
+                    new StoredRow(transaction.getTransactionReference(), transaction.getVersion()));
+            if (previous == null) {
+                ids.add(transaction.getId());
+                references.add(transaction.getTransactionReference());
+            } else if (!Objects.equals(previous.reference, transaction.getTransactionReference())) {
+                references.remove(previous.reference);
+                references.add(transaction.getTransactionReference());
+            }
+        }
+        accepted.forEach(write -> write.result.complete(true));
+        rejected.forEach(write -> write.result.complete(false));
+        changeCount.addAndGet(accepted.size());
+        batchSizes.record(batch.size());
+        commitLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private static Map<String, StoredRow> storedRows(WriterSession session, List<PendingWrite> batch)
+            throws SQLException {
+        Set<String> batchIds = new HashSet<>();
+        batch.forEach(write -> batchIds.add(write.transaction.getId()));
+        session.storedRows.setArray(1, session.connection.createArrayOf("VARCHAR", batchIds.toArray()));
+        Map<String, StoredRow> stored = new HashMap<>();
+        try (ResultSet resultSet = session.storedRows.executeQuery()) {
+            while (resultSet.next()) {
+                stored.put(resultSet.getString(1), new StoredRow(resultSet.getString(2), resultSet.getLong(3)));
+            }
+        }
+        return stored;
+    }
+
+    // JDBC helpers
+
+    private void createSchema() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+            if (hasColumn(connection, LEGACY_AMOUNT_COLUMN)) {
+                logger.info("Converting decimal transaction amounts to minor units");
+                for (String ddl : LEGACY_AMOUNT_MIGRATION) {
+                    statement.execute(ddl);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create transaction schema", e);
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(null, null, "TRANSACTIONS", column)) {
+            return columns.next();
+        }
+    }
+
+    /**
+     * Rebuild the membership filters from the stored keys
+     */
+    private void loadFilters() {
+        long loaded = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_KEYS);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getString(1));
+                references.add(resultSet.getString(2));
+                loaded++;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load transaction keys", e);
+        }
+        logger.info("Loaded {} transaction keys into the store filters", loaded);
+    }
+
+    private List<Transaction> query(String sql, StatementBinder binder) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            List<Transaction> result = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(mapRow(resultSet));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query transactions", e);
+        }
+    }
+
+    private static String findIdByReference(PreparedStatement statement, String reference) throws SQLException {
+        statement.setString(1, reference);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    /**
+     * SQL expression of the minor units per major unit of the row's currency
+     */
+    private static String minorUnitScale() {
+        StringBuilder scale = new StringBuilder("CASE UPPER(currency)");
+        for (CurrencyCode currency : CurrencyCode.values()) {
+            scale.append(" WHEN '").append(currency.name()).append("' THEN ")
+                    .append(BigDecimal.ONE.movePointRight(currency.getFractionDigits()).toPlainString());
+        }
+        return scale.append(" ELSE 1 END").toString();
+    }
+
+    private static Transaction mapRow(ResultSet resultSet) throws SQLException {
+        return new Transaction(
+                resultSet.getString("id"),
+                resultSet.getLong("amount_minor"),
+                CurrencyCode.fromCode(resultSet.getString("currency")),
+                TransactionType.fromCode(resultSet.getString("transaction_type")),
+                resultSet.getString("transaction_reference"),
+                resultSet.getString("source_account"),
+                resultSet.getString("destination_account"),
+                resultSet.getObject("created_at", LocalDateTime.class),
+                resultSet.getLong("row_version"));
+    }
+
+    private static void bindMerge(PreparedStatement statement, Transaction transaction) throws SQLException {
+        statement.setString(1, transaction.getId());
+        statement.setString(2, transaction.getTransactionReference());
+        statement.setLong(3, transaction.getAmountMinorUnits());
+        statement.setString(4, transaction.getCurrency().name());
+        statement.setString(5, transaction.getTransactionType().name());
+        statement.setObject(6, transaction.getTimestamp());
+        statement.setLong(7, transaction.getVersion());
+        statement.setString(8, transaction.getSourceAccountId());
+        statement.setString(9, transaction.getDestinationAccountId());
+    }
+
+    private static WriterSession closeQuietly(WriterSession session) {
+        if (session != null) {
+            try {
+                session.close();
+            } catch (SQLException e) {
+                logger.warn("Failed to close writer connection", e);
+            }
+        }
+        return null;
+    }
+
+    private static long cursorKey(int page, int size) {
+        return ((long) size << 32) | page;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * Save or versioned update waiting for the writer, a negative expected version marks a save
+     */
+    private static final class PendingWrite {
+        private final Transaction transaction;
+        private final long expectedVersion;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private PendingWrite(Transaction transaction, long expectedVersion) {
+            this.transaction = transaction;
+            this.expectedVersion = expectedVersion;
+        }
+    }
+
+    /**
+     * Reference and version of a row, as stored or as the writes of a batch leave it
+     */
+    private static final class StoredRow {
+        private final String reference;
+        private final long version;
+
+        private StoredRow(String reference, long version) {
+            this.reference = reference;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Connection and statements owned by the writer thread, prepared once and reused per batch
+     */
+    private static final class WriterSession implements AutoCloseable {
+        private final Connection connection;
+        private final PreparedStatement lookup;
+        private final PreparedStatement storedRows;
+        private final PreparedStatement merge;
+
+        private WriterSession(Connection connection) throws SQLException {
+            this.connection = connection;
+            connection.setAutoCommit(false);
+            this.lookup = connection.prepareStatement(SELECT_ID_BY_REFERENCE);
+            this.storedRows = connection.prepareStatement(SELECT_ROWS_FOR_UPDATE);
+            this.merge = connection.prepareStatement(MERGE);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            // Closing the connection closes its statements
+            connection.close();
+        }
+    }
+
+    private static final class PageCursor {
+        private final long changeCount;
+        private final LocalDateTime timestamp;
+        private final String id;
+
+        private PageCursor(long changeCount, LocalDateTime timestamp, String id) {
+            this.changeCount = changeCount;
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+}
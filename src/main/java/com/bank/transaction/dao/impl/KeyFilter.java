@@ -0,0 +1,85 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counting Bloom filter in front of a slow key lookup, with hit rate metrics
+ *
+ * When filters are disabled every key may be present and nothing is counted.
+ *
+ * @author YUNING TAO
+ */
+class KeyFilter {
+
+    private final CountingBloomFilter filter;
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    /**
+     * @param name filter tag, e.g. id or reference
+     */
+    KeyFilter(String name, TransactionStoreProperties.Filter settings, MeterRegistry meterRegistry) {
+        if (!settings.isEnabled()) {
+            this.filter = null;
+            this.negatives = null;
+            this.positives = null;
+            this.falsePositives = null;
+            return;
+        }
+        this.filter = new CountingBloomFilter(settings.getExpectedInsertions(), settings.getFalsePositiveRate());
+        this.negatives = counter(meterRegistry, name, "negative");
+        this.positives = counter(meterRegistry, name, "positive");
+        this.falsePositives = counter(meterRegistry, name, "false_positive");
+    }
+
+    /**
+     * @return false when the key is definitely absent
+     */
+    boolean mightContain(String key) {
+        if (filter == null) {
+            return true;
+        }
+        if (!filter.mightContain(key)) {
+            negatives.increment();
+            return false;
+        }
+        positives.increment();
+        return true;
+    }
+
+    /**
+     * Report that the lookup behind a positive check found nothing
+     */
+    void falsePositive() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    long sizeInBytes() {
+        return filter != null ? filter.sizeInBytes() : 0;
+    }
+
+    void add(String key) {
+        if (filter != null && key != null) {
+            filter.add(key);
+        }
+    }
+
+    void remove(String key) {
+        if (filter != null && key != null) {
+            filter.remove(key);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("transaction.store.filter.checks")
+                .description("Bloom filter checks in front of slow key lookups")
+                .tag("filter", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
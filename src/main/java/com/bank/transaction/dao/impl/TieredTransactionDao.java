@@ -0,0 +1,574 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Tiered Transaction DAO
+ *
+ * Recent partitions stay on the heap in a {@link TransactionDaoImpl}, older ones are moved in
+ * the background to sorted, memory-mapped {@link ColdSegmentFile}s. Reads look at the hot tier
+ * first. Updating a cold transaction promotes it back to the hot tier.
+ * Counting Bloom filters over all cold ids and references answer most negative lookups, such as
+ * the reference check of every create, without touching the cold files.
+ * Every write holds the tier lock shared from its reference check to its last store write, so a
+ * partition never moves between tiers under it.
+ *
+ * @author YUNING TAO
+ */
+@Repository
+@ConditionalOnProperty(prefix = "transaction.store", name = "engine", havingValue = "tiered")
+public class TieredTransactionDao implements TransactionDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredTransactionDao.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Same order as the hot segments, timestamp desc then id
+    private static final Comparator<Transaction> ORDER = Comparator
+            .comparing(Transaction::getTimestamp, Comparator.reverseOrder())
+            .thenComparing(Transaction::getId);
+
+    private final TransactionDaoImpl hot;
+    private final ConcurrentSkipListMap<Long, ColdSegmentFile> cold = new ConcurrentSkipListMap<>();
+    // Readers of both tiers share it, swapping a partition between tiers takes it exclusively
+    private final ReadWriteLock tierLock = new ReentrantReadWriteLock();
+    private final Path directory;
+    private final long hotWindowMillis;
+    private final long retentionMillis;
+    private final AtomicLong coldChangeCount = new AtomicLong();
+    private final AtomicLong fileGeneration = new AtomicLong();
+    private final double falsePositiveRate;
+    private final KeyFilter coldIds;
+    private final KeyFilter coldReferences;
+
+    private final Counter coldReads;
+    private final Counter migrated;
+    private final Counter promoted;
+
+    public TieredTransactionDao(TransactionStoreProperties properties, MeterRegistry meterRegistry) {
+        this.hot = new TransactionDaoImpl(properties);
+        this.directory = Path.of(properties.getTiered().getDirectory());
+        this.hotWindowMillis = properties.getTiered().getHotWindow().toMillis();
+        this.retentionMillis = properties.getRetention() != null ? properties.getRetention().toMillis() : 0;
+        TransactionStoreProperties.Filter filter = properties.getFilter();
+        this.falsePositiveRate = filter.isEnabled() ? filter.getFalsePositiveRate() : 0;
+        this.coldIds = new KeyFilter("id", filter, meterRegistry);
+        this.coldReferences = new KeyFilter("reference", filter, meterRegistry);
+        // The store lives in memory, cold partitions of a previous run are discarded
+        deleteLeftoverSegments();
+
+        this.coldReads = Counter.builder("transaction.store.tier.reads")
+                .description("Reads answered by the cold tier")
+                .tag("tier", "cold")
+                .register(meterRegistry);
+        this.migrated = Counter.builder("transaction.store.tier.migrated")
+                .description("Transactions moved from the hot to the cold tier")
+                .register(meterRegistry);
+        this.promoted = Counter.builder("transaction.store.tier.promoted")
+                .description("Cold transactions moved back to the hot tier")
+                .register(meterRegistry);
+        Gauge.builder("transaction.store.tier.transactions", hot, TransactionDaoImpl::count)
+                .tag("tier", "hot")
+                .register(meterRegistry);
+        Gauge.builder("transaction.store.tier.transactions", this, TieredTransactionDao::coldCount)
+                .tag("tier", "cold")
+                .register(meterRegistry);
+        Gauge.builder("transaction.store.tier.bytes", this, TieredTransactionDao::coldBytes)
+                .tag("tier", "cold")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+
+        tierLock.readLock().lock();
+        try {
+            // Check if transaction reference already exists in the cold tier, the hot tier checks its own.
+            checkColdReference(transaction);
+            Transaction saved = hot.save(transaction);
+            // A re-saved cold transaction now lives in the hot tier
+            if (coldIds.mightContain(transaction.getId())) {
+                for (ColdSegmentFile file : cold.values()) {
+                    tombstone(file, transaction.getId());
+                }
+            }
+            return saved;
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Transaction> update(Transaction transaction, long expectedVersion) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+
+        tierLock.readLock().lock();
+        try {
+            checkColdReference(transaction);
+            Optional<Transaction> updated = hot.update(transaction, expectedVersion);
+            if (updated.isPresent()) {
+                return updated;
+            }
+
+            // The transaction may still be cold, then the update promotes it to the hot tier
+            ColdSegmentFile file = coldFileOf(transaction.getId());
+            if (file == null) {
+                return Optional.empty();
+            }
+            synchronized (file) {
+                Transaction current = file.findById(transaction.getId());
+                if (current == null || current.getVersion() != expectedVersion) {
+                    return Optional.empty();
+                }
+                Transaction next = transaction.withVersion(expectedVersion + 1);
+                // Publish hot first, readers always find one of the two versions
+                hot.save(next);
+                tombstone(file, transaction.getId());
+                promoted.increment();
+                return Optional.of(next);
+            }
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(String id) {
+        if (id == null || id.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Transaction> transaction = hot.findById(id);
+        if (transaction.isPresent()) {
+            return transaction;
+        }
+        ColdSegmentFile file = coldFileOf(id);
+        Transaction coldTransaction = file != null ? file.findById(id) : null;
+        if (coldTransaction != null) {
+            coldReads.increment();
+        }
+        return Optional.ofNullable(coldTransaction);
+    }
+
+    @Override
+    public Optional<Transaction> findByTransactionReference(String transactionReference) {
+        if (transactionReference == null || transactionReference.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Transaction> transaction = hot.findByTransactionReference(transactionReference);
+        if (transaction.isPresent()) {
+            return transaction;
+        }
+        String id = coldIdByReference(transactionReference);
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        tierLock.readLock().lock();
+        try {
+            List<Transaction> result = new ArrayList<>();
+            for (Long start : partitionStarts()) {
+                result.addAll(mergedPartition(start));
+            }
+            return result;
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        if (page < 0 || size <= 0) {
+            return Collections.emptyList();
+        }
+
+        tierLock.readLock().lock();
+        try {
+            long skip = (long) page * size;
+            List<Transaction> result = new ArrayList<>(size);
+            for (Long start : partitionStarts()) {
+                ColdSegmentFile file = cold.get(start);
+                int hotSize = hot.partitionSize(start);
+                int partitionSize = hotSize + (file != null ? file.liveCount() : 0);
+                // Whole partitions before the page start are skipped by their size
+                if (skip >= partitionSize) {
+                    skip -= partitionSize;
+                    continue;
+                }
+                int limit = size - result.size();
+                if (file == null) {
+                    skip = hot.collectPartition(start, skip, limit, result);
+                } else if (hotSize == 0) {
+                    skip = file.collect(skip, limit, result);
+                } else {
+                    List<Transaction> merged = mergedPartition(start);
+                    int from = (int) skip;
+                    result.addAll(merged.subList(from, Math.min(merged.size(), from + limit)));
+                    skip = 0;
+                }
+                if (result.size() >= size) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            return Collections.emptyList();
+        }
+
+        long first = hot.partitionStart(from);
+        long last = hot.partitionStart(to);
+        tierLock.readLock().lock();
+        try {
+            List<Transaction> result = new ArrayList<>();
+            for (Long start : partitionStarts()) {
+                if (start < first || start > last) {
+                    continue;
+                }
+                for (Transaction transaction : mergedPartition(start)) {
+                    if (!transaction.getTimestamp().isBefore(from) && !transaction.getTimestamp().isAfter(to)) {
+                        result.add(transaction);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        tierLock.readLock().lock();
+        try {
+            return hot.count() + coldCount();
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> storeDetails() {
+        Map<String, Object> details = new LinkedHashMap<>(hot.storeDetails());
+        details.put("engine", "tiered");
+        Map<String, Object> coldTier = new LinkedHashMap<>();
+        coldTier.put("files", cold.size());
+        coldTier.put("transactions", coldCount());
+        coldTier.put("bytes", coldBytes());
+        coldTier.put("filterBytes", coldIds.sizeInBytes() + coldReferences.sizeInBytes());
+        details.put("cold", coldTier);
+        return details;
+    }
+
+    @Override
+    public long changeCount() {
+        return hot.changeCount() + coldChangeCount.get();
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return removeById(id).isPresent();
+    }
+
+    @Override
+    public Optional<Transaction> removeById(String id) {
+        if (id == null || id.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        tierLock.readLock().lock();
+        try {
+            Optional<Transaction> removed = hot.removeById(id);
+            if (removed.isPresent()) {
+                return removed;
+            }
+            ColdSegmentFile file = coldFileOf(id);
+            Transaction transaction = file == null ? null : tombstone(file, id);
+            if (transaction != null) {
+                coldChangeCount.incrementAndGet();
+            }
+            return Optional.ofNullable(transaction);
+        } finally {
+            tierLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        if (id == null || id.trim().isEmpty()) {
+            return false;
+        }
+        return hot.existsById(id) || coldFileOf(id) != null;
+    }
+
+    @Override
+    public boolean existsByTransactionReference(String transactionReference) {
+        if (transactionReference == null || transactionReference.trim().isEmpty()) {
+            return false;
+        }
+        return hot.existsByTransactionReference(transactionReference)
+                || coldIdByReference(transactionReference) != null;
+    }
+
+    /**
+     * Drop the partitions of both tiers that are past the retention period
+     */
+    @Override
+    public List<Transaction> purgeExpired() {
+        if (retentionMillis <= 0) {
+            return Collections.emptyList();
+        }
+        long now = TransactionDaoImpl.toEpochMilli(LocalDateTime.now());
+        return dropPartitionsBefore(hot.partitionStart(now - retentionMillis));
+    }
+
+    /**
+     * Move partitions past the hot window to the cold tier
+     */
+    @Scheduled(fixedDelayString = "${transaction.store.tiered.migration-interval:PT1M}")
+    public void migrate() {
+        long now = TransactionDaoImpl.toEpochMilli(LocalDateTime.now());
+        long hotCutoff = hot.partitionStart(now - hotWindowMillis);
+        for (Long start : new ArrayList<>(hot.partitionStarts().headSet(hotCutoff))) {
+            migratePartition(start);
+        }
+    }
+
+    private void migratePartition(long start) {
+        List<Transaction> snapshot = hot.partition(start);
+        Map<String, Transaction> copied = new HashMap<>();
+        snapshot.forEach(transaction -> copied.put(transaction.getId(), transaction));
+
+        // A partition has one cold file, earlier cold content is merged into the new one
+        ColdSegmentFile previous = cold.get(start);
+        List<Transaction> content = new ArrayList<>(snapshot);
+        if (previous != null) {
+            for (Transaction transaction : previous.liveTransactions()) {
+                if (!copied.containsKey(transaction.getId())) {
+                    content.add(transaction);
+                }
+            }
+        }
+        if (content.isEmpty()) {
+            return;
+        }
+        content.sort(ORDER);
+
+        Path path = directory.resolve("partition-" + start + "-" + fileGeneration.incrementAndGet() + SEGMENT_SUFFIX);
+        ColdSegmentFile file = ColdSegmentFile.write(path, start, content, falsePositiveRate);
+        snapshot.forEach(this::remember);
+
+        tierLock.writeLock().lock();
+        try {
+            cold.put(start, file);
+            Collection<Transaction> detached = hot.detachPartition(start);
+
+            // Writes that raced with the copy stay hot
+            Set<String> detachedIds = new HashSet<>();
+            for (Transaction transaction : detached) {
+                detachedIds.add(transaction.getId());
+                Transaction copy = copied.get(transaction.getId());
+                if (copy != transaction) {
+                    hot.save(transaction);
+                    tombstone(file, transaction.getId());
+                }
+            }
+            for (String id : copied.keySet()) {
+                if (!detachedIds.contains(id)) {
+                    tombstone(file, id);
+                }
+            }
+            if (previous != null) {
+                for (String id : previous.tombstones()) {
+                    if (!copied.containsKey(id)) {
+                        file.tombstone(id);
+                    }
+                }
+            }
+        } finally {
+            tierLock.writeLock().unlock();
+        }
+
+        if (previous != null) {
+            previous.delete();
+        }
+        migrated.increment(snapshot.size());
+        logger.info("Moved transaction partition {} to the cold tier, transactions:{}, bytes:{}",
+                start, snapshot.size(), file.sizeInBytes());
+    }
+
+    private List<Transaction> dropPartitionsBefore(long cutoff) {
+        List<ColdSegmentFile> dropped = new ArrayList<>();
+        List<Transaction> expired = new ArrayList<>();
+        tierLock.writeLock().lock();
+        try {
+            for (Long start : new ArrayList<>(cold.headMap(cutoff).keySet())) {
+                ColdSegmentFile file = cold.remove(start);
+                expired.addAll(file.liveTransactions());
+                dropped.add(file);
+            }
+            for (Long start : new ArrayList<>(hot.partitionStarts().headSet(cutoff))) {
+                expired.addAll(hot.detachPartition(start));
+            }
+        } finally {
+            tierLock.writeLock().unlock();
+        }
+        for (ColdSegmentFile file : dropped) {
+            file.liveTransactions().forEach(this::forget);
+            file.delete();
+            logger.info("Dropped expired cold partition {}", file.getPartitionStart());
+        }
+        if (!expired.isEmpty()) {
+            coldChangeCount.incrementAndGet();
+        }
+        return expired;
+    }
+
+    /**
+     * Partition starts of both tiers, newest first
+     */
+    private NavigableSet<Long> partitionStarts() {
+        TreeSet<Long> starts = new TreeSet<>(hot.partitionStarts());
+        starts.addAll(cold.keySet());
+        return starts.descendingSet();
+    }
+
+    private List<Transaction> mergedPartition(long start) {
+        List<Transaction> merged = hot.partition(start);
+        ColdSegmentFile file = cold.get(start);
+        if (file != null) {
+            merged.addAll(file.liveTransactions());
+            merged.sort(ORDER);
+        }
+        return merged;
+    }
+
+    private ColdSegmentFile coldFileOf(String id) {
+        if (!coldIds.mightContain(id)) {
+            return null;
+        }
+        for (ColdSegmentFile file : cold.descendingMap().values()) {
+            if (file.containsId(id)) {
+                return file;
+            }
+        }
+        coldIds.falsePositive();
+        return null;
+    }
+
+    private void checkColdReference(Transaction transaction) {
+        String reference = transaction.getTransactionReference();
+        if (hasText(reference)) {
+            String existingId = coldIdByReference(reference);
+            if (existingId != null && !existingId.equals(transaction.getId())) {
+                throw new IllegalArgumentException("Transaction reference already exists: " + reference);
+            }
+        }
+    }
+
+    private String coldIdByReference(String reference) {
+        if (!coldReferences.mightContain(reference)) {
+            return null;
+        }
+        for (ColdSegmentFile file : cold.descendingMap().values()) {
+            String id = file.findIdByReference(reference);
+            if (id != null) {
+                return id;
+            }
+        }
+        coldReferences.falsePositive();
+        return null;
+    }
+
+    /**
+     * Hide a cold record and take it out of the filters
+     *
+     * @return the hidden record, null when the file did not hold it
+     */
+    private Transaction tombstone(ColdSegmentFile file, String id) {
+        Transaction transaction = file.findById(id);
+        if (transaction == null || !file.tombstone(id)) {
+            return null;
+        }
+        forget(transaction);
+        return transaction;
+    }
+
+    private void remember(Transaction transaction) {
+        coldIds.add(transaction.getId());
+        coldReferences.add(transaction.getTransactionReference());
+    }
+
+    private void forget(Transaction transaction) {
+        coldIds.remove(transaction.getId());
+        coldReferences.remove(transaction.getTransactionReference());
+    }
+
+    private long coldCount() {
+        long count = 0;
+        for (ColdSegmentFile file : cold.values()) {
+            count += file.liveCount();
+        }
+        return count;
+    }
+
+    private long coldBytes() {
+        long bytes = 0;
+        for (ColdSegmentFile file : cold.values()) {
+            bytes += file.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void deleteLeftoverSegments() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(SEGMENT_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clean cold tier directory " + directory, e);
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
@@ -1,23 +1,68 @@
 package com.bank.transaction.dao.impl;
 
+import com.bank.transaction.config.TransactionStoreProperties;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.monitor.Footprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Transaction DAO
- * 
+ *
+ * Transactions are kept in time partitioned segments, one per day by default.
+ * Expired data is dropped a whole segment at a time, and paged or range reads
+ * skip the segments that cannot match. Store-wide indexes from id to segment and
+ * from reference to id answer point lookups without visiting every segment.
+ *
  * @author YUNING TAO
  */
 @Repository
+@ConditionalOnProperty(prefix = "transaction.store", name = "engine", havingValue = "memory", matchIfMissing = true)
 public class TransactionDaoImpl implements TransactionDao {
 
-    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
-    private final Map<String, String> transactionReferenceToId = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDaoImpl.class);
+
+    // Skip list node plus the OrderKey it holds
+    private static final long ORDER_ENTRY_BYTES = Footprint.SKIP_LIST_ENTRY + 24;
+
+    private static final int REFERENCE_LOCK_STRIPES = 64;
+
+    private final long partitionMillis;
+    private final long retentionMillis;
+
+    // Segments by partition start, oldest first
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Segment holding each id, a re-saved transaction moves with its timestamp
+    private final Map<String, Segment> segmentById = new ConcurrentHashMap<>();
+    private final Map<String, String> referenceToId = new ConcurrentHashMap<>();
+    private final AtomicLong referenceBytes = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
+
+    // Most writes land in the current partition
+    private volatile Segment latestSegment;
+
+    // Writers claiming the same reference check and publish one at a time, readers never lock
+    private final Object[] referenceLocks = new Object[REFERENCE_LOCK_STRIPES];
+
+    public TransactionDaoImpl(TransactionStoreProperties properties) {
+        this.partitionMillis = Math.max(1, properties.getPartitionDuration().toMillis());
+        this.retentionMillis = properties.getRetention() != null ? properties.getRetention().toMillis() : 0;
+        for (int i = 0; i < referenceLocks.length; i++) {
+            referenceLocks[i] = new Object();
+        }
+    }
 
     @Override
     public Transaction save(Transaction transaction) {
@@ -25,42 +70,80 @@ public class TransactionDaoImpl implements TransactionDao {
             throw new IllegalArgumentException("Transaction cannot be empty");
         }
 
-        // Check if transaction reference already exists.
-        if (transaction.getTransactionReference() != null &&
-            !transaction.getTransactionReference().trim().isEmpty()) {
-            String existingId = transactionReferenceToId.get(transaction.getTransactionReference());
-            if (existingId != null && !existingId.equals(transaction.getId())) {
-                throw new IllegalArgumentException("Transaction reference already exists: " + transaction.getTransactionReference());
+        String reference = transaction.getTransactionReference();
+        if (!hasText(reference)) {
+            return store(transaction);
+        }
+        synchronized (referenceLock(reference)) {
+            // Check if transaction reference already exists.
+            Transaction existing = findByReference(reference);
+            if (existing != null && !existing.getId().equals(transaction.getId())) {
+                throw new IllegalArgumentException("Transaction reference already exists: " + reference);
             }
+            return store(transaction);
         }
+    }
 
-        // Save transactions
-        transactions.put(transaction.getId(), transaction);
-        
-        // Update Transaction reference & ID mapping
-        if (transaction.getTransactionReference() != null &&
-            !transaction.getTransactionReference().trim().isEmpty()) {
-            transactionReferenceToId.put(transaction.getTransactionReference(), transaction.getId());
+    private Transaction store(Transaction transaction) {
+        Segment segment = segmentFor(transaction.getTimestamp());
+        segment.put(transaction);
+        Segment former = segmentById.put(transaction.getId(), segment);
+        if (former != null && former != segment) {
+            // A re-saved transaction may still sit in the partition of its old timestamp
+            former.remove(transaction.getId(), transaction);
         }
+        changeCount.incrementAndGet();
 
         return transaction;
     }
 
+    @Override
+    public Optional<Transaction> update(Transaction transaction, long expectedVersion) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+
+        String reference = transaction.getTransactionReference();
+        if (!hasText(reference)) {
+            return replace(transaction, expectedVersion);
+        }
+        synchronized (referenceLock(reference)) {
+            // Check if transaction reference already belongs to another transaction.
+            Transaction existing = findByReference(reference);
+            if (existing != null && !existing.getId().equals(transaction.getId())) {
+                throw new IllegalArgumentException("Transaction reference already exists: " + reference);
+            }
+            return replace(transaction, expectedVersion);
+        }
+    }
+
+    private Optional<Transaction> replace(Transaction transaction, long expectedVersion) {
+        Segment segment = segmentOf(transaction.getId());
+        Transaction updated = segment != null ? segment.replace(transaction, expectedVersion) : null;
+        if (updated == null) {
+            return Optional.empty();
+        }
+        changeCount.incrementAndGet();
+
+        return Optional.of(updated);
+    }
+
     @Override
     public Optional<Transaction> findById(String id) {
         if (id == null || id.trim().isEmpty()) {
             return Optional.empty();
         }
-        return Optional.ofNullable(transactions.get(id));
+        return Optional.ofNullable(find(id));
     }
 
     @Override
     public List<Transaction> findAll() {
-        return new ArrayList<>(transactions.values())
-                .stream()
-                //sort by timestamp desc
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
-                .collect(Collectors.toList());
+        // Segments newest first, each already sorted by timestamp desc
+        List<Transaction> result = new ArrayList<>();
+        for (Segment segment : segments.descendingMap().values()) {
+            segment.collect(segment.order, 0, Integer.MAX_VALUE, result);
+        }
+        return result;
     }
 
     @Override
@@ -69,48 +152,89 @@ public class TransactionDaoImpl implements TransactionDao {
             return Collections.emptyList();
         }
 
-        List<Transaction> transactions = findAll();
-        int start = page * size;
-        int end = Math.min(start + size, transactions.size());
+        long skip = (long) page * size;
+        List<Transaction> result = new ArrayList<>(size);
+        for (Segment segment : segments.descendingMap().values()) {
+            int segmentSize = segment.size();
+            // Whole segments before the page start are skipped by their size
+            if (skip >= segmentSize) {
+                skip -= segmentSize;
+                continue;
+            }
+            skip = segment.collect(segment.order, skip, size - result.size(), result);
+            if (result.size() >= size) {
+                break;
+            }
+        }
+        return result;
+    }
 
-        if (start >= transactions.size()) {
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
             return Collections.emptyList();
         }
 
-        return transactions.subList(start, end);
+        // Only partitions overlapping the range are visited
+        long first = partitionStart(from);
+        long last = partitionStart(to);
+        OrderKey upper = new OrderKey(to, "");
+        List<Transaction> result = new ArrayList<>();
+        for (Segment segment : segments.subMap(first, true, last, true).descendingMap().values()) {
+            for (OrderKey key : segment.order.tailSet(upper, true)) {
+                if (key.timestamp.isBefore(from)) {
+                    break;
+                }
+                Transaction transaction = segment.transactions.get(key.id);
+                if (transaction != null) {
+                    result.add(transaction);
+                }
+            }
+        }
+        return result;
     }
 
     @Override
     public long count() {
-        return transactions.size();
+        long count = 0;
+        for (Segment segment : segments.values()) {
+            count += segment.size();
+        }
+        return count;
     }
 
+    @Override
+    public long changeCount() {
+        return changeCount.get();
+    }
+
+    @Override
     public Optional<Transaction> findByTransactionReference(String transactionReference) {
         if (transactionReference == null || transactionReference.trim().isEmpty()) {
             return Optional.empty();
         }
-        
-        String id = transactionReferenceToId.get(transactionReference);
-        if (id != null) {
-            return findById(id);
-        }
-        return Optional.empty();
+
+        return Optional.ofNullable(findByReference(transactionReference));
     }
 
     @Override
     public boolean deleteById(String id) {
+        return removeById(id).isPresent();
+    }
+
+    @Override
+    public Optional<Transaction> removeById(String id) {
         if (id == null || id.trim().isEmpty()) {
-            return false;
+            return Optional.empty();
         }
 
-        Transaction transaction = transactions.remove(id);
-        if (transaction != null) {
-            if (transaction.getTransactionReference() != null) {
-                transactionReferenceToId.remove(transaction.getTransactionReference());
-            }
-            return true;
+        Segment segment = segmentOf(id);
+        Transaction removed = segment == null ? null : segment.remove(id, null);
+        if (removed != null) {
+            segmentById.remove(id, segment);
+            changeCount.incrementAndGet();
         }
-        return false;
+        return Optional.ofNullable(removed);
     }
 
     @Override
@@ -118,7 +242,7 @@ public class TransactionDaoImpl implements TransactionDao {
         if (id == null || id.trim().isEmpty()) {
             return false;
         }
-        return transactions.containsKey(id);
+        return segmentOf(id) != null;
     }
 
     @Override
@@ -126,10 +250,348 @@ public class TransactionDaoImpl implements TransactionDao {
         if (transactionReference == null || transactionReference.trim().isEmpty()) {
             return false;
         }
-        return transactionReferenceToId.containsKey(transactionReference);
+        return findByReference(transactionReference) != null;
     }
 
     public int size() {
-        return transactions.size();
+        return (int) count();
+    }
+
+    /**
+     * Sizes and footprint from counters kept up to date by every write, nothing is walked
+     */
+    @Override
+    public Map<String, Object> storeDetails() {
+        long transactions = 0;
+        long references = referenceToId.size();
+        long orderEntries = 0;
+        long dataBytes = 0;
+        long indexBytes = referenceBytes.get() + (long) segmentById.size() * Footprint.MAP_ENTRY;
+        for (Segment segment : segments.values()) {
+            transactions += segment.size();
+            orderEntries += segment.orderEntries.get();
+            dataBytes += segment.dataBytes.get();
+            indexBytes += segment.indexBytes.get();
+        }
+
+        Map<String, Object> indexes = new LinkedHashMap<>();
+        indexes.put("idEntries", (long) segmentById.size());
+        indexes.put("orderEntries", orderEntries);
+        indexes.put("referenceEntries", references);
+        indexes.put("bytes", indexBytes);
+
+        // Concurrent writes can make these briefly false, a lasting mismatch is a bug
+        Map<String, Object> checks = new LinkedHashMap<>();
+        checks.put("orderIndexMatchesTransactions", orderEntries == transactions);
+        checks.put("referencesWithinTransactions", references <= transactions);
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("engine", "memory");
+        details.put("transactions", transactions);
+        details.put("segments", segments.size());
+        details.put("indexes", indexes);
+        details.put("checks", checks);
+        details.put("dataBytes", dataBytes);
+        details.put("retainedBytes", dataBytes + indexBytes);
+        details.put("bytesPerTransaction", transactions > 0 ? (dataBytes + indexBytes) / transactions : 0);
+        return details;
+    }
+
+    /**
+     * Drop the segments that are entirely past the retention period
+     *
+     * @return the transactions they held
+     */
+    @Override
+    public List<Transaction> purgeExpired() {
+        if (retentionMillis <= 0) {
+            return Collections.emptyList();
+        }
+
+        long cutoff = toEpochMilli(LocalDateTime.now()) - retentionMillis;
+        List<Transaction> expired = new ArrayList<>();
+        // A segment only goes once its newest possible timestamp is expired
+        for (Long start : segments.headMap(partitionStart(cutoff)).keySet()) {
+            Collection<Transaction> dropped = detachPartition(start);
+            if (!dropped.isEmpty()) {
+                expired.addAll(dropped);
+                logger.info("Dropped expired transaction segment {}, transactions:{}",
+                        LocalDateTime.ofEpochSecond(start / 1000, 0, ZoneOffset.UTC), dropped.size());
+            }
+        }
+        if (!expired.isEmpty()) {
+            changeCount.incrementAndGet();
+        }
+        return expired;
+    }
+
+    // Partition access for the tiered store
+
+    NavigableSet<Long> partitionStarts() {
+        return segments.keySet();
+    }
+
+    int partitionSize(long start) {
+        Segment segment = segments.get(start);
+        return segment != null ? segment.size() : 0;
+    }
+
+    /**
+     * Add up to limit transactions of one partition after skipping the first ones
+     *
+     * @return skip count still left
+     */
+    long collectPartition(long start, long skip, int limit, List<Transaction> result) {
+        Segment segment = segments.get(start);
+        return segment != null ? segment.collect(segment.order, skip, limit, result) : skip;
+    }
+
+    List<Transaction> partition(long start) {
+        List<Transaction> result = new ArrayList<>();
+        collectPartition(start, 0, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    /**
+     * Take a whole partition out of the store
+     *
+     * @return the transactions it held, an update racing with it is either included or fails
+     */
+    Collection<Transaction> detachPartition(long start) {
+        Segment segment = segments.remove(start);
+        if (segment == null) {
+            return Collections.emptyList();
+        }
+        if (latestSegment == segment) {
+            latestSegment = null;
+        }
+        // Taken out one id at a time, each removal is atomic with the updates of that id
+        List<Transaction> detached = new ArrayList<>(segment.size());
+        for (String id : new ArrayList<>(segment.transactions.keySet())) {
+            Transaction transaction = segment.remove(id, null);
+            if (transaction != null) {
+                segmentById.remove(id, segment);
+                detached.add(transaction);
+            }
+        }
+        return detached;
+    }
+
+    long partitionStart(LocalDateTime timestamp) {
+        return partitionStart(toEpochMilli(timestamp));
+    }
+
+    long partitionStart(long epochMilli) {
+        return Math.floorDiv(epochMilli, partitionMillis) * partitionMillis;
+    }
+
+    private Segment segmentFor(LocalDateTime timestamp) {
+        long start = partitionStart(timestamp);
+        Segment latest = latestSegment;
+        if (latest != null && latest.start == start) {
+            return latest;
+        }
+        Segment segment = segments.computeIfAbsent(start, Segment::new);
+        if (latest == null || start >= latest.start) {
+            latestSegment = segment;
+        }
+        return segment;
+    }
+
+    private Segment segmentOf(String id) {
+        Segment segment = segmentById.get(id);
+        return segment != null && segment.transactions.containsKey(id) ? segment : null;
+    }
+
+    private Transaction find(String id) {
+        Segment segment = segmentById.get(id);
+        return segment != null ? segment.transactions.get(id) : null;
+    }
+
+    /**
+     * The reference index may briefly run ahead of or behind the published snapshots,
+     * so an entry only counts when the snapshot it points to still carries the reference
+     */
+    private Transaction findByReference(String reference) {
+        String id = referenceToId.get(reference);
+        Transaction transaction = id != null ? find(id) : null;
+        return transaction != null && reference.equals(transaction.getTransactionReference()) ? transaction : null;
+    }
+
+    static long toEpochMilli(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private Object referenceLock(String reference) {
+        return referenceLocks[(reference.hashCode() & Integer.MAX_VALUE) % REFERENCE_LOCK_STRIPES];
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static long entryBytes(Transaction transaction) {
+        return Footprint.MAP_ENTRY + Footprint.of(transaction);
+    }
+
+    /**
+     * One time partition of the store, with its own sort order so it can be paged and dropped as a whole
+     */
+    private final class Segment {
+
+        private final long start;
+        private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+        // Sort order for paging, timestamp desc
+        private final NavigableSet<OrderKey> order = new ConcurrentSkipListSet<>();
+        // Footprint counters, the skip list has no constant time size
+        private final AtomicInteger orderEntries = new AtomicInteger();
+        private final AtomicLong dataBytes = new AtomicLong();
+        private final AtomicLong indexBytes = new AtomicLong();
+
+        private Segment(long start) {
+            this.start = start;
+        }
+
+        private int size() {
+            return transactions.size();
+        }
+
+        private Transaction put(Transaction transaction) {
+            // Index entries go in before the snapshot is published and stale ones come out after it
+            index(transaction);
+            Transaction previous = transactions.put(transaction.getId(), transaction);
+            dataBytes.addAndGet(entryBytes(transaction));
+            if (previous != null) {
+                dataBytes.addAndGet(-entryBytes(previous));
+                unindex(previous, transaction);
+            }
+            return previous;
+        }
+
+        /**
+         * Publish the next version when the stored one still matches, readers never lock
+         *
+         * @return the published snapshot, null when the version has moved on or it was deleted
+         */
+        private Transaction replace(Transaction transaction, long expectedVersion) {
+            Transaction next = transaction.withVersion(expectedVersion + 1);
+            Transaction[] replaced = new Transaction[1];
+            // Compare the version and swap the snapshot in one atomic step, updates of one id run in order
+            transactions.computeIfPresent(next.getId(), (id, current) -> {
+                if (current.getVersion() != expectedVersion) {
+                    return current;
+                }
+                replaced[0] = current;
+                index(next);
+                return next;
+            });
+            Transaction previous = replaced[0];
+            if (previous == null) {
+                return null;
+            }
+            dataBytes.addAndGet(entryBytes(next) - entryBytes(previous));
+            if (!Objects.equals(previous.getTransactionReference(), next.getTransactionReference())) {
+                // Serialized with later updates of the id, so a reference taken back is not dropped
+                transactions.computeIfPresent(next.getId(), (id, current) -> {
+                    unindex(previous, current);
+                    return current;
+                });
+            }
+            return next;
+        }
+
+        /**
+         * @param replacement the snapshot taking over in another segment, null when the id is gone
+         */
+        private Transaction remove(String id, Transaction replacement) {
+            Transaction transaction = transactions.remove(id);
+            if (transaction != null) {
+                dataBytes.addAndGet(-entryBytes(transaction));
+                unindex(transaction, replacement);
+            }
+            return transaction;
+        }
+
+        private void index(Transaction transaction) {
+            if (order.add(new OrderKey(transaction.getTimestamp(), transaction.getId()))) {
+                orderEntries.incrementAndGet();
+                indexBytes.addAndGet(ORDER_ENTRY_BYTES);
+            }
+            // Update Transaction reference & ID mapping
+            if (hasText(transaction.getTransactionReference())
+                    && referenceToId.put(transaction.getTransactionReference(), transaction.getId()) == null) {
+                referenceBytes.addAndGet(Footprint.MAP_ENTRY);
+            }
+        }
+
+        private void unindex(Transaction previous, Transaction replacement) {
+            if ((replacement == null || !Objects.equals(previous.getTimestamp(), replacement.getTimestamp()))
+                    && order.remove(new OrderKey(previous.getTimestamp(), previous.getId()))) {
+                orderEntries.decrementAndGet();
+                indexBytes.addAndGet(-ORDER_ENTRY_BYTES);
+            }
+            String reference = previous.getTransactionReference();
+            if (reference != null && (replacement == null || !reference.equals(replacement.getTransactionReference()))
+                    && referenceToId.remove(reference, previous.getId())) {
+                referenceBytes.addAndGet(-Footprint.MAP_ENTRY);
+            }
+        }
+
+        /**
+         * Add up to limit transactions after skipping the first ones
+         *
+         * @return skip count still left
+         */
+        private long collect(Iterable<OrderKey> keys, long skip, int limit, List<Transaction> result) {
+            int added = 0;
+            for (OrderKey key : keys) {
+                if (added >= limit) {
+                    break;
+                }
+                Transaction transaction = transactions.get(key.id);
+                if (transaction == null) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(transaction);
+                added++;
+            }
+            return skip;
+        }
+    }
+
+    /**
+     * Sort key inside a segment, newest first then by id
+     */
+    private static final class OrderKey implements Comparable<OrderKey> {
+
+        private final LocalDateTime timestamp;
+        private final String id;
+
+        private OrderKey(LocalDateTime timestamp, String id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(OrderKey other) {
+            int byTime = other.timestamp.compareTo(timestamp);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof OrderKey that)) return false;
+            return timestamp.equals(that.timestamp) && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(timestamp, id);
+        }
     }
-} 
\ No newline at end of file
+}
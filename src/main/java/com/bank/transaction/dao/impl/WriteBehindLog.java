@@ -0,0 +1,260 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the changes the write-behind store has acknowledged but not flushed yet
+ *
+ * Each record is length, CRC32 and payload. A torn record at the tail, left by a crash
+ * during an append, ends the replay. Appends only write, writers then wait in
+ * {@link #awaitDurable} where one force covers every record appended before it started.
+ *
+ * @author YUNING TAO
+ */
+class WriteBehindLog implements Closeable {
+
+    // Saves logged before amounts were minor units or before account ids, still replayed
+    private static final byte SAVE_DECIMAL = 1;
+    private static final byte DELETE = 2;
+    private static final byte SAVE_WITHOUT_ACCOUNTS = 3;
+    private static final byte SAVE = 4;
+
+    private final Path path;
+    private final boolean sync;
+    private final FileChannel channel;
+    private final Object forceLock = new Object();
+
+    // Bytes appended since the log was opened and how many of them are known to be on disk,
+    // neither goes back on truncate so positions handed out earlier stay comparable
+    private long appended;
+    private volatile long durable;
+
+    WriteBehindLog(Path path, boolean sync) {
+        this.path = path;
+        this.sync = sync;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-behind log " + path, e);
+        }
+    }
+
+    /**
+     * @return position to pass to {@link #awaitDurable}
+     */
+    synchronized long appendSave(Transaction transaction) {
+        return append(encode(SAVE, transaction.getId(), transaction));
+    }
+
+    /**
+     * @return position to pass to {@link #awaitDurable}
+     */
+    synchronized long appendDelete(String id) {
+        return append(encode(DELETE, id, null));
+    }
+
+    /**
+     * Wait until everything appended up to a position is on disk
+     *
+     * Writers arriving while a force runs queue up behind it, and the first of them forces
+     * once for all records appended in the meantime.
+     */
+    void awaitDurable(long position) {
+        if (!sync || durable >= position) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durable >= position) {
+                return;
+            }
+            long end = appended();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync write-behind log " + path, e);
+            }
+            durable = end;
+        }
+    }
+
+    /**
+     * Read the logged changes, the last change of an id wins
+     *
+     * @return latest transaction per id in log order, null for a delete
+     */
+    synchronized Map<String, Transaction> replay() {
+        Map<String, Transaction> changes = new LinkedHashMap<>();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            channel.read(buffer, 0);
+            buffer.flip();
+            while (buffer.remaining() >= 12) {
+                int length = buffer.getInt();
+                long checksum = buffer.getLong();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+                decode(ByteBuffer.wrap(payload), changes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read write-behind log " + path, e);
+        }
+        return changes;
+    }
+
+    /**
+     * Drop every logged change, called once they all reached the backing store
+     */
+    synchronized void truncate() {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate write-behind log " + path, e);
+        }
+    }
+
+    synchronized long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private synchronized long appended() {
+        return appended;
+    }
+
+    private long append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(12 + payload.length);
+        record.putInt(payload.length).putLong(crc.getValue()).put(payload).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to write-behind log " + path, e);
+        }
+        appended += record.limit();
+        return appended;
+    }
+
+    private static byte[] encode(byte operation, String id, Transaction transaction) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(operation);
+            writeString(out, id);
+            if (transaction != null) {
+                writeString(out, transaction.getTransactionReference());
+                out.writeLong(transaction.getAmountMinorUnits());
+                out.writeShort(transaction.getCurrency().getNumericCode());
+                out.writeByte(transaction.getTransactionType().getCode());
+                out.writeLong(transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(transaction.getTimestamp().getNano());
+                out.writeLong(transaction.getVersion());
+                writeString(out, transaction.getSourceAccountId());
+                writeString(out, transaction.getDestinationAccountId());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void decode(ByteBuffer payload, Map<String, Transaction> changes) {
+        byte operation = payload.get();
+        String id = readString(payload);
+        // Re-insert, so the map keeps the order of the last change
+        changes.remove(id);
+        if (operation == DELETE) {
+            changes.put(id, null);
+            return;
+        }
+        String reference = readString(payload);
+        long amount;
+        CurrencyCode currency;
+        TransactionType transactionType;
+        if (operation == SAVE_DECIMAL) {
+            double decimalAmount = payload.getDouble();
+            currency = CurrencyCode.fromCode(readString(payload));
+            transactionType = TransactionType.fromCode(readString(payload));
+            amount = currency.toMinorUnits(decimalAmount);
+        } else {
+            amount = payload.getLong();
+            currency = CurrencyCode.fromNumericCode(payload.getShort());
+            transactionType = TransactionType.fromBinaryCode(payload.get());
+        }
+        long epochSecond = payload.getLong();
+        int nano = payload.getInt();
+        long version = payload.getLong();
+        String sourceAccountId = operation == SAVE ? readString(payload) : null;
+        String destinationAccountId = operation == SAVE ? readString(payload) : null;
+
+        Transaction transaction = new Transaction(id, amount, currency, transactionType, reference, sourceAccountId,
+                destinationAccountId, LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC), version);
+        changes.put(id, transaction);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,523 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind Transaction DAO
+ *
+ * The in-memory store answers every call. A write is acknowledged once it is applied in memory
+ * and appended to a local log, then a background flusher pushes it to the JDBC store.
+ * Writers only hold a lock while they apply and append, the log is synced outside it with one
+ * force shared by every writer waiting at the time.
+ * The flusher writes changes in log order, so a reference given up by one transaction reaches
+ * the JDBC store before another transaction claims it. A change to an id waiting for the flush
+ * replaces the waiting one when it keeps the same reference, otherwise it queues behind it.
+ * A change the JDBC store rejects, or one still failing after the configured attempts, is set
+ * aside as a dead letter with an error log, so it cannot hold back the changes behind it.
+ * On startup the JDBC store is loaded into memory. It may hold any part of the changes left in
+ * the log, so every logged id is cleared and then set to its last logged state.
+ *
+ * @author YUNING TAO
+ */
+@Repository
+@ConditionalOnProperty(prefix = "transaction.store", name = "engine", havingValue = "write-behind")
+public class WriteBehindTransactionDao implements TransactionDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindTransactionDao.class);
+
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TransactionDaoImpl primary;
+    private final JdbcTransactionDao secondary;
+    private final WriteBehindLog log;
+
+    // Unflushed changes by log sequence
+    private final ConcurrentSkipListMap<Long, PendingChange> pending = new ConcurrentSkipListMap<>();
+    // Last queued change per id, a newer change may take its place
+    private final Map<String, PendingChange> latest = new ConcurrentHashMap<>();
+    // One permit per pending change, writers wait when the queue is full
+    private final Semaphore slots;
+
+    // Changes given up on, the most recent ones, guarded by itself
+    private final Deque<PendingChange> deadLetters = new ArrayDeque<>();
+    private final int deadLetterCapacity;
+    // Keeps memory, log and queue in the same order, and the log from being truncated mid-write.
+    // Only held while applying and appending, never across a sync
+    private final ReentrantLock sequenceLock = new ReentrantLock();
+    private long sequence;
+
+    private final int batchSize;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+    private final int maxAttempts;
+    private final long shutdownTimeoutNanos;
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private volatile long shutdownDeadline;
+
+    private final Counter flushed;
+    private final Counter coalesced;
+    private final Counter retries;
+    private final Counter deadLettered;
+    private final Timer flushLatency;
+
+    public WriteBehindTransactionDao(TransactionStoreProperties properties, MeterRegistry meterRegistry) {
+        TransactionStoreProperties.WriteBehind settings = properties.getWriteBehind();
+        this.primary = new TransactionDaoImpl(properties);
+        this.secondary = new JdbcTransactionDao(properties, meterRegistry);
+        this.log = new WriteBehindLog(Path.of(settings.getLog()), settings.isSyncWrites());
+        this.batchSize = Math.max(1, settings.getBatchSize());
+        this.retryBackoffNanos = settings.getRetryBackoff().toNanos();
+        this.maxRetryBackoffNanos = settings.getMaxRetryBackoff().toNanos();
+        this.maxAttempts = settings.getMaxAttempts();
+        this.deadLetterCapacity = Math.max(1, settings.getQueueCapacity());
+        this.shutdownTimeoutNanos = settings.getShutdownTimeout().toNanos();
+
+        this.flushed = Counter.builder("transaction.store.writebehind.flushed")
+                .description("Changes written to the backing store")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("transaction.store.writebehind.coalesced")
+                .description("Changes replaced by a newer change of the same id before the flush")
+                .register(meterRegistry);
+        this.retries = Counter.builder("transaction.store.writebehind.retries")
+                .description("Failed flushes queued again")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("transaction.store.writebehind.deadlettered")
+                .description("Changes given up on, they were never written to the backing store")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("transaction.store.writebehind.flush.latency")
+                .description("Time to write one batch to the backing store")
+                .register(meterRegistry);
+        Gauge.builder("transaction.store.writebehind.pending", pending, Map::size)
+                .description("Changes waiting for the flush")
+                .register(meterRegistry);
+
+        this.flusher = new Thread(this::runFlusher, "transaction-write-behind");
+        this.flusher.setDaemon(true);
+
+        // Backing store first, then the acknowledged changes that had not all reached it.
+        // Clearing every logged id before the last states go back in keeps references unique
+        // whatever part of the log was flushed
+        for (Transaction transaction : secondary.findAll()) {
+            primary.save(transaction);
+        }
+        Map<String, Transaction> logged = log.replay();
+        for (String id : logged.keySet()) {
+            primary.deleteById(id);
+            stage(id, null);
+        }
+        for (Map.Entry<String, Transaction> change : logged.entrySet()) {
+            if (change.getValue() != null) {
+                primary.save(change.getValue());
+                stage(change.getKey(), change.getValue());
+            }
+        }
+        // Replayed changes already hold their permits, so this may start below zero
+        this.slots = new Semaphore(settings.getQueueCapacity() - pending.size());
+        logger.info("Write-behind store loaded {} transactions, {} changes replayed from the log",
+                primary.count(), logged.size());
+
+        this.flusher.start();
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+        acquireSlot();
+        long position;
+        sequenceLock.lock();
+        try {
+            primary.save(transaction);
+            position = log.appendSave(transaction);
+            if (stage(transaction.getId(), transaction)) {
+                slots.release();
+            }
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        } finally {
+            sequenceLock.unlock();
+        }
+        log.awaitDurable(position);
+        return transaction;
+    }
+
+    @Override
+    public Optional<Transaction> update(Transaction transaction, long expectedVersion) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be empty");
+        }
+        acquireSlot();
+        Optional<Transaction> updated;
+        long position = 0;
+        sequenceLock.lock();
+        try {
+            updated = primary.update(transaction, expectedVersion);
+            if (updated.isPresent()) {
+                position = log.appendSave(updated.get());
+            }
+            if (updated.isEmpty() || stage(transaction.getId(), updated.get())) {
+                slots.release();
+            }
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        } finally {
+            sequenceLock.unlock();
+        }
+        log.awaitDurable(position);
+        return updated;
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return removeById(id).isPresent();
+    }
+
+    @Override
+    public Optional<Transaction> removeById(String id) {
+        if (id == null || id.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        acquireSlot();
+        Optional<Transaction> removed;
+        long position = 0;
+        sequenceLock.lock();
+        try {
+            removed = primary.removeById(id);
+            if (removed.isPresent()) {
+                position = log.appendDelete(id);
+            }
+            if (removed.isEmpty() || stage(id, null)) {
+                slots.release();
+            }
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        } finally {
+            sequenceLock.unlock();
+        }
+        log.awaitDurable(position);
+        return removed;
+    }
+
+    @Override
+    public Optional<Transaction> findById(String id) {
+        return primary.findById(id);
+    }
+
+    @Override
+    public Optional<Transaction> findByTransactionReference(String transactionReference) {
+        return primary.findByTransactionReference(transactionReference);
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return primary.findAll();
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return primary.findAll(page, size);
+    }
+
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        return primary.findByTimestampBetween(from, to);
+    }
+
+    @Override
+    public long count() {
+        return primary.count();
+    }
+
+    @Override
+    public Map<String, Object> storeDetails() {
+        Map<String, Object> details = new LinkedHashMap<>(primary.storeDetails());
+        details.put("engine", "write-behind");
+        details.put("pendingChanges", pending.size());
+        return details;
+    }
+
+    @Override
+    public long changeCount() {
+        return primary.changeCount();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return primary.existsById(id);
+    }
+
+    @Override
+    public boolean existsByTransactionReference(String transactionReference) {
+        return primary.existsByTransactionReference(transactionReference);
+    }
+
+    /**
+     * Flush the remaining changes, then close the log and the backing store
+     */
+    @PreDestroy
+    public void close() {
+        shutdownDeadline = System.nanoTime() + shutdownTimeoutNanos;
+        running = false;
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(shutdownTimeoutNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            logger.warn("Shutting down with {} unflushed changes, they are replayed from the log on startup",
+                    pending.size());
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close write-behind log", e);
+        }
+        secondary.close();
+    }
+
+    /**
+     * Ids of the most recent changes given up on, oldest first, they exist in memory only
+     */
+    public List<String> deadLetters() {
+        synchronized (deadLetters) {
+            List<String> ids = new ArrayList<>(deadLetters.size());
+            for (PendingChange change : deadLetters) {
+                ids.add(change.id);
+            }
+            return ids;
+        }
+    }
+
+    private void acquireSlot() {
+        if (!running) {
+            throw new IllegalStateException("Transaction store is shutting down");
+        }
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind queue", e);
+        }
+    }
+
+    /**
+     * Queue a change in log order, called under the sequence lock
+     *
+     * @return true when the change took the place of a waiting one, so its slot is not needed
+     */
+    private boolean stage(String id, Transaction transaction) {
+        PendingChange previous = latest.get(id);
+        if (previous != null && previous.keepsReference(transaction)) {
+            // No other change depends on where this one lands, so it can take the waiting one's place.
+            // Published first, so the flusher never drops a replacement it has not taken yet
+            PendingChange replacement = new PendingChange(previous.sequence, id, transaction);
+            latest.put(id, replacement);
+            if (pending.replace(previous.sequence, previous, replacement)) {
+                coalesced.increment();
+                return true;
+            }
+        }
+        PendingChange change = new PendingChange(++sequence, id, transaction);
+        latest.put(id, change);
+        pending.put(change.sequence, change);
+        LockSupport.unpark(flusher);
+        return false;
+    }
+
+    // Flusher
+
+    private void runFlusher() {
+        long backoff = retryBackoffNanos;
+        long failedSequence = 0;
+        int attempts = 0;
+        List<PendingChange> batch = new ArrayList<>(batchSize);
+        while (running || (!pending.isEmpty() && System.nanoTime() < shutdownDeadline)) {
+            try {
+                Map.Entry<Long, PendingChange> next;
+                while (batch.size() < batchSize && (next = pending.pollFirstEntry()) != null) {
+                    latest.remove(next.getValue().id, next.getValue());
+                    batch.add(next.getValue());
+                }
+                if (batch.isEmpty()) {
+                    truncateLogWhenFlushed();
+                    LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                    continue;
+                }
+
+                int written = flush(batch);
+                if (written == batch.size()) {
+                    slots.release(written);
+                    backoff = retryBackoffNanos;
+                    attempts = 0;
+                    truncateLogWhenFlushed();
+                    continue;
+                }
+
+                // Attempts are counted for the change at the head, the one that keeps failing
+                PendingChange failed = batch.get(written);
+                attempts = failed.sequence == failedSequence ? attempts + 1 : 1;
+                failedSequence = failed.sequence;
+                if (maxAttempts > 0 && attempts >= maxAttempts) {
+                    deadLetter(failed, "still failing after " + attempts + " attempts");
+                    written++;
+                    attempts = 0;
+                }
+                slots.release(written);
+                requeue(batch.subList(written, batch.size()));
+                if (attempts > 0) {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(backoff, Math.max(0, shutdownDeadlineLeft())));
+                    backoff = Math.min(backoff * 2, maxRetryBackoffNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+        truncateLogWhenFlushed();
+    }
+
+    /**
+     * Write a batch to the backing store in log order
+     *
+     * Saves of distinct ids go out together, a delete or a second change of an id starts a new
+     * write. Saves the store rejects are written again one by one, so only the rejected ones are
+     * set aside. Any other failure holds back the changes after it, they are retried in order.
+     *
+     * @return number of changes written or set aside from the start of the batch
+     */
+    private int flush(List<PendingChange> batch) {
+        long started = System.nanoTime();
+        int written = 0;
+        List<Transaction> saves = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        try {
+            while (written < batch.size()) {
+                PendingChange change = batch.get(written);
+                if (change.transaction == null) {
+                    secondary.deleteById(change.id);
+                    flushed.increment();
+                    written++;
+                    continue;
+                }
+                int end = written;
+                while (end < batch.size() && batch.get(end).transaction != null && ids.add(batch.get(end).id)) {
+                    saves.add(batch.get(end).transaction);
+                    end++;
+                }
+                try {
+                    // A save the store has already taken is written again unchanged on retry
+                    secondary.saveAll(saves);
+                    flushed.increment(saves.size());
+                    written = end;
+                } catch (IllegalArgumentException e) {
+                    for (; written < end; written++) {
+                        PendingChange save = batch.get(written);
+                        try {
+                            secondary.save(save.transaction);
+                            flushed.increment();
+                        } catch (IllegalArgumentException rejected) {
+                            deadLetter(save, rejected.getMessage());
+                        }
+                    }
+                }
+                saves.clear();
+                ids.clear();
+            }
+            flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush transaction {}, retrying it and the {} changes after it",
+                    batch.get(written).id, batch.size() - written - 1, e);
+        }
+        return written;
+    }
+
+    /**
+     * Give up on a change, it stays in memory but never reaches the backing store
+     */
+    private void deadLetter(PendingChange change, String reason) {
+        deadLettered.increment();
+        synchronized (deadLetters) {
+            if (deadLetters.size() == deadLetterCapacity) {
+                deadLetters.pollFirst();
+            }
+            deadLetters.addLast(change);
+        }
+        logger.error("Gave up writing the {} of transaction {} to the backing store, {}: {}",
+                change.transaction != null ? "save" : "delete", change.id, reason, change.transaction);
+    }
+
+    private void requeue(List<PendingChange> failed) {
+        retries.increment(failed.size());
+        // Back at their own sequence, ahead of everything queued since
+        for (PendingChange change : failed) {
+            pending.put(change.sequence, change);
+        }
+    }
+
+    private void truncateLogWhenFlushed() {
+        sequenceLock.lock();
+        try {
+            if (pending.isEmpty() && log.size() > 0) {
+                log.truncate();
+            }
+        } finally {
+            sequenceLock.unlock();
+        }
+    }
+
+    private long shutdownDeadlineLeft() {
+        return running ? Long.MAX_VALUE : shutdownDeadline - System.nanoTime();
+    }
+
+    /**
+     * Change of an id at its place in the log, a null transaction is a delete
+     */
+    private static final class PendingChange {
+        private final long sequence;
+        private final String id;
+        private final Transaction transaction;
+
+        private PendingChange(long sequence, String id, Transaction transaction) {
+            this.sequence = sequence;
+            this.id = id;
+            this.transaction = transaction;
+        }
+
+        /**
+         * @return true when both are saves holding the same reference
+         */
+        private boolean keepsReference(Transaction next) {
+            return transaction != null && next != null
+                    && Objects.equals(transaction.getTransactionReference(), next.getTransactionReference());
+        }
+    }
+}
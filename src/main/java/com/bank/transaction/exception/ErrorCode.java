@@ -0,0 +1,38 @@
+package com.bank.transaction.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Error codes of rejected requests, with the status and error title they are answered with
+ *
+ * @author YUNING TAO
+ */
+public enum ErrorCode {
+
+    INVALID_REQUEST(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    INVALID_AMOUNT(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    INVALID_CURRENCY(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    INVALID_TRANSACTION_TYPE(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    INVALID_ACCOUNT(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    BALANCE_OUT_OF_RANGE(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    DUPLICATE_REFERENCE(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    NOT_FOUND(HttpStatus.BAD_REQUEST, "Transaction Exception"),
+    VERSION_CONFLICT(HttpStatus.PRECONDITION_FAILED, "Version Conflict"),
+    RESYNC_REQUIRED(HttpStatus.GONE, "Resync Required");
+
+    private final HttpStatus status;
+    private final String error;
+
+    ErrorCode(HttpStatus status, String error) {
+        this.status = status;
+        this.error = error;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,13 +1,25 @@
 package com.bank.transaction.exception;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Global Exception Handler
@@ -19,19 +31,61 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<ErrorCode, Rejections> rejections = new EnumMap<>(ErrorCode.class);
+
+    public GlobalExceptionHandler(Optional<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.orElseGet(SimpleMeterRegistry::new);
+        for (ErrorCode code : ErrorCode.values()) {
+            rejections.put(code, new Rejections(code, Counter.builder("transaction.rejections")
+                    .description("Rejected transaction requests by error code")
+                    .tag("code", code.name())
+                    .register(registry)));
+        }
+    }
+
     /**
-     * Transaction exception
+     * Rejected request, answered with the status of its error code
+     *
+     * Rejections are counted per code and logged at most once per code and second,
+     * with the number of similar ones left out since.
      */
     @ExceptionHandler(TransactionException.class)
     public ResponseEntity<ErrorResponse> handleTransactionException(TransactionException ex) {
-        logger.warn("Transaction Exception: {}", ex.getMessage());
+        ErrorCode code = ex.getCode();
+        rejections.get(code).record(ex);
         ErrorResponse errorResponse = new ErrorResponse(
-                HttpStatus.BAD_REQUEST.value(),
-                "Transaction Exception",
+                code.getStatus().value(),
+                code.getError(),
+                code,
                 ex.getMessage(),
                 LocalDateTime.now()
         );
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(errorResponse, code.getStatus());
+    }
+
+    /**
+     * Unreadable request body, a rejected currency or type code keeps its own code and
+     * anything else the client sent is an invalid request, never a system exception
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleMessageNotReadable(HttpMessageNotReadableException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionException transactionException) {
+                return handleTransactionException(transactionException);
+            }
+        }
+        return handleTransactionException(TransactionException.unreadableRequest());
+    }
+
+    /**
+     * None of the supported wire formats is acceptable, so the response has no body
+     */
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<Void> handleMediaTypeNotAcceptable(HttpMediaTypeNotAcceptableException ex) {
+        logger.debug("Media type not acceptable: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
     }
 
     /**
@@ -55,12 +109,18 @@ public class GlobalExceptionHandler {
     public static class ErrorResponse {
         private int status;
         private String error;
+        private ErrorCode code;
         private String message;
         private LocalDateTime timestamp;
 
         public ErrorResponse(int status, String error, String message, LocalDateTime timestamp) {
+            this(status, error, null, message, timestamp);
+        }
+
+        public ErrorResponse(int status, String error, ErrorCode code, String message, LocalDateTime timestamp) {
             this.status = status;
             this.error = error;
+            this.code = code;
             this.message = message;
             this.timestamp = timestamp;
         }
@@ -77,6 +137,13 @@ public class GlobalExceptionHandler {
         public void setError(String error) {
             this.error = error;
         }
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public ErrorCode getCode() {
+            return code;
+        }
+        public void setCode(ErrorCode code) {
+            this.code = code;
+        }
         public String getMessage() {
             return message;
         }
@@ -91,4 +158,30 @@ public class GlobalExceptionHandler {
         }
 
     }
-} 
\ No newline at end of file
+
+    /**
+     * Counter and log sampling of one error code
+     */
+    private static final class Rejections {
+        private final ErrorCode code;
+        private final Counter counter;
+        private final AtomicLong nextLogAt = new AtomicLong(System.nanoTime());
+        private final LongAdder suppressed = new LongAdder();
+
+        private Rejections(ErrorCode code, Counter counter) {
+            this.code = code;
+            this.counter = counter;
+        }
+
+        private void record(TransactionException ex) {
+            counter.increment();
+            long now = System.nanoTime();
+            long next = nextLogAt.get();
+            if (now - next < 0 || !nextLogAt.compareAndSet(next, now + LOG_INTERVAL_NANOS)) {
+                suppressed.increment();
+                return;
+            }
+            logger.warn("Transaction Exception [{}]: {}, similar suppressed: {}", code, ex.getMessage(), suppressed.sumThenReset());
+        }
+    }
+}
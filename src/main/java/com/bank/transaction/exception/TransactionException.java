@@ -1,32 +1,112 @@
 package com.bank.transaction.exception;
 
+/**
+ * Rejected transaction request
+ *
+ * Rejections are expected business errors, so they carry an error code and no stack trace.
+ * Those without a detail are preallocated and shared. Only a wrapped failure keeps its trace.
+ *
+ * @author YUNING TAO
+ */
 public class TransactionException  extends RuntimeException{
+
+    private static final TransactionException INVALID_AMOUNT =
+            new TransactionException(ErrorCode.INVALID_AMOUNT, "Invalid Transaction Amount，Must be over 0");
+    private static final TransactionException MISSING_CURRENCY =
+            new TransactionException(ErrorCode.INVALID_CURRENCY, "Invalid Currency: null");
+    private static final TransactionException MISSING_TRANSACTION_TYPE =
+            new TransactionException(ErrorCode.INVALID_TRANSACTION_TYPE, "Invalid Transaction Type: null");
+    private static final TransactionException EMPTY_ID =
+            new TransactionException(ErrorCode.INVALID_REQUEST, "Transaction ID cannot be empty.");
+    private static final TransactionException EMPTY_REQUEST =
+            new TransactionException(ErrorCode.INVALID_REQUEST, "Transaction request cannot be empty.");
+    private static final TransactionException UNREADABLE_REQUEST =
+            new TransactionException(ErrorCode.INVALID_REQUEST, "Transaction request cannot be read.");
+    private static final TransactionException BALANCE_OUT_OF_RANGE =
+            new TransactionException(ErrorCode.BALANCE_OUT_OF_RANGE,
+                    "Transaction would take an account balance out of range.");
+
+    private final ErrorCode code;
+
     public TransactionException(String message) {
-        super(message);
+        this(ErrorCode.INVALID_REQUEST, message);
     }
 
     public TransactionException(String message, Throwable cause) {
         super(message, cause);
+        this.code = ErrorCode.INVALID_REQUEST;
+    }
+
+    protected TransactionException(ErrorCode code, String message) {
+        // No stack trace and no suppressed list, so a shared instance stays immutable
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
     }
 
     public static TransactionException withTransactionReference(String transactionReference) {
-        return new TransactionException("Duplicated Transaction Reference:" + transactionReference);
+        return new TransactionException(ErrorCode.DUPLICATE_REFERENCE,
+                "Duplicated Transaction Reference:" + transactionReference);
     }
 
     public static TransactionException invalidAmount() {
-        return new TransactionException("Invalid Transaction Amount，Must be over 0");
+        return INVALID_AMOUNT;
     }
 
     public static TransactionException invalidCurrency(String currency) {
-        return new TransactionException("Invalid Currency: " + currency);
+        return currency == null ? MISSING_CURRENCY
+                : new TransactionException(ErrorCode.INVALID_CURRENCY, "Invalid Currency: " + currency);
     }
 
     public static TransactionException invalidTransactionType(String type) {
-        return new TransactionException("Invalid Transaction Type: " + type);
+        return type == null ? MISSING_TRANSACTION_TYPE
+                : new TransactionException(ErrorCode.INVALID_TRANSACTION_TYPE, "Invalid Transaction Type: " + type);
+    }
+
+    public static TransactionException invalidAccounts(String message) {
+        return new TransactionException(ErrorCode.INVALID_ACCOUNT, message);
+    }
+
+    public static TransactionException balanceOutOfRange() {
+        return BALANCE_OUT_OF_RANGE;
+    }
+
+    public static TransactionException withAccountId(String accountId) {
+        return new TransactionException(ErrorCode.NOT_FOUND, "Not Found Account ID: " + accountId);
+    }
+
+    public static TransactionException resyncRequired(long since, long retainedSince, long latest) {
+        return new TransactionException(ErrorCode.RESYNC_REQUIRED, "Changes since " + since
+                + " are not available, changes are kept since " + retainedSince + " up to " + latest
+                + ". Copy the full transaction list and continue from the latest sequence.");
+    }
+
+    public static TransactionException epochChanged(String epoch, long latest) {
+        return new TransactionException(ErrorCode.RESYNC_REQUIRED, "Changes of epoch " + epoch
+                + " are not kept by this server, its sequences up to " + latest + " belong to another epoch."
+                + " Copy the full transaction list and continue from the latest sequence and epoch.");
     }
 
     public static TransactionException withId(String id) {
-        return new TransactionException("Not Found Transaction ID: " + id);
+        return new TransactionException(ErrorCode.NOT_FOUND, "Not Found Transaction ID: " + id);
+    }
+
+    public static TransactionException emptyId() {
+        return EMPTY_ID;
+    }
+
+    public static TransactionException emptyRequest() {
+        return EMPTY_REQUEST;
+    }
+
+    /**
+     * Malformed body, the parser's message is left out since it may quote the input
+     */
+    public static TransactionException unreadableRequest() {
+        return UNREADABLE_REQUEST;
     }
 
 }
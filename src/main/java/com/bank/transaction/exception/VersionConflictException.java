@@ -0,0 +1,35 @@
+package com.bank.transaction.exception;
+
+import java.util.Collection;
+
+/**
+ * Raised when an update is based on a transaction version that is no longer current
+ *
+ * @author YUNING TAO
+ */
+public class VersionConflictException extends TransactionException {
+
+    public VersionConflictException(String message) {
+        super(ErrorCode.VERSION_CONFLICT, message);
+    }
+
+    public static VersionConflictException withVersion(String id, long expectedVersion) {
+        return new VersionConflictException("Transaction " + id + " is no longer at version " + expectedVersion);
+    }
+
+    public static VersionConflictException withVersions(String id, Collection<Long> expectedVersions) {
+        return new VersionConflictException("Transaction " + id + " is no longer at any of the versions " + expectedVersions);
+    }
+
+    public static VersionConflictException notMatching(String id, String ifMatch) {
+        return new VersionConflictException("None of the ETags matches a version of transaction " + id + ": " + ifMatch);
+    }
+
+    public static VersionConflictException missing(String id) {
+        return new VersionConflictException("Transaction " + id + " has no current version");
+    }
+
+    public static VersionConflictException invalidETag(String eTag) {
+        return new VersionConflictException("Invalid transaction ETag: " + eTag);
+    }
+}
@@ -0,0 +1,403 @@
+package com.bank.transaction.ledger;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Running account balances, kept up to date by every posted change
+ *
+ * A deposit credits its destination account, a withdrawal debits its source account and a
+ * transfer does both. Balances are kept per account and currency in minor units, each spread over
+ * padded cells like a LongAdder once writers collide on it, so a hot account does not serialize
+ * its writers.
+ *
+ * Accounts hash onto striped read-write locks, used the other way round: a posting holds the
+ * shared side of the stripes of every account it touches, taken in ascending stripe order so
+ * crossing transfers cannot deadlock, and a read holds the exclusive side. Postings therefore run
+ * side by side, even on one account, while a reader only ever sees a posting with all its legs
+ * applied or none of them.
+ *
+ * Every cell stays within a share of the long range, so the cells of a balance always sum to a
+ * long. A leg that would leave that share is taken back and the whole posting retried with its
+ * stripes held exclusively, where the total of each balance is checked with Math.addExact. A
+ * posting that would overflow a balance is rejected with an ArithmeticException and posts nothing.
+ *
+ * @author YUNING TAO
+ */
+public class BalanceLedger {
+
+    private static final CurrencyCode[] CURRENCIES = CurrencyCode.values();
+
+    /**
+     * Cells a contended balance is spread over, enough for every processor to have its own
+     */
+    private static final int CELLS =
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+    /**
+     * Longs between two cells, a cache line each so neighbouring cells are not falsely shared
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * Largest magnitude a cell may reach without the exclusive path, all of them together stay
+     * within half of the long range
+     */
+    private static final long CELL_LIMIT = Long.MAX_VALUE / (2L * (CELLS + 1));
+
+    private final Map<String, Balance> balances = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] locks;
+    private final int mask;
+
+    public BalanceLedger(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReadWriteLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Ledger built from every stored transaction
+     */
+    public static BalanceLedger rebuild(TransactionDao transactionDao, int stripes) {
+        BalanceLedger ledger = new BalanceLedger(stripes);
+        for (Transaction transaction : transactionDao.findAll()) {
+            ledger.post(null, transaction);
+        }
+        return ledger;
+    }
+
+    /**
+     * Post a change, the previous state is reversed and the next one applied as one step
+     *
+     * @param previous state before the change, null on create
+     * @param next state after the change, null on delete
+     * @throws ArithmeticException when a balance would overflow, nothing is posted then
+     */
+    public void post(Transaction previous, Transaction next) {
+        Leg[] legs = new Leg[4];
+        int count = 0;
+        if (previous != null) {
+            count = legs(previous, -1, legs, count);
+        }
+        if (next != null) {
+            count = legs(next, 1, legs, count);
+        }
+        if (count == 0) {
+            return;
+        }
+        int[] stripes = stripesOf(legs, count);
+
+        lock(stripes, false);
+        try {
+            if (tryApply(legs, count)) {
+                return;
+            }
+        } finally {
+            unlock(stripes, false);
+        }
+
+        lock(stripes, true);
+        try {
+            applyExact(legs, count);
+        } finally {
+            unlock(stripes, true);
+        }
+    }
+
+    /**
+     * Balances of an account by currency, null when no transaction has touched it
+     */
+    public Map<CurrencyCode, Long> balancesOf(String accountId) {
+        Balance balance = accountId != null ? balances.get(accountId) : null;
+        if (balance == null) {
+            return null;
+        }
+        Map<CurrencyCode, Long> result = new EnumMap<>(CurrencyCode.class);
+        int[] stripes = {stripeOf(accountId)};
+        lock(stripes, true);
+        try {
+            for (CurrencyCode currency : CURRENCIES) {
+                long minorUnits = balance.sum(currency.ordinal());
+                if (minorUnits != 0) {
+                    result.put(currency, minorUnits);
+                }
+            }
+        } finally {
+            unlock(stripes, true);
+        }
+        return result;
+    }
+
+    /**
+     * Balance of an account in one currency, in minor units
+     */
+    public long balanceOf(String accountId, CurrencyCode currency) {
+        return accountId != null ? sumOf(currency, accountId) : 0L;
+    }
+
+    /**
+     * Balances of several accounts in one currency summed at one instant, no posting is seen
+     * half applied
+     */
+    long sumOf(CurrencyCode currency, String... accountIds) {
+        int[] stripes = new int[accountIds.length];
+        for (int i = 0; i < accountIds.length; i++) {
+            stripes[i] = stripeOf(accountIds[i]);
+        }
+        stripes = distinct(stripes, stripes.length);
+        long sum = 0;
+        lock(stripes, true);
+        try {
+            for (String accountId : accountIds) {
+                Balance balance = balances.get(accountId);
+                if (balance != null) {
+                    sum += balance.sum(currency.ordinal());
+                }
+            }
+        } finally {
+            unlock(stripes, true);
+        }
+        return sum;
+    }
+
+    public int accounts() {
+        return balances.size();
+    }
+
+    /**
+     * Apply every leg within its cell limit, a leg that does not fit takes the earlier ones back
+     */
+    private static boolean tryApply(Leg[] legs, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!legs[i].tryApply()) {
+                for (int j = i - 1; j >= 0; j--) {
+                    legs[j].undo();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Apply every leg with the stripes held exclusively, after checking that no total overflows
+     */
+    private static void applyExact(Leg[] legs, int count) {
+        long[] totals = new long[count];
+        for (int i = 0; i < count; i++) {
+            totals[i] = legs[i].balance.sum(legs[i].currency);
+            for (int j = 0; j < i; j++) {
+                if (legs[j].balance == legs[i].balance && legs[j].currency == legs[i].currency) {
+                    totals[i] = Math.addExact(totals[i], legs[j].amount);
+                }
+            }
+            Math.addExact(totals[i], legs[i].amount);
+        }
+        for (int i = 0; i < count; i++) {
+            legs[i].balance.spread(legs[i].currency, totals[i] + legs[i].amount);
+        }
+    }
+
+    private int legs(Transaction transaction, int sign, Leg[] legs, int count) {
+        long amount = sign * transaction.getAmountMinorUnits();
+        int currency = transaction.getCurrency().ordinal();
+        switch (transaction.getTransactionType()) {
+            case DEPOSIT -> count = leg(transaction.getDestinationAccountId(), currency, amount, legs, count);
+            case WITHDRAWAL -> count = leg(transaction.getSourceAccountId(), currency, -amount, legs, count);
+            case TRANSFER -> {
+                count = leg(transaction.getSourceAccountId(), currency, -amount, legs, count);
+                count = leg(transaction.getDestinationAccountId(), currency, amount, legs, count);
+            }
+        }
+        return count;
+    }
+
+    private int leg(String accountId, int currency, long amount, Leg[] legs, int count) {
+        if (accountId == null) {
+            return count;
+        }
+        legs[count] = new Leg(balances.computeIfAbsent(accountId, id -> new Balance()), stripeOf(accountId),
+                currency, amount);
+        return count + 1;
+    }
+
+    private int stripeOf(String accountId) {
+        int hash = accountId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int[] stripesOf(Leg[] legs, int count) {
+        int[] stripes = new int[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = legs[i].stripe;
+        }
+        return distinct(stripes, count);
+    }
+
+    /**
+     * Distinct stripes in ascending order, the order every posting and read locks them in
+     */
+    private static int[] distinct(int[] stripes, int count) {
+        Arrays.sort(stripes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || stripes[distinct - 1] != stripes[i]) {
+                stripes[distinct++] = stripes[i];
+            }
+        }
+        return Arrays.copyOf(stripes, distinct);
+    }
+
+    private void lock(int[] stripes, boolean exclusive) {
+        for (int stripe : stripes) {
+            lockOf(stripe, exclusive).lock();
+        }
+    }
+
+    private void unlock(int[] stripes, boolean exclusive) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            lockOf(stripes[i], exclusive).unlock();
+        }
+    }
+
+    private Lock lockOf(int stripe, boolean exclusive) {
+        return exclusive ? locks[stripe].writeLock() : locks[stripe].readLock();
+    }
+
+    /**
+     * One account credited or debited by one posting
+     */
+    private static final class Leg {
+
+        private final Balance balance;
+        private final int stripe;
+        private final int currency;
+        private final long amount;
+        private int cell;
+
+        Leg(Balance balance, int stripe, int currency, long amount) {
+            this.balance = balance;
+            this.stripe = stripe;
+            this.currency = currency;
+            this.amount = amount;
+        }
+
+        boolean tryApply() {
+            cell = balance.tryAdd(currency, amount);
+            return cell != Balance.FULL;
+        }
+
+        /**
+         * Take the amount back from the cell it went to, the posting still holds its stripes
+         */
+        void undo() {
+            balance.subtract(currency, cell, amount);
+        }
+    }
+
+    /**
+     * Balance of one account, a base word per currency and padded cells once writers collide
+     */
+    private static final class Balance {
+
+        private static final int BASE = -1;
+        private static final int FULL = -2;
+
+        private final AtomicLongArray base = new AtomicLongArray(CURRENCIES.length);
+        private final AtomicReferenceArray<AtomicLongArray> contended =
+                new AtomicReferenceArray<>(CURRENCIES.length);
+
+        /**
+         * Add an amount that keeps its cell within the limit, answering the cell or FULL
+         */
+        int tryAdd(int currency, long amount) {
+            if (amount > CELL_LIMIT || amount < -CELL_LIMIT) {
+                return FULL;
+            }
+            AtomicLongArray spread = contended.get(currency);
+            if (spread == null) {
+                long current = base.get(currency);
+                long next = current + amount;
+                if (next > CELL_LIMIT || next < -CELL_LIMIT) {
+                    return FULL;
+                }
+                if (base.compareAndSet(currency, current, next)) {
+                    return BASE;
+                }
+                spread = cells(currency);
+            }
+            long id = Thread.currentThread().getId();
+            int probe = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+            for (int attempt = 0; ; attempt++) {
+                int index = ((probe + attempt) & (CELLS - 1)) * PADDING;
+                long current = spread.get(index);
+                long next = current + amount;
+                if (next > CELL_LIMIT || next < -CELL_LIMIT) {
+                    if (attempt >= CELLS) {
+                        return FULL;
+                    }
+                } else if (spread.compareAndSet(index, current, next)) {
+                    return index;
+                }
+            }
+        }
+
+        void subtract(int currency, int cell, long amount) {
+            if (cell == BASE) {
+                base.addAndGet(currency, -amount);
+            } else {
+                contended.get(currency).addAndGet(cell, -amount);
+            }
+        }
+
+        /**
+         * Sum of the base and the cells, exact while the total fits a long even if a word overflowed
+         */
+        long sum(int currency) {
+            long sum = base.get(currency);
+            AtomicLongArray spread = contended.get(currency);
+            if (spread != null) {
+                for (int index = 0; index < spread.length(); index += PADDING) {
+                    sum += spread.get(index);
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Replace the balance with a total spread evenly over its words, only with the stripe held
+         * exclusively
+         */
+        void spread(int currency, long total) {
+            AtomicLongArray spread = contended.get(currency);
+            if (spread == null) {
+                base.set(currency, total);
+                return;
+            }
+            long share = total / (CELLS + 1);
+            base.set(currency, total - share * CELLS);
+            for (int index = 0; index < spread.length(); index += PADDING) {
+                spread.set(index, share);
+            }
+        }
+
+        private AtomicLongArray cells(int currency) {
+            AtomicLongArray spread = new AtomicLongArray(CELLS * PADDING);
+            return contended.compareAndSet(currency, null, spread) ? spread : contended.get(currency);
+        }
+    }
+}
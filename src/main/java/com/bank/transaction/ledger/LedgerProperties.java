@@ -0,0 +1,25 @@
+package com.bank.transaction.ledger;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Balance ledger settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.ledger")
+public class LedgerProperties {
+
+    /**
+     * Number of lock stripes accounts are spread over, rounded up to a power of two
+     */
+    private int stripes = 64;
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.transaction.model;
+
+/**
+ * Case-insensitive lookup of enum constants by name, without building strings
+ *
+ * @author YUNING TAO
+ */
+final class Codes {
+
+    private Codes() {
+    }
+
+    static <E extends Enum<E>> E lookup(E[] values, CharSequence text) {
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() != text.length()) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length() && sameLetter(name.charAt(i), text.charAt(i))) {
+                i++;
+            }
+            if (i == name.length()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    static <E extends Enum<E>> E lookup(E[] values, char[] text, int offset, int length) {
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && sameLetter(name.charAt(i), text[offset + i])) {
+                i++;
+            }
+            if (i == length) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Names are upper case ASCII, so lower case input only needs one bit cleared
+     */
+    private static boolean sameLetter(char upper, char candidate) {
+        return upper == candidate || (candidate >= 'a' && candidate <= 'z' && upper == (char) (candidate - 32));
+    }
+}
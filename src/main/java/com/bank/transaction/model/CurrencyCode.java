@@ -0,0 +1,107 @@
+package com.bank.transaction.model;
+
+import com.bank.transaction.model.json.CurrencyCodeDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Supported currencies, with their ISO 4217 numeric code and minor unit digits
+ *
+ * Amounts are stored as a long count of minor units, cents for USD or yen for JPY.
+ *
+ * @author YUNING TAO
+ */
+@JsonDeserialize(using = CurrencyCodeDeserializer.class)
+public enum CurrencyCode {
+
+    USD(840, 2),
+    EUR(978, 2),
+    GBP(826, 2),
+    JPY(392, 0),
+    CNY(156, 2),
+    AUD(36, 2),
+    CAD(124, 2);
+
+    private static final CurrencyCode[] VALUES = values();
+
+    private final int numericCode;
+    private final int fractionDigits;
+    private final long scale;
+
+    CurrencyCode(int numericCode, int fractionDigits) {
+        this.numericCode = numericCode;
+        this.fractionDigits = fractionDigits;
+        this.scale = (long) Math.pow(10, fractionDigits);
+    }
+
+    /**
+     * Currency of a code in any case, without allocating
+     *
+     * @return null when the code is not supported
+     */
+    public static CurrencyCode fromCode(CharSequence code) {
+        return code != null ? Codes.lookup(VALUES, code) : null;
+    }
+
+    /**
+     * Currency of a code held in a character buffer, as parsers expose their text
+     *
+     * @return null when the code is not supported
+     */
+    public static CurrencyCode fromCode(char[] text, int offset, int length) {
+        return Codes.lookup(VALUES, text, offset, length);
+    }
+
+    /**
+     * @return null when the numeric code is not supported
+     */
+    public static CurrencyCode fromNumericCode(int numericCode) {
+        for (CurrencyCode currency : VALUES) {
+            if (currency.numericCode == numericCode) {
+                return currency;
+            }
+        }
+        return null;
+    }
+
+    public int getNumericCode() {
+        return numericCode;
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    /**
+     * Exact amount in minor units, trailing zeros beyond the currency's digits are fine
+     *
+     * @throws ArithmeticException when the amount has more fraction digits than the currency
+     *                             or does not fit in a long
+     */
+    public long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(fractionDigits).longValueExact();
+    }
+
+    /**
+     * Amount logged as a double by older versions, rounded half up from its shortest decimal form
+     */
+    public long toMinorUnits(double amount) {
+        return BigDecimal.valueOf(amount).movePointRight(fractionDigits).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Amount in major units, the closest double to the exact decimal amount
+     */
+    public double toMajorUnits(long minorUnits) {
+        return (double) minorUnits / scale;
+    }
+
+    /**
+     * Exact amount in major units
+     */
+    public BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, fractionDigits);
+    }
+}
@@ -9,89 +9,138 @@ import java.util.UUID;
 
 /**
  * Transaction model
+ *
+ * The amount is a long count of minor units of the currency, so sums are exact.
+ * Instances are immutable snapshots, an update builds the next version with
+ * {@link #withDetails} and {@link #withVersion}, so readers never see a half-applied change.
  * 
  * @author YUNING TAO
  */
-public class Transaction {
+public final class Transaction {
 
-    private String id;
+    private final String id;
+
+    private final long amountMinorUnits;
+
+    @NotNull
+    private final CurrencyCode currency;
 
     @NotNull
-    private double amount;
+    private final TransactionType transactionType;
+
+    private final String transactionReference;
 
-    @NotBlank
-    private String currency;
+    // Debited account of a withdrawal or transfer, optional
+    private final String sourceAccountId;
 
-    @NotBlank
-    private String transactionType;
+    // Credited account of a deposit or transfer, optional
+    private final String destinationAccountId;
 
-    private String transactionReference;
+    private final LocalDateTime timestamp;
+
+    private final long version;
+
+    public Transaction(long amountMinorUnits, CurrencyCode currency, TransactionType transactionType,
+                       String transactionReference) {
+        this(amountMinorUnits, currency, transactionType, transactionReference, null, null);
+    }
 
-    private LocalDateTime timestamp;
+    public Transaction(long amountMinorUnits, CurrencyCode currency, TransactionType transactionType,
+                       String transactionReference, String sourceAccountId, String destinationAccountId) {
+        this(UUID.randomUUID().toString(), amountMinorUnits, currency, transactionType, transactionReference,
+                sourceAccountId, destinationAccountId, LocalDateTime.now(), 1L);
+    }
 
-    public Transaction() {
-        this.id = UUID.randomUUID().toString();
-        this.timestamp = LocalDateTime.now();
+    public Transaction(String id, long amountMinorUnits, CurrencyCode currency, TransactionType transactionType,
+                       String transactionReference, LocalDateTime timestamp, long version) {
+        this(id, amountMinorUnits, currency, transactionType, transactionReference, null, null, timestamp, version);
     }
 
-    public Transaction(double amount, String currency, String transactionType, String transactionReference) {
-        this();
-        this.amount = amount;
+    public Transaction(String id, long amountMinorUnits, CurrencyCode currency, TransactionType transactionType,
+                       String transactionReference, String sourceAccountId, String destinationAccountId,
+                       LocalDateTime timestamp, long version) {
+        this.id = id;
+        this.amountMinorUnits = amountMinorUnits;
         this.currency = currency;
         this.transactionType = transactionType;
         this.transactionReference = transactionReference;
+        this.sourceAccountId = sourceAccountId;
+        this.destinationAccountId = destinationAccountId;
+        this.timestamp = timestamp;
+        this.version = version;
     }
 
-    // Getters and Setters
-    public String getId() {
-        return id;
+    /**
+     * Same transaction with new details, id, accounts, timestamp and version are kept
+     */
+    public Transaction withDetails(long amountMinorUnits, CurrencyCode currency, TransactionType transactionType,
+                                   String transactionReference) {
+        return withDetails(amountMinorUnits, currency, transactionType, transactionReference,
+                sourceAccountId, destinationAccountId);
     }
 
-    public void setId(String id) {
-        this.id = id;
+    /**
+     * Same transaction with new details and accounts, id, timestamp and version are kept
+     */
+    public Transaction withDetails(long amountMinorUnits, CurrencyCode currency, TransactionType transactionType,
+                                   String transactionReference, String sourceAccountId, String destinationAccountId) {
+        return new Transaction(id, amountMinorUnits, currency, transactionType, transactionReference,
+                sourceAccountId, destinationAccountId, timestamp, version);
     }
 
-    public double getAmount() {
-        return amount;
+    /**
+     * Same transaction at another version
+     */
+    public Transaction withVersion(long version) {
+        return version == this.version ? this
+                : new Transaction(id, amountMinorUnits, currency, transactionType, transactionReference,
+                sourceAccountId, destinationAccountId, timestamp, version);
     }
 
-    public void setAmount(double amount) {
-        this.amount = amount;
+    // Getters
+    public String getId() {
+        return id;
     }
 
-    public String getCurrency() {
-        return currency;
+    public long getAmountMinorUnits() {
+        return amountMinorUnits;
     }
 
-    public void setCurrency(String currency) {
-        this.currency = currency;
+    /**
+     * Amount in major units of the currency
+     */
+    public double getAmount() {
+        return currency.toMajorUnits(amountMinorUnits);
     }
 
-    public String getTransactionType() {
-        return transactionType;
+    public CurrencyCode getCurrency() {
+        return currency;
     }
 
-    public void setTransactionType(String transactionType) {
-        this.transactionType = transactionType;
+    public TransactionType getTransactionType() {
+        return transactionType;
     }
 
     public String getTransactionReference() {
         return transactionReference;
     }
 
-    public void setTransactionReference(String transactionReference) {
-        this.transactionReference = transactionReference;
+    public String getSourceAccountId() {
+        return sourceAccountId;
+    }
+
+    public String getDestinationAccountId() {
+        return destinationAccountId;
     }
 
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(LocalDateTime timestamp) {
-        this.timestamp = timestamp;
+    public long getVersion() {
+        return version;
     }
 
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,59 @@
+package com.bank.transaction.model;
+
+import com.bank.transaction.model.json.TransactionTypeDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Supported transaction types, with a stable code for binary formats
+ *
+ * @author YUNING TAO
+ */
+@JsonDeserialize(using = TransactionTypeDeserializer.class)
+public enum TransactionType {
+
+    DEPOSIT(1),
+    WITHDRAWAL(2),
+    TRANSFER(3);
+
+    private static final TransactionType[] VALUES = values();
+
+    private final int code;
+
+    TransactionType(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Type of a name in any case, without allocating
+     *
+     * @return null when the type is not supported
+     */
+    public static TransactionType fromCode(CharSequence name) {
+        return name != null ? Codes.lookup(VALUES, name) : null;
+    }
+
+    /**
+     * Type of a name held in a character buffer, as parsers expose their text
+     *
+     * @return null when the type is not supported
+     */
+    public static TransactionType fromCode(char[] text, int offset, int length) {
+        return Codes.lookup(VALUES, text, offset, length);
+    }
+
+    /**
+     * @return null when the code is not supported
+     */
+    public static TransactionType fromBinaryCode(int code) {
+        for (TransactionType type : VALUES) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.transaction.model.dto;
+
+import com.bank.transaction.model.CurrencyCode;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Account balance response, the running balance of every currency the account holds
+ *
+ * @author YUNING TAO
+ */
+public class AccountBalanceResponse {
+
+    private String accountId;
+
+    private Map<CurrencyCode, BigDecimal> balances;
+
+    public AccountBalanceResponse() {}
+
+    public AccountBalanceResponse(String accountId, Map<CurrencyCode, BigDecimal> balances) {
+        this.accountId = accountId;
+        this.balances = balances;
+    }
+
+    // Getters and Setters
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public Map<CurrencyCode, BigDecimal> getBalances() {
+        return balances;
+    }
+
+    public void setBalances(Map<CurrencyCode, BigDecimal> balances) {
+        this.balances = balances;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bank.transaction.model.dto;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Amount distribution of one currency and transaction type
+ *
+ * @author YUNING TAO
+ */
+public class AmountDistribution {
+
+    private CurrencyCode currency;
+
+    private TransactionType transactionType;
+
+    private long count;
+
+    // Amount by quantile name, such as p99
+    private Map<String, BigDecimal> quantiles;
+
+    public AmountDistribution() {}
+
+    public AmountDistribution(CurrencyCode currency, TransactionType transactionType, long count,
+                              Map<String, BigDecimal> quantiles) {
+        this.currency = currency;
+        this.transactionType = transactionType;
+        this.count = count;
+        this.quantiles = quantiles;
+    }
+
+    // Getters and Setters
+    public CurrencyCode getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(CurrencyCode currency) {
+        this.currency = currency;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Map<String, BigDecimal> getQuantiles() {
+        return quantiles;
+    }
+
+    public void setQuantiles(Map<String, BigDecimal> quantiles) {
+        this.quantiles = quantiles;
+    }
+}
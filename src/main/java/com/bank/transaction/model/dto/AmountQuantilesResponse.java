@@ -0,0 +1,52 @@
+package com.bank.transaction.model.dto;
+
+import java.util.List;
+
+/**
+ * Amount quantiles over a recent window, one distribution per currency and transaction type
+ *
+ * @author YUNING TAO
+ */
+public class AmountQuantilesResponse {
+
+    // ISO-8601 duration of the window, such as PT15M
+    private String window;
+
+    // Relative error bound of every returned amount
+    private double relativeAccuracy;
+
+    private List<AmountDistribution> distributions;
+
+    public AmountQuantilesResponse() {}
+
+    public AmountQuantilesResponse(String window, double relativeAccuracy, List<AmountDistribution> distributions) {
+        this.window = window;
+        this.relativeAccuracy = relativeAccuracy;
+        this.distributions = distributions;
+    }
+
+    // Getters and Setters
+    public String getWindow() {
+        return window;
+    }
+
+    public void setWindow(String window) {
+        this.window = window;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public void setRelativeAccuracy(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    public List<AmountDistribution> getDistributions() {
+        return distributions;
+    }
+
+    public void setDistributions(List<AmountDistribution> distributions) {
+        this.distributions = distributions;
+    }
+}
@@ -0,0 +1,74 @@
+package com.bank.transaction.model.dto;
+
+import java.util.List;
+
+/**
+ * Changes after a sequence, with the sequence to continue from
+ *
+ * @author YUNING TAO
+ */
+public class ChangeFeedResponse {
+
+    private List<TransactionChange> changes;
+
+    // Sequence to pass as since in the next call
+    private long nextSince;
+
+    private long latestSequence;
+
+    // Epoch to pass with nextSince, sequences of another epoch are not comparable
+    private String epoch;
+
+    private boolean hasMore;
+
+    public ChangeFeedResponse() {}
+
+    public ChangeFeedResponse(List<TransactionChange> changes, long nextSince, long latestSequence, String epoch) {
+        this.changes = changes;
+        this.nextSince = nextSince;
+        this.latestSequence = latestSequence;
+        this.epoch = epoch;
+        this.hasMore = nextSince < latestSequence;
+    }
+
+    // Getters and Setters
+    public List<TransactionChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<TransactionChange> changes) {
+        this.changes = changes;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    public long getLatestSequence() {
+        return latestSequence;
+    }
+
+    public void setLatestSequence(long latestSequence) {
+        this.latestSequence = latestSequence;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
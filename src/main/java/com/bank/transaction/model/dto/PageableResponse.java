@@ -1,5 +1,7 @@
 package com.bank.transaction.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 /**
@@ -17,6 +19,11 @@ public class PageableResponse<T> {
     private boolean first;
     private boolean last;
 
+    /**
+     * Store change count the page was read at, what its ETag is built from, never serialized
+     */
+    @JsonIgnore
+    private long changeCount;
 
     public PageableResponse() {}
 
@@ -87,6 +94,15 @@ public class PageableResponse<T> {
         this.last = last;
     }
 
+    @JsonIgnore
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    public void setChangeCount(long changeCount) {
+        this.changeCount = changeCount;
+    }
+
     @Override
     public String toString() {
         return "PagedResponse{" +
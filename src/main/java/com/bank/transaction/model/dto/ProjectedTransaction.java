@@ -0,0 +1,30 @@
+package com.bank.transaction.model.dto;
+
+import com.bank.transaction.model.json.ProjectedTransactionSerializer;
+import com.bank.transaction.model.json.TransactionProjection;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Transaction response limited to the fields a caller asked for
+ *
+ * @author YUNING TAO
+ */
+@JsonSerialize(using = ProjectedTransactionSerializer.class)
+public class ProjectedTransaction {
+
+    private final TransactionResponse response;
+    private final TransactionProjection projection;
+
+    public ProjectedTransaction(TransactionResponse response, TransactionProjection projection) {
+        this.response = response;
+        this.projection = projection;
+    }
+
+    public TransactionResponse getResponse() {
+        return response;
+    }
+
+    public TransactionProjection getProjection() {
+        return projection;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.transaction.model.dto;
+
+import com.bank.transaction.changes.ChangeType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Transaction change, deletes carry no transaction
+ *
+ * @author YUNING TAO
+ */
+public class TransactionChange {
+
+    private long sequence;
+    private ChangeType type;
+    private String id;
+    private long version;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private TransactionResponse transaction;
+
+    public TransactionChange() {}
+
+    public TransactionChange(long sequence, ChangeType type, String id, long version, TransactionResponse transaction) {
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.transaction = transaction;
+    }
+
+    // Getters and Setters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public void setType(ChangeType type) {
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public TransactionResponse getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionResponse transaction) {
+        this.transaction = transaction;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.transaction.model.dto;
+
+import java.util.List;
+
+/**
+ * Transaction lookup request, a batch of ids
+ *
+ * @author YUNING TAO
+ */
+public class TransactionLookupRequest {
+
+    private List<String> ids;
+
+    public TransactionLookupRequest() {}
+
+    public TransactionLookupRequest(List<String> ids) {
+        this.ids = ids;
+    }
+
+    // Getters and Setters
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+}
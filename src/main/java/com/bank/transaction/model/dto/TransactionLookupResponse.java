@@ -0,0 +1,39 @@
+package com.bank.transaction.model.dto;
+
+import java.util.List;
+
+/**
+ * Transaction lookup response, the transactions found in request order and the ids that were not found
+ *
+ * @author YUNING TAO
+ */
+public class TransactionLookupResponse {
+
+    private List<TransactionResponse> transactions;
+
+    private List<String> missingIds;
+
+    public TransactionLookupResponse() {}
+
+    public TransactionLookupResponse(List<TransactionResponse> transactions, List<String> missingIds) {
+        this.transactions = transactions;
+        this.missingIds = missingIds;
+    }
+
+    // Getters and Setters
+    public List<TransactionResponse> getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(List<TransactionResponse> transactions) {
+        this.transactions = transactions;
+    }
+
+    public List<String> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<String> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
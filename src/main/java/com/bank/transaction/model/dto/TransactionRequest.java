@@ -1,5 +1,7 @@
 package com.bank.transaction.model.dto;
 
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 
@@ -9,45 +11,65 @@ import java.math.BigDecimal;
  * @author YUNING TAO
  */
 public class TransactionRequest {
-    private double amount;
+    // Read as a decimal, so the amount is exactly what the client sent
+    private BigDecimal amount;
 
-    private String currency;
+    private CurrencyCode currency;
 
-    private String transactionType;
+    private TransactionType transactionType;
 
     private String transactionReference;
 
+    // Debited account, for withdrawals and transfers
+    private String sourceAccountId;
+
+    // Credited account, for deposits and transfers
+    private String destinationAccountId;
+
     public TransactionRequest() {}
 
-    public TransactionRequest(double amount, String currency, String transactionType, String transactionReference) {
+    public TransactionRequest(BigDecimal amount, CurrencyCode currency, TransactionType transactionType,
+                              String transactionReference) {
         this.amount = amount;
         this.currency = currency;
         this.transactionType = transactionType;
         this.transactionReference = transactionReference;
     }
 
+    public TransactionRequest(double amount, CurrencyCode currency, TransactionType transactionType,
+                              String transactionReference) {
+        this(BigDecimal.valueOf(amount), currency, transactionType, transactionReference);
+    }
+
+    public TransactionRequest(double amount, CurrencyCode currency, TransactionType transactionType,
+                              String transactionReference, String sourceAccountId, String destinationAccountId) {
+        this(amount, currency, transactionType, transactionReference);
+        this.sourceAccountId = sourceAccountId;
+        this.destinationAccountId = destinationAccountId;
+    }
+
     // Getters and Setters
-    public double getAmount() {
+    public BigDecimal getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(BigDecimal amount) {
         this.amount = amount;
     }
 
-    public String getCurrency() {
+    public CurrencyCode getCurrency() {
         return currency;
     }
 
-    public void setCurrency(String currency) {
+    public void setCurrency(CurrencyCode currency) {
         this.currency = currency;
     }
 
-    public String getTransactionType() {
+    public TransactionType getTransactionType() {
         return transactionType;
     }
 
-    public void setTransactionType(String transactionType) {
+    public void setTransactionType(TransactionType transactionType) {
         this.transactionType = transactionType;
     }
 
@@ -59,13 +81,31 @@ public class TransactionRequest {
         this.transactionReference = transactionReference;
     }
 
+    public String getSourceAccountId() {
+        return sourceAccountId;
+    }
+
+    public void setSourceAccountId(String sourceAccountId) {
+        this.sourceAccountId = sourceAccountId;
+    }
+
+    public String getDestinationAccountId() {
+        return destinationAccountId;
+    }
+
+    public void setDestinationAccountId(String destinationAccountId) {
+        this.destinationAccountId = destinationAccountId;
+    }
+
     @Override
     public String toString() {
         return "TransactionRequest{" +
                 "amount=" + amount +
-                ", currency='" + currency + '\'' +
-                ", transactionType='" + transactionType + '\'' +
+                ", currency=" + currency +
+                ", transactionType=" + transactionType +
                 ", transactionReference='" + transactionReference + '\'' +
+                ", sourceAccountId='" + sourceAccountId + '\'' +
+                ", destinationAccountId='" + destinationAccountId + '\'' +
                 '}';
     }
 } 
\ No newline at end of file
@@ -1,5 +1,10 @@
 package com.bank.transaction.model.dto;
 
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -12,14 +17,17 @@ public class TransactionResponse {
 
     private String id;
     private double amount;
-    private String currency;
-    private String transactionType;
+    private CurrencyCode currency;
+    private TransactionType transactionType;
     private String transactionReference;
+    private String sourceAccountId;
+    private String destinationAccountId;
     private LocalDateTime timestamp;
+    private long version;
 
     public TransactionResponse() {}
 
-    public TransactionResponse(String id, double amount, String currency, String transactionType,
+    public TransactionResponse(String id, double amount, CurrencyCode currency, TransactionType transactionType,
                              String transactionReference, LocalDateTime timestamp) {
         this.id = id;
         this.amount = amount;
@@ -29,6 +37,30 @@ public class TransactionResponse {
         this.timestamp = timestamp;
     }
 
+    public TransactionResponse(String id, double amount, CurrencyCode currency, TransactionType transactionType,
+                             String transactionReference, LocalDateTime timestamp, long version) {
+        this(id, amount, currency, transactionType, transactionReference, timestamp);
+        this.version = version;
+    }
+
+    /**
+     * Response of a stored transaction
+     */
+    public static TransactionResponse from(Transaction transaction) {
+        TransactionResponse response = new TransactionResponse(
+                transaction.getId(),
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getTransactionType(),
+                transaction.getTransactionReference(),
+                transaction.getTimestamp(),
+                transaction.getVersion()
+        );
+        response.sourceAccountId = transaction.getSourceAccountId();
+        response.destinationAccountId = transaction.getDestinationAccountId();
+        return response;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -46,19 +78,19 @@ public class TransactionResponse {
         this.amount = amount;
     }
 
-    public String getCurrency() {
+    public CurrencyCode getCurrency() {
         return currency;
     }
 
-    public void setCurrency(String currency) {
+    public void setCurrency(CurrencyCode currency) {
         this.currency = currency;
     }
 
-    public String getTransactionType() {
+    public TransactionType getTransactionType() {
         return transactionType;
     }
 
-    public void setTransactionType(String transactionType) {
+    public void setTransactionType(TransactionType transactionType) {
         this.transactionType = transactionType;
     }
 
@@ -70,6 +102,24 @@ public class TransactionResponse {
         this.transactionReference = transactionReference;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getSourceAccountId() {
+        return sourceAccountId;
+    }
+
+    public void setSourceAccountId(String sourceAccountId) {
+        this.sourceAccountId = sourceAccountId;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getDestinationAccountId() {
+        return destinationAccountId;
+    }
+
+    public void setDestinationAccountId(String destinationAccountId) {
+        this.destinationAccountId = destinationAccountId;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -78,4 +128,12 @@ public class TransactionResponse {
         this.timestamp = timestamp;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 } 
\ No newline at end of file
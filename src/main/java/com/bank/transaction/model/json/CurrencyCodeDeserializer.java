@@ -0,0 +1,35 @@
+package com.bank.transaction.model.json;
+
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.CurrencyCode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a currency code straight from the parser's character buffer
+ *
+ * Unknown codes fail with the same error as before, carrying the text that was sent.
+ *
+ * @author YUNING TAO
+ */
+public class CurrencyCodeDeserializer extends StdScalarDeserializer<CurrencyCode> {
+
+    public CurrencyCodeDeserializer() {
+        super(CurrencyCode.class);
+    }
+
+    @Override
+    public CurrencyCode deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        CurrencyCode currency = parser.hasToken(JsonToken.VALUE_STRING)
+                ? CurrencyCode.fromCode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                : null;
+        if (currency == null) {
+            throw TransactionException.invalidCurrency(parser.getText());
+        }
+        return currency;
+    }
+}
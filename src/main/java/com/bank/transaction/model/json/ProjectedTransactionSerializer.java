@@ -0,0 +1,26 @@
+package com.bank.transaction.model.json;
+
+import com.bank.transaction.model.dto.ProjectedTransaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a projected transaction with the compiled writer of its projection
+ *
+ * @author YUNING TAO
+ */
+public class ProjectedTransactionSerializer extends StdSerializer<ProjectedTransaction> {
+
+    public ProjectedTransactionSerializer() {
+        super(ProjectedTransaction.class);
+    }
+
+    @Override
+    public void serialize(ProjectedTransaction value, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        value.getProjection().write(value.getResponse(), generator, provider);
+    }
+}
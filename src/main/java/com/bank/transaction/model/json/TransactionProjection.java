@@ -0,0 +1,188 @@
+package com.bank.transaction.model.json;
+
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Selected output fields of a transaction, with the writer for exactly those fields
+ *
+ * A projection is compiled once per field set into an array of field writers with their
+ * names pre-encoded, so serializing a projected transaction reads the response getters
+ * directly and involves no reflection or property filtering. Fields are always written
+ * in response order, whatever order they were asked in.
+ *
+ * @author YUNING TAO
+ */
+public final class TransactionProjection {
+
+    /**
+     * Response fields a projection can select, in output order
+     */
+    public enum Field {
+        ID("id", (response, generator, provider) -> generator.writeString(response.getId())),
+        AMOUNT("amount", (response, generator, provider) -> generator.writeNumber(response.getAmount())),
+        CURRENCY("currency", (response, generator, provider) -> writeName(generator, response.getCurrency())),
+        TRANSACTION_TYPE("transactionType",
+                (response, generator, provider) -> writeName(generator, response.getTransactionType())),
+        TRANSACTION_REFERENCE("transactionReference",
+                (response, generator, provider) -> generator.writeString(response.getTransactionReference())),
+        SOURCE_ACCOUNT_ID("sourceAccountId",
+                (response, generator, provider) -> generator.writeString(response.getSourceAccountId())),
+        DESTINATION_ACCOUNT_ID("destinationAccountId",
+                (response, generator, provider) -> generator.writeString(response.getDestinationAccountId())),
+        // Through the mapper's own serializer, so the date format matches full responses
+        TIMESTAMP("timestamp", (response, generator, provider) -> {
+            if (response.getTimestamp() == null) {
+                generator.writeNull();
+            } else {
+                provider.defaultSerializeValue(response.getTimestamp(), generator);
+            }
+        }),
+        VERSION("version", (response, generator, provider) -> generator.writeNumber(response.getVersion()));
+
+        private final String jsonName;
+        private final SerializedString serializedName;
+        private final FieldWriter writer;
+
+        Field(String jsonName, FieldWriter writer) {
+            this.jsonName = jsonName;
+            this.serializedName = new SerializedString(jsonName);
+            this.writer = writer;
+        }
+
+        public String getJsonName() {
+            return jsonName;
+        }
+
+        static Field of(String name) {
+            for (Field field : VALUES) {
+                if (field.jsonName.equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Field[] VALUES = Field.values();
+
+    // Every field set is compiled once, there are 2^9 of them at most
+    private static final AtomicReferenceArray<TransactionProjection> COMPILED =
+            new AtomicReferenceArray<>(1 << VALUES.length);
+
+    private final int mask;
+    private final String key;
+    private final Field[] fields;
+
+    private TransactionProjection(int mask) {
+        List<Field> selected = new ArrayList<>();
+        StringJoiner key = new StringJoiner(",");
+        for (Field field : VALUES) {
+            if ((mask & (1 << field.ordinal())) != 0) {
+                selected.add(field);
+                key.add(field.jsonName);
+            }
+        }
+        this.mask = mask;
+        this.key = key.toString();
+        this.fields = selected.toArray(new Field[0]);
+    }
+
+    /**
+     * Projection of a fields parameter, a comma separated list of response field names
+     *
+     * @param fields fields parameter, null or blank for the full response
+     * @return projection, null for the full response
+     */
+    public static TransactionProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        int mask = 0;
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            Field field = Field.of(trimmed);
+            if (field == null) {
+                throw new TransactionException("Unknown transaction field: " + trimmed);
+            }
+            mask |= 1 << field.ordinal();
+        }
+        return mask == 0 ? null : of(mask);
+    }
+
+    private static TransactionProjection of(int mask) {
+        TransactionProjection projection = COMPILED.get(mask);
+        if (projection == null) {
+            COMPILED.compareAndSet(mask, null, new TransactionProjection(mask));
+            projection = COMPILED.get(mask);
+        }
+        return projection;
+    }
+
+    /**
+     * Canonical field list, equal for equal field sets, used in cache keys
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Field set as a bit mask, equal for equal field sets
+     */
+    public int mask() {
+        return mask;
+    }
+
+    public boolean includes(Field field) {
+        return (mask & (1 << field.ordinal())) != 0;
+    }
+
+    /**
+     * Write the selected fields of the response as one object
+     */
+    public void write(TransactionResponse response, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject(response);
+        for (Field field : fields) {
+            // Accounts are left out when empty, like in full responses
+            if ((field == Field.SOURCE_ACCOUNT_ID && response.getSourceAccountId() == null)
+                    || (field == Field.DESTINATION_ACCOUNT_ID && response.getDestinationAccountId() == null)) {
+                continue;
+            }
+            generator.writeFieldName(field.serializedName);
+            field.writer.write(response, generator, provider);
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+    private static void writeName(JsonGenerator generator, Enum<?> value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value.name());
+        }
+    }
+
+    @FunctionalInterface
+    interface FieldWriter {
+        void write(TransactionResponse response, JsonGenerator generator, SerializerProvider provider)
+                throws IOException;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.transaction.model.json;
+
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.TransactionType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a transaction type straight from the parser's character buffer
+ *
+ * Unknown types fail with the same error as before, carrying the text that was sent.
+ *
+ * @author YUNING TAO
+ */
+public class TransactionTypeDeserializer extends StdScalarDeserializer<TransactionType> {
+
+    public TransactionTypeDeserializer() {
+        super(TransactionType.class);
+    }
+
+    @Override
+    public TransactionType deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        TransactionType type = parser.hasToken(JsonToken.VALUE_STRING)
+                ? TransactionType.fromCode(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                : null;
+        if (type == null) {
+            throw TransactionException.invalidTransactionType(parser.getText());
+        }
+        return type;
+    }
+}
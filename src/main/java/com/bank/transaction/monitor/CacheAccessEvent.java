@@ -0,0 +1,52 @@
+package com.bank.transaction.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one cache read
+ *
+ * @author YUNING TAO
+ */
+@Name("com.bank.transaction.CacheAccess")
+@Label("Transaction Cache Access")
+@Category({"Bank", "Transactions"})
+@Description("Cache read, a miss includes the time spent loading the value")
+@StackTrace(false)
+public class CacheAccessEvent extends Event {
+
+    @Label("Cache")
+    private String cache;
+
+    @Label("Key")
+    private String key;
+
+    @Label("Hit")
+    private boolean hit;
+
+    /**
+     * New event, timed from now until it is recorded
+     */
+    public static CacheAccessEvent start() {
+        CacheAccessEvent event = new CacheAccessEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commit the event, the key is only turned into a string when a recording wants it
+     */
+    public void record(String cache, Object key, boolean hit) {
+        end();
+        if (shouldCommit()) {
+            this.cache = cache;
+            this.key = String.valueOf(key);
+            this.hit = hit;
+            commit();
+        }
+    }
+}
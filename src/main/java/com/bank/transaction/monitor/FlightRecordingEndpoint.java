@@ -0,0 +1,118 @@
+package com.bank.transaction.monitor;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint starting and stopping a bounded flight recording
+ *
+ * POST starts a recording with the transaction events on top of the configured JFR
+ * settings, DELETE stops it and returns the .jfr file. Only one recording runs at a time,
+ * and it stops by itself after the maximum duration.
+ *
+ * @author YUNING TAO
+ */
+@WebEndpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingEndpoint.class);
+
+    private final FlightRecordingProperties properties;
+    private Recording recording;
+
+    public FlightRecordingEndpoint(FlightRecordingProperties properties) {
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording != null ? recording.getState().name() : "NONE");
+        if (recording != null) {
+            status.put("startTime", recording.getStartTime());
+            status.put("maxDuration", properties.getMaxDuration());
+            status.put("size", recording.getSize());
+        }
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> start() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            closeRecording();
+            recording = newRecording();
+            recording.start();
+            logger.info("Started flight recording, settings:{}, max duration:{}",
+                    properties.getSettings(), properties.getMaxDuration());
+        }
+        return status();
+    }
+
+    @DeleteOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = Path.of(properties.getFile());
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            recording.dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write flight recording " + file, e);
+        } finally {
+            closeRecording();
+        }
+        logger.info("Stopped flight recording, written to {}", file);
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @PreDestroy
+    public synchronized void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Recording newRecording() {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(properties.getSettings());
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unknown JFR settings " + properties.getSettings(), e);
+        }
+        Recording newRecording = new Recording(configuration);
+        newRecording.setName("transactions");
+        newRecording.setToDisk(true);
+        newRecording.setMaxSize(properties.getMaxSize());
+        newRecording.setDuration(properties.getMaxDuration());
+        newRecording.enable(TransactionOperationEvent.class);
+        newRecording.enable(StoreOperationEvent.class);
+        newRecording.enable(CacheAccessEvent.class);
+        return newRecording;
+    }
+}
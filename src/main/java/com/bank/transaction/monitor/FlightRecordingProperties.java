@@ -0,0 +1,80 @@
+package com.bank.transaction.monitor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * On-demand flight recording settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.jfr")
+public class FlightRecordingProperties {
+
+    /**
+     * Record store calls and expose the recording endpoint, off unless asked for since
+     * recordings hold transaction ids and references
+     */
+    private boolean enabled = false;
+
+    /**
+     * JFR settings the recording starts from, default or profile
+     */
+    private String settings = "profile";
+
+    /**
+     * A recording stops by itself after this long
+     */
+    private Duration maxDuration = Duration.ofMinutes(10);
+
+    /**
+     * Disk space a recording may use, in bytes, older chunks are dropped beyond it
+     */
+    private long maxSize = 100L * 1024 * 1024;
+
+    /**
+     * File the stopped recording is written to, replaced by the next one
+     */
+    private String file = System.getProperty("java.io.tmpdir") + "/transactions.jfr";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public void setSettings(String settings) {
+        this.settings = settings;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.transaction.monitor;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.TransactionResponse;
+
+/**
+ * Retained size estimates, for a 64-bit JVM with compressed references
+ *
+ * Sizes are computed from field layouts and string contents rather than measured, they
+ * are estimates for capacity planning. Padding, field packing and shared objects differ
+ * between JVMs, so a heap dump may show somewhat different numbers.
+ *
+ * @author YUNING TAO
+ */
+public final class Footprint {
+
+    /**
+     * ConcurrentHashMap node
+     */
+    public static final long MAP_ENTRY = 32;
+
+    /**
+     * ConcurrentSkipListMap node plus its share of index nodes
+     */
+    public static final long SKIP_LIST_ENTRY = 40;
+
+    private static final long OBJECT_HEADER = 12;
+    private static final long ARRAY_HEADER = 16;
+    private static final long REFERENCE = 4;
+
+    // LocalDateTime with its LocalDate and LocalTime
+    private static final long DATE_TIME = 3 * 24;
+
+    // Header, seven references and two longs, currency and type are shared enum constants
+    private static final long TRANSACTION_SHALLOW = align(OBJECT_HEADER + 7 * REFERENCE + 8 + 8);
+    // Header, seven references, a double and a long
+    private static final long RESPONSE_SHALLOW = TRANSACTION_SHALLOW;
+
+    // Header, the content reference, three ints, a long and two booleans, plus an ArrayList
+    private static final long PAGE_SHALLOW = align(OBJECT_HEADER + REFERENCE + 3 * 4 + 8 + 2)
+            + align(OBJECT_HEADER + 4 + 4 + REFERENCE);
+
+    private Footprint() {
+    }
+
+    public static long of(Transaction transaction) {
+        return TRANSACTION_SHALLOW
+                + of(transaction.getId())
+                + of(transaction.getTransactionReference())
+                + of(transaction.getSourceAccountId())
+                + of(transaction.getDestinationAccountId())
+                + (transaction.getTimestamp() != null ? DATE_TIME : 0);
+    }
+
+    public static long of(TransactionResponse response) {
+        return RESPONSE_SHALLOW
+                + of(response.getId())
+                + of(response.getTransactionReference())
+                + of(response.getSourceAccountId())
+                + of(response.getDestinationAccountId())
+                + (response.getTimestamp() != null ? DATE_TIME : 0);
+    }
+
+    public static long of(PageableResponse<?> page) {
+        long size = PAGE_SHALLOW;
+        if (page.getContent() != null) {
+            size += align(ARRAY_HEADER + (long) page.getContent().size() * REFERENCE);
+            for (Object item : page.getContent()) {
+                if (item instanceof TransactionResponse response) {
+                    size += of(response);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Compact string, one byte per char when every char is Latin-1 and two otherwise
+     */
+    public static long of(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1)
+                + align(ARRAY_HEADER + (long) value.length() * bytesPerChar(value));
+    }
+
+    private static int bytesPerChar(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return 2;
+            }
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
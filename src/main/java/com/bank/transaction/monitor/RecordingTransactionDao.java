@@ -0,0 +1,131 @@
+package com.bank.transaction.monitor;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Transaction DAO recording a flight recorder event for every store call
+ *
+ * Every method delegates, including the default ones, so store specific bulk paths are kept.
+ *
+ * @author YUNING TAO
+ */
+public class RecordingTransactionDao implements TransactionDao {
+
+    private final TransactionDao delegate;
+    private final String engine;
+
+    public RecordingTransactionDao(TransactionDao delegate) {
+        this.delegate = delegate;
+        this.engine = delegate.getClass().getSimpleName();
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        return record("save", transaction.getId(), transaction.getTransactionReference(),
+                () -> delegate.save(transaction));
+    }
+
+    @Override
+    public void saveAll(Collection<Transaction> transactions) {
+        record("saveAll", null, null, () -> {
+            delegate.saveAll(transactions);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Transaction> update(Transaction transaction, long expectedVersion) {
+        return record("update", transaction.getId(), transaction.getTransactionReference(),
+                () -> delegate.update(transaction, expectedVersion));
+    }
+
+    @Override
+    public Optional<Transaction> findById(String id) {
+        return record("findById", id, null, () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<String> ids) {
+        return record("findAllById", null, null, () -> delegate.findAllById(ids));
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return record("findAll", null, null, delegate::findAll);
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return record("findPage", null, null, () -> delegate.findAll(page, size));
+    }
+
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        return record("findByTimestampBetween", null, null, () -> delegate.findByTimestampBetween(from, to));
+    }
+
+    @Override
+    public long count() {
+        return record("count", null, null, delegate::count);
+    }
+
+    @Override
+    public long changeCount() {
+        return delegate.changeCount();
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return record("deleteById", id, null, () -> delegate.deleteById(id));
+    }
+
+    @Override
+    public Optional<Transaction> removeById(String id) {
+        return record("removeById", id, null, () -> delegate.removeById(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return record("existsById", id, null, () -> delegate.existsById(id));
+    }
+
+    @Override
+    public Optional<Transaction> findByTransactionReference(String transactionReference) {
+        return record("findByTransactionReference", null, transactionReference,
+                () -> delegate.findByTransactionReference(transactionReference));
+    }
+
+    @Override
+    public boolean existsByTransactionReference(String transactionReference) {
+        return record("existsByTransactionReference", null, transactionReference,
+                () -> delegate.existsByTransactionReference(transactionReference));
+    }
+
+    @Override
+    public List<Transaction> purgeExpired() {
+        return delegate.purgeExpired();
+    }
+
+    @Override
+    public Map<String, Object> storeDetails() {
+        return delegate.storeDetails();
+    }
+
+    private <T> T record(String operation, String id, String reference, Supplier<T> call) {
+        StoreOperationEvent event = new StoreOperationEvent(operation, engine, id, reference);
+        event.begin();
+        try {
+            return call.get();
+        } finally {
+            event.commit();
+        }
+    }
+}
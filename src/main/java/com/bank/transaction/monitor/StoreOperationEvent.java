@@ -0,0 +1,40 @@
+package com.bank.transaction.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one transaction store call
+ *
+ * @author YUNING TAO
+ */
+@Name("com.bank.transaction.StoreOperation")
+@Label("Transaction Store Operation")
+@Category({"Bank", "Transactions"})
+@Description("Transaction DAO call")
+@StackTrace(false)
+public class StoreOperationEvent extends Event {
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Engine")
+    private final String engine;
+
+    @Label("Transaction Id")
+    private final String transactionId;
+
+    @Label("Transaction Reference")
+    private final String transactionReference;
+
+    StoreOperationEvent(String operation, String engine, String transactionId, String transactionReference) {
+        this.operation = operation;
+        this.engine = engine;
+        this.transactionId = transactionId;
+        this.transactionReference = transactionReference;
+    }
+}
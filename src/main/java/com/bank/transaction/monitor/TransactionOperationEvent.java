@@ -0,0 +1,71 @@
+package com.bank.transaction.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one transaction service call
+ *
+ * Events only cost an allocation and a few field writes while no recording is running.
+ *
+ * @author YUNING TAO
+ */
+@Name("com.bank.transaction.Operation")
+@Label("Transaction Operation")
+@Category({"Bank", "Transactions"})
+@Description("Transaction service call")
+@StackTrace(false)
+public class TransactionOperationEvent extends Event {
+
+    public static final String CACHE_HIT = "hit";
+    public static final String CACHE_MISS = "miss";
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Transaction Id")
+    private String transactionId;
+
+    @Label("Transaction Reference")
+    private String transactionReference;
+
+    @Label("Cache")
+    @Description("hit or miss, empty when the operation does not read the cache")
+    private String cache;
+
+    @Label("Results")
+    private int results;
+
+    private TransactionOperationEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * New event, timed from now until it is committed
+     */
+    public static TransactionOperationEvent start(String operation) {
+        TransactionOperationEvent event = new TransactionOperationEvent(operation);
+        event.begin();
+        return event;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public void setTransactionReference(String transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+
+    public void setCache(String cache) {
+        this.cache = cache;
+    }
+
+    public void setResults(int results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.transaction.monitor;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.dto.PageableResponse;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting store internals, memory footprint and cache efficiency
+ *
+ * Store numbers come from counters the store keeps on every write. The only walk is over
+ * the list cache entries, which the cache bounds to a few hundred.
+ *
+ * @author YUNING TAO
+ */
+@Endpoint(id = "transactionstore")
+public class TransactionStoreEndpoint {
+
+    private final TransactionDao transactionDao;
+    private final CacheManager cacheManager;
+
+    public TransactionStoreEndpoint(TransactionDao transactionDao, CacheManager cacheManager) {
+        this.transactionDao = transactionDao;
+        this.cacheManager = cacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> details() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                caches.put(name, cacheDetails(name, nativeCache));
+            }
+        }
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("store", transactionDao.storeDetails());
+        details.put("caches", caches);
+        return details;
+    }
+
+    private static Map<String, Object> cacheDetails(String name, com.github.benmanes.caffeine.cache.Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("size", cache.estimatedSize());
+        details.put("hits", stats.hitCount());
+        details.put("misses", stats.missCount());
+        details.put("hitRatio", stats.hitRate());
+        details.put("evictions", stats.evictionCount());
+        if (CacheConfig.TRANSACTION_LIST_CACHE.equals(name)) {
+            details.put("largestEntry", largestPage(cache));
+        }
+        return details;
+    }
+
+    private static Map<String, Object> largestPage(com.github.benmanes.caffeine.cache.Cache<?, ?> cache) {
+        long largestBytes = 0;
+        int largestItems = 0;
+        for (Object value : cache.asMap().values()) {
+            if (value instanceof PageableResponse<?> page) {
+                long bytes = Footprint.of(page);
+                if (bytes > largestBytes) {
+                    largestBytes = bytes;
+                    largestItems = page.getContent() != null ? page.getContent().size() : 0;
+                }
+            }
+        }
+        Map<String, Object> largest = new LinkedHashMap<>();
+        largest.put("items", largestItems);
+        largest.put("estimatedBytes", largestBytes);
+        return largest;
+    }
+}
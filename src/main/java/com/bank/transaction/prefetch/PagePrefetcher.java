@@ -0,0 +1,233 @@
+package com.bank.transaction.prefetch;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Loads the next list pages of sequential readers into the list cache ahead of time
+ *
+ * The last page read by every client is remembered. A client reading the first page, or the
+ * page after its previous one with the same size, gets the following pages loaded in the
+ * background through the cached service call, so its next request is a cache hit. Loads are
+ * bounded by a number in flight and skipped beyond it. A prefetched page nobody reads within
+ * the unused timeout is taken out of the cache again, and a page loaded while the store
+ * changed is dropped, as the change already evicted the list cache.
+ *
+ * @author YUNING TAO
+ */
+public class PagePrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PagePrefetcher.class);
+
+    private final TransactionService transactionService;
+    private final CacheManager cacheManager;
+    private final PrefetchProperties properties;
+    private final Executor executor;
+    private final Semaphore budget;
+
+    private final Cache<String, Position> positions;
+    // Prefetched and not read yet, with the store change count they were loaded at
+    private final Cache<String, Long> prefetched;
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+
+    private final Counter issued;
+    private final Counter hits;
+    private final Counter stale;
+    private final Counter wasted;
+    private final Counter skipped;
+
+    public PagePrefetcher(TransactionService transactionService, CacheManager cacheManager,
+                          PrefetchProperties properties, MeterRegistry meterRegistry, Executor executor) {
+        this.transactionService = transactionService;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.executor = executor;
+        this.budget = new Semaphore(Math.max(1, properties.getMaxInFlight()));
+        this.issued = prefetchCounter(meterRegistry, "issued");
+        this.hits = prefetchCounter(meterRegistry, "hit");
+        this.stale = prefetchCounter(meterRegistry, "stale");
+        this.wasted = prefetchCounter(meterRegistry, "wasted");
+        this.skipped = prefetchCounter(meterRegistry, "skipped");
+        this.positions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build();
+        this.prefetched = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getUnusedTimeout())
+                .scheduler(Scheduler.systemScheduler())
+                // Evictions are a map removal, run them in place
+                .executor(Runnable::run)
+                .<String, Long>removalListener((key, changeCount, cause) -> {
+                    if (cause == RemovalCause.EXPIRED) {
+                        wasted.increment();
+                        evict(key);
+                    }
+                })
+                .build();
+        Gauge.builder("transaction.prefetch.hit.ratio", this, PagePrefetcher::hitRatio)
+                .description("Share of prefetched list pages that were read")
+                .register(meterRegistry);
+        Gauge.builder("transaction.prefetch.pending", prefetched, Cache::estimatedSize)
+                .description("Prefetched list pages not read yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Client key of a request, the client header or else the remote address
+     */
+    public String clientKey(HttpServletRequest request) {
+        String client = request.getHeader(properties.getClientHeader());
+        return client != null && !client.isEmpty() ? client : request.getRemoteAddr();
+    }
+
+    /**
+     * Record a page read by a client and prefetch the pages after it when it reads sequentially
+     *
+     * @param client client key
+     * @param page page read
+     * @param size page size
+     * @param totalPages number of pages when the page was read
+     */
+    public void onPage(String client, int page, int size, int totalPages) {
+        String key = listKey(page, size);
+        Long loadedAt = prefetched.asMap().remove(key);
+        if (loadedAt != null) {
+            (loadedAt == transactionService.getChangeCount() ? hits : stale).increment();
+        }
+
+        Position previous = client != null ? positions.asMap().put(client, new Position(page, size)) : null;
+        boolean sequential = page == 0 || (previous != null && previous.size == size && previous.page == page - 1);
+        if (!sequential) {
+            return;
+        }
+        for (int next = page + 1; next <= page + properties.getDepth() && next < totalPages; next++) {
+            prefetch(next, size);
+        }
+    }
+
+    /**
+     * Share of prefetched pages that were read while still current
+     */
+    public double hitRatio() {
+        double count = issued.count();
+        return count == 0 ? 0.0 : hits.count() / count;
+    }
+
+    /**
+     * Stop loading, pages being loaded are abandoned
+     */
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Run pending expirations now, they otherwise run on the Caffeine scheduler
+     */
+    void cleanUp() {
+        prefetched.cleanUp();
+    }
+
+    private void prefetch(int page, int size) {
+        String key = listKey(page, size);
+        if (prefetched.getIfPresent(key) != null || isCached(key) || !loading.add(key)) {
+            return;
+        }
+        if (!budget.tryAcquire()) {
+            loading.remove(key);
+            skipped.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> load(key, page, size));
+        } catch (RejectedExecutionException e) {
+            loading.remove(key);
+            budget.release();
+            skipped.increment();
+        }
+    }
+
+    private void load(String key, int page, int size) {
+        try {
+            long changeCount = transactionService.getChangeCount();
+            transactionService.getTransactions(page, size);
+            if (transactionService.getChangeCount() == changeCount) {
+                prefetched.put(key, changeCount);
+                issued.increment();
+            } else {
+                // The page may predate the change that evicted the list cache
+                evict(key);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Prefetch of list page {} size {} failed", page, size, e);
+        } finally {
+            loading.remove(key);
+            budget.release();
+        }
+    }
+
+    private boolean isCached(String key) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_LIST_CACHE);
+        if (cache != null && cache.getNativeCache() instanceof Cache<?, ?> nativeCache) {
+            // Asked of the native cache, so the check does not count as a cache read
+            return nativeCache.asMap().containsKey(key);
+        }
+        return false;
+    }
+
+    private void evict(String key) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_LIST_CACHE);
+        if (cache == null) {
+            return;
+        }
+        if (cache.getNativeCache() instanceof Cache<?, ?> nativeCache) {
+            // Local only, peers have their own prefetched pages
+            nativeCache.asMap().remove(key);
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    /**
+     * List cache key, the same as the one of the cached service call
+     */
+    static String listKey(int page, int size) {
+        return "page:" + page + ":size:" + size;
+    }
+
+    private static Counter prefetchCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("transaction.prefetch")
+                .description("List page prefetches by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Position {
+        private final int page;
+        private final int size;
+
+        private Position(int page, int size) {
+            this.page = page;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.bank.transaction.prefetch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * List page prefetch settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.prefetch")
+public class PrefetchProperties {
+
+    /**
+     * Turn list page prefetching on or off
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of pages loaded ahead of a sequential reader
+     */
+    private int depth = 1;
+
+    /**
+     * Largest number of pages loaded at the same time, further prefetches are skipped
+     */
+    private int maxInFlight = 4;
+
+    /**
+     * Number of threads loading pages
+     */
+    private int threads = 2;
+
+    /**
+     * How long a prefetched page is kept when nobody reads it
+     */
+    private Duration unusedTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Header identifying the calling client, the remote address is used when it is missing
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Number of client positions kept, idle clients are dropped first
+     */
+    private int maxClients = 10_000;
+
+    /**
+     * How long the position of an idle client is kept
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public Duration getUnusedTimeout() {
+        return unusedTimeout;
+    }
+
+    public void setUnusedTimeout(Duration unusedTimeout) {
+        this.unusedTimeout = unusedTimeout;
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public void setClientHeader(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getClientIdleTimeout() {
+        return clientIdleTimeout;
+    }
+
+    public void setClientIdleTimeout(Duration clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+    }
+}
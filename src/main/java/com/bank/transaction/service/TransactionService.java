@@ -1,9 +1,16 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.model.dto.AccountBalanceResponse;
+import com.bank.transaction.model.dto.AmountQuantilesResponse;
+import com.bank.transaction.model.dto.ChangeFeedResponse;
 import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.TransactionLookupResponse;
 import com.bank.transaction.model.dto.TransactionRequest;
 import com.bank.transaction.model.dto.TransactionResponse;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * Transaction Service Interface
  * 
@@ -27,12 +34,20 @@ public interface TransactionService {
      */
     TransactionResponse getTransactionById(String id);
 
+    /**
+     * Get transactions by ID in one call, unknown ids are reported instead of failing the call
+     *
+     * @param ids Transaction IDs
+     * @return found transactions and missing ids
+     */
+    TransactionLookupResponse getTransactionsByIds(List<String> ids);
+
     /**
      * Get Pageable Transaction list
      * 
      * @param page page number
      * @param size page size
-     * @return pageable response
+     * @return pageable response, with the change count it was read at
      */
     PageableResponse<TransactionResponse> getTransactions(int page, int size);
 
@@ -45,6 +60,26 @@ public interface TransactionService {
      */
     TransactionResponse updateTransaction(String id, TransactionRequest request);
 
+    /**
+     * Update Transaction only if it is still at the expected version
+     *
+     * @param id Transaction ID
+     * @param request Update request
+     * @param expectedVersion version the client has seen
+     * @return Transaction response
+     */
+    TransactionResponse updateTransaction(String id, TransactionRequest request, long expectedVersion);
+
+    /**
+     * Update Transaction only if it is still at one of the expected versions
+     *
+     * @param id Transaction ID
+     * @param request Update request
+     * @param expectedVersions versions the client accepts as current
+     * @return Transaction response
+     */
+    TransactionResponse updateTransaction(String id, TransactionRequest request, Set<Long> expectedVersions);
+
     /**
      * Delete Transaction
      * 
@@ -59,4 +94,48 @@ public interface TransactionService {
      * @return Exists or Not
      */
     boolean existsById(String id);
+
+    /**
+     * Drop the transactions past the store retention, they leave the caches, the change feed,
+     * the balances and the amount statistics like deleted ones
+     *
+     * @return number of dropped transactions
+     */
+    int purgeExpiredTransactions();
+
+    /**
+     * Get store change count, it moves on every create, update and delete
+     *
+     * @return change count
+     */
+    long getChangeCount();
+
+    /**
+     * Get the changes after a sequence, oldest first
+     *
+     * @param since last sequence the client has applied, null to only get the latest sequence
+     * @param epoch epoch the sequence belongs to, as returned with it
+     * @param limit maximum number of changes
+     * @return changes and the sequence and epoch to continue from
+     */
+    ChangeFeedResponse getChanges(Long since, String epoch, int limit);
+
+    /**
+     * Get running balances of an account
+     *
+     * @param accountId Account ID
+     * @return balance by currency
+     */
+    AccountBalanceResponse getAccountBalance(String accountId);
+
+    /**
+     * Get amount quantiles of recent transactions per currency and type
+     *
+     * @param currency currency code, null for all currencies
+     * @param type transaction type, null for all types
+     * @param window how far back, such as 15m, null for all kept slots
+     * @param quantiles quantiles between 0 and 1, null for p50, p95 and p99
+     * @return distributions of the currencies and types with transactions in the window
+     */
+    AmountQuantilesResponse getAmountQuantiles(String currency, String type, String window, List<Double> quantiles);
 } 
\ No newline at end of file
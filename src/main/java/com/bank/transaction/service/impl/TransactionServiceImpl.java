@@ -1,21 +1,51 @@
 package com.bank.transaction.service.impl;
 
+import com.bank.transaction.changes.ChangeLog;
 import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.ledger.BalanceLedger;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
+import com.bank.transaction.model.dto.AccountBalanceResponse;
+import com.bank.transaction.model.dto.AmountDistribution;
+import com.bank.transaction.model.dto.AmountQuantilesResponse;
+import com.bank.transaction.model.dto.ChangeFeedResponse;
+import com.bank.transaction.model.dto.TransactionChange;
 import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.TransactionLookupResponse;
 import com.bank.transaction.model.dto.TransactionRequest;
 import com.bank.transaction.model.dto.TransactionResponse;
 import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.exception.VersionConflictException;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.monitor.TransactionOperationEvent;
 import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.stats.AmountSketch;
+import com.bank.transaction.stats.AmountStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.NOPLogger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -27,75 +57,187 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
-    private static final Logger logger = LoggerFactory.getLogger(TransactionServiceImpl.class);
+    private static final Logger defaultLogger = LoggerFactory.getLogger(TransactionServiceImpl.class);
 
-    // Supported Currencies
-    private static final Set<String> CURRENCIES = Set.of(
-            "USD", "EUR", "GBP", "JPY", "CNY", "AUD", "CAD"
-    );
+    // Maximum ids per bulk lookup
+    private static final int MAX_LOOKUP_IDS = 500;
 
-    // Supported Transaction types
-    private static final Set<String> TRANSACTION_TYPES = Set.of(
-            "DEPOSIT", "WITHDRAWAL", "TRANSFER"
-    );
+    // Longest account id, the size of the account columns
+    private static final int MAX_ACCOUNT_ID_LENGTH = 64;
+
+    // Maximum changes per change feed call
+    private static final int MAX_CHANGES = 1000;
+
+    // Quantiles returned when none are asked for, and the most that can be asked for at once
+    private static final List<Double> DEFAULT_QUANTILES = List.of(0.5, 0.95, 0.99);
+    private static final int MAX_QUANTILES = 20;
 
     private final TransactionDao transactionDao;
+    private final CacheManager cacheManager;
+    private final BalanceLedger balanceLedger;
+    private final ChangeLog changeLog;
+    private final AmountStatistics amountStatistics;
+    private final Logger logger;
+    // Whether calls are recorded as flight recorder events
+    private final boolean recordEvents;
 
     @Autowired
-    public TransactionServiceImpl(TransactionDao transactionDao) {
+    public TransactionServiceImpl(TransactionDao transactionDao, CacheManager cacheManager,
+                                  BalanceLedger balanceLedger, ChangeLog changeLog,
+                                  AmountStatistics amountStatistics) {
         this.transactionDao = transactionDao;
+        this.cacheManager = cacheManager;
+        this.balanceLedger = balanceLedger;
+        this.changeLog = changeLog;
+        this.amountStatistics = amountStatistics;
+        this.logger = defaultLogger;
+        this.recordEvents = true;
+    }
+
+    private TransactionServiceImpl(TransactionServiceImpl service, Logger logger, boolean recordEvents) {
+        this.transactionDao = service.transactionDao;
+        this.cacheManager = service.cacheManager;
+        this.balanceLedger = service.balanceLedger;
+        this.changeLog = service.changeLog;
+        this.amountStatistics = service.amountStatistics;
+        this.logger = logger;
+        this.recordEvents = recordEvents;
+    }
+
+    /**
+     * Same service that neither logs nor records flight recorder events, so a scratch instance
+     * such as the JIT warm-up's stays out of the application's logs and recordings
+     */
+    public TransactionServiceImpl quiet() {
+        return new TransactionServiceImpl(this, NOPLogger.NOP_LOGGER, false);
     }
 
     @Override
     @CacheEvict(value = CacheConfig.TRANSACTION_LIST_CACHE, allEntries = true)
     public TransactionResponse createTransaction(TransactionRequest request) {
         logger.info("Start creating transaction, Request:{}", request);
-
-        // Validating Request
-        validateTransactionRequest(request);
-
-        // Check Duplicated Request
-        if (request.getTransactionReference() != null &&
-            !request.getTransactionReference().trim().isEmpty() &&
-            transactionDao.existsByTransactionReference(request.getTransactionReference())) {
-            throw TransactionException.withTransactionReference(request.getTransactionReference());
-        }
-
-        // Create Transaction Object
-        Transaction transaction = new Transaction(
-                request.getAmount(),
-                request.getCurrency(),
-                request.getTransactionType(),
-                request.getTransactionReference()
-        );
-
-        // Save Transaction
+        TransactionOperationEvent event = TransactionOperationEvent.start("create");
         try {
-            Transaction savedTransaction = transactionDao.save(transaction);
+            // Validating Request
+            validateTransactionRequest(request);
+            event.setTransactionReference(request.getTransactionReference());
+
+            // Check Duplicated Request
+            if (request.getTransactionReference() != null &&
+                !request.getTransactionReference().trim().isEmpty() &&
+                transactionDao.existsByTransactionReference(request.getTransactionReference())) {
+                throw TransactionException.withTransactionReference(request.getTransactionReference());
+            }
+
+            // Create Transaction Object
+            Transaction transaction = new Transaction(
+                    minorUnits(request),
+                    request.getCurrency(),
+                    request.getTransactionType(),
+                    request.getTransactionReference(),
+                    request.getSourceAccountId(),
+                    request.getDestinationAccountId()
+            );
+            event.setTransactionId(transaction.getId());
+
+            // Post to the ledger before saving, a balance it cannot hold stops the write
+            post(null, transaction);
+            Transaction savedTransaction;
+            try {
+                savedTransaction = changeLog.create(transaction.getId(), () -> transactionDao.save(transaction));
+            } catch (IllegalArgumentException e) {
+                balanceLedger.post(transaction, null);
+                throw new TransactionException("Transaction created failed:" + e.getMessage());
+            } catch (RuntimeException e) {
+                balanceLedger.post(transaction, null);
+                throw e;
+            }
+            amountStatistics.record(null, savedTransaction);
             logger.info("Transaction created successfully, ID:{}", savedTransaction.getId());
             return convertToResponse(savedTransaction);
-        } catch (IllegalArgumentException e) {
-            throw new TransactionException("Transaction created failed:" + e.getMessage());
+        } finally {
+            commit(event);
         }
     }
 
     @Override
-    @Cacheable(value = CacheConfig.TRANSACTION_ID_CACHE, key = "#id")
+    @Cacheable(value = CacheConfig.TRANSACTION_ID_CACHE, key = "#id", sync = true)
     public TransactionResponse getTransactionById(String id) {
         logger.debug("Get Transaction by ID：{}", id);
+        // Only reached on a cache miss, hits are recorded by the cache
+        TransactionOperationEvent event = TransactionOperationEvent.start("get");
+        event.setTransactionId(id);
+        event.setCache(TransactionOperationEvent.CACHE_MISS);
+        try {
+            if (id == null || id.trim().isEmpty()) {
+                throw TransactionException.emptyId();
+            }
 
-        if (id == null || id.trim().isEmpty()) {
-            throw new TransactionException("Transaction ID cannot be empty.");
+            Transaction transaction = transactionDao.findById(id)
+                    .orElseThrow(() -> TransactionException.withId(id));
+
+            return convertToResponse(transaction);
+        } finally {
+            commit(event);
         }
+    }
+
+    @Override
+    public TransactionLookupResponse getTransactionsByIds(List<String> ids) {
+        logger.debug("Get Transactions by IDs, count:{}", ids != null ? ids.size() : 0);
 
-        Transaction transaction = transactionDao.findById(id)
-                .orElseThrow(() -> TransactionException.withId(id));
+        if (ids == null || ids.isEmpty()) {
+            throw new TransactionException("Transaction IDs cannot be empty.");
+        }
+        // Duplicated ids are looked up once
+        Set<String> requested = new LinkedHashSet<>(ids);
+        if (requested.size() > MAX_LOOKUP_IDS) {
+            throw new TransactionException("At most " + MAX_LOOKUP_IDS + " transaction IDs can be looked up at once.");
+        }
 
-        return convertToResponse(transaction);
+        // One bulk probe of the id cache, then one DAO call for the misses
+        TransactionOperationEvent event = TransactionOperationEvent.start("lookup");
+        try {
+            Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_ID_CACHE);
+            Map<String, TransactionResponse> found = getAllCached(cache, requested);
+            event.setCache(found.size() == requested.size()
+                    ? TransactionOperationEvent.CACHE_HIT : TransactionOperationEvent.CACHE_MISS);
+            List<String> misses = new ArrayList<>();
+            for (String id : requested) {
+                if (!found.containsKey(id) && id != null && !id.trim().isEmpty()) {
+                    misses.add(id);
+                }
+            }
+            if (!misses.isEmpty()) {
+                for (Transaction transaction : transactionDao.findAllById(misses)) {
+                    TransactionResponse response = convertToResponse(transaction);
+                    found.put(transaction.getId(), response);
+                    if (cache != null) {
+                        cache.putIfAbsent(transaction.getId(), response);
+                    }
+                }
+            }
+
+            List<TransactionResponse> transactions = new ArrayList<>(found.size());
+            List<String> missingIds = new ArrayList<>();
+            for (String id : requested) {
+                TransactionResponse response = found.get(id);
+                if (response != null) {
+                    transactions.add(response);
+                } else {
+                    missingIds.add(id);
+                }
+            }
+            event.setResults(transactions.size());
+            return new TransactionLookupResponse(transactions, missingIds);
+        } finally {
+            commit(event);
+        }
     }
 
     @Override
-    @Cacheable(value = CacheConfig.TRANSACTION_LIST_CACHE, key = "'page:' + #page + ':size:' + #size")
+    @Cacheable(value = CacheConfig.TRANSACTION_LIST_CACHE, key = "'page:' + #page + ':size:' + #size",
+            unless = "#result.changeCount != #root.target.getChangeCount()")
     public PageableResponse<TransactionResponse> getTransactions(int page, int size) {
         logger.debug("Get Pageable response，page number:{}, page size:{}", page, size);
 
@@ -106,67 +248,224 @@ public class TransactionServiceImpl implements TransactionService {
             throw new TransactionException("Page size should be between 1 to 100.");
         }
 
-        List<Transaction> transactions = transactionDao.findAll(page, size);
-        long totalElements = transactionDao.count();
+        // Only reached on a list cache miss
+        TransactionOperationEvent event = TransactionOperationEvent.start("list");
+        event.setCache(TransactionOperationEvent.CACHE_MISS);
+        try {
+            // Taken before the read, a change made meanwhile leaves the page with an older count and
+            // out of the cache, so it is revalidated rather than hidden behind a newer tag
+            long changeCount = transactionDao.changeCount();
+            List<Transaction> transactions = transactionDao.findAll(page, size);
+            long totalElements = transactionDao.count();
+
+            List<TransactionResponse> responseList = transactions.stream()
+                    .map(this::convertToResponse)
+                    .collect(Collectors.toList());
+            event.setResults(responseList.size());
+
+            PageableResponse<TransactionResponse> response =
+                    new PageableResponse<>(responseList, page, size, totalElements);
+            response.setChangeCount(changeCount);
+            return response;
+        } finally {
+            commit(event);
+        }
+    }
 
-        List<TransactionResponse> responseList = transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.TRANSACTION_LIST_CACHE, allEntries = true),
+            @CacheEvict(value = {CacheConfig.TRANSACTION_ID_CACHE, CacheConfig.TRANSACTION_BYTES_CACHE}, key = "#id")
+    })
+    public TransactionResponse updateTransaction(String id, TransactionRequest request) {
+        return applyUpdate(id, request, null);
+    }
 
-        return new PageableResponse<>(responseList, page, size, totalElements);
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.TRANSACTION_LIST_CACHE, allEntries = true),
+            @CacheEvict(value = {CacheConfig.TRANSACTION_ID_CACHE, CacheConfig.TRANSACTION_BYTES_CACHE}, key = "#id")
+    })
+    public TransactionResponse updateTransaction(String id, TransactionRequest request, long expectedVersion) {
+        return applyUpdate(id, request, Set.of(expectedVersion));
     }
 
     @Override
-    @CacheEvict(value = {CacheConfig.TRANSACTION_ID_CACHE, CacheConfig.TRANSACTION_LIST_CACHE}, allEntries = true)
-    public TransactionResponse updateTransaction(String id, TransactionRequest request) {
-        logger.info("Start Updating Transaction ID:{}, Request:{}", id, request);
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.TRANSACTION_LIST_CACHE, allEntries = true),
+            @CacheEvict(value = {CacheConfig.TRANSACTION_ID_CACHE, CacheConfig.TRANSACTION_BYTES_CACHE}, key = "#id")
+    })
+    public TransactionResponse updateTransaction(String id, TransactionRequest request, Set<Long> expectedVersions) {
+        return applyUpdate(id, request, Set.copyOf(expectedVersions));
+    }
 
-        if (id == null || id.trim().isEmpty()) {
-            throw new TransactionException("Transaction ID cannot be empty");
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.TRANSACTION_LIST_CACHE, allEntries = true),
+            @CacheEvict(value = {CacheConfig.TRANSACTION_ID_CACHE, CacheConfig.TRANSACTION_BYTES_CACHE}, key = "#id")
+    })
+    public void deleteTransaction(String id) {
+        logger.info("Start deleting transaction by ID：{}", id);
+        TransactionOperationEvent event = TransactionOperationEvent.start("delete");
+        event.setTransactionId(id);
+        try {
+            if (id == null || id.trim().isEmpty()) {
+                throw TransactionException.emptyId();
+            }
+
+            if (!transactionDao.existsById(id)) {
+                throw TransactionException.withId(id);
+            }
+
+            // The removed state is what the ledger reverses, a concurrent delete leaves nothing to remove
+            Transaction deleted = changeLog.delete(id, () -> transactionDao.removeById(id))
+                    .orElseThrow(() -> TransactionException.withId(id));
+            try {
+                balanceLedger.post(deleted, null);
+            } catch (ArithmeticException e) {
+                // The balances still hold the transaction, so it is put back as it was
+                changeLog.create(id, () -> transactionDao.save(deleted));
+                throw TransactionException.balanceOutOfRange();
+            }
+            amountStatistics.record(deleted, null);
+            logger.info("Transaction delete successfully for ID: {}", id);
+        } finally {
+            commit(event);
         }
+    }
 
-        // Validate Request
-        validateTransactionRequest(request);
+    @Override
+    @Scheduled(fixedDelayString = "${transaction.store.purge-interval:PT1M}")
+    public int purgeExpiredTransactions() {
+        List<Transaction> expired = transactionDao.purgeExpired();
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        Cache idCache = cacheManager.getCache(CacheConfig.TRANSACTION_ID_CACHE);
+        Cache bytesCache = cacheManager.getCache(CacheConfig.TRANSACTION_BYTES_CACHE);
+        for (Transaction transaction : expired) {
+            // Already out of the store, the tombstone still waits for a running change of the id
+            changeLog.delete(transaction.getId(), () -> Optional.of(transaction));
+            try {
+                balanceLedger.post(transaction, null);
+            } catch (ArithmeticException e) {
+                logger.error("Expired transaction ID:{} could not be taken out of the account balances",
+                        transaction.getId());
+            }
+            amountStatistics.record(transaction, null);
+            if (idCache != null) {
+                idCache.evict(transaction.getId());
+            }
+            if (bytesCache != null) {
+                bytesCache.evict(transaction.getId());
+            }
+        }
+        Cache listCache = cacheManager.getCache(CacheConfig.TRANSACTION_LIST_CACHE);
+        if (listCache != null) {
+            listCache.clear();
+        }
+        logger.info("Expired transactions dropped, count:{}", expired.size());
+        return expired.size();
+    }
 
-        // Get existing transaction request
-        Transaction existingTransaction = transactionDao.findById(id)
-                .orElseThrow(() -> TransactionException.withId(id));
+    @Override
+    public long getChangeCount() {
+        return transactionDao.changeCount();
+    }
 
-        // Update transaction information
-        existingTransaction.setAmount(request.getAmount());
-        existingTransaction.setCurrency(request.getCurrency());
-        existingTransaction.setTransactionType(request.getTransactionType());
-        existingTransaction.setTransactionReference(request.getTransactionReference());
+    @Override
+    public ChangeFeedResponse getChanges(Long since, String epoch, int limit) {
+        if (limit < 0 || limit > MAX_CHANGES) {
+            throw new TransactionException("Change limit should be between 0 to " + MAX_CHANGES + ".");
+        }
+        // Without a starting point the client only learns where the feed currently is
+        if (since == null) {
+            long latest = changeLog.latestSequence();
+            return new ChangeFeedResponse(List.of(), latest, latest, changeLog.epoch());
+        }
+        // A sequence from before a restart or from another instance says nothing about this log
+        if (!changeLog.epoch().equals(epoch)) {
+            throw TransactionException.epochChanged(epoch, changeLog.latestSequence());
+        }
 
-        // save Updates
-        try {
-            Transaction updatedTransaction = transactionDao.save(existingTransaction);
-            logger.info("Transaction update ID successfully:{}", updatedTransaction.getId());
-            return convertToResponse(updatedTransaction);
-        } catch (IllegalArgumentException e) {
-            throw new TransactionException("Transaction update ID failed" + e.getMessage());
+        ChangeLog.Slice slice = changeLog.changesSince(since, limit);
+        List<TransactionChange> changes = new ArrayList<>(slice.getChanges().size());
+        for (ChangeLog.Change change : slice.getChanges()) {
+            changes.add(new TransactionChange(change.getSequence(), change.getType(), change.getId(),
+                    change.getVersion(),
+                    change.getTransaction() != null ? convertToResponse(change.getTransaction()) : null));
         }
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return new ChangeFeedResponse(changes, nextSince, slice.getLatestSequence(), changeLog.epoch());
     }
 
     @Override
-    @CacheEvict(value = {CacheConfig.TRANSACTION_ID_CACHE, CacheConfig.TRANSACTION_LIST_CACHE}, allEntries = true)
-    public void deleteTransaction(String id) {
-        logger.info("Start deleting transaction by ID：{}", id);
-
-        if (id == null || id.trim().isEmpty()) {
-            throw new TransactionException("Transaction ID cannot be empty.");
+    public AccountBalanceResponse getAccountBalance(String accountId) {
+        if (accountId == null || accountId.trim().isEmpty()) {
+            throw TransactionException.invalidAccounts("Account ID cannot be empty.");
         }
-
-        if (!transactionDao.existsById(id)) {
-            throw TransactionException.withId(id);
+        Map<CurrencyCode, Long> balances = balanceLedger.balancesOf(accountId);
+        if (balances == null) {
+            throw TransactionException.withAccountId(accountId);
         }
 
-        boolean deleted = transactionDao.deleteById(id);
-        if (deleted) {
-            logger.info("Transaction delete successfully for ID: {}", id);
-        } else {
-            throw new RuntimeException("Transaction delete failed for ID:" + id);
+        Map<CurrencyCode, BigDecimal> amounts = new EnumMap<>(CurrencyCode.class);
+        balances.forEach((currency, minorUnits) -> amounts.put(currency, currency.toDecimal(minorUnits)));
+        return new AccountBalanceResponse(accountId, amounts);
+    }
+
+    @Override
+    public AmountQuantilesResponse getAmountQuantiles(String currency, String type, String window,
+                                                      List<Double> quantiles) {
+        CurrencyCode currencyCode = null;
+        if (currency != null) {
+            currencyCode = CurrencyCode.fromCode(currency);
+            if (currencyCode == null) {
+                throw TransactionException.invalidCurrency(currency);
+            }
+        }
+        TransactionType transactionType = null;
+        if (type != null) {
+            transactionType = TransactionType.fromCode(type);
+            if (transactionType == null) {
+                throw TransactionException.invalidTransactionType(type);
+            }
+        }
+        int slots = windowSlots(window);
+        List<Double> asked = quantiles == null || quantiles.isEmpty() ? DEFAULT_QUANTILES : quantiles;
+        if (asked.size() > MAX_QUANTILES) {
+            throw new TransactionException("At most " + MAX_QUANTILES + " quantiles can be asked for at once.");
+        }
+        for (Double quantile : asked) {
+            if (quantile == null || !(quantile >= 0.0 && quantile <= 1.0)) {
+                throw new TransactionException("Quantiles should be between 0 to 1.");
+            }
+        }
+        double[] levels = asked.stream().mapToDouble(Double::doubleValue).toArray();
+
+        List<AmountDistribution> distributions = new ArrayList<>();
+        for (CurrencyCode code : CurrencyCode.values()) {
+            if (currencyCode != null && code != currencyCode) {
+                continue;
+            }
+            for (TransactionType kind : TransactionType.values()) {
+                if (transactionType != null && kind != transactionType) {
+                    continue;
+                }
+                AmountSketch sketch = amountStatistics.window(code, kind, slots);
+                if (sketch.count() <= 0) {
+                    continue;
+                }
+                double[] estimates = sketch.quantiles(levels);
+                Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+                for (int i = 0; i < levels.length; i++) {
+                    amounts.put(quantileName(levels[i]), code.toDecimal(Math.round(estimates[i])));
+                }
+                distributions.add(new AmountDistribution(code, kind, sketch.count(), amounts));
+            }
         }
+        Duration covered = amountStatistics.getSlotWidth().multipliedBy(slots);
+        return new AmountQuantilesResponse(covered.toString(), amountStatistics.getRelativeAccuracy(), distributions);
     }
 
     @Override
@@ -177,42 +476,230 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionDao.existsById(id);
     }
 
+    private TransactionResponse applyUpdate(String id, TransactionRequest request, Set<Long> expectedVersions) {
+        logger.info("Start Updating Transaction ID:{}, Request:{}", id, request);
+        TransactionOperationEvent event = TransactionOperationEvent.start("update");
+        event.setTransactionId(id);
+        event.setTransactionReference(request != null ? request.getTransactionReference() : null);
+        try {
+            return update(id, request, expectedVersions);
+        } finally {
+            commit(event);
+        }
+    }
+
+    /**
+     * Optimistic update, retried on a concurrent change unless the client pinned its versions
+     */
+    private TransactionResponse update(String id, TransactionRequest request, Set<Long> expectedVersions) {
+
+        if (id == null || id.trim().isEmpty()) {
+            throw TransactionException.emptyId();
+        }
+
+        // Validate Request
+        validateTransactionRequest(request);
+
+        while (true) {
+            // Get existing transaction request
+            Transaction existingTransaction = transactionDao.findById(id)
+                    .orElseThrow(() -> TransactionException.withId(id));
+
+            if (expectedVersions != null && !expectedVersions.contains(existingTransaction.getVersion())) {
+                throw expectedVersions.size() == 1
+                        ? VersionConflictException.withVersion(id, expectedVersions.iterator().next())
+                        : VersionConflictException.withVersions(id, expectedVersions);
+            }
+
+            // Build the new state next to the stored one, readers keep seeing the old version
+            Transaction updatedTransaction = existingTransaction.withDetails(
+                    minorUnits(request),
+                    request.getCurrency(),
+                    request.getTransactionType(),
+                    request.getTransactionReference(),
+                    request.getSourceAccountId(),
+                    request.getDestinationAccountId()
+            );
+
+            // Post to the ledger before saving, the version check makes the replaced state exactly
+            // the one read above and a lost race or failed write takes the posting back
+            post(existingTransaction, updatedTransaction);
+            Optional<Transaction> savedTransaction;
+            try {
+                savedTransaction = changeLog.update(id,
+                        () -> transactionDao.update(updatedTransaction, existingTransaction.getVersion()));
+            } catch (IllegalArgumentException e) {
+                balanceLedger.post(updatedTransaction, existingTransaction);
+                throw new TransactionException("Transaction update ID failed" + e.getMessage());
+            } catch (RuntimeException e) {
+                balanceLedger.post(updatedTransaction, existingTransaction);
+                throw e;
+            }
+            if (savedTransaction.isPresent()) {
+                amountStatistics.record(existingTransaction, savedTransaction.get());
+                logger.info("Transaction update ID successfully:{}", id);
+                return convertToResponse(savedTransaction.get());
+            }
+            balanceLedger.post(updatedTransaction, existingTransaction);
+            logger.debug("Transaction ID:{} changed concurrently, retrying update", id);
+        }
+    }
+
+    /**
+     * Post a change to the ledger, a balance that would overflow rejects the request
+     */
+    private void post(Transaction previous, Transaction next) {
+        try {
+            balanceLedger.post(previous, next);
+        } catch (ArithmeticException e) {
+            throw TransactionException.balanceOutOfRange();
+        }
+    }
+
+    /**
+     * Cached transactions of the given ids, a Caffeine cache is read with a single bulk call
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, TransactionResponse> getAllCached(Cache cache, Set<String> ids) {
+        Map<String, TransactionResponse> found = new HashMap<>();
+        if (cache == null) {
+            return found;
+        }
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            List<String> keys = ids.stream().filter(Objects::nonNull).toList();
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).getAllPresent(keys)
+                    .forEach((id, value) -> {
+                        if (value instanceof TransactionResponse response) {
+                            found.put((String) id, response);
+                        }
+                    });
+            return found;
+        }
+        for (String id : ids) {
+            TransactionResponse response = id != null ? cache.get(id, TransactionResponse.class) : null;
+            if (response != null) {
+                found.put(id, response);
+            }
+        }
+        return found;
+    }
+
     /**
      * Validating Request
      */
     private void validateTransactionRequest(TransactionRequest request) {
         if (request == null) {
-            throw new TransactionException("Transaction request cannot be empty.");
+            throw TransactionException.emptyRequest();
+        }
+
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw TransactionException.invalidAmount();
+        }
+
+        // Unknown codes are already rejected when the request is read
+        if (request.getCurrency() == null) {
+            throw TransactionException.invalidCurrency(null);
         }
 
-        if (request.getAmount()  <= 0.0) {
+        if (request.getTransactionType() == null) {
+            throw TransactionException.invalidTransactionType(null);
+        }
+
+        minorUnits(request);
+
+        validateAccounts(request);
+    }
+
+    /**
+     * Amounts finer than the currency's minor unit, or too large to count in it, are rejected, never rounded
+     */
+    private static long minorUnits(TransactionRequest request) {
+        try {
+            return request.getCurrency().toMinorUnits(request.getAmount());
+        } catch (ArithmeticException e) {
             throw TransactionException.invalidAmount();
         }
+    }
+
+    /**
+     * Accounts are optional, given ones have to match the transaction type
+     */
+    private void validateAccounts(TransactionRequest request) {
+        String source = request.getSourceAccountId();
+        String destination = request.getDestinationAccountId();
+        if (source == null && destination == null) {
+            return;
+        }
+        validateAccountId(source);
+        validateAccountId(destination);
 
-        if (request.getCurrency() == null || 
-            request.getCurrency().trim().isEmpty() ||
-            !CURRENCIES.contains(request.getCurrency().toUpperCase())) {
-            throw TransactionException.invalidCurrency(request.getCurrency());
+        TransactionType type = request.getTransactionType();
+        if (type == TransactionType.DEPOSIT && source != null) {
+            throw TransactionException.invalidAccounts("A deposit has no source account.");
+        }
+        if (type == TransactionType.WITHDRAWAL && destination != null) {
+            throw TransactionException.invalidAccounts("A withdrawal has no destination account.");
         }
+        if (type == TransactionType.TRANSFER) {
+            if (source == null || destination == null) {
+                throw TransactionException.invalidAccounts("A transfer needs a source and a destination account.");
+            }
+            if (source.equals(destination)) {
+                throw TransactionException.invalidAccounts("A transfer needs two different accounts.");
+            }
+        }
+    }
 
-        if (request.getTransactionType() == null || 
-            request.getTransactionType().trim().isEmpty() ||
-            !TRANSACTION_TYPES.contains(request.getTransactionType().toUpperCase())) {
-            throw TransactionException.invalidTransactionType(request.getTransactionType());
+    private void validateAccountId(String accountId) {
+        if (accountId != null && (accountId.trim().isEmpty() || accountId.length() > MAX_ACCOUNT_ID_LENGTH)) {
+            throw TransactionException.invalidAccounts(
+                    "Account ID must be 1 to " + MAX_ACCOUNT_ID_LENGTH + " characters.");
         }
     }
 
+    /**
+     * Number of slots covering a window, all kept slots when no window is given
+     */
+    private int windowSlots(String window) {
+        if (window == null || window.isBlank()) {
+            return amountStatistics.getSlots();
+        }
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window.trim());
+        } catch (IllegalArgumentException e) {
+            throw new TransactionException("Invalid window: " + window);
+        }
+        Duration slotWidth = amountStatistics.getSlotWidth();
+        Duration longest = slotWidth.multipliedBy(amountStatistics.getSlots());
+        if (duration.compareTo(slotWidth) < 0 || duration.compareTo(longest) > 0) {
+            throw new TransactionException("Window should be between " + slotWidth + " to " + longest + ".");
+        }
+        // Whole slots, a partly covered slot is counted in full
+        long millis = Math.max(1, slotWidth.toMillis());
+        return (int) ((duration.toMillis() + millis - 1) / millis);
+    }
+
+    /**
+     * Name of a quantile as a percentile, p99 for 0.99
+     */
+    private static String quantileName(double quantile) {
+        return "p" + BigDecimal.valueOf(quantile).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
     /**
      * Convert to Transaction response
      */
     private TransactionResponse convertToResponse(Transaction transaction) {
-        return new TransactionResponse(
-                transaction.getId(),
-                transaction.getAmount(),
-                transaction.getCurrency(),
-                transaction.getTransactionType(),
-                transaction.getTransactionReference(),
-                transaction.getTimestamp()
-        );
-    }
-} 
\ No newline at end of file
+        return TransactionResponse.from(transaction);
+    }
+
+    /**
+     * Commit an operation event, unless this service is kept out of recordings
+     */
+    private void commit(TransactionOperationEvent event) {
+        if (recordEvents) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.bank.transaction.stats;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Mergeable quantile sketch of amounts in minor units, with a relative error bound
+ *
+ * Amounts are counted in logarithmic buckets, bucket i holding the amounts in
+ * (gamma^(i-1), gamma^i], so any quantile read back is within the relative accuracy of the
+ * amount at that rank. Counts are signed: an amount is removed as exactly as it was added, and
+ * two sketches of the same accuracy merge by adding their counts. Buckets are kept in one array
+ * covering the indexes seen so far, which for amounts up to Long.MAX_VALUE stays below 2,200
+ * buckets at 1% accuracy however many amounts are counted.
+ *
+ * Not thread-safe, callers guard it.
+ *
+ * @author YUNING TAO
+ */
+public final class AmountSketch {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int INITIAL_BUCKETS = 32;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxIndex;
+
+    private long[] counts = EMPTY;
+    // Bucket index of counts[0]
+    private int offset;
+    private long count;
+
+    public AmountSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0.0 && relativeAccuracy < 1.0)) {
+            throw new IllegalArgumentException("Relative accuracy should be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxIndex = indexOf(Long.MAX_VALUE);
+    }
+
+    public void add(long amount) {
+        add(amount, 1);
+    }
+
+    public void remove(long amount) {
+        add(amount, -1);
+    }
+
+    /**
+     * Count an amount n times, a negative n takes earlier counts back
+     */
+    public void add(long amount, long n) {
+        if (n == 0) {
+            return;
+        }
+        int index = indexOf(amount);
+        cover(index, index);
+        counts[index - offset] += n;
+        count += n;
+    }
+
+    /**
+     * Add the counts of another sketch of the same accuracy
+     */
+    public void merge(AmountSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Sketches of different accuracy cannot be merged");
+        }
+        if (other.counts.length == 0) {
+            return;
+        }
+        cover(other.offset, other.offset + other.counts.length - 1);
+        int shift = other.offset - offset;
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i + shift] += other.counts[i];
+        }
+        count += other.count;
+    }
+
+    /**
+     * Number of amounts counted
+     */
+    public long count() {
+        return count;
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Amount at a quantile, in minor units
+     *
+     * @param quantile between 0 and 1
+     * @return estimated amount, NaN when the sketch is empty
+     */
+    public double quantile(double quantile) {
+        if (count <= 0) {
+            return Double.NaN;
+        }
+        // 0 based rank among the counted amounts, the lowest rank of the quantile
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // Counts can dip below zero for a moment when a removal overtakes its add
+            seen += Math.max(0, counts[i]);
+            if (seen > rank) {
+                return valueOf(offset + i);
+            }
+        }
+        return valueOf(offset + counts.length - 1);
+    }
+
+    /**
+     * Amounts at several quantiles, read in one pass over the buckets
+     *
+     * @param quantiles between 0 and 1, in any order
+     * @return estimated amounts in the order of the quantiles, NaN when the sketch is empty
+     */
+    public double[] quantiles(double... quantiles) {
+        double[] amounts = new double[quantiles.length];
+        if (count <= 0) {
+            Arrays.fill(amounts, Double.NaN);
+            return amounts;
+        }
+        Integer[] order = new Integer[quantiles.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> quantiles[i]));
+
+        int next = 0;
+        long seen = 0;
+        for (int i = 0; i < counts.length && next < order.length; i++) {
+            seen += Math.max(0, counts[i]);
+            while (next < order.length && seen > (long) (quantiles[order[next]] * (count - 1))) {
+                amounts[order[next++]] = valueOf(offset + i);
+            }
+        }
+        while (next < order.length) {
+            amounts[order[next++]] = valueOf(offset + counts.length - 1);
+        }
+        return amounts;
+    }
+
+    /**
+     * Number of buckets held, what the sketch costs in memory
+     */
+    int buckets() {
+        return counts.length;
+    }
+
+    private int indexOf(long amount) {
+        // Amounts are positive, anything below one minor unit shares the first bucket
+        return (int) Math.ceil(Math.log(Math.max(1, amount)) / logGamma);
+    }
+
+    private double valueOf(int index) {
+        // The first bucket holds exactly one minor unit, any other one is read as its middle in
+        // relative terms, off by at most the relative accuracy
+        return index == 0 ? 1.0 : 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void cover(int low, int high) {
+        int end = offset + counts.length - 1;
+        if (counts.length > 0 && low >= offset && high <= end) {
+            return;
+        }
+        if (counts.length == 0) {
+            // Start around the first amount, most amounts of a currency are within a few decades
+            int start = Math.max(0, Math.min(low - INITIAL_BUCKETS / 2, maxIndex + 1 - INITIAL_BUCKETS));
+            counts = new long[Math.max(INITIAL_BUCKETS, high - start + 1)];
+            offset = start;
+            return;
+        }
+        // Grow by half again on the side that is short, so copies stay rare
+        int slack = counts.length / 2;
+        int newLow = low < offset ? Math.max(0, low - slack) : offset;
+        int newHigh = high > end ? Math.min(maxIndex, high + slack) : end;
+        long[] grown = new long[newHigh - newLow + 1];
+        System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+        counts = grown;
+        offset = newLow;
+    }
+}
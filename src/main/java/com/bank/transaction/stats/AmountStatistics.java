@@ -0,0 +1,159 @@
+package com.bank.transaction.stats;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Amount distributions of the stored transactions per currency and type, in rolling time slots
+ *
+ * Every currency and type has a ring of slots of a fixed width, each with a quantile sketch of
+ * the amounts of the transactions whose timestamp falls into it. A posted change takes the
+ * replaced amount out of the slot it was counted in and counts the new one, so the slots
+ * describe the transactions as they are stored, not the writes. A window is read by merging
+ * the sketches of its last slots, which costs the number of slots times the buckets of a
+ * sketch and nothing per transaction. Transactions older than the ring are no longer counted.
+ *
+ * @author YUNING TAO
+ */
+public class AmountStatistics {
+
+    private static final CurrencyCode[] CURRENCIES = CurrencyCode.values();
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Duration slotWidth;
+    private final long slotMillis;
+    private final int slots;
+    private final double relativeAccuracy;
+    private final Clock clock;
+    private final Series[] series;
+
+    public AmountStatistics(Duration slotWidth, int slots, double relativeAccuracy, Clock clock) {
+        this.slotWidth = slotWidth;
+        this.slotMillis = Math.max(1, slotWidth.toMillis());
+        this.slots = Math.max(1, slots);
+        this.relativeAccuracy = relativeAccuracy;
+        this.clock = clock;
+        // Fails early on an accuracy the sketches would reject
+        new AmountSketch(relativeAccuracy);
+        this.series = new Series[CURRENCIES.length * TYPES.length];
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new Series(this.slots);
+        }
+    }
+
+    /**
+     * Statistics built from every stored transaction still inside the ring
+     */
+    public static AmountStatistics rebuild(TransactionDao transactionDao, Duration slotWidth, int slots,
+                                           double relativeAccuracy, Clock clock) {
+        AmountStatistics statistics = new AmountStatistics(slotWidth, slots, relativeAccuracy, clock);
+        for (Transaction transaction : transactionDao.findAll()) {
+            statistics.record(null, transaction);
+        }
+        return statistics;
+    }
+
+    /**
+     * Record a change, the previous amount is taken out and the next one counted
+     *
+     * @param previous state before the change, null on create
+     * @param next state after the change, null on delete
+     */
+    public void record(Transaction previous, Transaction next) {
+        long now = currentSlot();
+        if (previous != null) {
+            count(previous, -1, now);
+        }
+        if (next != null) {
+            count(next, 1, now);
+        }
+    }
+
+    /**
+     * Merged sketch of one currency and type over the most recent slots
+     *
+     * @param slots number of slots, the current one included
+     */
+    public AmountSketch window(CurrencyCode currency, TransactionType type, int slots) {
+        AmountSketch merged = new AmountSketch(relativeAccuracy);
+        series[keyOf(currency, type)].mergeInto(merged, currentSlot(), Math.min(slots, this.slots));
+        return merged;
+    }
+
+    public Duration getSlotWidth() {
+        return slotWidth;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    private void count(Transaction transaction, int n, long now) {
+        LocalDateTime timestamp = transaction.getTimestamp();
+        if (transaction.getCurrency() == null || transaction.getTransactionType() == null || timestamp == null) {
+            return;
+        }
+        long slot = Math.floorDiv(timestamp.atZone(clock.getZone()).toInstant().toEpochMilli(), slotMillis);
+        series[keyOf(transaction.getCurrency(), transaction.getTransactionType())]
+                .add(slot, now, transaction.getAmountMinorUnits(), n);
+    }
+
+    private long currentSlot() {
+        return Math.floorDiv(clock.millis(), slotMillis);
+    }
+
+    private static int keyOf(CurrencyCode currency, TransactionType type) {
+        return currency.ordinal() * TYPES.length + type.ordinal();
+    }
+
+    /**
+     * Slots of one currency and type, a slot is reused once the ring has moved past it
+     */
+    private final class Series {
+        private final AmountSketch[] ring;
+        private final long[] slotOf;
+
+        private Series(int slots) {
+            this.ring = new AmountSketch[slots];
+            this.slotOf = new long[slots];
+        }
+
+        synchronized void add(long slot, long now, long amount, int n) {
+            // Outside the ring, either aged out or stamped ahead of the clock
+            if (slot > now || slot <= now - ring.length) {
+                return;
+            }
+            int index = (int) Math.floorMod(slot, (long) ring.length);
+            AmountSketch sketch = ring[index];
+            if (sketch == null || slotOf[index] != slot) {
+                if (n < 0) {
+                    // The slot it was counted in is gone already
+                    return;
+                }
+                sketch = new AmountSketch(relativeAccuracy);
+                ring[index] = sketch;
+                slotOf[index] = slot;
+            }
+            sketch.add(amount, n);
+        }
+
+        synchronized void mergeInto(AmountSketch merged, long now, int slots) {
+            for (long slot = now - slots + 1; slot <= now; slot++) {
+                int index = (int) Math.floorMod(slot, (long) ring.length);
+                if (ring[index] != null && slotOf[index] == slot) {
+                    merged.merge(ring[index]);
+                }
+            }
+        }
+    }
+}
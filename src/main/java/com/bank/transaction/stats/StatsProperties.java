@@ -0,0 +1,53 @@
+package com.bank.transaction.stats;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Amount statistics settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.stats")
+public class StatsProperties {
+
+    /**
+     * Width of one time slot, the smallest window that can be asked for
+     */
+    private Duration slotWidth = Duration.ofMinutes(1);
+
+    /**
+     * Number of slots kept per currency and type, the largest window is slots times the width
+     */
+    private int slots = 60;
+
+    /**
+     * Relative error of the amounts returned for a quantile
+     */
+    private double relativeAccuracy = 0.01;
+
+    public Duration getSlotWidth() {
+        return slotWidth;
+    }
+
+    public void setSlotWidth(Duration slotWidth) {
+        this.slotWidth = slotWidth;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public void setRelativeAccuracy(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+    }
+}
@@ -0,0 +1,175 @@
+package com.bank.transaction.warmup;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Policy;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache warm-up
+ *
+ * Runs as an application runner, so the readiness state only turns to accepting traffic
+ * once it is done. It loads the ids that were hottest at the last shutdown and the most
+ * recent transactions into the id cache, and the first list pages into the list cache,
+ * in parallel and within a time budget. Loads go through the service, so they fill the
+ * caches exactly like requests would.
+ *
+ * @author YUNING TAO
+ */
+public class CacheWarmUp implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmUp.class);
+
+    private final TransactionService transactionService;
+    private final TransactionDao transactionDao;
+    private final CacheManager cacheManager;
+    private final WarmUpProperties properties;
+    private final WarmUpProgress progress;
+
+    public CacheWarmUp(TransactionService transactionService, TransactionDao transactionDao,
+                       CacheManager cacheManager, WarmUpProperties properties, WarmUpProgress progress) {
+        this.transactionService = transactionService;
+        this.transactionDao = transactionDao;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.progress = progress;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Set<String> ids = new LinkedHashSet<>(readSnapshot());
+        int fromSnapshot = ids.size();
+        if (properties.getRecentTransactions() > 0) {
+            for (Transaction transaction : transactionDao.findAll(0, properties.getRecentTransactions())) {
+                ids.add(transaction.getId());
+            }
+        }
+
+        List<Runnable> loads = new ArrayList<>();
+        for (int page = 0; page < properties.getListPages(); page++) {
+            int listPage = page;
+            loads.add(() -> transactionService.getTransactions(listPage, properties.getListPageSize()));
+        }
+        for (String id : ids) {
+            loads.add(() -> transactionService.getTransactionById(id));
+        }
+
+        progress.start(loads.size());
+        long deadline = System.nanoTime() + properties.getTimeBudget().toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()),
+                daemonThreads());
+        try {
+            for (Runnable load : loads) {
+                executor.execute(() -> {
+                    // Loads queued past the budget are skipped
+                    if (System.nanoTime() - deadline > 0) {
+                        return;
+                    }
+                    try {
+                        load.run();
+                        progress.loaded();
+                    } catch (TransactionException e) {
+                        // Deleted since the snapshot
+                        progress.missing();
+                    } catch (RuntimeException e) {
+                        progress.failed();
+                        logger.debug("Cache warm-up load failed", e);
+                    }
+                });
+            }
+            executor.shutdown();
+            boolean completed = executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            progress.finish(completed ? WarmUpProgress.Status.COMPLETED : WarmUpProgress.Status.BUDGET_EXCEEDED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.finish(WarmUpProgress.Status.FAILED);
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Cache warm-up {}, {} ids ({} from snapshot), {} list pages, progress:{}",
+                progress.getStatus(), ids.size(), fromSnapshot, properties.getListPages(), progress.toMap());
+    }
+
+    /**
+     * Write the hottest ids of the id cache for the next startup
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSACTION_ID_CACHE);
+        if (cache == null
+                || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            return;
+        }
+        // Hottest first, as ranked by the cache's own frequency sketch
+        List<String> hottest = nativeCache.policy().eviction()
+                .map(eviction -> hottestIds(eviction, properties.getSnapshotSize()))
+                .orElse(Collections.emptyList());
+        if (hottest.isEmpty()) {
+            return;
+        }
+        Path snapshot = Path.of(properties.getSnapshot());
+        try {
+            if (snapshot.getParent() != null) {
+                Files.createDirectories(snapshot.getParent());
+            }
+            Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            Files.write(temp, hottest, StandardCharsets.UTF_8);
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote {} hot transaction ids to {}", hottest.size(), snapshot);
+        } catch (IOException e) {
+            logger.warn("Failed to write hot id snapshot {}", snapshot, e);
+        }
+    }
+
+    private List<String> readSnapshot() {
+        Path snapshot = Path.of(properties.getSnapshot());
+        if (!Files.isReadable(snapshot)) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files.readAllLines(snapshot, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .limit(properties.getSnapshotSize())
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("Failed to read hot id snapshot {}", snapshot, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static List<String> hottestIds(Policy.Eviction<?, ?> eviction, int limit) {
+        List<String> ids = new ArrayList<>(limit);
+        eviction.hottest(limit).keySet().forEach(key -> ids.add(String.valueOf(key)));
+        return ids;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
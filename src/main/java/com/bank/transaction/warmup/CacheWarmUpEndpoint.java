@@ -0,0 +1,26 @@
+package com.bank.transaction.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting the cache warm-up progress
+ *
+ * @author YUNING TAO
+ */
+@Endpoint(id = "cachewarmup")
+public class CacheWarmUpEndpoint {
+
+    private final WarmUpProgress progress;
+
+    public CacheWarmUpEndpoint(WarmUpProgress progress) {
+        this.progress = progress;
+    }
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return progress.toMap();
+    }
+}
@@ -0,0 +1,367 @@
+package com.bank.transaction.warmup;
+
+import com.bank.transaction.cache.TransactionBytesCache;
+import com.bank.transaction.changes.ChangeLog;
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.controller.TransactionController;
+import com.bank.transaction.dao.impl.TransactionDaoImpl;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.ledger.BalanceLedger;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
+import com.bank.transaction.model.dto.ChangeFeedResponse;
+import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.ProjectedTransaction;
+import com.bank.transaction.model.dto.TransactionRequest;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.bank.transaction.model.json.TransactionProjection;
+import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.service.impl.TransactionServiceImpl;
+import com.bank.transaction.stats.AmountStatistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JIT warm-up
+ *
+ * Runs as an application runner ahead of the cache warm-up, so the readiness state only turns
+ * to accepting traffic once it is done. It drives synthetic requests through the controller,
+ * service, validation and Jackson code of the application, so the hot paths are compiled before
+ * the first real request. Requests go to scratch instances over a store and caches of their
+ * own, production data, caches, balances and the change feed are never touched, and the scratch
+ * service neither logs nor records flight recorder events. Requests run in
+ * rounds until the JIT compiler has been quiet for a few rounds in a row or the time budget is
+ * spent; without compilation time monitoring in the JVM the budget alone ends the warm-up.
+ *
+ * @author YUNING TAO
+ */
+public class JitWarmUp implements ApplicationRunner, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(JitWarmUp.class);
+
+    private static final CurrencyCode[] CURRENCIES = CurrencyCode.values();
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final String[] ACCEPTS = {
+            MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            "application/x-jackson-smile", MediaType.ALL_VALUE
+    };
+    private static final TransactionProjection FIELDS = TransactionProjection.parse("id,amount,currency,timestamp");
+
+    // Transactions kept in the scratch store, so list pages and lookups carry real content
+    private static final int RESIDENT_TRANSACTIONS = 100;
+
+    private final ObjectMapper objectMapper;
+    private final HttpMessageConverters httpMessageConverters;
+    private final Validator validator;
+    private final JitWarmUpProperties properties;
+
+    private volatile WarmUpProgress.Status status = WarmUpProgress.Status.PENDING;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private final AtomicInteger rounds = new AtomicInteger();
+    private final AtomicInteger cycles = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile long compilationMillis = -1;
+    private volatile long firstRoundP99Micros = -1;
+    private volatile long lastRoundP99Micros = -1;
+
+    public JitWarmUp(ObjectMapper objectMapper, HttpMessageConverters httpMessageConverters, Validator validator,
+                     JitWarmUpProperties properties) {
+        this.objectMapper = objectMapper;
+        this.httpMessageConverters = httpMessageConverters;
+        this.validator = validator;
+        this.properties = properties;
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of the cache warm-up, which then runs on compiled code
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        startedAt = Instant.now();
+        status = WarmUpProgress.Status.RUNNING;
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean measurable = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        long compilationStart = measurable ? compilation.getTotalCompilationTime() : 0;
+        long deadline = System.nanoTime() + properties.getTimeBudget().toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()),
+                daemonThreads());
+        try {
+            Scratch scratch = new Scratch();
+            AtomicLong sequence = new AtomicLong();
+            int quiet = 0;
+            while (status == WarmUpProgress.Status.RUNNING) {
+                if (System.nanoTime() - deadline > 0) {
+                    finish(WarmUpProgress.Status.BUDGET_EXCEEDED);
+                    break;
+                }
+                long before = measurable ? compilation.getTotalCompilationTime() : 0;
+                long p99 = runRound(executor, scratch, sequence, deadline);
+                if (rounds.incrementAndGet() == 1) {
+                    firstRoundP99Micros = p99;
+                }
+                lastRoundP99Micros = p99;
+                if (measurable) {
+                    long total = compilation.getTotalCompilationTime();
+                    compilationMillis = total - compilationStart;
+                    quiet = total - before <= properties.getQuietCompilationTime().toMillis() ? quiet + 1 : 0;
+                    if (quiet >= properties.getQuietRounds()) {
+                        finish(WarmUpProgress.Status.COMPLETED);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(WarmUpProgress.Status.FAILED);
+        } catch (IOException | RuntimeException e) {
+            // Never keeps the application from starting, it only starts cold
+            logger.warn("JIT warm-up failed", e);
+            finish(WarmUpProgress.Status.FAILED);
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("JIT warm-up {}, progress:{}", status, toMap());
+    }
+
+    /**
+     * Progress as reported by the actuator endpoint
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("status", status);
+        progress.put("rounds", rounds.get());
+        progress.put("cycles", cycles.get());
+        progress.put("failed", failed.get());
+        progress.put("compilationMillis", compilationMillis);
+        // Latency of one cycle at the 99th percentile, in the first and the last round
+        progress.put("firstRoundP99Micros", firstRoundP99Micros);
+        progress.put("lastRoundP99Micros", lastRoundP99Micros);
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            progress.put("startedAt", startedAt.toString());
+            progress.put("elapsedMillis", Duration.between(startedAt, end).toMillis());
+        }
+        return progress;
+    }
+
+    public WarmUpProgress.Status getStatus() {
+        return status;
+    }
+
+    private void finish(WarmUpProgress.Status finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    /**
+     * Run one round of cycles spread over the threads
+     *
+     * @return latency of a cycle at the 99th percentile, in microseconds
+     */
+    private long runRound(ExecutorService executor, Scratch scratch, AtomicLong sequence, long deadline)
+            throws InterruptedException {
+        int roundSize = Math.max(1, properties.getRoundSize());
+        long[] latencies = new long[roundSize];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, properties.getParallelism()); i++) {
+            tasks.add(() -> {
+                for (int slot = next.getAndIncrement(); slot < roundSize; slot = next.getAndIncrement()) {
+                    // Cycles past the budget are skipped
+                    if (System.nanoTime() - deadline > 0) {
+                        return null;
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        cycle(scratch, sequence.getAndIncrement());
+                        cycles.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        logger.debug("JIT warm-up cycle failed", e);
+                    }
+                    latencies[done.getAndIncrement()] = System.nanoTime() - start;
+                }
+                return null;
+            });
+        }
+        executor.invokeAll(tasks);
+
+        int count = done.get();
+        if (count == 0) {
+            return -1;
+        }
+        long[] measured = Arrays.copyOf(latencies, count);
+        Arrays.sort(measured);
+        return measured[(int) ((count - 1) * 0.99)] / 1_000;
+    }
+
+    /**
+     * One synthetic client session: create, read in every wire format, update, look up, list and delete
+     */
+    private void cycle(Scratch scratch, long n) throws IOException, HttpMediaTypeNotAcceptableException {
+        CurrencyCode currency = CURRENCIES[(int) (n % CURRENCIES.length)];
+        TransactionType type = TYPES[(int) (n % TYPES.length)];
+        // Whole minor units, so every currency accepts the amount
+        long amount = 1_000 + (n % 10_000) * 25;
+
+        TransactionResponse created = scratch.controller
+                .createTransaction(readRequest(requestJson(currency.toDecimal(amount), currency, type, "WARMUP-" + n)))
+                .getBody();
+        objectMapper.writeValueAsBytes(created);
+        String id = created.getId();
+
+        // Read by id the way the controller does, from the pre-serialized bytes
+        AbstractJackson2HttpMessageConverter converter =
+                scratch.bytesCache.negotiate(scratch.accepts.get((int) (n % scratch.accepts.size())));
+        TransactionBytesCache.CachedTransaction cached =
+                scratch.bytesCache.get(id, () -> scratch.service.getTransactionById(id));
+        scratch.bytesCache.encode(cached, converter, n % 2 == 0 ? null : FIELDS);
+
+        TransactionRequest update = readRequest(requestJson(currency.toDecimal(amount * 2), currency, type,
+                "WARMUP-" + n + "-U"));
+        objectMapper.writeValueAsBytes(scratch.controller.updateTransaction(id, "\"" + created.getVersion() + "\"",
+                scratch.accepts.get((int) (n % scratch.accepts.size())), update).getBody());
+        objectMapper.writeValueAsBytes(scratch.controller
+                .getTransactionsByIds(List.of(id, "WARMUP-MISSING-" + n)).getBody());
+
+        if (n % 10 == 0) {
+            PageableResponse<TransactionResponse> page = scratch.service.getTransactions((int) (n / 10 % 5), 10);
+            objectMapper.writeValueAsBytes(page);
+            List<ProjectedTransaction> projected = new ArrayList<>(page.getContent().size());
+            for (TransactionResponse transaction : page.getContent()) {
+                projected.add(new ProjectedTransaction(transaction, FIELDS));
+            }
+            objectMapper.writeValueAsBytes(
+                    new PageableResponse<>(projected, page.getPage(), page.getSize(), page.getTotalElements()));
+        }
+        if (n % 20 == 0) {
+            // Rejections are part of real traffic too
+            try {
+                scratch.controller.createTransaction(
+                        readRequest(requestJson(BigDecimal.ONE.negate(), currency, type, null)));
+            } catch (TransactionException expected) {
+                // Invalid amount
+            }
+        }
+        if (n % 50 == 0) {
+            ChangeFeedResponse bookmark = scratch.service.getChanges(null, null, 0);
+            objectMapper.writeValueAsBytes(scratch.controller.getChanges(
+                    Math.max(0, bookmark.getLatestSequence() - 20), bookmark.getEpoch(), 100).getBody());
+            objectMapper.writeValueAsBytes(scratch.controller.getAmountQuantiles(null, null, null, null).getBody());
+        }
+
+        scratch.controller.deleteTransaction(id);
+    }
+
+    private TransactionRequest readRequest(String json) throws IOException {
+        TransactionRequest request = objectMapper.readValue(json.getBytes(StandardCharsets.UTF_8),
+                TransactionRequest.class);
+        // What @Valid does for request bodies
+        if (!validator.validate(request).isEmpty()) {
+            throw new IllegalStateException("Synthetic warm-up request is invalid: " + json);
+        }
+        return request;
+    }
+
+    private static String requestJson(BigDecimal amount, CurrencyCode currency, TransactionType type,
+                                      String reference) {
+        StringBuilder json = new StringBuilder(160)
+                .append("{\"amount\":").append(amount.toPlainString())
+                .append(",\"currency\":\"").append(currency.name())
+                .append("\",\"transactionType\":\"").append(type.name()).append('"');
+        if (reference != null) {
+            json.append(",\"transactionReference\":\"").append(reference).append('"');
+        }
+        if (type != TransactionType.DEPOSIT) {
+            json.append(",\"sourceAccountId\":\"WARMUP-A\"");
+        }
+        if (type != TransactionType.WITHDRAWAL) {
+            json.append(",\"destinationAccountId\":\"WARMUP-B\"");
+        }
+        return json.append('}').toString();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "jit-warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Scratch controller and service over a store, caches, ledger, change log and statistics of
+     * their own, dropped once the warm-up is done
+     */
+    private final class Scratch {
+        private final TransactionService service;
+        private final TransactionBytesCache bytesCache;
+        private final TransactionController controller;
+        // Accept headers of the configured wire formats
+        private final List<String> accepts = new ArrayList<>();
+
+        private Scratch() throws IOException {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+            // Deleted ids are not evicted without the caching proxy, the bound keeps the caches small
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(1_000));
+            // Silent and unrecorded, it would log every write and fill recordings with synthetic calls
+            this.service = new TransactionServiceImpl(new TransactionDaoImpl(new TransactionStoreProperties()),
+                    cacheManager, new BalanceLedger(16), new ChangeLog(1_000, 16),
+                    new AmountStatistics(Duration.ofMinutes(1), 5, 0.01, Clock.systemDefaultZone())).quiet();
+            this.bytesCache = new TransactionBytesCache(cacheManager, httpMessageConverters);
+            this.controller = new TransactionController(service, bytesCache, Optional.empty());
+            for (String accept : ACCEPTS) {
+                try {
+                    bytesCache.negotiate(accept);
+                    accepts.add(accept);
+                } catch (HttpMediaTypeNotAcceptableException e) {
+                    // No converter for this format
+                }
+            }
+            for (int i = 0; i < RESIDENT_TRANSACTIONS; i++) {
+                CurrencyCode currency = CURRENCIES[i % CURRENCIES.length];
+                TransactionType type = TYPES[i % TYPES.length];
+                controller.createTransaction(readRequest(requestJson(BigDecimal.valueOf(100 + i), currency, type,
+                        "WARMUP-RESIDENT-" + i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.transaction.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting the JIT warm-up progress
+ *
+ * @author YUNING TAO
+ */
+@Endpoint(id = "jitwarmup")
+public class JitWarmUpEndpoint {
+
+    private final JitWarmUp jitWarmUp;
+
+    public JitWarmUpEndpoint(JitWarmUp jitWarmUp) {
+        this.jitWarmUp = jitWarmUp;
+    }
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return jitWarmUp.toMap();
+    }
+}
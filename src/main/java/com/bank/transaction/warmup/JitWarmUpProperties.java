@@ -0,0 +1,92 @@
+package com.bank.transaction.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * JIT warm-up settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.jit-warmup")
+public class JitWarmUpProperties {
+
+    /**
+     * Turn the startup JIT warm-up on, it is off unless asked for
+     */
+    private boolean enabled;
+
+    /**
+     * Number of synthetic request cycles per round, a cycle creates, reads, updates and deletes one transaction
+     */
+    private int roundSize = 500;
+
+    /**
+     * Number of threads running the cycles of a round
+     */
+    private int parallelism = 2;
+
+    /**
+     * JIT compilation time of a round at or below which the round counts as quiet
+     */
+    private Duration quietCompilationTime = Duration.ofMillis(10);
+
+    /**
+     * Number of quiet rounds in a row after which compilation counts as settled
+     */
+    private int quietRounds = 3;
+
+    /**
+     * Longest time the warm-up may hold back readiness
+     */
+    private Duration timeBudget = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRoundSize() {
+        return roundSize;
+    }
+
+    public void setRoundSize(int roundSize) {
+        this.roundSize = roundSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public Duration getQuietCompilationTime() {
+        return quietCompilationTime;
+    }
+
+    public void setQuietCompilationTime(Duration quietCompilationTime) {
+        this.quietCompilationTime = quietCompilationTime;
+    }
+
+    public int getQuietRounds() {
+        return quietRounds;
+    }
+
+    public void setQuietRounds(int quietRounds) {
+        this.quietRounds = quietRounds;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bank.transaction.warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of the cache warm-up, read by the actuator endpoint
+ *
+ * @author YUNING TAO
+ */
+public class WarmUpProgress {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, BUDGET_EXCEEDED, FAILED
+    }
+
+    private volatile Status status = Status.PENDING;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private final AtomicInteger planned = new AtomicInteger();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger missing = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    void start(int plannedLoads) {
+        planned.set(plannedLoads);
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void finish(Status finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    void loaded() {
+        loaded.incrementAndGet();
+    }
+
+    void missing() {
+        missing.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Progress as reported by the actuator endpoint
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("status", status);
+        progress.put("planned", planned.get());
+        progress.put("loaded", loaded.get());
+        progress.put("missing", missing.get());
+        progress.put("failed", failed.get());
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            progress.put("startedAt", startedAt.toString());
+            progress.put("elapsedMillis", Duration.between(startedAt, end).toMillis());
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,119 @@
+package com.bank.transaction.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Cache warm-up settings
+ *
+ * @author YUNING TAO
+ */
+@ConfigurationProperties(prefix = "transaction.warmup")
+public class WarmUpProperties {
+
+    /**
+     * Turn the startup warm-up on or off
+     */
+    private boolean enabled = true;
+
+    /**
+     * Hottest cached ids, written at shutdown and read at the next startup
+     */
+    private String snapshot = Path.of(System.getProperty("java.io.tmpdir"), "transaction-hot-ids.snapshot").toString();
+
+    /**
+     * Number of hottest ids kept in the snapshot
+     */
+    private int snapshotSize = 500;
+
+    /**
+     * Number of most recent transactions loaded in addition to the snapshot
+     */
+    private int recentTransactions = 200;
+
+    /**
+     * Number of list pages loaded, starting from the first one
+     */
+    private int listPages = 3;
+
+    /**
+     * Page size of the loaded list pages
+     */
+    private int listPageSize = 10;
+
+    /**
+     * Number of threads loading in parallel
+     */
+    private int parallelism = 4;
+
+    /**
+     * Longest time the warm-up may hold back readiness
+     */
+    private Duration timeBudget = Duration.ofSeconds(20);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(String snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public int getSnapshotSize() {
+        return snapshotSize;
+    }
+
+    public void setSnapshotSize(int snapshotSize) {
+        this.snapshotSize = snapshotSize;
+    }
+
+    public int getRecentTransactions() {
+        return recentTransactions;
+    }
+
+    public void setRecentTransactions(int recentTransactions) {
+        this.recentTransactions = recentTransactions;
+    }
+
+    public int getListPages() {
+        return listPages;
+    }
+
+    public void setListPages(int listPages) {
+        this.listPages = listPages;
+    }
+
+    public int getListPageSize() {
+        return listPageSize;
+    }
+
+    public void setListPageSize(int listPageSize) {
+        this.listPageSize = listPageSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank.transaction.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adaptive Concurrency Limiter Test Class
+ *
+ * @author YUNING TAO
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void tryAcquire_Reads_ShouldOnlyUseTheirShare() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, 2.0);
+
+        // When
+        int reads = 0;
+        while (limiter.tryAcquire(false)) {
+            reads++;
+        }
+
+        // Then: writes still get the rest of the limit
+        assertThat(reads).isEqualTo(5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(true)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(true)).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void release_ShouldFreeTheSlot() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1.0, 2.0);
+        assertThat(limiter.tryAcquire(true)).isTrue();
+        assertThat(limiter.tryAcquire(true)).isFalse();
+
+        // When
+        limiter.release(1_000_000L);
+
+        // Then
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.tryAcquire(true)).isTrue();
+    }
+
+    @Test
+    void release_RisingLatency_ShouldShrinkTheLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 4, 400, 0.8, 1.0);
+        sample(limiter, 1_000_000L, 50);
+
+        // When: latency grows tenfold
+        sample(limiter, 10_000_000L, 100);
+
+        // Then
+        assertThat(limiter.getLimit()).isLessThan(100).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void release_FlatLatencyUnderLoad_ShouldGrowTheLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 400, 0.8, 2.0);
+
+        // When: the limit is used and latency stays flat
+        for (int i = 0; i < 50; i++) {
+            int admitted = 0;
+            while (limiter.tryAcquire(true)) {
+                admitted++;
+            }
+            for (int j = 0; j < admitted; j++) {
+                limiter.release(1_000_000L);
+            }
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isGreaterThan(20).isLessThanOrEqualTo(400);
+    }
+
+    private static void sample(AdaptiveConcurrencyLimiter limiter, long rttNanos, int times) {
+        for (int i = 0; i < times; i++) {
+            limiter.tryAcquire(true);
+            limiter.release(rttNanos);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.bank.transaction.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admission Control Filter Test Class
+ *
+ * @author YUNING TAO
+ */
+class AdmissionControlFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionProperties properties = new AdmissionProperties();
+
+    @BeforeEach
+    void setUp() {
+        // No refill while the test runs
+        properties.setClientRatePerSecond(0.001);
+        properties.setClientBurst(2);
+    }
+
+    @Test
+    void doFilter_RotatingClientHeader_ShouldShareTheBucketOfTheAddress() throws Exception {
+        // Given
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, meterRegistry);
+
+        // When
+        int first = status(filter, request("GET", "10.0.0.1", "client-1"));
+        int second = status(filter, request("GET", "10.0.0.1", "client-2"));
+        MockHttpServletResponse third = filter(filter, request("GET", "10.0.0.1", "client-3"));
+
+        // Then
+        assertThat(first).isEqualTo(200);
+        assertThat(second).isEqualTo(200);
+        assertThat(third.getStatus()).isEqualTo(429);
+        assertThat(third.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(meterRegistry.get("transaction.admission.shed")
+                .tag("reason", "rate_limited").tag("priority", "read").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void doFilter_OtherAddress_ShouldHaveItsOwnBucket() throws Exception {
+        // Given
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, meterRegistry);
+        status(filter, request("GET", "10.0.0.1", null));
+        status(filter, request("GET", "10.0.0.1", null));
+
+        // When & Then
+        assertThat(status(filter, request("GET", "10.0.0.1", null))).isEqualTo(429);
+        assertThat(status(filter, request("GET", "10.0.0.2", null))).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_RotatingIpv6Host_ShouldShareTheBucketOfItsNetwork() throws Exception {
+        // Given
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, meterRegistry);
+        status(filter, request("GET", "2001:db8:0:1::1", null));
+        status(filter, request("GET", "2001:db8:0:1::2", null));
+
+        // When & Then
+        assertThat(status(filter, request("GET", "2001:db8:0:1:ffff::3", null))).isEqualTo(429);
+        assertThat(status(filter, request("GET", "2001:db8:0:2::1", null))).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_AuthenticatedUsers_ShouldBeKeyedByPrincipal() throws Exception {
+        // Given
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, meterRegistry);
+        MockHttpServletRequest alice = request("GET", "10.0.0.1", null);
+        alice.setUserPrincipal(() -> "alice");
+        status(filter, alice);
+        status(filter, alice);
+
+        // When
+        MockHttpServletRequest bob = request("GET", "10.0.0.1", null);
+        bob.setUserPrincipal(() -> "bob");
+
+        // Then
+        assertThat(status(filter, alice)).isEqualTo(429);
+        assertThat(status(filter, bob)).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_BucketCapReached_ShouldShareOneOverflowBucket() throws Exception {
+        // Given
+        properties.setMaxClients(1);
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, meterRegistry);
+        assertThat(status(filter, request("GET", "10.0.0.1", null))).isEqualTo(200);
+
+        // When: every new address lands in the same bucket
+        int second = status(filter, request("GET", "10.0.0.2", null));
+        int third = status(filter, request("GET", "10.0.0.3", null));
+        int fourth = status(filter, request("GET", "10.0.0.4", null));
+
+        // Then
+        assertThat(second).isEqualTo(200);
+        assertThat(third).isEqualTo(200);
+        assertThat(fourth).isEqualTo(429);
+        assertThat(status(filter, request("GET", "10.0.0.1", null))).isEqualTo(200);
+    }
+
+    @Test
+    void isWrite_LookupByIds_ShouldBeARead() {
+        // When & Then
+        assertThat(AdmissionControlFilter.isWrite(request("POST", "/bank/transactions/lookup"))).isFalse();
+        assertThat(AdmissionControlFilter.isWrite(request("GET", "/bank/transactions"))).isFalse();
+        assertThat(AdmissionControlFilter.isWrite(request("POST", "/bank/transactions"))).isTrue();
+        assertThat(AdmissionControlFilter.isWrite(request("PUT", "/bank/transactions/lookup"))).isTrue();
+        assertThat(AdmissionControlFilter.isWrite(request("DELETE", "/bank/transactions/1"))).isTrue();
+    }
+
+    @Test
+    void doFilter_LimitReached_ShouldRejectWithServiceUnavailable() throws Exception {
+        // Given
+        properties.setClientBurst(100);
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, meterRegistry);
+        int limit = filter.getLimiter().getLimit();
+        for (int i = 0; i < limit; i++) {
+            filter.getLimiter().tryAcquire(true);
+        }
+
+        // When
+        MockHttpServletRequest lookup = new MockHttpServletRequest("POST", "/bank/transactions/lookup");
+        lookup.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = filter(filter, lookup);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("transaction.admission.shed")
+                .tag("reason", "overloaded").tag("priority", "read").counter().count()).isEqualTo(1.0);
+    }
+
+    private static MockHttpServletRequest request(String method, String remoteAddress, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/bank/transactions");
+        request.setRemoteAddr(remoteAddress);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+
+    private static int status(AdmissionControlFilter filter, MockHttpServletRequest request) throws Exception {
+        return filter(filter, request).getStatus();
+    }
+
+    private static MockHttpServletResponse filter(AdmissionControlFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
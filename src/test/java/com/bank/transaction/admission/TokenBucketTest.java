@@ -0,0 +1,52 @@
+package com.bank.transaction.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token Bucket Test Class
+ *
+ * @author YUNING TAO
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void tryAcquire_WithinBurst_ShouldTakeTokens() {
+        // Given
+        TokenBucket bucket = new TokenBucket(1, 3, 0L);
+
+        // When & Then
+        assertThat(bucket.tryAcquire(0L)).isZero();
+        assertThat(bucket.tryAcquire(0L)).isZero();
+        assertThat(bucket.tryAcquire(0L)).isZero();
+        assertThat(bucket.tryAcquire(0L)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void tryAcquire_Empty_ShouldRefillAtTheRate() {
+        // Given
+        TokenBucket bucket = new TokenBucket(2, 1, 0L);
+        bucket.tryAcquire(0L);
+
+        // When & Then
+        assertThat(bucket.tryAcquire(SECOND / 4)).isEqualTo(SECOND / 4);
+        assertThat(bucket.tryAcquire(SECOND / 2)).isZero();
+    }
+
+    @Test
+    void tryAcquire_LongIdle_ShouldNotRefillBeyondTheBurst() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 2, 0L);
+
+        // When
+        long later = 3600 * SECOND;
+
+        // Then
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+}
@@ -0,0 +1,109 @@
+package com.bank.transaction.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Broadcasting Cache Manager Test Class
+ *
+ * @author YUNING TAO
+ */
+class BroadcastingCacheManagerTest {
+
+    private CacheInvalidationBus firstBus;
+    private CacheInvalidationBus secondBus;
+    private CacheManager first;
+    private CacheManager second;
+
+    @BeforeEach
+    void setUp() {
+        firstBus = new CacheInvalidationBus(properties(), new SimpleMeterRegistry());
+        secondBus = new CacheInvalidationBus(properties(), new SimpleMeterRegistry());
+        firstBus.addPeer(new InetSocketAddress("127.0.0.1", secondBus.getLocalPort()));
+        secondBus.addPeer(new InetSocketAddress("127.0.0.1", firstBus.getLocalPort()));
+        first = new BroadcastingCacheManager(new ConcurrentMapCacheManager("transactions", "transactionList"), firstBus);
+        second = new BroadcastingCacheManager(new ConcurrentMapCacheManager("transactions", "transactionList"), secondBus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstBus.close();
+        secondBus.close();
+    }
+
+    @Test
+    void evict_ShouldEvictKeyOnOtherInstance() throws Exception {
+        // Given
+        first.getCache("transactions").put("id-1", "first");
+        second.getCache("transactions").put("id-1", "second");
+        second.getCache("transactions").put("id-2", "second");
+
+        // When
+        first.getCache("transactions").evict("id-1");
+
+        // Then
+        Cache remote = second.getCache("transactions");
+        awaitTrue(() -> remote.get("id-1") == null);
+        assertThat(remote.get("id-2")).isNotNull();
+        assertThat(first.getCache("transactions").get("id-1")).isNull();
+    }
+
+    @Test
+    void clear_ShouldClearCacheOnOtherInstance() throws Exception {
+        // Given
+        second.getCache("transactionList").put("0-10", "page");
+        second.getCache("transactions").put("id-1", "second");
+
+        // When
+        first.getCache("transactionList").clear();
+
+        // Then
+        Cache remote = second.getCache("transactionList");
+        awaitTrue(() -> remote.get("0-10") == null);
+        assertThat(second.getCache("transactions").get("id-1")).isNotNull();
+    }
+
+    @Test
+    void remoteEvict_ShouldNotBeSentBack() throws Exception {
+        // Given
+        first.getCache("transactions").put("id-1", "first");
+        second.getCache("transactions").put("id-1", "second");
+
+        // When
+        first.getCache("transactions").evict("id-1");
+        awaitTrue(() -> second.getCache("transactions").get("id-1") == null);
+        first.getCache("transactions").put("id-1", "reloaded");
+        Thread.sleep(100);
+
+        // Then
+        assertThat(first.getCache("transactions").get("id-1").get()).isEqualTo("reloaded");
+    }
+
+    private static CacheInvalidationProperties properties() {
+        CacheInvalidationProperties properties = new CacheInvalidationProperties();
+        properties.setBindAddress("127.0.0.1");
+        properties.setPort(0);
+        properties.setFlushInterval(Duration.ofMillis(1));
+        properties.setSecret("test-secret");
+        return properties;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.bank.transaction.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cache Invalidation Bus Test Class
+ *
+ * @author YUNING TAO
+ */
+class CacheInvalidationBusTest {
+
+    private final MeterRegistry receiverRegistry = new SimpleMeterRegistry();
+    private final RecordingListener listener = new RecordingListener();
+    private CacheInvalidationBus sender;
+    private CacheInvalidationBus receiver;
+    private DatagramChannel sink;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        receiver = new CacheInvalidationBus(properties("secret"), receiverRegistry);
+        receiver.setListener(listener);
+        sink = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sender != null) {
+            sender.close();
+        }
+        receiver.close();
+        sink.close();
+    }
+
+    @Test
+    void constructor_WildcardBindAddress_ShouldBeRejected() {
+        // Given
+        CacheInvalidationProperties properties = properties("secret");
+        properties.setBindAddress("0.0.0.0");
+
+        // When & Then
+        assertThatThrownBy(() -> new CacheInvalidationBus(properties, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("bind-address");
+    }
+
+    @Test
+    void constructor_MissingSecret_ShouldBeRejected() {
+        // When & Then
+        assertThatThrownBy(() -> new CacheInvalidationBus(properties(null), new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("secret");
+    }
+
+    @Test
+    void receive_OtherSecret_ShouldBeDropped() throws Exception {
+        // Given
+        sender = new CacheInvalidationBus(properties("other-secret"), new SimpleMeterRegistry());
+        sender.addPeer(receiverAddress());
+
+        // When
+        sender.publishEvict("transactions", "id-1");
+        sender.flush();
+
+        // Then
+        awaitTrue(() -> rejected() == 1);
+        assertThat(listener.events).isEmpty();
+    }
+
+    @Test
+    void receive_ReplayedDatagram_ShouldBeAppliedOnce() throws Exception {
+        // Given: a signed datagram captured on its way to the receiver
+        sender = new CacheInvalidationBus(properties("secret"), new SimpleMeterRegistry());
+        sender.addPeer(sink.getLocalAddress());
+        sender.publishEvict("transactions", "id-1");
+        sender.flush();
+        ByteBuffer captured = ByteBuffer.allocate(8192);
+        sink.receive(captured);
+        captured.flip();
+
+        // When
+        sink.send(captured.duplicate(), receiverAddress());
+        sink.send(captured.duplicate(), receiverAddress());
+
+        // Then
+        awaitTrue(() -> rejected() == 1);
+        assertThat(listener.events).containsExactly("evict transactions id-1");
+    }
+
+    @Test
+    void heartbeat_AfterLostDatagram_ShouldClearEverything() throws Exception {
+        // Given: the only datagram went elsewhere
+        sender = new CacheInvalidationBus(properties("secret"), new SimpleMeterRegistry());
+        sender.addPeer(sink.getLocalAddress());
+        sender.publishEvict("transactions", "id-1");
+        sender.flush();
+        sender.addPeer(receiverAddress());
+
+        // When
+        sender.heartbeat();
+
+        // Then
+        awaitTrue(() -> listener.events.contains("clearAll"));
+        assertThat(receiverRegistry.get("transaction.cache.invalidation.gaps").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void heartbeat_NothingLost_ShouldChangeNothing() throws Exception {
+        // Given
+        sender = new CacheInvalidationBus(properties("secret"), new SimpleMeterRegistry());
+        sender.addPeer(receiverAddress());
+        sender.publishEvict("transactions", "id-1");
+        sender.flush();
+        awaitTrue(() -> !listener.events.isEmpty());
+
+        // When
+        sender.heartbeat();
+        Thread.sleep(100);
+
+        // Then
+        assertThat(listener.events).containsExactly("evict transactions id-1");
+        assertThat(receiverRegistry.get("transaction.cache.invalidation.gaps").counter().count()).isZero();
+    }
+
+    private InetSocketAddress receiverAddress() {
+        return new InetSocketAddress("127.0.0.1", receiver.getLocalPort());
+    }
+
+    private double rejected() {
+        return receiverRegistry.get("transaction.cache.invalidation.rejected").counter().count();
+    }
+
+    private static CacheInvalidationProperties properties(String secret) {
+        CacheInvalidationProperties properties = new CacheInvalidationProperties();
+        properties.setBindAddress("127.0.0.1");
+        properties.setPort(0);
+        // Long intervals, the tests flush and beat themselves
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setHeartbeatInterval(Duration.ofHours(1));
+        properties.setSecret(secret);
+        return properties;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class RecordingListener implements CacheInvalidationBus.Listener {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void evict(String cacheName, String key) {
+            events.add("evict " + cacheName + " " + key);
+        }
+
+        @Override
+        public void clear(String cacheName) {
+            events.add("clear " + cacheName);
+        }
+
+        @Override
+        public void clearAll() {
+            events.add("clearAll");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Transaction Bytes Cache Test Class
+ *
+ * @author YUNING TAO
+ */
+class TransactionBytesCacheTest {
+
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    private final TransactionBytesCache bytesCache = new TransactionBytesCache(cacheManager,
+            new HttpMessageConverters(false, List.of(new MappingJackson2HttpMessageConverter(
+                    new ObjectMapper().registerModule(new JavaTimeModule())))));
+
+    @Test
+    void get_EvictDuringLoad_ShouldNotKeepTheLoadedVersion() throws Exception {
+        // Given: a load of version 1 that is still running
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = new Thread(() -> bytesCache.get("id", () -> {
+            loading.countDown();
+            await(release);
+            return response(1L);
+        }));
+        reader.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When: the update of the transaction evicts it before the load is done
+        Thread evictor = new Thread(() -> cacheManager.getCache(CacheConfig.TRANSACTION_BYTES_CACHE).evict("id"));
+        evictor.start();
+        while (evictor.getState() == Thread.State.NEW || evictor.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        reader.join();
+        evictor.join();
+
+        // Then: the next read loads the new version
+        assertThat(bytesCache.get("id", () -> response(2L)).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void get_LoaderFailure_ShouldThrowItsException() {
+        // When & Then
+        assertThatThrownBy(() -> bytesCache.get("id", () -> {
+            throw new IllegalStateException("not found");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("not found");
+    }
+
+    @Test
+    void negotiate_MalformedAccept_ShouldNotBeAcceptable() {
+        // When & Then
+        assertThatThrownBy(() -> bytesCache.negotiate("application/"))
+                .isInstanceOf(HttpMediaTypeNotAcceptableException.class);
+    }
+
+    private static TransactionResponse response(long version) {
+        return new TransactionResponse("id", 10.0, CurrencyCode.USD, TransactionType.DEPOSIT, null,
+                LocalDateTime.now(), version);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.bank.transaction.changes;
+
+import com.bank.transaction.exception.ErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Change Log Test Class
+ *
+ * @author YUNING TAO
+ */
+class ChangeLogTest {
+
+    @Test
+    void changesSince_ShouldReturnChangesInOrderWithTombstones() {
+        // Given
+        ChangeLog changeLog = new ChangeLog(100, 4);
+        Transaction created = changeLog.create("id-1", () -> transaction("id-1", 1L));
+        changeLog.update("id-1", () -> Optional.of(created.withVersion(2L)));
+        changeLog.update("id-1", Optional::empty);
+        changeLog.delete("id-1", () -> Optional.of(created.withVersion(2L)));
+
+        // When
+        ChangeLog.Slice all = changeLog.changesSince(0, 10);
+        ChangeLog.Slice tail = changeLog.changesSince(1, 1);
+
+        // Then
+        assertThat(all.getChanges()).extracting(ChangeLog.Change::getType)
+                .containsExactly(ChangeType.CREATE, ChangeType.UPDATE, ChangeType.DELETE);
+        assertThat(all.getChanges()).extracting(ChangeLog.Change::getSequence).containsExactly(1L, 2L, 3L);
+        assertThat(all.getChanges().get(2).getTransaction()).isNull();
+        assertThat(all.getChanges().get(2).getVersion()).isEqualTo(2L);
+        assertThat(all.getLatestSequence()).isEqualTo(3L);
+        assertThat(tail.getChanges()).extracting(ChangeLog.Change::getSequence).containsExactly(2L);
+        assertThat(changeLog.changesSince(3, 10).getChanges()).isEmpty();
+    }
+
+    @Test
+    void changesSince_OutsideRetainedWindow_ShouldRequireResync() {
+        // Given: room for three changes, five recorded
+        ChangeLog changeLog = new ChangeLog(3, 4);
+        for (int i = 0; i < 5; i++) {
+            String id = "id-" + i;
+            changeLog.create(id, () -> transaction(id, 1L));
+        }
+
+        // When & Then
+        assertThat(changeLog.changesSince(2, 10).getChanges()).extracting(ChangeLog.Change::getId)
+                .containsExactly("id-2", "id-3", "id-4");
+        assertThatThrownBy(() -> changeLog.changesSince(1, 10))
+                .isInstanceOf(TransactionException.class)
+                .extracting(e -> ((TransactionException) e).getCode())
+                .isEqualTo(ErrorCode.RESYNC_REQUIRED);
+        // Ahead of the log, such as a sequence from before a restart
+        assertThatThrownBy(() -> changeLog.changesSince(6, 10))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Changes since 6");
+    }
+
+    @Test
+    void epoch_ShouldDifferBetweenLogs() {
+        // When & Then: a restarted or second instance numbers its changes under another epoch
+        assertThat(new ChangeLog(3, 4).epoch()).isNotEqualTo(new ChangeLog(3, 4).epoch());
+    }
+
+    @Test
+    void concurrentUpdates_ShouldBeNumberedInStoreOrder() throws Exception {
+        // Given: a stored version updated by several threads with compare-and-set
+        ChangeLog changeLog = new ChangeLog(10_000, 4);
+        AtomicReference<Transaction> stored = new AtomicReference<>(
+                changeLog.create("id-1", () -> transaction("id-1", 1L)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < 4; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    Transaction current = stored.get();
+                    changeLog.update("id-1", () -> {
+                        Transaction next = current.withVersion(current.getVersion() + 1);
+                        return stored.compareAndSet(current, next) ? Optional.of(next) : Optional.empty();
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdownNow();
+
+        // Then: replaying the changes in sequence order ends at the stored version
+        Map<String, Long> mirror = new HashMap<>();
+        long previous = 0;
+        for (ChangeLog.Change change : changeLog.changesSince(0, 10_000).getChanges()) {
+            assertThat(change.getVersion()).isGreaterThan(previous);
+            previous = change.getVersion();
+            mirror.put(change.getId(), change.getVersion());
+        }
+        assertThat(mirror.get("id-1")).isEqualTo(stored.get().getVersion());
+    }
+
+    private static Transaction transaction(String id, long version) {
+        return new Transaction(id, 100L, CurrencyCode.USD, TransactionType.DEPOSIT, null,
+                LocalDateTime.now(), version);
+    }
+}
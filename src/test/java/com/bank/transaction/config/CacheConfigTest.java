@@ -0,0 +1,106 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
+import com.bank.transaction.model.dto.TransactionResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Cache Configuration Test Class
+ *
+ * @author YUNING TAO
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheConfigTest {
+
+    private static final int KEYS = 200;
+    private static final int THREADS = 32;
+    private static final int REQUESTS_PER_THREAD = 2_000;
+
+    @Mock
+    private TransactionDao transactionDao;
+
+    @Test
+    void idCache_ConcurrentZipfianMisses_ShouldLoadEachIdOnce() throws Exception {
+        // Given
+        CacheManager cacheManager = new CacheConfig().caffeineCacheManager(transactionDao);
+        Cache idCache = cacheManager.getCache(CacheConfig.TRANSACTION_ID_CACHE);
+        Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        double[] distribution = zipfDistribution(KEYS, 1.1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When, skewed access with a slow backend, the way @Cacheable(sync = true) reads the cache
+        List<Future<?>> callers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            callers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    String id = "id-" + sample(distribution);
+                    TransactionResponse response = idCache.get(id, () -> {
+                        loads.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+                        Thread.sleep(20);
+                        return new TransactionResponse(id, 100.00, CurrencyCode.USD, TransactionType.DEPOSIT, null, LocalDateTime.now(), 1L);
+                    });
+                    assertThat(response.getId()).isEqualTo(id);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> caller : callers) {
+            caller.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then, every id was loaded once however many callers missed it together
+        assertThat(loads).isNotEmpty();
+        assertThat(loads.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        // The first loads go through the service, the store loader is only used to refresh
+        verifyNoInteractions(transactionDao);
+    }
+
+    /**
+     * Cumulative Zipf distribution over the given number of keys
+     */
+    private static double[] zipfDistribution(int keys, double exponent) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int k = 1; k <= keys; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int k = 0; k < keys; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative) {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+}
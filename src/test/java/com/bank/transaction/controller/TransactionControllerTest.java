@@ -1,7 +1,19 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.cache.TransactionBytesCache;
+import com.bank.transaction.config.WireFormatConfig;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.dto.AmountDistribution;
+import com.bank.transaction.model.dto.AmountQuantilesResponse;
+import com.bank.transaction.model.dto.ChangeFeedResponse;
 import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.TransactionLookupRequest;
+import com.bank.transaction.model.dto.TransactionLookupResponse;
 import com.bank.transaction.model.dto.TransactionRequest;
 import com.bank.transaction.model.dto.TransactionResponse;
 import com.bank.transaction.service.TransactionService;
@@ -10,14 +22,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -29,6 +50,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author YUNING TAO
  */
 @WebMvcTest(TransactionController.class)
+@Import({WireFormatConfig.class, TransactionBytesCache.class})
 class TransactionControllerTest {
 
     @Autowired
@@ -40,6 +62,8 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule());
+
     private TransactionRequest validRequest;
     private TransactionResponse validResponse;
 
@@ -47,16 +71,16 @@ class TransactionControllerTest {
     void setUp() {
         validRequest = new TransactionRequest(
                 100.00,
-                "USD",
-                "DEPOSIT",
+                CurrencyCode.USD,
+                TransactionType.DEPOSIT,
                 "REF001"
         );
 
         validResponse = new TransactionResponse(
                 "test-id",
                 100.00,
-                "USD",
-                "DEPOSIT",
+                CurrencyCode.USD,
+                TransactionType.DEPOSIT,
                 "REF001",
                 LocalDateTime.now()
         );
@@ -126,6 +150,113 @@ class TransactionControllerTest {
         verify(transactionService).getTransactions(0, 10);
     }
 
+    @Test
+    void getTransaction_Fields_ShouldReturnOnlySelectedFields() throws Exception {
+        // Given
+        when(transactionService.getTransactionById("test-id")).thenReturn(validResponse);
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/test-id")
+                        .param("fields", "timestamp,id,amount"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id", is("test-id")))
+                .andExpect(jsonPath("$.amount", is(100.00)))
+                .andExpect(jsonPath("$.timestamp").exists())
+                .andExpect(jsonPath("$.currency").doesNotExist())
+                .andExpect(jsonPath("$.transactionReference").doesNotExist());
+
+        verify(transactionService).getTransactionById("test-id");
+    }
+
+    @Test
+    void getTransaction_UnknownField_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/test-id")
+                        .param("fields", "id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Unknown transaction field: password")));
+
+        verify(transactionService, never()).getTransactionById(any());
+    }
+
+    @Test
+    void getTransactions_Fields_ShouldProjectEveryTransaction() throws Exception {
+        // Given
+        PageableResponse<TransactionResponse> pageableResponse = new PageableResponse<>(
+                Arrays.asList(validResponse),
+                0,
+                10,
+                1L
+        );
+        when(transactionService.getTransactions(0, 10)).thenReturn(pageableResponse);
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions")
+                        .param("fields", "id,amount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is("test-id")))
+                .andExpect(jsonPath("$.content[0].amount", is(100.00)))
+                .andExpect(jsonPath("$.content[0].currency").doesNotExist())
+                .andExpect(jsonPath("$.content[0].timestamp").doesNotExist())
+                .andExpect(jsonPath("$.totalElements", is(1)));
+    }
+
+    @Test
+    void getChanges_ShouldReturnChangesAfterSequence() throws Exception {
+        // Given
+        when(transactionService.getChanges(5L, "epoch-1", 100))
+                .thenReturn(new ChangeFeedResponse(List.of(), 5L, 5L, "epoch-1"));
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/changes")
+                        .param("since", "5")
+                        .param("epoch", "epoch-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(0)))
+                .andExpect(jsonPath("$.nextSince", is(5)))
+                .andExpect(jsonPath("$.epoch", is("epoch-1")))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+
+        verify(transactionService, never()).getTransactionById(any());
+    }
+
+    @Test
+    void getChanges_BehindRetention_ShouldReturnGone() throws Exception {
+        // Given
+        when(transactionService.getChanges(1L, "epoch-1", 100))
+                .thenThrow(TransactionException.resyncRequired(1L, 40L, 90L));
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/changes")
+                        .param("since", "1")
+                        .param("epoch", "epoch-1"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.code", is("RESYNC_REQUIRED")));
+    }
+
+    @Test
+    void getAmountQuantiles_ShouldReturnDistributions() throws Exception {
+        // Given
+        AmountDistribution distribution = new AmountDistribution(CurrencyCode.USD, TransactionType.DEPOSIT, 42L,
+                Map.of("p99", new BigDecimal("980.50")));
+        when(transactionService.getAmountQuantiles("USD", null, "15m", List.of(0.99)))
+                .thenReturn(new AmountQuantilesResponse("PT15M", 0.01, List.of(distribution)));
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/stats/quantiles")
+                        .param("currency", "USD")
+                        .param("window", "15m")
+                        .param("q", "0.99"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window", is("PT15M")))
+                .andExpect(jsonPath("$.distributions[0].transactionType", is("DEPOSIT")))
+                .andExpect(jsonPath("$.distributions[0].count", is(42)))
+                .andExpect(jsonPath("$.distributions[0].quantiles.p99", is(980.50)));
+
+        verify(transactionService, never()).getTransactionById(any());
+    }
+
     @Test
     void getTransactions_CustomPagination_ShouldReturnPagedResponse() throws Exception {
         // Given
@@ -158,8 +289,8 @@ class TransactionControllerTest {
         TransactionResponse updatedResponse = new TransactionResponse(
                 "test-id",
                 200.00,
-                "EUR",
-                "WITHDRAWAL",
+                CurrencyCode.EUR,
+                TransactionType.WITHDRAWAL,
                 "REF002",
                 LocalDateTime.now()
         );
@@ -168,8 +299,8 @@ class TransactionControllerTest {
 
         TransactionRequest updateRequest = new TransactionRequest(
                 200.00,
-                "EUR",
-                "WITHDRAWAL",
+                CurrencyCode.EUR,
+                TransactionType.WITHDRAWAL,
                 "REF002"
         );
 
@@ -200,4 +331,303 @@ class TransactionControllerTest {
         verify(transactionService).deleteTransaction("test-id");
     }
 
-} 
\ No newline at end of file
+    @Test
+    void createTransaction_LowerCaseCodes_ShouldBeAccepted() throws Exception {
+        // Given
+        when(transactionService.createTransaction(any(TransactionRequest.class)))
+                .thenReturn(validResponse);
+
+        // When & Then
+        mockMvc.perform(post("/bank/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":100.00,\"currency\":\"usd\",\"transactionType\":\"deposit\"}"))
+                .andExpect(status().isCreated());
+
+        verify(transactionService).createTransaction(argThat(request ->
+                request.getCurrency() == CurrencyCode.USD && request.getTransactionType() == TransactionType.DEPOSIT));
+    }
+
+    @Test
+    void createTransaction_UnknownCurrency_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/bank/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":100.00,\"currency\":\"XXX\",\"transactionType\":\"DEPOSIT\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", is("INVALID_CURRENCY")))
+                .andExpect(jsonPath("$.message", is("Invalid Currency: XXX")));
+
+        verify(transactionService, never()).createTransaction(any());
+    }
+
+    @Test
+    void createTransaction_UnknownTransactionType_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/bank/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":100.00,\"currency\":\"USD\",\"transactionType\":\"INVALID_TYPE\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid Transaction Type: INVALID_TYPE")));
+
+        verify(transactionService, never()).createTransaction(any());
+    }
+
+    @Test
+    void createTransaction_CborRequest_ShouldReturnCborResponse() throws Exception {
+        // Given
+        when(transactionService.createTransaction(any(TransactionRequest.class)))
+                .thenReturn(validResponse);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/bank/transactions")
+                        .contentType(WireFormatConfig.APPLICATION_CBOR)
+                        .accept(WireFormatConfig.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(validRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(WireFormatConfig.APPLICATION_CBOR))
+                .andReturn();
+
+        // Then
+        TransactionResponse response = cborMapper.readValue(
+                result.getResponse().getContentAsByteArray(), TransactionResponse.class);
+        assertThat(response.getId()).isEqualTo("test-id");
+        assertThat(response.getAmount()).isEqualTo(100.00);
+        assertThat(response.getTransactionReference()).isEqualTo("REF001");
+
+        verify(transactionService).createTransaction(any(TransactionRequest.class));
+    }
+
+    @Test
+    void getTransactions_SmileAccept_ShouldReturnSmileResponse() throws Exception {
+        // Given
+        PageableResponse<TransactionResponse> pageableResponse = new PageableResponse<>(
+                Arrays.asList(validResponse),
+                0,
+                10,
+                1L
+        );
+        when(transactionService.getTransactions(0, 10)).thenReturn(pageableResponse);
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions")
+                        .accept(WireFormatConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE));
+
+        verify(transactionService).getTransactions(0, 10);
+    }
+
+    @Test
+    void getTransaction_CborAccept_ShouldReturnCborBytes() throws Exception {
+        // Given
+        when(transactionService.getTransactionById("test-id")).thenReturn(validResponse);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/bank/transactions/test-id")
+                        .accept(WireFormatConfig.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormatConfig.APPLICATION_CBOR))
+                .andReturn();
+
+        // Then
+        TransactionResponse response = cborMapper.readValue(
+                result.getResponse().getContentAsByteArray(), TransactionResponse.class);
+        assertThat(response.getId()).isEqualTo("test-id");
+        assertThat(response.getCurrency()).isEqualTo(CurrencyCode.USD);
+
+        verify(transactionService).getTransactionById("test-id");
+    }
+
+    @Test
+    void getTransaction_UnsupportedAccept_ShouldReturnNotAcceptable() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/test-id")
+                        .accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+
+        verify(transactionService, never()).getTransactionById(any());
+    }
+
+    @Test
+    void getTransaction_MalformedAccept_ShouldReturnNotAcceptable() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/test-id")
+                        .header("Accept", "application/"))
+                .andExpect(status().isNotAcceptable());
+
+        verify(transactionService, never()).getTransactionById(any());
+    }
+
+    @Test
+    void getTransaction_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Given
+        when(transactionService.getTransactionById("test-id")).thenReturn(validResponse);
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions/test-id")
+                        .header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getTransactions_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Given
+        PageableResponse<TransactionResponse> pageableResponse = new PageableResponse<>(
+                Arrays.asList(validResponse), 0, 10, 1L);
+        pageableResponse.setChangeCount(7L);
+        when(transactionService.getTransactions(0, 10)).thenReturn(pageableResponse);
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions")
+                        .header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(transactionService, never()).getChangeCount();
+    }
+
+    @Test
+    void getTransactions_ChangeCountMovedAfterRead_ShouldTagThePageServed() throws Exception {
+        // Given: the store moved on after the cached page was read
+        PageableResponse<TransactionResponse> pageableResponse = new PageableResponse<>(
+                Arrays.asList(validResponse), 0, 10, 1L);
+        pageableResponse.setChangeCount(7L);
+        when(transactionService.getTransactions(0, 10)).thenReturn(pageableResponse);
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(jsonPath("$.changeCount").doesNotExist());
+    }
+
+    @Test
+    void updateTransaction_IfMatch_ShouldUpdateExpectedVersion() throws Exception {
+        // Given
+        TransactionResponse updatedResponse = new TransactionResponse(
+                "test-id",
+                200.00,
+                CurrencyCode.EUR,
+                TransactionType.WITHDRAWAL,
+                "REF002",
+                LocalDateTime.now(),
+                4L
+        );
+        when(transactionService.updateTransaction(eq("test-id"), any(TransactionRequest.class), eq(3L)))
+                .thenReturn(updatedResponse);
+
+        // When & Then
+        mockMvc.perform(put("/bank/transactions/test-id")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version", is(4)));
+
+        verify(transactionService).updateTransaction(eq("test-id"), any(TransactionRequest.class), eq(3L));
+        verify(transactionService, never()).updateTransaction(any(), any());
+    }
+
+    @Test
+    void updateTransaction_IfMatchList_ShouldAcceptAnyListedVersion() throws Exception {
+        // Given
+        TransactionResponse updatedResponse = new TransactionResponse("test-id", 100.00, CurrencyCode.USD,
+                TransactionType.DEPOSIT, "REF001", LocalDateTime.now(), 5L);
+        when(transactionService.updateTransaction(eq("test-id"), any(TransactionRequest.class), eq(Set.of(3L, 4L))))
+                .thenReturn(updatedResponse);
+
+        // When & Then: the weak tag never matches and is left out
+        mockMvc.perform(put("/bank/transactions/test-id")
+                        .header("If-Match", "\"3\", W/\"9\", \"4-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""));
+    }
+
+    @Test
+    void updateTransaction_OnlyWeakIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // When & Then
+        mockMvc.perform(put("/bank/transactions/test-id")
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.code", is("VERSION_CONFLICT")));
+
+        verify(transactionService, never()).updateTransaction(any(), any());
+        verify(transactionService, never()).updateTransaction(any(), any(), anyLong());
+    }
+
+    @Test
+    void updateTransaction_IfMatchAnyOnMissingTransaction_ShouldReturnPreconditionFailed() throws Exception {
+        // Given
+        when(transactionService.existsById("test-id")).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(put("/bank/transactions/test-id")
+                        .header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(transactionService, never()).updateTransaction(any(), any());
+    }
+
+    @Test
+    void getTransactions_ETag_ShouldNameTheRepresentation() throws Exception {
+        // Given
+        PageableResponse<TransactionResponse> pageableResponse = new PageableResponse<>(
+                Arrays.asList(validResponse), 0, 10, 1L);
+        pageableResponse.setChangeCount(7L);
+        when(transactionService.getTransactions(0, 10)).thenReturn(pageableResponse);
+
+        // When & Then: a CBOR tag does not revalidate the JSON page
+        mockMvc.perform(get("/bank/transactions")
+                        .accept(WireFormatConfig.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7-cbor\""))
+                .andExpect(header().string("Vary", containsString("Accept")));
+        mockMvc.perform(get("/bank/transactions")
+                        .param("fields", "id")
+                        .header("If-None-Match", "\"7-cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7-f1\""));
+    }
+
+    @Test
+    void getTransactionsByIds_QueryParameter_ShouldReturnFoundAndMissing() throws Exception {
+        // Given
+        when(transactionService.getTransactionsByIds(List.of("test-id", "unknown-id")))
+                .thenReturn(new TransactionLookupResponse(List.of(validResponse), List.of("unknown-id")));
+
+        // When & Then
+        mockMvc.perform(get("/bank/transactions")
+                        .param("ids", "test-id,unknown-id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions", hasSize(1)))
+                .andExpect(jsonPath("$.transactions[0].id", is("test-id")))
+                .andExpect(jsonPath("$.missingIds[0]", is("unknown-id")));
+
+        verify(transactionService, never()).getTransactions(anyInt(), anyInt());
+    }
+
+    @Test
+    void lookupTransactions_ValidRequest_ShouldReturnFoundAndMissing() throws Exception {
+        // Given
+        when(transactionService.getTransactionsByIds(List.of("test-id", "unknown-id")))
+                .thenReturn(new TransactionLookupResponse(List.of(validResponse), List.of("unknown-id")));
+
+        // When & Then
+        mockMvc.perform(post("/bank/transactions/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransactionLookupRequest(List.of("test-id", "unknown-id")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].id", is("test-id")))
+                .andExpect(jsonPath("$.missingIds", contains("unknown-id")));
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.transaction.dao;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.impl.JdbcTransactionDao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+
+/**
+ * Concurrency suite against the H2 store
+ *
+ * @author YUNING TAO
+ */
+class JdbcTransactionDaoConcurrencyTest extends TransactionDaoConcurrencyTest {
+
+    @Override
+    protected TransactionDao createDao(Path directory) {
+        TransactionStoreProperties properties = new TransactionStoreProperties();
+        properties.getJdbc().setUrl("jdbc:h2:file:" + directory.resolve("transactions") + ";DB_CLOSE_ON_EXIT=FALSE");
+        return new JdbcTransactionDao(properties, new SimpleMeterRegistry());
+    }
+
+    @Override
+    protected void closeDao(TransactionDao dao) {
+        ((JdbcTransactionDao) dao).close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.bank.transaction.dao;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.impl.TransactionDaoImpl;
+
+import java.nio.file.Path;
+
+/**
+ * Concurrency suite against the in-memory store
+ *
+ * @author YUNING TAO
+ */
+class MemoryTransactionDaoConcurrencyTest extends TransactionDaoConcurrencyTest {
+
+    @Override
+    protected TransactionDao createDao(Path directory) {
+        return new TransactionDaoImpl(new TransactionStoreProperties());
+    }
+}
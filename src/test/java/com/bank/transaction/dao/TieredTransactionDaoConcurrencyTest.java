@@ -0,0 +1,29 @@
+package com.bank.transaction.dao;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.impl.TieredTransactionDao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Concurrency suite against the tiered store, the seeded transactions start in the cold tier
+ *
+ * @author YUNING TAO
+ */
+class TieredTransactionDaoConcurrencyTest extends TransactionDaoConcurrencyTest {
+
+    @Override
+    protected TransactionDao createDao(Path directory) {
+        TransactionStoreProperties properties = new TransactionStoreProperties();
+        properties.getTiered().setDirectory(directory.resolve("cold").toString());
+        properties.getTiered().setHotWindow(Duration.ofDays(1));
+        return new TieredTransactionDao(properties, new SimpleMeterRegistry());
+    }
+
+    @Override
+    protected void afterSeed(TransactionDao dao) {
+        ((TieredTransactionDao) dao).migrate();
+    }
+}
@@ -0,0 +1,271 @@
+package com.bank.transaction.dao;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency stress suite run against every store engine
+ *
+ * Threads interleave saves, updates, deletes and lookups over a small pool of references, so
+ * most writes contend. Lookups check each result as it is read, and once the threads are done the
+ * store has to agree with itself: unique references, id and reference lookups pointing at the
+ * same transactions, a count matching the content and pages in store order.
+ *
+ * @author YUNING TAO
+ */
+public abstract class TransactionDaoConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+    private static final int SEEDED = 200;
+    private static final int REFERENCES = 64;
+    private static final int PAGE_SIZE = 7;
+
+    // Store order, newest first then by id
+    private static final Comparator<Transaction> ORDER = Comparator
+            .comparing(Transaction::getTimestamp, Comparator.reverseOrder())
+            .thenComparing(Transaction::getId);
+
+    @TempDir
+    protected Path directory;
+
+    protected TransactionDao transactionDao;
+
+    private final Map<Integer, String> knownIds = new ConcurrentHashMap<>();
+    private final AtomicInteger knownCount = new AtomicInteger();
+    private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Store under test, files it needs go to the directory
+     */
+    protected abstract TransactionDao createDao(Path directory) throws Exception;
+
+    /**
+     * Release the store, engines with background writers flush here
+     */
+    protected void closeDao(TransactionDao dao) {
+    }
+
+    /**
+     * Runs once the seeded transactions are saved, before the threads start
+     */
+    protected void afterSeed(TransactionDao dao) {
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionDao = createDao(directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        closeDao(transactionDao);
+    }
+
+    @Test
+    void concurrentOperations_ShouldKeepStoreInvariants() throws Exception {
+        // Given: older transactions in another partition, with references outside the contended pool
+        LocalDateTime seeded = LocalDateTime.now().minusDays(10);
+        for (int i = 0; i < SEEDED; i++) {
+            Transaction transaction = new Transaction(UUID.randomUUID().toString(), 100L + i, CurrencyCode.USD,
+                    TransactionType.DEPOSIT, i % 4 == 0 ? null : "SEED-" + i, seeded.plusSeconds(i), 1L);
+            remember(transactionDao.save(transaction).getId());
+        }
+        afterSeed(transactionDao);
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    operate(ThreadLocalRandom.current());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdownNow();
+
+        // Then
+        assertThat(violations).isEmpty();
+        assertInvariants();
+    }
+
+    @Test
+    void concurrentSavesOfOneReference_ShouldKeepOnlyOne() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> saves = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < THREADS; t++) {
+            saves.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionDao.save(new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-ONCE"));
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int saved = 0;
+        for (Future<Boolean> save : saves) {
+            saved += save.get(1, TimeUnit.MINUTES) ? 1 : 0;
+        }
+        executor.shutdownNow();
+
+        // Then
+        assertThat(saved).isEqualTo(1);
+        assertThat(transactionDao.count()).isEqualTo(1);
+        assertThat(transactionDao.findByTransactionReference("REF-ONCE")).isPresent();
+    }
+
+    private void operate(ThreadLocalRandom random) {
+        int choice = random.nextInt(100);
+        try {
+            if (choice < 25) {
+                Transaction transaction = new Transaction(
+                        random.nextLong(1, 1_000_000), CurrencyCode.EUR, TransactionType.DEPOSIT, randomReference(random));
+                remember(transactionDao.save(transaction).getId());
+            } else if (choice < 50) {
+                String id = randomId(random);
+                Optional<Transaction> current = transactionDao.findById(id);
+                if (current.isPresent()) {
+                    Transaction next = current.get().withDetails(random.nextLong(1, 1_000_000), CurrencyCode.GBP,
+                            TransactionType.TRANSFER, randomReference(random));
+                    transactionDao.update(next, current.get().getVersion()).ifPresent(updated -> {
+                        if (updated.getVersion() != current.get().getVersion() + 1) {
+                            violations.add("update of " + id + " published version " + updated.getVersion()
+                                    + " after " + current.get().getVersion());
+                        }
+                    });
+                }
+            } else if (choice < 65) {
+                transactionDao.deleteById(randomId(random));
+            } else if (choice < 80) {
+                String id = randomId(random);
+                transactionDao.findById(id).ifPresent(found -> {
+                    if (!found.getId().equals(id)) {
+                        violations.add("lookup of " + id + " returned " + found.getId());
+                    }
+                });
+            } else if (choice < 90) {
+                String reference = "REF-" + random.nextInt(REFERENCES);
+                transactionDao.findByTransactionReference(reference).ifPresent(found -> {
+                    if (!reference.equals(found.getTransactionReference())) {
+                        violations.add("lookup of " + reference + " returned " + found.getTransactionReference());
+                    }
+                });
+            } else {
+                List<Transaction> page = transactionDao.findAll(random.nextInt(4), PAGE_SIZE);
+                if (!isOrdered(page)) {
+                    violations.add("page out of order: " + ids(page));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Reference taken by another transaction, expected under contention
+        }
+    }
+
+    private void assertInvariants() {
+        List<Transaction> all = transactionDao.findAll();
+        Set<String> ids = new HashSet<>();
+        Map<String, String> owners = new HashMap<>();
+        for (Transaction transaction : all) {
+            assertThat(ids.add(transaction.getId())).as("id %s listed once", transaction.getId()).isTrue();
+            String reference = transaction.getTransactionReference();
+            if (reference != null) {
+                String owner = owners.putIfAbsent(reference, transaction.getId());
+                assertThat(owner).as("reference %s held by one transaction", reference).isNull();
+            }
+        }
+
+        // Count matches the content and every listed transaction is found by id
+        assertThat(transactionDao.count()).isEqualTo(all.size());
+        assertThat(all).isSortedAccordingTo(ORDER);
+        for (Transaction transaction : all) {
+            Optional<Transaction> byId = transactionDao.findById(transaction.getId());
+            assertThat(byId).isPresent();
+            assertThat(byId.get().getVersion()).isEqualTo(transaction.getVersion());
+            assertThat(byId.get().getTransactionReference()).isEqualTo(transaction.getTransactionReference());
+        }
+
+        // Id and reference lookups agree
+        owners.forEach((reference, id) -> {
+            assertThat(transactionDao.findByTransactionReference(reference).map(Transaction::getId))
+                    .as("owner of %s", reference).contains(id);
+            assertThat(transactionDao.existsByTransactionReference(reference)).isTrue();
+        });
+        for (int i = 0; i < REFERENCES; i++) {
+            String reference = "REF-" + i;
+            if (!owners.containsKey(reference)) {
+                assertThat(transactionDao.existsByTransactionReference(reference)).as("free %s", reference).isFalse();
+                assertThat(transactionDao.findByTransactionReference(reference)).isEmpty();
+            }
+        }
+        for (String id : knownIds.values()) {
+            assertThat(transactionDao.existsById(id)).as("exists %s", id).isEqualTo(ids.contains(id));
+        }
+
+        // Pages walk the full list in order
+        List<Transaction> paged = new ArrayList<>();
+        for (int page = 0; page * PAGE_SIZE < all.size(); page++) {
+            paged.addAll(transactionDao.findAll(page, PAGE_SIZE));
+        }
+        assertThat(ids(paged)).isEqualTo(ids(all));
+    }
+
+    private void remember(String id) {
+        knownIds.put(knownCount.getAndIncrement(), id);
+    }
+
+    private String randomId(ThreadLocalRandom random) {
+        return knownIds.get(random.nextInt(knownCount.get()));
+    }
+
+    private static String randomReference(ThreadLocalRandom random) {
+        return random.nextInt(5) == 0 ? null : "REF-" + random.nextInt(REFERENCES);
+    }
+
+    private static boolean isOrdered(List<Transaction> page) {
+        for (int i = 1; i < page.size(); i++) {
+            if (ORDER.compare(page.get(i - 1), page.get(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+}
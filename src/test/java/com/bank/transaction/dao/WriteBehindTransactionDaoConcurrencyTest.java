@@ -0,0 +1,29 @@
+package com.bank.transaction.dao;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.dao.impl.WriteBehindTransactionDao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+
+/**
+ * Concurrency suite against the write-behind store
+ *
+ * @author YUNING TAO
+ */
+class WriteBehindTransactionDaoConcurrencyTest extends TransactionDaoConcurrencyTest {
+
+    @Override
+    protected TransactionDao createDao(Path directory) {
+        TransactionStoreProperties properties = new TransactionStoreProperties();
+        properties.getJdbc().setUrl("jdbc:h2:file:" + directory.resolve("transactions") + ";DB_CLOSE_ON_EXIT=FALSE");
+        properties.getWriteBehind().setLog(directory.resolve("write-behind.log").toString());
+        properties.getWriteBehind().setSyncWrites(false);
+        return new WriteBehindTransactionDao(properties, new SimpleMeterRegistry());
+    }
+
+    @Override
+    protected void closeDao(TransactionDao dao) {
+        ((WriteBehindTransactionDao) dao).close();
+    }
+}
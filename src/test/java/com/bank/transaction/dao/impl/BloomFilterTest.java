@@ -0,0 +1,81 @@
+package com.bank.transaction.dao.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bloom Filter Test Class
+ *
+ * @author YUNING TAO
+ */
+class BloomFilterTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void mightContain_EveryAddedKey_ShouldBeTrue() {
+        // Given
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+
+        // When
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("key-" + i);
+        }
+
+        // Then
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(filter.mightContain("key-" + i)).as("key-%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_UnknownKeys_ShouldStayNearTheTargetRate() {
+        // Given
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("key-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives).isLessThan(KEYS * 3 / 100);
+    }
+
+    @Test
+    void readFrom_ShouldAnswerLikeTheWrittenFilter() {
+        // Given
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put("key-" + i);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(16 + filter.serializedSize());
+        buffer.position(16);
+        filter.writeTo(buffer);
+
+        // When
+        BloomFilter read = BloomFilter.readFrom(buffer, 16);
+
+        // Then
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(read.mightContain("key-" + i)).isEqualTo(filter.mightContain("key-" + i));
+        }
+    }
+
+    @Test
+    void create_InvalidRate_ShouldBeRejected() {
+        // When & Then
+        assertThatThrownBy(() -> BloomFilter.create(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,145 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cold Segment File Test Class
+ *
+ * @author YUNING TAO
+ */
+class ColdSegmentFileTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void write_ShouldKeepEveryFieldAndTheOrder() throws Exception {
+        // Given
+        List<Transaction> transactions = transactions(5);
+        Path path = directory.resolve("partition.seg");
+
+        // When
+        ColdSegmentFile.write(path, 1_000L, transactions, 0.01);
+        ColdSegmentFile file = ColdSegmentFile.open(path);
+
+        // Then
+        assertThat(file.getPartitionStart()).isEqualTo(1_000L);
+        assertThat(file.getCount()).isEqualTo(5);
+        assertThat(file.liveTransactions()).extracting(Transaction::getId)
+                .containsExactly("id-4", "id-3", "id-2", "id-1", "id-0");
+        Transaction read = file.findById("id-3");
+        Transaction written = transactions.get(1);
+        assertThat(read.getAmountMinorUnits()).isEqualTo(written.getAmountMinorUnits());
+        assertThat(read.getCurrency()).isEqualTo(written.getCurrency());
+        assertThat(read.getTransactionType()).isEqualTo(written.getTransactionType());
+        assertThat(read.getTransactionReference()).isEqualTo("REF-3");
+        assertThat(read.getSourceAccountId()).isEqualTo("ACC-3");
+        assertThat(read.getDestinationAccountId()).isNull();
+        assertThat(read.getTimestamp()).isEqualTo(written.getTimestamp());
+        assertThat(read.getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void lookups_ShouldFindEveryRecordAndNothingElse() {
+        // Given
+        ColdSegmentFile file = ColdSegmentFile.write(directory.resolve("partition.seg"), 0L, transactions(50), 0.01);
+
+        // When & Then
+        for (int i = 0; i < 50; i++) {
+            assertThat(file.containsId("id-" + i)).isTrue();
+            assertThat(file.findIdByReference("REF-" + i)).isEqualTo("id-" + i);
+        }
+        assertThat(file.findById("id-50")).isNull();
+        assertThat(file.containsId("unknown")).isFalse();
+        assertThat(file.findIdByReference("REF-50")).isNull();
+    }
+
+    @Test
+    void lookups_WithoutFilters_ShouldSearchTheIndexes() {
+        // Given
+        ColdSegmentFile file = ColdSegmentFile.write(directory.resolve("partition.seg"), 0L, transactions(20), 0);
+
+        // When & Then
+        assertThat(file.mightContainId("unknown")).isTrue();
+        assertThat(file.findById("id-7").getTransactionReference()).isEqualTo("REF-7");
+        assertThat(file.findById("unknown")).isNull();
+        assertThat(file.findIdByReference("REF-19")).isEqualTo("id-19");
+    }
+
+    @Test
+    void tombstone_ShouldHideTheRecordOnce() {
+        // Given
+        ColdSegmentFile file = ColdSegmentFile.write(directory.resolve("partition.seg"), 0L, transactions(3), 0.01);
+
+        // When
+        boolean first = file.tombstone("id-1");
+        boolean second = file.tombstone("id-1");
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(file.tombstone("unknown")).isFalse();
+        assertThat(file.findById("id-1")).isNull();
+        assertThat(file.findIdByReference("REF-1")).isNull();
+        assertThat(file.liveCount()).isEqualTo(2);
+        assertThat(file.tombstones()).containsExactly("id-1");
+        assertThat(file.liveTransactions()).extracting(Transaction::getId).containsExactly("id-2", "id-0");
+    }
+
+    @Test
+    void collect_ShouldSkipThenLimitLiveRecords() {
+        // Given
+        ColdSegmentFile file = ColdSegmentFile.write(directory.resolve("partition.seg"), 0L, transactions(6), 0.01);
+        file.tombstone("id-4");
+        List<Transaction> page = new ArrayList<>();
+
+        // When
+        long skipLeft = file.collect(2, 2, page);
+        long skipPastEnd = file.collect(10, 2, new ArrayList<>());
+
+        // Then
+        assertThat(skipLeft).isZero();
+        assertThat(page).extracting(Transaction::getId).containsExactly("id-2", "id-1");
+        assertThat(skipPastEnd).isEqualTo(5);
+    }
+
+    @Test
+    void delete_ShouldRemoveTheFile() {
+        // Given
+        Path path = directory.resolve("partition.seg");
+        ColdSegmentFile file = ColdSegmentFile.write(path, 0L, transactions(1), 0.01);
+
+        // When
+        file.delete();
+
+        // Then
+        assertThat(Files.exists(path)).isFalse();
+    }
+
+    /**
+     * Transactions newest first, id-i is i minutes after the start
+     */
+    private static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = count - 1; i >= 0; i--) {
+            transactions.add(new Transaction("id-" + i, 100L * i, i % 2 == 0 ? CurrencyCode.USD : CurrencyCode.EUR,
+                    i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL, "REF-" + i,
+                    "ACC-" + i, null, START.plusMinutes(i), i + 1L));
+        }
+        return transactions;
+    }
+}
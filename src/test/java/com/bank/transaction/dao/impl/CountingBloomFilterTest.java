@@ -0,0 +1,109 @@
+package com.bank.transaction.dao.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counting Bloom Filter Test Class
+ *
+ * @author YUNING TAO
+ */
+class CountingBloomFilterTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void remove_ShouldForgetTheKey() {
+        // Given
+        CountingBloomFilter filter = new CountingBloomFilter(KEYS, 0.01);
+        filter.add("key");
+        filter.add("key");
+
+        // When
+        filter.remove("key");
+        boolean afterFirst = filter.mightContain("key");
+        filter.remove("key");
+
+        // Then
+        assertThat(afterFirst).isTrue();
+        assertThat(filter.mightContain("key")).isFalse();
+    }
+
+    @Test
+    void remove_HalfOfTheKeys_ShouldKeepEveryOtherKey() {
+        // Given
+        CountingBloomFilter filter = new CountingBloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.add("key-" + i);
+        }
+
+        // When
+        for (int i = 0; i < KEYS; i += 2) {
+            filter.remove("key-" + i);
+        }
+
+        // Then: no false negatives, and most removed keys are gone
+        int stillPresent = 0;
+        for (int i = 0; i < KEYS; i++) {
+            boolean present = filter.mightContain("key-" + i);
+            if (i % 2 == 1) {
+                assertThat(present).as("key-%d", i).isTrue();
+            } else if (present) {
+                stillPresent++;
+            }
+        }
+        assertThat(stillPresent).isLessThan(KEYS / 2 * 3 / 100);
+    }
+
+    @Test
+    void add_PastTheCounterMaximum_ShouldStickAndNeverForget() {
+        // Given: far more adds than a 4-bit counter holds
+        CountingBloomFilter filter = new CountingBloomFilter(KEYS, 0.01);
+        for (int i = 0; i < 20; i++) {
+            filter.add("hot-key");
+        }
+
+        // When: removed as often as it was added
+        for (int i = 0; i < 20; i++) {
+            filter.remove("hot-key");
+        }
+
+        // Then: a saturated counter lost its count, so it keeps answering maybe
+        assertThat(filter.mightContain("hot-key")).isTrue();
+    }
+
+    @Test
+    void add_FromManyThreads_ShouldKeepEveryKey() throws Exception {
+        // Given
+        CountingBloomFilter filter = new CountingBloomFilter(KEYS, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                for (int i = thread; i < KEYS; i += 4) {
+                    filter.add("key-" + i);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        // Then
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(filter.mightContain("key-" + i)).as("key-%d", i).isTrue();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JDBC Transaction DAO Test Class
+ *
+ * @author YUNING TAO
+ */
+class JdbcTransactionDaoTest {
+
+    @TempDir
+    Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransactionStoreProperties properties;
+    private JdbcTransactionDao transactionDao;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionStoreProperties();
+        properties.getJdbc().setUrl(url());
+        properties.getJdbc().setMaxBatchDelay(Duration.ofMillis(20));
+        transactionDao = new JdbcTransactionDao(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionDao.close();
+    }
+
+    @Test
+    void update_StaleVersion_ShouldNotAddItsReferenceToTheFilter() {
+        // Given
+        Transaction stored = transactionDao.save(transaction("REF-A"));
+
+        // When
+        boolean updated = transactionDao.update(
+                stored.withDetails(200L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-B"), 5L).isPresent();
+
+        // Then: the filter rules the reference out without asking the database
+        assertThat(updated).isFalse();
+        assertThat(transactionDao.existsByTransactionReference("REF-B")).isFalse();
+        assertThat(falsePositives("reference")).isZero();
+    }
+
+    @Test
+    void update_NewReference_ShouldRemoveTheOldOneFromTheFilter() {
+        // Given
+        Transaction stored = transactionDao.save(transaction("REF-A"));
+
+        // When
+        transactionDao.update(stored.withDetails(200L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-B"), 1L);
+
+        // Then
+        assertThat(transactionDao.findByTransactionReference("REF-B")).isPresent();
+        assertThat(transactionDao.existsByTransactionReference("REF-A")).isFalse();
+        assertThat(falsePositives("reference")).isZero();
+    }
+
+    @Test
+    void save_ExistingId_ShouldReplaceItsReferenceInTheFilter() {
+        // Given
+        Transaction stored = transactionDao.save(transaction("REF-A"));
+
+        // When
+        transactionDao.save(stored.withDetails(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-C"));
+
+        // Then
+        assertThat(transactionDao.count()).isEqualTo(1);
+        assertThat(transactionDao.existsByTransactionReference("REF-C")).isTrue();
+        assertThat(transactionDao.existsByTransactionReference("REF-A")).isFalse();
+        assertThat(falsePositives("reference")).isZero();
+    }
+
+    @Test
+    void saveAll_DuplicateReference_ShouldOnlyCommitTheFirst() {
+        // Given
+        Transaction first = transaction("REF-DUP");
+        Transaction second = transaction("REF-DUP");
+
+        // When & Then
+        assertThatThrownBy(() -> transactionDao.saveAll(List.of(first, second)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("REF-DUP");
+        assertThat(transactionDao.findById(first.getId())).isPresent();
+        assertThat(transactionDao.findById(second.getId())).isEmpty();
+        assertThat(falsePositives("id")).isZero();
+    }
+
+    @Test
+    void saveAll_ReferenceGivenUpEarlierInTheBatch_ShouldLetALaterWriteTakeIt() {
+        // Given
+        Transaction first = transactionDao.save(transaction("REF-A"));
+        Transaction second = transaction("REF-A");
+
+        // When
+        transactionDao.saveAll(List.of(
+                first.withDetails(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-B"), second));
+
+        // Then
+        assertThat(transactionDao.findByTransactionReference("REF-A"))
+                .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(second.getId()));
+        assertThat(transactionDao.findByTransactionReference("REF-B"))
+                .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(first.getId()));
+    }
+
+    @Test
+    void update_StaleVersionInTheSameBatch_ShouldNotHoldItsReference() throws Exception {
+        // Given: the writer held up on a locked row while a stale update and a save queue behind it
+        Transaction blocker = transactionDao.save(transaction("REF-BLOCK"));
+        Transaction stored = transactionDao.save(transaction("REF-A"));
+        Transaction second = transaction("REF-B");
+        CompletableFuture<Boolean> stale;
+        CompletableFuture<Transaction> saved;
+        try (Connection connection = DriverManager.getConnection(url(), "sa", "")) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement(
+                    "SELECT id FROM transactions WHERE id = ? FOR UPDATE")) {
+                lock.setString(1, blocker.getId());
+                lock.executeQuery().close();
+            }
+            CompletableFuture.runAsync(() -> transactionDao.update(blocker, 1L));
+            Thread.sleep(100);
+
+            // When
+            stale = CompletableFuture.supplyAsync(() -> transactionDao.update(
+                    stored.withDetails(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-B"), 5L).isPresent());
+            Thread.sleep(100);
+            saved = CompletableFuture.supplyAsync(() -> transactionDao.save(second));
+            Thread.sleep(100);
+            connection.rollback();
+        }
+
+        // Then
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(saved.get(5, TimeUnit.SECONDS).getId()).isEqualTo(second.getId());
+        assertThat(transactionDao.findByTransactionReference("REF-B"))
+                .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(second.getId()));
+    }
+
+    @Test
+    void saveAll_ShouldShareBatchesAndCommits() {
+        // Given
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            transactions.add(transaction("REF-" + i));
+        }
+
+        // When
+        transactionDao.saveAll(transactions);
+
+        // Then
+        assertThat(transactionDao.count()).isEqualTo(200);
+        assertThat(meterRegistry.get("transaction.store.jdbc.batch.size").summary().totalAmount()).isEqualTo(200);
+        assertThat(meterRegistry.get("transaction.store.jdbc.batch.size").summary().count()).isLessThan(200);
+    }
+
+    @Test
+    void update_WriterBlocked_ShouldStopWaitingAfterTheTimeout() throws Exception {
+        // Given: a second store on the same database, with a short wait, and a row locked elsewhere
+        Transaction stored = transactionDao.save(transaction("REF-A"));
+        TransactionStoreProperties impatient = new TransactionStoreProperties();
+        impatient.getJdbc().setUrl(url());
+        impatient.getJdbc().setWriteTimeout(Duration.ofMillis(200));
+        JdbcTransactionDao impatientDao = new JdbcTransactionDao(impatient, new SimpleMeterRegistry());
+        try (Connection connection = DriverManager.getConnection(url(), "sa", "")) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement(
+                    "SELECT id FROM transactions WHERE id = ? FOR UPDATE")) {
+                lock.setString(1, stored.getId());
+                lock.executeQuery().close();
+            }
+
+            // When & Then
+            assertThatThrownBy(() -> impatientDao.update(
+                    stored.withDetails(200L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-A"), 1L))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Timed out");
+            connection.rollback();
+        } finally {
+            impatientDao.close();
+        }
+    }
+
+    @Test
+    void constructor_LegacyAmountColumn_ShouldConvertItToMinorUnitsOnce() throws Exception {
+        // Given: a table from before minor units
+        transactionDao.close();
+        try (Connection connection = DriverManager.getConnection(url(), "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE transactions");
+            statement.execute("CREATE TABLE transactions (id VARCHAR(64) PRIMARY KEY, "
+                    + "transaction_reference VARCHAR(255), amount DOUBLE PRECISION, currency VARCHAR(16), "
+                    + "transaction_type VARCHAR(64), created_at TIMESTAMP(9) NOT NULL, row_version BIGINT NOT NULL)");
+            statement.execute("INSERT INTO transactions VALUES "
+                    + "('usd', 'REF-USD', 19.99, 'USD', 'DEPOSIT', CURRENT_TIMESTAMP, 1), "
+                    + "('jpy', 'REF-JPY', 500, 'JPY', 'DEPOSIT', CURRENT_TIMESTAMP, 1)");
+        }
+
+        // When
+        transactionDao = new JdbcTransactionDao(properties, meterRegistry);
+        transactionDao.close();
+        transactionDao = new JdbcTransactionDao(properties, meterRegistry);
+
+        // Then
+        assertThat(transactionDao.findById("usd")).hasValueSatisfying(
+                transaction -> assertThat(transaction.getAmountMinorUnits()).isEqualTo(1_999L));
+        assertThat(transactionDao.findById("jpy")).hasValueSatisfying(
+                transaction -> assertThat(transaction.getAmountMinorUnits()).isEqualTo(500L));
+        try (Connection connection = DriverManager.getConnection(url(), "sa", "");
+             ResultSet columns = connection.getMetaData().getColumns(null, null, "TRANSACTIONS", "AMOUNT")) {
+            assertThat(columns.next()).isFalse();
+        }
+    }
+
+    private double falsePositives(String filter) {
+        return meterRegistry.get("transaction.store.filter.checks")
+                .tag("filter", filter).tag("result", "false_positive").counter().count();
+    }
+
+    private String url() {
+        return "jdbc:h2:file:" + directory.resolve("transactions") + ";DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    private static Transaction transaction(String reference) {
+        return new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, reference);
+    }
+}
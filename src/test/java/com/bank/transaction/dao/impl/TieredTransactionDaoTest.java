@@ -0,0 +1,174 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tiered Transaction DAO Test Class
+ *
+ * @author YUNING TAO
+ */
+class TieredTransactionDaoTest {
+
+    private static final int WRITERS = 4;
+    private static final int IDS_PER_WRITER = 50;
+    private static final int OPERATIONS_PER_WRITER = 5_000;
+
+    @TempDir
+    Path directory;
+
+    private TieredTransactionDao transactionDao;
+    private LocalDateTime old;
+
+    @BeforeEach
+    void setUp() {
+        TransactionStoreProperties properties = new TransactionStoreProperties();
+        properties.getTiered().setDirectory(directory.toString());
+        properties.getTiered().setHotWindow(Duration.ofDays(1));
+        transactionDao = new TieredTransactionDao(properties, new SimpleMeterRegistry());
+        old = LocalDateTime.now().minusDays(3);
+    }
+
+    @Test
+    void update_HotTransactionTakingAColdReference_ShouldBeRejected() {
+        // Given
+        transactionDao.save(transaction("cold-id", "REF-COLD", 1L));
+        transactionDao.migrate();
+        Transaction hot = transactionDao.save(new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-HOT"));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionDao.update(
+                hot.withDetails(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-COLD"), 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(transactionDao.findByTransactionReference("REF-COLD").get().getId()).isEqualTo("cold-id");
+        assertThat(transactionDao.findById(hot.getId()).get().getTransactionReference()).isEqualTo("REF-HOT");
+    }
+
+    @Test
+    void removeById_ColdTransaction_ShouldNotComeBackAfterTheNextMigration() {
+        // Given
+        transactionDao.save(transaction("cold-id", "REF-COLD", 1L));
+        transactionDao.migrate();
+
+        // When
+        Optional<Transaction> removed = transactionDao.removeById("cold-id");
+        transactionDao.save(transaction("other-id", "REF-OTHER", 1L));
+        transactionDao.migrate();
+
+        // Then
+        assertThat(removed).isPresent();
+        assertThat(transactionDao.findById("cold-id")).isEmpty();
+        assertThat(transactionDao.existsByTransactionReference("REF-COLD")).isFalse();
+        assertThat(transactionDao.count()).isEqualTo(1);
+    }
+
+    @Test
+    void migrate_WhileTransactionsAreWritten_ShouldLoseNoWriteAndRestoreNoDelete() throws Exception {
+        // Given: every writer owns its ids, so each of its updates has to apply
+        for (int i = 0; i < WRITERS * IDS_PER_WRITER; i++) {
+            transactionDao.save(transaction("id-" + i, "REF-" + i, 1L));
+        }
+        long[][] versions = new long[WRITERS][IDS_PER_WRITER];
+        Queue<String> violations = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+
+        // When: partitions keep moving between the tiers under the writers
+        Future<?> migrator = executor.submit(() -> {
+            while (writing.get()) {
+                transactionDao.migrate();
+            }
+        });
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> write(writer, versions[writer], violations)));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        migrator.get(60, TimeUnit.SECONDS);
+        executor.shutdownNow();
+        transactionDao.migrate();
+
+        // Then
+        assertThat(violations).isEmpty();
+        long live = 0;
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < IDS_PER_WRITER; i++) {
+                int n = w * IDS_PER_WRITER + i;
+                Optional<Transaction> stored = transactionDao.findById("id-" + n);
+                if (versions[w][i] == 0) {
+                    assertThat(stored).as("deleted id-%d", n).isEmpty();
+                    assertThat(transactionDao.existsByTransactionReference("REF-" + n)).isFalse();
+                } else {
+                    live++;
+                    assertThat(stored).as("id-%d", n).isPresent();
+                    assertThat(stored.get().getVersion()).as("version of id-%d", n).isEqualTo(versions[w][i]);
+                    assertThat(stored.get().getAmountMinorUnits()).isEqualTo(versions[w][i]);
+                }
+            }
+        }
+        assertThat(transactionDao.count()).isEqualTo(live);
+        assertThat(transactionDao.findAll()).hasSize((int) live);
+    }
+
+    private void write(int writer, long[] versions, Queue<String> violations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Arrays.fill(versions, 1L);
+        for (int op = 0; op < OPERATIONS_PER_WRITER; op++) {
+            int i = random.nextInt(IDS_PER_WRITER);
+            if (versions[i] == 0) {
+                continue;
+            }
+            String id = "id-" + (writer * IDS_PER_WRITER + i);
+            String reference = "REF-" + (writer * IDS_PER_WRITER + i);
+            if (random.nextInt(500) == 0) {
+                if (transactionDao.removeById(id).isEmpty()) {
+                    violations.add("delete of " + id + " found nothing");
+                }
+                versions[i] = 0;
+            } else {
+                long next = versions[i] + 1;
+                Optional<Transaction> updated = transactionDao.update(
+                        new Transaction(id, next, CurrencyCode.USD, TransactionType.DEPOSIT, reference, old, versions[i]),
+                        versions[i]);
+                if (updated.isEmpty()) {
+                    violations.add("update of " + id + " at version " + versions[i] + " was lost");
+                    return;
+                }
+                versions[i] = next;
+            }
+        }
+    }
+
+    private Transaction transaction(String id, String reference, long version) {
+        return new Transaction(id, version, CurrencyCode.USD, TransactionType.DEPOSIT, reference, old, version);
+    }
+}
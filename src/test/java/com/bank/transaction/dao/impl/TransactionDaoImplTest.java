@@ -0,0 +1,243 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transaction DAO Test Class
+ *
+ * @author YUNING TAO
+ */
+class TransactionDaoImplTest {
+
+    private static final int READERS = 6;
+    private static final int WRITERS = 2;
+    private static final long UPDATES_PER_WRITER = 20_000;
+
+    private TransactionDaoImpl transactionDao;
+
+    @BeforeEach
+    void setUp() {
+        transactionDao = new TransactionDaoImpl(new TransactionStoreProperties());
+    }
+
+    @Test
+    void update_ShouldPublishNextVersionAndKeepStoredSnapshot() {
+        // Given
+        Transaction stored = transactionDao.save(new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-A"));
+
+        // When
+        Optional<Transaction> updated = transactionDao.update(
+                stored.withDetails(200L, CurrencyCode.EUR, TransactionType.TRANSFER, "REF-B"), 1L);
+
+        // Then
+        assertThat(updated).isPresent();
+        assertThat(updated.get().getVersion()).isEqualTo(2L);
+        assertThat(stored.getVersion()).isEqualTo(1L);
+        assertThat(stored.getTransactionReference()).isEqualTo("REF-A");
+        assertThat(transactionDao.findById(stored.getId())).containsSame(updated.get());
+        assertThat(transactionDao.findByTransactionReference("REF-B")).containsSame(updated.get());
+        assertThat(transactionDao.existsByTransactionReference("REF-A")).isFalse();
+    }
+
+    @Test
+    void update_StaleVersion_ShouldNotPublish() {
+        // Given
+        Transaction stored = transactionDao.save(new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-A"));
+        transactionDao.update(stored.withDetails(200L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-A"), 1L);
+
+        // When
+        Optional<Transaction> updated = transactionDao.update(
+                stored.withDetails(300L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-C"), 1L);
+
+        // Then
+        assertThat(updated).isEmpty();
+        assertThat(transactionDao.findById(stored.getId()).get().getAmountMinorUnits()).isEqualTo(200L);
+        assertThat(transactionDao.existsByTransactionReference("REF-C")).isFalse();
+    }
+
+    @Test
+    void concurrentReadsAndUpdates_ShouldNeverSeeTornSnapshot() throws Exception {
+        // Given: every version derives its currency, type and reference from its amount
+        Transaction stored = transactionDao.save(snapshotOf(transactionWithAmount(0), 0));
+        String id = stored.getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong updates = new AtomicLong();
+        ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        // When
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < UPDATES_PER_WRITER; i++) {
+                    Transaction current = transactionDao.findById(id).orElseThrow();
+                    long amount = current.getAmountMinorUnits() + 1;
+                    if (transactionDao.update(snapshotOf(current, amount), current.getVersion()).isPresent()) {
+                        updates.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                long lastVersion = 0;
+                while (writing.get()) {
+                    Transaction byId = transactionDao.findById(id).orElse(null);
+                    if (byId == null || !isConsistent(byId)) {
+                        violations.add("torn by id: " + describe(byId));
+                        continue;
+                    }
+                    if (byId.getVersion() < lastVersion) {
+                        violations.add("version went back from " + lastVersion + " to " + byId.getVersion());
+                    }
+                    lastVersion = byId.getVersion();
+
+                    String reference = byId.getTransactionReference();
+                    transactionDao.findByTransactionReference(reference).ifPresent(byReference -> {
+                        if (!reference.equals(byReference.getTransactionReference()) || !isConsistent(byReference)) {
+                            violations.add("torn by reference " + reference + ": " + describe(byReference));
+                        }
+                    });
+                    List<Transaction> page = transactionDao.findAll(0, 10);
+                    if (page.size() != 1 || !isConsistent(page.get(0))) {
+                        violations.add("torn page: " + page.size());
+                    }
+                    reads.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        // Then
+        assertThat(violations).isEmpty();
+        assertThat(reads.get()).isPositive();
+        Transaction last = transactionDao.findById(id).orElseThrow();
+        assertThat(last.getVersion()).isEqualTo(1 + updates.get());
+        assertThat(last.getAmountMinorUnits()).isEqualTo(updates.get());
+        assertThat((Map<?, ?>) transactionDao.storeDetails().get("indexes")).containsEntry("referenceEntries", 1L);
+    }
+
+    @Test
+    void purgeExpired_ShouldDropOldPartitionsWithTheirIndexes() {
+        // Given
+        TransactionStoreProperties properties = new TransactionStoreProperties();
+        properties.setRetention(Duration.ofDays(30));
+        TransactionDaoImpl store = new TransactionDaoImpl(properties);
+        Transaction old = store.save(new Transaction("old-id", 100L, CurrencyCode.USD, TransactionType.DEPOSIT,
+                "REF-OLD", LocalDateTime.now().minusDays(60), 1L));
+        Transaction recent = store.save(new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-NEW"));
+        Transaction updated = store.update(old.withDetails(200L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-OLD"),
+                1L).orElseThrow();
+
+        // When
+        List<Transaction> expired = store.purgeExpired();
+
+        // Then: the latest version goes, and nothing of it can be found any more
+        assertThat(expired).containsExactly(updated);
+        assertThat(store.findById("old-id")).isEmpty();
+        assertThat(store.existsById("old-id")).isFalse();
+        assertThat(store.existsByTransactionReference("REF-OLD")).isFalse();
+        assertThat(store.findAll()).containsExactly(recent);
+        assertThat((Map<?, ?>) store.storeDetails().get("indexes"))
+                .containsEntry("idEntries", 1L)
+                .containsEntry("referenceEntries", 1L);
+        assertThat(store.save(new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-OLD"))).isNotNull();
+        assertThat(store.purgeExpired()).isEmpty();
+    }
+
+    @Test
+    void purgeExpired_NoRetention_ShouldKeepEverything() {
+        // Given
+        transactionDao.save(new Transaction("old-id", 100L, CurrencyCode.USD, TransactionType.DEPOSIT,
+                "REF-OLD", LocalDateTime.now().minusYears(10), 1L));
+
+        // When
+        List<Transaction> expired = transactionDao.purgeExpired();
+
+        // Then
+        assertThat(expired).isEmpty();
+        assertThat(transactionDao.findById("old-id")).isPresent();
+    }
+
+    @Test
+    void save_NewTimestamp_ShouldMoveTheTransactionWithItsReference() {
+        // Given
+        transactionDao.save(new Transaction("moved-id", 100L, CurrencyCode.USD, TransactionType.DEPOSIT,
+                "REF-M", LocalDateTime.now().minusDays(3), 1L));
+
+        // When
+        Transaction moved = transactionDao.save(new Transaction("moved-id", 100L, CurrencyCode.USD,
+                TransactionType.DEPOSIT, "REF-M", LocalDateTime.now(), 1L));
+
+        // Then
+        assertThat(transactionDao.findAll()).containsExactly(moved);
+        assertThat(transactionDao.findByTransactionReference("REF-M")).containsSame(moved);
+        assertThat(transactionDao.removeById("moved-id")).containsSame(moved);
+        assertThat(transactionDao.existsByTransactionReference("REF-M")).isFalse();
+        assertThat(transactionDao.count()).isZero();
+    }
+
+    private static Transaction transactionWithAmount(long amount) {
+        return new Transaction(amount, CurrencyCode.USD, TransactionType.DEPOSIT, null);
+    }
+
+    private static Transaction snapshotOf(Transaction transaction, long amount) {
+        return transaction.withDetails(
+                amount,
+                amount % 2 == 0 ? CurrencyCode.USD : CurrencyCode.EUR,
+                amount % 3 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL,
+                "REF-" + amount);
+    }
+
+    private static boolean isConsistent(Transaction transaction) {
+        long amount = transaction.getAmountMinorUnits();
+        return transaction.getCurrency() == (amount % 2 == 0 ? CurrencyCode.USD : CurrencyCode.EUR)
+                && transaction.getTransactionType() == (amount % 3 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL)
+                && ("REF-" + amount).equals(transaction.getTransactionReference())
+                && transaction.getVersion() == amount + 1;
+    }
+
+    private static String describe(Transaction transaction) {
+        return transaction == null ? "missing" : transaction.getAmountMinorUnits() + "/" + transaction.getCurrency()
+                + "/" + transaction.getTransactionType() + "/" + transaction.getTransactionReference()
+                + "/v" + transaction.getVersion();
+    }
+}
@@ -0,0 +1,191 @@
+package com.bank.transaction.dao.impl;
+
+import com.bank.transaction.config.TransactionStoreProperties;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Write-behind Transaction DAO Test Class
+ *
+ * @author YUNING TAO
+ */
+class WriteBehindTransactionDaoTest {
+
+    @TempDir
+    Path directory;
+
+    private TransactionStoreProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionStoreProperties();
+        properties.getJdbc().setUrl("jdbc:h2:file:" + directory.resolve("transactions") + ";DB_CLOSE_ON_EXIT=FALSE");
+        properties.getWriteBehind().setLog(directory.resolve("write-behind.log").toString());
+    }
+
+    @Test
+    void close_ReusedReference_ShouldFlushTheDeleteFirst() {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteBehindTransactionDao transactionDao = new WriteBehindTransactionDao(properties, meterRegistry);
+        Transaction first = transaction("first", "REF-A", 1L);
+        Transaction second = transaction("second", "REF-A", 1L);
+
+        // When
+        transactionDao.save(first);
+        transactionDao.deleteById(first.getId());
+        transactionDao.save(second);
+        transactionDao.close();
+
+        // Then
+        assertThat(meterRegistry.get("transaction.store.writebehind.retries").counter().count()).isZero();
+        JdbcTransactionDao backingStore = backingStore();
+        try {
+            assertThat(backingStore.findById("first")).isEmpty();
+            assertThat(backingStore.findByTransactionReference("REF-A"))
+                    .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo("second"));
+        } finally {
+            backingStore.close();
+        }
+    }
+
+    @Test
+    void close_ReferenceMovedBetweenIds_ShouldFlushInLogOrder() {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteBehindTransactionDao transactionDao = new WriteBehindTransactionDao(properties, meterRegistry);
+        Transaction first = transaction("first", "REF-A", 1L);
+
+        // When: first gives up REF-A, second takes it, then first changes again
+        transactionDao.save(first);
+        Transaction moved = transactionDao.update(first.withDetails(100L, CurrencyCode.USD,
+                TransactionType.DEPOSIT, "REF-B"), 1L).orElseThrow();
+        transactionDao.save(transaction("second", "REF-A", 1L));
+        transactionDao.update(moved.withDetails(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-C"), 2L);
+        transactionDao.close();
+
+        // Then
+        assertThat(meterRegistry.get("transaction.store.writebehind.retries").counter().count()).isZero();
+        JdbcTransactionDao backingStore = backingStore();
+        try {
+            assertThat(backingStore.findById("first"))
+                    .hasValueSatisfying(found -> assertThat(found.getTransactionReference()).isEqualTo("REF-C"));
+            assertThat(backingStore.findById("second"))
+                    .hasValueSatisfying(found -> assertThat(found.getTransactionReference()).isEqualTo("REF-A"));
+        } finally {
+            backingStore.close();
+        }
+    }
+
+    @Test
+    void close_ChangeRejectedByBackingStore_ShouldSetItAsideAndFlushTheRest() {
+        // Given: the backing store holds a reference the in-memory store has never seen
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteBehindTransactionDao transactionDao = new WriteBehindTransactionDao(properties, meterRegistry);
+        JdbcTransactionDao elsewhere = backingStore();
+        try {
+            elsewhere.save(transaction("elsewhere", "REF-A", 1L));
+        } finally {
+            elsewhere.close();
+        }
+
+        // When
+        transactionDao.save(transaction("rejected", "REF-A", 1L));
+        transactionDao.save(transaction("after", "REF-B", 1L));
+        transactionDao.close();
+
+        // Then
+        assertThat(transactionDao.deadLetters()).containsExactly("rejected");
+        assertThat(meterRegistry.get("transaction.store.writebehind.deadlettered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("transaction.store.writebehind.retries").counter().count()).isZero();
+        JdbcTransactionDao backingStore = backingStore();
+        try {
+            assertThat(backingStore.findById("rejected")).isEmpty();
+            assertThat(backingStore.findById("after")).isPresent();
+        } finally {
+            backingStore.close();
+        }
+    }
+
+    @Test
+    void constructor_LogNotFlushed_ShouldReplayIntoMemoryAndBackingStore() throws IOException {
+        // Given: a crash left acknowledged changes in the log only
+        try (WriteBehindLog log = new WriteBehindLog(directory.resolve("write-behind.log"), true)) {
+            log.appendSave(transaction("first", "REF-A", 1L));
+            log.appendDelete("first");
+            log.appendSave(transaction("second", "REF-A", 1L));
+        }
+
+        // When
+        WriteBehindTransactionDao transactionDao = new WriteBehindTransactionDao(properties, new SimpleMeterRegistry());
+
+        // Then
+        assertThat(transactionDao.findById("first")).isEmpty();
+        assertThat(transactionDao.findById("second")).isPresent();
+        transactionDao.close();
+        JdbcTransactionDao backingStore = backingStore();
+        try {
+            assertThat(backingStore.findById("first")).isEmpty();
+            assertThat(backingStore.findByTransactionReference("REF-A"))
+                    .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo("second"));
+        } finally {
+            backingStore.close();
+        }
+    }
+
+    @Test
+    void constructor_LogPartlyFlushed_ShouldEndInTheLastLoggedState() throws IOException {
+        // Given: the backing store already took the whole log, but the crash came before the truncate
+        JdbcTransactionDao flushed = backingStore();
+        try {
+            flushed.save(transaction("first", "REF-B", 2L));
+            flushed.save(transaction("second", "REF-A", 1L));
+        } finally {
+            flushed.close();
+        }
+        try (WriteBehindLog log = new WriteBehindLog(directory.resolve("write-behind.log"), true)) {
+            log.appendSave(transaction("first", "REF-A", 1L));
+            log.appendSave(transaction("first", "REF-B", 2L));
+            log.appendSave(transaction("second", "REF-A", 1L));
+        }
+
+        // When
+        WriteBehindTransactionDao transactionDao = new WriteBehindTransactionDao(properties, new SimpleMeterRegistry());
+
+        // Then
+        assertThat(transactionDao.findByTransactionReference("REF-A"))
+                .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo("second"));
+        assertThat(transactionDao.findByTransactionReference("REF-B"))
+                .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo("first"));
+        transactionDao.close();
+        JdbcTransactionDao backingStore = backingStore();
+        try {
+            assertThat(backingStore.count()).isEqualTo(2);
+            assertThat(backingStore.findById("first"))
+                    .hasValueSatisfying(found -> assertThat(found.getTransactionReference()).isEqualTo("REF-B"));
+        } finally {
+            backingStore.close();
+        }
+    }
+
+    private JdbcTransactionDao backingStore() {
+        return new JdbcTransactionDao(properties, new SimpleMeterRegistry());
+    }
+
+    private static Transaction transaction(String id, String reference, long version) {
+        return new Transaction(id, 100L, CurrencyCode.USD, TransactionType.DEPOSIT, reference,
+                LocalDateTime.of(2024, 1, 1, 0, 0), version);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bank.transaction.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Global Exception Handler Test Class
+ *
+ * @author YUNING TAO
+ */
+class GlobalExceptionHandlerTest {
+
+    private MeterRegistry meterRegistry;
+    private GlobalExceptionHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        handler = new GlobalExceptionHandler(Optional.of(meterRegistry));
+    }
+
+    @Test
+    void handleTransactionException_ShouldAnswerWithCodeAndCountIt() {
+        // When
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response =
+                handler.handleTransactionException(TransactionException.invalidCurrency("XXX"));
+        handler.handleTransactionException(TransactionException.invalidCurrency("YYY"));
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getCode()).isEqualTo(ErrorCode.INVALID_CURRENCY);
+        assertThat(response.getBody().getError()).isEqualTo("Transaction Exception");
+        assertThat(response.getBody().getMessage()).isEqualTo("Invalid Currency: XXX");
+        assertThat(rejections(ErrorCode.INVALID_CURRENCY)).isEqualTo(2.0);
+        assertThat(rejections(ErrorCode.INVALID_AMOUNT)).isZero();
+    }
+
+    @Test
+    void handleTransactionException_VersionConflict_ShouldReturnPreconditionFailed() {
+        // When
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response =
+                handler.handleTransactionException(VersionConflictException.withVersion("test-id", 3L));
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(response.getBody().getError()).isEqualTo("Version Conflict");
+        assertThat(rejections(ErrorCode.VERSION_CONFLICT)).isEqualTo(1.0);
+    }
+
+    @Test
+    void handleMessageNotReadable_MalformedBody_ShouldReturnBadRequest() {
+        // Given
+        HttpMessageNotReadableException ex = new HttpMessageNotReadableException("JSON parse error: {\"amount\":",
+                new IllegalArgumentException("Unexpected end-of-input"), new MockHttpInputMessage(new byte[0]));
+
+        // When
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = handler.handleMessageNotReadable(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getCode()).isEqualTo(ErrorCode.INVALID_REQUEST);
+        assertThat(response.getBody().getMessage()).isEqualTo("Transaction request cannot be read.");
+        assertThat(rejections(ErrorCode.INVALID_REQUEST)).isEqualTo(1.0);
+    }
+
+    @Test
+    void handleMessageNotReadable_RejectedCode_ShouldKeepItsErrorCode() {
+        // Given
+        HttpMessageNotReadableException ex = new HttpMessageNotReadableException("JSON parse error",
+                TransactionException.invalidCurrency("XXX"), new MockHttpInputMessage(new byte[0]));
+
+        // When
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = handler.handleMessageNotReadable(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getCode()).isEqualTo(ErrorCode.INVALID_CURRENCY);
+        assertThat(rejections(ErrorCode.INVALID_CURRENCY)).isEqualTo(1.0);
+    }
+
+    @Test
+    void rejectionsWithoutDetail_ShouldBeSharedAndStackless() {
+        // When
+        TransactionException first = TransactionException.invalidAmount();
+        TransactionException second = TransactionException.invalidAmount();
+
+        // Then
+        assertThat(first).isSameAs(second);
+        assertThat(first.getStackTrace()).isEmpty();
+        assertThat(first.getSuppressed()).isEmpty();
+        assertThat(TransactionException.withId("id-1").getStackTrace()).isEmpty();
+    }
+
+    private double rejections(ErrorCode code) {
+        return meterRegistry.get("transaction.rejections").tag("code", code.name()).counter().count();
+    }
+}
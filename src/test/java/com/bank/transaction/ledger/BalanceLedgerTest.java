@@ -0,0 +1,217 @@
+package com.bank.transaction.ledger;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Balance Ledger Test Class
+ *
+ * @author YUNING TAO
+ */
+class BalanceLedgerTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 20_000;
+    private static final int ACCOUNTS = 50;
+
+    @Test
+    void post_ShouldCreditAndDebitByType() {
+        // Given
+        BalanceLedger ledger = new BalanceLedger(16);
+
+        // When
+        ledger.post(null, transaction(10_000L, TransactionType.DEPOSIT, null, "ACC-1"));
+        ledger.post(null, transaction(2_500L, TransactionType.TRANSFER, "ACC-1", "ACC-2"));
+        ledger.post(null, transaction(500L, TransactionType.WITHDRAWAL, "ACC-2", null));
+        ledger.post(null, transaction(700L, TransactionType.DEPOSIT, null, null));
+
+        // Then
+        assertThat(ledger.balanceOf("ACC-1", CurrencyCode.USD)).isEqualTo(7_500L);
+        assertThat(ledger.balanceOf("ACC-2", CurrencyCode.USD)).isEqualTo(2_000L);
+        assertThat(ledger.balancesOf("ACC-3")).isNull();
+        assertThat(ledger.accounts()).isEqualTo(2);
+    }
+
+    @Test
+    void post_UpdateAndDelete_ShouldReverseThePreviousState() {
+        // Given
+        BalanceLedger ledger = new BalanceLedger(16);
+        Transaction created = transaction(1_000L, TransactionType.TRANSFER, "ACC-1", "ACC-2");
+        ledger.post(null, created);
+
+        // When: moved to other accounts and amount, then deleted
+        Transaction updated = created
+                .withDetails(300L, CurrencyCode.USD, TransactionType.TRANSFER, null, "ACC-2", "ACC-3")
+                .withVersion(2L);
+        ledger.post(created, updated);
+        long afterUpdate = ledger.balanceOf("ACC-3", CurrencyCode.USD);
+        ledger.post(updated, null);
+
+        // Then
+        assertThat(afterUpdate).isEqualTo(300L);
+        assertThat(ledger.balanceOf("ACC-1", CurrencyCode.USD)).isZero();
+        assertThat(ledger.balanceOf("ACC-2", CurrencyCode.USD)).isZero();
+        assertThat(ledger.balanceOf("ACC-3", CurrencyCode.USD)).isZero();
+        assertThat(ledger.balancesOf("ACC-1")).isEmpty();
+    }
+
+    @Test
+    void post_Overflow_ShouldRejectAndUndoTheOtherLegs() {
+        // Given
+        BalanceLedger ledger = new BalanceLedger(16);
+        ledger.post(null, transaction(Long.MAX_VALUE, TransactionType.DEPOSIT, null, "ACC-1"));
+
+        // When & Then
+        assertThatThrownBy(() -> ledger.post(null, transaction(1L, TransactionType.TRANSFER, "ACC-2", "ACC-1")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(ledger.balanceOf("ACC-1", CurrencyCode.USD)).isEqualTo(Long.MAX_VALUE);
+        assertThat(ledger.balanceOf("ACC-2", CurrencyCode.USD)).isZero();
+    }
+
+    @Test
+    void concurrentTransfers_SkewedToHotAccount_ShouldConserveMoney() throws Exception {
+        // Given: half of the transfers touch one hot account, in both directions
+        BalanceLedger ledger = new BalanceLedger(64);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    String source = random.nextBoolean() ? "HOT" : "ACC-" + random.nextInt(ACCOUNTS);
+                    String destination = "ACC-" + random.nextInt(ACCOUNTS);
+                    if (random.nextBoolean()) {
+                        String swap = source;
+                        source = destination;
+                        destination = swap;
+                    }
+                    if (!source.equals(destination)) {
+                        ledger.post(null, transaction(random.nextLong(1, 10_000), TransactionType.TRANSFER,
+                                source, destination));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdownNow();
+
+        // Then: transfers only move money, the accounts sum to zero
+        long total = ledger.balanceOf("HOT", CurrencyCode.USD);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            total += ledger.balanceOf("ACC-" + i, CurrencyCode.USD);
+        }
+        assertThat(total).isZero();
+    }
+
+    @Test
+    void concurrentTransfers_ReadTogether_ShouldNeverShowOneLegWithoutTheOther() throws Exception {
+        // Given: three accounts holding 30_000 between them, moved around by transfers and updates
+        BalanceLedger ledger = new BalanceLedger(64);
+        String[] accounts = {"ACC-1", "ACC-2", "ACC-3"};
+        for (String account : accounts) {
+            ledger.post(null, transaction(10_000L, TransactionType.DEPOSIT, null, account));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> writers = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < THREADS - 1; t++) {
+            writers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int source = random.nextInt(accounts.length);
+                    int destination = (source + 1 + random.nextInt(accounts.length - 1)) % accounts.length;
+                    Transaction transfer = transaction(random.nextLong(1, 100), TransactionType.TRANSFER,
+                            accounts[source], accounts[destination]);
+                    ledger.post(null, transfer);
+                    ledger.post(transfer, transfer.withDetails(random.nextLong(1, 100), CurrencyCode.USD,
+                            TransactionType.TRANSFER, null, accounts[destination], accounts[source]));
+                }
+                return null;
+            }));
+        }
+        Future<Integer> reader = executor.submit(() -> {
+            int torn = 0;
+            while (!done.get()) {
+                if (ledger.sumOf(CurrencyCode.USD, accounts) != 30_000L) {
+                    torn++;
+                }
+            }
+            return torn;
+        });
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        done.set(true);
+        int torn = reader.get(1, TimeUnit.MINUTES);
+        executor.shutdownNow();
+
+        // Then
+        assertThat(torn).isZero();
+        assertThat(ledger.sumOf(CurrencyCode.USD, accounts)).isEqualTo(30_000L);
+    }
+
+    @Test
+    void concurrentDeposits_NearTheLimit_ShouldRejectOnlyThoseThatOverflow() throws Exception {
+        // Given: room for exactly 500 deposits of this amount, 800 are tried at once
+        BalanceLedger ledger = new BalanceLedger(16);
+        long amount = Long.MAX_VALUE / 500;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        ledger.post(null, transaction(amount, TransactionType.DEPOSIT, null, "HOT"));
+                        accepted.incrementAndGet();
+                    } catch (ArithmeticException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdownNow();
+
+        // Then
+        assertThat(accepted.get()).isEqualTo(500);
+        assertThat(rejected.get()).isEqualTo(300);
+        assertThat(ledger.balanceOf("HOT", CurrencyCode.USD)).isEqualTo(500 * amount);
+    }
+
+    private static Transaction transaction(long amount, TransactionType type, String source, String destination) {
+        return new Transaction(amount, CurrencyCode.USD, type, null, source, destination);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bank.transaction.model.json;
+
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.TransactionType;
+import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.ProjectedTransaction;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Transaction Projection Test Class
+ *
+ * @author YUNING TAO
+ */
+class TransactionProjectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final TransactionResponse response = new TransactionResponse(
+            "test-id", 100.00, CurrencyCode.USD, TransactionType.DEPOSIT,
+            "REF-" + "X".repeat(60), LocalDateTime.of(2024, 1, 2, 3, 4, 5), 3L);
+
+    @Test
+    void parse_SameFieldsInAnyOrder_ShouldShareOneProjection() {
+        // When
+        TransactionProjection first = TransactionProjection.parse("timestamp, id,amount");
+        TransactionProjection second = TransactionProjection.parse("amount,timestamp,id,id");
+
+        // Then
+        assertThat(first).isSameAs(second);
+        assertThat(first.key()).isEqualTo("id,amount,timestamp");
+        assertThat(TransactionProjection.parse(null)).isNull();
+        assertThat(TransactionProjection.parse(" , ")).isNull();
+    }
+
+    @Test
+    void parse_UnknownField_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> TransactionProjection.parse("id,secret"))
+                .isInstanceOf(TransactionException.class)
+                .hasMessage("Unknown transaction field: secret");
+    }
+
+    @Test
+    void write_ShouldMatchFullResponseForSelectedFields() throws Exception {
+        // Given
+        TransactionProjection projection = TransactionProjection.parse("id,amount,currency,timestamp,version");
+
+        // When
+        JsonNode projected = objectMapper.valueToTree(new ProjectedTransaction(response, projection));
+        JsonNode full = objectMapper.valueToTree(response);
+
+        // Then
+        assertThat(projected.size()).isEqualTo(5);
+        projected.fieldNames().forEachRemaining(name -> assertThat(projected.get(name)).isEqualTo(full.get(name)));
+        assertThat(projected.has("transactionReference")).isFalse();
+    }
+
+    @Test
+    void write_AllFields_ShouldMatchFullResponse() throws Exception {
+        // Given
+        response.setSourceAccountId("ACC-1");
+        TransactionProjection projection = TransactionProjection.parse("id,amount,currency,transactionType,"
+                + "transactionReference,sourceAccountId,destinationAccountId,timestamp,version");
+
+        // When
+        String projected = objectMapper.writeValueAsString(new ProjectedTransaction(response, projection));
+
+        // Then: same bytes, the empty destination account is left out in both
+        assertThat(projected).isEqualTo(objectMapper.writeValueAsString(response));
+    }
+
+    @Test
+    void write_ListPage_ShouldShrinkPayload() throws Exception {
+        // Given
+        List<TransactionResponse> content = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            content.add(response);
+        }
+        PageableResponse<TransactionResponse> page = new PageableResponse<>(content, 0, 100, 100L);
+        TransactionProjection projection = TransactionProjection.parse("id,amount,timestamp");
+        List<ProjectedTransaction> projected = content.stream()
+                .map(transaction -> new ProjectedTransaction(transaction, projection))
+                .toList();
+
+        // When
+        int fullBytes = objectMapper.writeValueAsBytes(page).length;
+        int projectedBytes = objectMapper.writeValueAsBytes(new PageableResponse<>(projected, 0, 100, 100L)).length;
+
+        // Then: id, amount and timestamp are well under half of a transaction with a long reference
+        assertThat(projectedBytes).isLessThan(fullBytes / 2);
+    }
+}
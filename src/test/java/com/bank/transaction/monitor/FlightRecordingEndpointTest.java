@@ -0,0 +1,88 @@
+package com.bank.transaction.monitor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flight Recording Endpoint Test Class
+ *
+ * @author YUNING TAO
+ */
+class FlightRecordingEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecordingEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        FlightRecordingProperties properties = new FlightRecordingProperties();
+        properties.setSettings("default");
+        properties.setMaxDuration(Duration.ofMinutes(1));
+        properties.setFile(directory.resolve("transactions.jfr").toString());
+        endpoint = new FlightRecordingEndpoint(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.closeRecording();
+    }
+
+    @Test
+    void status_NoRecording_ShouldReportNone() {
+        // When & Then
+        assertThat(endpoint.status()).containsEntry("state", "NONE").doesNotContainKey("startTime");
+    }
+
+    @Test
+    void start_ShouldRunOneRecording() {
+        // When
+        endpoint.start();
+        Object startTime = endpoint.status().get("startTime");
+        endpoint.start();
+
+        // Then: the second start keeps the running recording
+        assertThat(endpoint.status())
+                .containsEntry("state", "RUNNING")
+                .containsEntry("startTime", startTime)
+                .containsEntry("maxDuration", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void stop_ShouldWriteTheRecordingAndForgetIt() throws Exception {
+        // Given
+        endpoint.start();
+        new StoreOperationEvent("findById", "Test", "id-1", null).commit();
+
+        // When
+        WebEndpointResponse<Resource> response = endpoint.stop();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        Path file = directory.resolve("transactions.jfr");
+        assertThat(response.getBody().getFile().toPath()).isEqualTo(file);
+        assertThat(Files.size(file)).isPositive();
+        assertThat(endpoint.status()).containsEntry("state", "NONE");
+    }
+
+    @Test
+    void stop_NoRecording_ShouldBeNotFound() {
+        // When
+        WebEndpointResponse<Resource> response = endpoint.stop();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+        assertThat(response.getBody()).isNull();
+    }
+}
@@ -0,0 +1,31 @@
+package com.bank.transaction.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Footprint Test Class
+ *
+ * @author YUNING TAO
+ */
+class FootprintTest {
+
+    @Test
+    void of_Latin1String_ShouldCountOneBytePerChar() {
+        // When & Then: 24 bytes of String plus a 16 byte array header and 16 chars
+        assertThat(Footprint.of("é".repeat(16))).isEqualTo(24 + 32);
+    }
+
+    @Test
+    void of_Utf16String_ShouldCountTwoBytesPerChar() {
+        // When & Then: 24 bytes of String plus a 16 byte array header and 32 bytes of chars
+        assertThat(Footprint.of("REF-€€€€€€€€€€€€")).isEqualTo(24 + 48);
+    }
+
+    @Test
+    void of_Null_ShouldBeZero() {
+        // When & Then
+        assertThat(Footprint.of((String) null)).isZero();
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.transaction.monitor;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Recording Transaction DAO Test Class
+ *
+ * @author YUNING TAO
+ */
+class RecordingTransactionDaoTest {
+
+    @TempDir
+    Path directory;
+
+    private final TransactionDao delegate = mock(TransactionDao.class);
+    private final RecordingTransactionDao transactionDao = new RecordingTransactionDao(delegate);
+
+    @Test
+    void calls_ShouldReachTheDelegate() {
+        // Given
+        Transaction transaction = new Transaction(100L, CurrencyCode.USD, TransactionType.DEPOSIT, "REF-1");
+        when(delegate.findById(transaction.getId())).thenReturn(Optional.of(transaction));
+        when(delegate.update(transaction, 1L)).thenReturn(Optional.of(transaction.withVersion(2L)));
+        when(delegate.purgeExpired()).thenReturn(List.of(transaction));
+        when(delegate.changeCount()).thenReturn(7L);
+
+        // When & Then
+        assertThat(transactionDao.findById(transaction.getId())).contains(transaction);
+        assertThat(transactionDao.update(transaction, 1L)).hasValueSatisfying(
+                updated -> assertThat(updated.getVersion()).isEqualTo(2L));
+        assertThat(transactionDao.purgeExpired()).containsExactly(transaction);
+        assertThat(transactionDao.changeCount()).isEqualTo(7L);
+        transactionDao.saveAll(List.of(transaction));
+        verify(delegate).saveAll(List.of(transaction));
+    }
+
+    @Test
+    void failedCall_ShouldPassTheExceptionOn() {
+        // Given
+        when(delegate.removeById("id-1")).thenThrow(new IllegalStateException("Store down"));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionDao.removeById("id-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Store down");
+    }
+
+    @Test
+    void calls_DuringRecording_ShouldRecordStoreOperations() throws Exception {
+        // Given
+        when(delegate.existsByTransactionReference("REF-1")).thenReturn(true);
+        Path file = directory.resolve("store.jfr");
+
+        // When
+        try (Recording recording = new Recording()) {
+            recording.enable(StoreOperationEvent.class).withoutThreshold();
+            recording.start();
+            transactionDao.findById("id-1");
+            transactionDao.existsByTransactionReference("REF-1");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.bank.transaction.StoreOperation"))
+                .toList();
+        assertThat(events).hasSize(2);
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getString("operation")).isEqualTo("findById");
+            assertThat(event.getString("transactionId")).isEqualTo("id-1");
+        });
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.getString("operation")).isEqualTo("existsByTransactionReference");
+            assertThat(event.getString("transactionReference")).isEqualTo("REF-1");
+        });
+    }
+}
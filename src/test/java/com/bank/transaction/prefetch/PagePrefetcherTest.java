@@ -0,0 +1,137 @@
+package com.bank.transaction.prefetch;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.TransactionResponse;
+import com.bank.transaction.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Page Prefetcher Test Class
+ *
+ * @author YUNING TAO
+ */
+class PagePrefetcherTest {
+
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.TRANSACTION_LIST_CACHE);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PrefetchProperties properties = new PrefetchProperties();
+    private final AtomicLong changeCount = new AtomicLong();
+    private Cache listCache;
+
+    @BeforeEach
+    void setUp() {
+        listCache = cacheManager.getCache(CacheConfig.TRANSACTION_LIST_CACHE);
+        when(transactionService.getChangeCount()).thenAnswer(invocation -> changeCount.get());
+        // Like the cached service call, a read fills the list cache
+        when(transactionService.getTransactions(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int page = invocation.getArgument(0);
+            int size = invocation.getArgument(1);
+            PageableResponse<TransactionResponse> response = new PageableResponse<>(List.of(), page, size, 100L);
+            listCache.put(PagePrefetcher.listKey(page, size), response);
+            return response;
+        });
+    }
+
+    @Test
+    void sequentialReader_ShouldReadPrefetchedPages() {
+        // Given
+        PagePrefetcher prefetcher = prefetcher(Runnable::run);
+
+        // When
+        prefetcher.onPage("client-1", 0, 10, 10);
+        prefetcher.onPage("client-1", 1, 10, 10);
+
+        // Then
+        verify(transactionService).getTransactions(1, 10);
+        verify(transactionService).getTransactions(2, 10);
+        assertThat(listCache.get(PagePrefetcher.listKey(2, 10))).isNotNull();
+        assertThat(count("issued")).isEqualTo(2.0);
+        assertThat(count("hit")).isEqualTo(1.0);
+        assertThat(prefetcher.hitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void randomAccessAndLastPage_ShouldNotPrefetch() {
+        // Given
+        PagePrefetcher prefetcher = prefetcher(Runnable::run);
+
+        // When
+        prefetcher.onPage("client-1", 4, 10, 10);
+        prefetcher.onPage("client-1", 7, 10, 10);
+        prefetcher.onPage("client-2", 0, 10, 1);
+
+        // Then
+        verify(transactionService, never()).getTransactions(anyInt(), anyInt());
+    }
+
+    @Test
+    void unusedPrefetch_ShouldBeEvictedEarly() throws Exception {
+        // Given
+        properties.setUnusedTimeout(Duration.ofMillis(1));
+        PagePrefetcher prefetcher = prefetcher(Runnable::run);
+        prefetcher.onPage("client-1", 0, 10, 10);
+
+        // When
+        Thread.sleep(20);
+        prefetcher.cleanUp();
+
+        // Then
+        assertThat(listCache.get(PagePrefetcher.listKey(1, 10))).isNull();
+        assertThat(count("wasted")).isEqualTo(1.0);
+    }
+
+    @Test
+    void storeChangeDuringLoad_ShouldDropPrefetchedPage() {
+        // Given: a write lands while the page is read
+        when(transactionService.getChangeCount()).thenAnswer(invocation -> changeCount.getAndIncrement());
+        PagePrefetcher prefetcher = prefetcher(Runnable::run);
+
+        // When
+        prefetcher.onPage("client-1", 0, 10, 10);
+
+        // Then
+        assertThat(listCache.get(PagePrefetcher.listKey(1, 10))).isNull();
+        assertThat(count("issued")).isZero();
+    }
+
+    @Test
+    void prefetchesOverBudget_ShouldBeSkipped() {
+        // Given: loads are queued and never finish
+        properties.setMaxInFlight(1);
+        List<Runnable> queued = new ArrayList<>();
+        PagePrefetcher prefetcher = prefetcher(queued::add);
+
+        // When
+        prefetcher.onPage("client-1", 0, 10, 10);
+        prefetcher.onPage("client-2", 0, 20, 10);
+
+        // Then
+        assertThat(queued).hasSize(1);
+        assertThat(count("skipped")).isEqualTo(1.0);
+    }
+
+    private PagePrefetcher prefetcher(Executor executor) {
+        return new PagePrefetcher(transactionService, cacheManager, properties, meterRegistry, executor);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("transaction.prefetch").tag("result", result).counter().count();
+    }
+}
@@ -1,25 +1,50 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.changes.ChangeLog;
+import com.bank.transaction.changes.ChangeType;
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.ledger.BalanceLedger;
+import com.bank.transaction.model.dto.AccountBalanceResponse;
+import com.bank.transaction.model.dto.AmountQuantilesResponse;
+import com.bank.transaction.model.dto.ChangeFeedResponse;
+import com.bank.transaction.model.dto.TransactionChange;
 import com.bank.transaction.model.dto.PageableResponse;
+import com.bank.transaction.model.dto.TransactionLookupResponse;
 import com.bank.transaction.model.dto.TransactionRequest;
 import com.bank.transaction.model.dto.TransactionResponse;
+import com.bank.transaction.exception.ErrorCode;
 import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.exception.VersionConflictException;
+import com.bank.transaction.model.CurrencyCode;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
 import com.bank.transaction.dao.TransactionDao;
 import com.bank.transaction.service.impl.TransactionServiceImpl;
+import com.bank.transaction.stats.AmountStatistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,6 +58,19 @@ class TransactionServiceTest {
     @Mock
     private TransactionDao transactionDao;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private BalanceLedger balanceLedger;
+
+    @Spy
+    private ChangeLog changeLog = new ChangeLog(100, 4);
+
+    @Spy
+    private AmountStatistics amountStatistics =
+            new AmountStatistics(Duration.ofMinutes(1), 60, 0.01, Clock.systemDefaultZone());
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -43,19 +81,20 @@ class TransactionServiceTest {
     void setUp() {
         validRequest = new TransactionRequest(
                 100.00,
-                "USD",
-                "DEPOSIT",
+                CurrencyCode.USD,
+                TransactionType.DEPOSIT,
                 "REF001"
         );
 
         validTransaction = new Transaction(
-                100.00,
-                "USD",
-                "DEPOSIT",
-                "REF001"
+                "test-id",
+                10_000L,
+                CurrencyCode.USD,
+                TransactionType.DEPOSIT,
+                "REF001",
+                LocalDateTime.now(),
+                1L
         );
-        validTransaction.setId("test-id");
-        validTransaction.setTimestamp(LocalDateTime.now());
     }
 
     @Test
@@ -71,13 +110,28 @@ class TransactionServiceTest {
         assertThat(response).isNotNull();
         assertThat(response.getId()).isEqualTo("test-id");
         assertThat(response.getAmount()).isEqualTo(100.00);
-        assertThat(response.getCurrency()).isEqualTo("USD");
-        assertThat(response.getTransactionType()).isEqualTo("DEPOSIT");
+        assertThat(response.getCurrency()).isEqualTo(CurrencyCode.USD);
+        assertThat(response.getTransactionType()).isEqualTo(TransactionType.DEPOSIT);
 
         verify(transactionDao).existsByTransactionReference("REF001");
         verify(transactionDao).save(any(Transaction.class));
     }
 
+    @Test
+    void quiet_ShouldServeTheSameStoreAndBalances() {
+        // Given
+        when(transactionDao.existsByTransactionReference("REF001")).thenReturn(false);
+        when(transactionDao.save(any(Transaction.class))).thenReturn(validTransaction);
+
+        // When
+        TransactionResponse response = transactionService.quiet().createTransaction(validRequest);
+
+        // Then
+        assertThat(response.getId()).isEqualTo("test-id");
+        verify(transactionDao).save(any(Transaction.class));
+        verify(balanceLedger).post(eq(null), any(Transaction.class));
+    }
+
     @Test
     void createTransaction_DuplicateReferenceNumber_ShouldThrowException() {
         // Given
@@ -97,8 +151,8 @@ class TransactionServiceTest {
         // Given
         TransactionRequest invalidRequest = new TransactionRequest(
                 -10.00,
-                "USD",
-                "DEPOSIT",
+                CurrencyCode.USD,
+                TransactionType.DEPOSIT,
                 "REF001"
         );
 
@@ -113,15 +167,20 @@ class TransactionServiceTest {
         // Given
         TransactionRequest invalidRequest = new TransactionRequest(
                 100.00,
-                "XXX",
-                "DEPOSIT",
+                null,
+                TransactionType.DEPOSIT,
                 "REF001"
         );
 
         // When & Then
         assertThatThrownBy(() -> transactionService.createTransaction(invalidRequest))
                 .isInstanceOf(TransactionException.class)
-                .hasMessageContaining("Invalid Currency:");
+                .hasMessageContaining("Invalid Currency:")
+                .satisfies(e -> {
+                    // Expected business errors are stackless
+                    assertThat(((TransactionException) e).getCode()).isEqualTo(ErrorCode.INVALID_CURRENCY);
+                    assertThat(e.getStackTrace()).isEmpty();
+                });
     }
 
     @Test
@@ -129,15 +188,81 @@ class TransactionServiceTest {
         // Given
         TransactionRequest invalidRequest = new TransactionRequest(
                 100.00,
-                "USD",
-                "INVALID_TYPE",
+                CurrencyCode.USD,
+                null,
                 "REF001"
         );
 
         // When & Then
         assertThatThrownBy(() -> transactionService.createTransaction(invalidRequest))
                 .isInstanceOf(TransactionException.class)
-                .hasMessageContaining("Invalid Transaction Type: INVALID_TYPE");
+                .hasMessageContaining("Invalid Transaction Type:");
+    }
+
+    @Test
+    void createTransaction_ValidRequest_ShouldStoreMinorUnits() {
+        // Given
+        TransactionRequest request = new TransactionRequest(19.99, CurrencyCode.USD, TransactionType.DEPOSIT, null);
+        when(transactionDao.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        TransactionResponse response = transactionService.createTransaction(request);
+
+        // Then
+        verify(transactionDao).save(argThat(transaction -> transaction.getAmountMinorUnits() == 1_999L));
+        assertThat(response.getAmount()).isEqualTo(19.99);
+    }
+
+    @Test
+    void createTransaction_AmountBelowMinorUnit_ShouldThrowException() {
+        // Given
+        TransactionRequest request = new TransactionRequest(0.4, CurrencyCode.JPY, TransactionType.DEPOSIT, null);
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.createTransaction(request))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Invalid Transaction Amount");
+        verify(transactionDao, never()).save(any());
+    }
+
+    @Test
+    void createTransaction_MoreDigitsThanTheCurrency_ShouldThrowException() {
+        // Given
+        TransactionRequest request = new TransactionRequest(new BigDecimal("19.999"), CurrencyCode.USD,
+                TransactionType.DEPOSIT, null);
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.createTransaction(request))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Invalid Transaction Amount");
+        verify(transactionDao, never()).save(any());
+    }
+
+    @Test
+    void createTransaction_AmountBeyondLong_ShouldThrowException() {
+        // Given
+        TransactionRequest request = new TransactionRequest(new BigDecimal("1E+20"), CurrencyCode.USD,
+                TransactionType.DEPOSIT, null);
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.createTransaction(request))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Invalid Transaction Amount");
+        verify(transactionDao, never()).save(any());
+    }
+
+    @Test
+    void createTransaction_TrailingZeros_ShouldStoreExactMinorUnits() {
+        // Given
+        TransactionRequest request = new TransactionRequest(new BigDecimal("1.050000"), CurrencyCode.EUR,
+                TransactionType.DEPOSIT, null);
+        when(transactionDao.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        transactionService.createTransaction(request);
+
+        // Then
+        verify(transactionDao).save(argThat(transaction -> transaction.getAmountMinorUnits() == 105L));
     }
 
     @Test
@@ -180,6 +305,7 @@ class TransactionServiceTest {
     @Test
     void getTransactions_ValidPageAndSize_ShouldReturnPagedResponse() {
         // Given
+        when(transactionDao.changeCount()).thenReturn(7L);
         when(transactionDao.findAll(0, 10)).thenReturn(Arrays.asList(validTransaction));
         when(transactionDao.count()).thenReturn(1L);
 
@@ -193,6 +319,7 @@ class TransactionServiceTest {
         assertThat(response.getSize()).isEqualTo(10);
         assertThat(response.getTotalElements()).isEqualTo(1L);
         assertThat(response.getTotalPages()).isEqualTo(1);
+        assertThat(response.getChangeCount()).isEqualTo(7L);
 
         verify(transactionDao).findAll(0, 10);
         verify(transactionDao).count();
@@ -232,18 +359,362 @@ class TransactionServiceTest {
         verify(transactionDao, never()).save(any());
     }
 
+    @Test
+    void updateTransaction_ValidRequest_ShouldPublishNextVersion() {
+        // Given
+        when(transactionDao.findById("test-id")).thenReturn(Optional.of(validTransaction));
+        when(transactionDao.update(any(Transaction.class), eq(1L)))
+                .thenAnswer(invocation -> {
+                    Transaction updated = invocation.getArgument(0);
+                    return Optional.of(updated.withVersion(2L));
+                });
+
+        // When
+        TransactionResponse response = transactionService.updateTransaction("test-id", validRequest);
+
+        // Then
+        assertThat(response.getId()).isEqualTo("test-id");
+        assertThat(response.getVersion()).isEqualTo(2L);
+        assertThat(validTransaction.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void updateTransaction_StaleVersion_ShouldThrowVersionConflict() {
+        // Given
+        when(transactionDao.findById("test-id")).thenReturn(Optional.of(validTransaction));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.updateTransaction("test-id", validRequest, 5L))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessageContaining("test-id");
+
+        verify(transactionDao, never()).update(any(), anyLong());
+    }
+
+    @Test
+    void updateTransaction_AnyOfExpectedVersions_ShouldUpdateFromTheCurrentOne() {
+        // Given
+        when(transactionDao.findById("test-id")).thenReturn(Optional.of(validTransaction));
+        when(transactionDao.update(any(Transaction.class), eq(1L)))
+                .thenAnswer(invocation -> Optional.of(((Transaction) invocation.getArgument(0)).withVersion(2L)));
+
+        // When
+        TransactionResponse response = transactionService.updateTransaction("test-id", validRequest, Set.of(0L, 1L));
+
+        // Then
+        assertThat(response.getVersion()).isEqualTo(2L);
+        assertThatThrownBy(() -> transactionService.updateTransaction("test-id", validRequest, Set.of(3L, 4L)))
+                .isInstanceOf(VersionConflictException.class);
+    }
+
     @Test
     void deleteTransaction_ExistingId_ShouldDeleteSuccessfully() {
         // Given
         when(transactionDao.existsById("test-id")).thenReturn(true);
-        when(transactionDao.deleteById("test-id")).thenReturn(true);
+        when(transactionDao.removeById("test-id")).thenReturn(Optional.of(validTransaction));
 
         // When
         transactionService.deleteTransaction("test-id");
 
         // Then
         verify(transactionDao).existsById("test-id");
-        verify(transactionDao).deleteById("test-id");
+        verify(transactionDao).removeById("test-id");
+        verify(balanceLedger).post(validTransaction, null);
+    }
+
+    @Test
+    void createTransaction_TransferBetweenAccounts_ShouldPostToLedger() {
+        // Given
+        TransactionRequest transfer = new TransactionRequest(
+                25.50, CurrencyCode.EUR, TransactionType.TRANSFER, "REF002", "ACC-1", "ACC-2");
+        when(transactionDao.existsByTransactionReference("REF002")).thenReturn(false);
+        when(transactionDao.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        TransactionResponse response = transactionService.createTransaction(transfer);
+
+        // Then
+        assertThat(response.getSourceAccountId()).isEqualTo("ACC-1");
+        assertThat(response.getDestinationAccountId()).isEqualTo("ACC-2");
+        verify(balanceLedger).post(eq(null), argThat(saved -> saved.getAmountMinorUnits() == 2_550L
+                && "ACC-1".equals(saved.getSourceAccountId()) && "ACC-2".equals(saved.getDestinationAccountId())));
+    }
+
+    @Test
+    void createTransaction_AccountsNotMatchingType_ShouldThrowException() {
+        // Given
+        TransactionRequest sameAccount = new TransactionRequest(
+                10.00, CurrencyCode.USD, TransactionType.TRANSFER, "REF002", "ACC-1", "ACC-1");
+        TransactionRequest oneLeg = new TransactionRequest(
+                10.00, CurrencyCode.USD, TransactionType.TRANSFER, "REF003", "ACC-1", null);
+        TransactionRequest depositFromAccount = new TransactionRequest(
+                10.00, CurrencyCode.USD, TransactionType.DEPOSIT, "REF004", "ACC-1", "ACC-2");
+
+        // When & Then
+        for (TransactionRequest request : List.of(sameAccount, oneLeg, depositFromAccount)) {
+            assertThatThrownBy(() -> transactionService.createTransaction(request))
+                    .isInstanceOf(TransactionException.class)
+                    .extracting(e -> ((TransactionException) e).getCode())
+                    .isEqualTo(ErrorCode.INVALID_ACCOUNT);
+        }
+        verify(transactionDao, never()).save(any());
+        verifyNoInteractions(balanceLedger);
+    }
+
+    @Test
+    void updateTransaction_ShouldPostReplacedAndNewState() {
+        // Given
+        when(transactionDao.findById("test-id")).thenReturn(Optional.of(validTransaction));
+        Transaction published = validTransaction.withVersion(2L);
+        when(transactionDao.update(any(Transaction.class), eq(1L))).thenReturn(Optional.of(published));
+
+        // When
+        transactionService.updateTransaction("test-id", validRequest);
+
+        // Then
+        verify(balanceLedger).post(validTransaction, published);
+    }
+
+    @Test
+    void createTransaction_BalanceOutOfRange_ShouldRejectBeforeSaving() {
+        // Given
+        when(transactionDao.existsByTransactionReference("REF001")).thenReturn(false);
+        doThrow(new ArithmeticException("long overflow")).when(balanceLedger).post(eq(null), any(Transaction.class));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.createTransaction(validRequest))
+                .isInstanceOf(TransactionException.class)
+                .extracting(e -> ((TransactionException) e).getCode())
+                .isEqualTo(ErrorCode.BALANCE_OUT_OF_RANGE);
+        verify(transactionDao, never()).save(any());
+        assertThat(changeLog.latestSequence()).isZero();
+    }
+
+    @Test
+    void createTransaction_SaveFails_ShouldTakeThePostingBack() {
+        // Given
+        when(transactionDao.existsByTransactionReference("REF001")).thenReturn(false);
+        when(transactionDao.save(any(Transaction.class))).thenThrow(new IllegalArgumentException("reference taken"));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.createTransaction(validRequest))
+                .isInstanceOf(TransactionException.class);
+        verify(balanceLedger).post(eq(null), any(Transaction.class));
+        verify(balanceLedger).post(any(Transaction.class), eq(null));
+    }
+
+    @Test
+    void updateTransaction_ConcurrentChange_ShouldTakeTheLostPostingBack() {
+        // Given: the first write loses to a concurrent update, the retry wins
+        Transaction concurrent = validTransaction.withVersion(2L);
+        when(transactionDao.findById("test-id"))
+                .thenReturn(Optional.of(validTransaction), Optional.of(concurrent));
+        when(transactionDao.update(any(Transaction.class), eq(1L))).thenReturn(Optional.empty());
+        when(transactionDao.update(any(Transaction.class), eq(2L)))
+                .thenAnswer(invocation -> Optional.of(((Transaction) invocation.getArgument(0)).withVersion(3L)));
+
+        // When
+        transactionService.updateTransaction("test-id", validRequest);
+
+        // Then
+        verify(balanceLedger).post(same(validTransaction), any(Transaction.class));
+        verify(balanceLedger).post(any(Transaction.class), same(validTransaction));
+        verify(balanceLedger).post(same(concurrent), any(Transaction.class));
+        verifyNoMoreInteractions(balanceLedger);
+    }
+
+    @Test
+    void updateTransaction_BalanceOutOfRange_ShouldRejectBeforeSaving() {
+        // Given
+        when(transactionDao.findById("test-id")).thenReturn(Optional.of(validTransaction));
+        doThrow(new ArithmeticException("long overflow")).when(balanceLedger)
+                .post(eq(validTransaction), any(Transaction.class));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.updateTransaction("test-id", validRequest))
+                .isInstanceOf(TransactionException.class)
+                .extracting(e -> ((TransactionException) e).getCode())
+                .isEqualTo(ErrorCode.BALANCE_OUT_OF_RANGE);
+        verify(transactionDao, never()).update(any(), anyLong());
+    }
+
+    @Test
+    void deleteTransaction_BalanceOutOfRange_ShouldPutTheTransactionBack() {
+        // Given
+        when(transactionDao.existsById("test-id")).thenReturn(true);
+        when(transactionDao.removeById("test-id")).thenReturn(Optional.of(validTransaction));
+        when(transactionDao.save(validTransaction)).thenReturn(validTransaction);
+        doThrow(new ArithmeticException("long overflow")).when(balanceLedger).post(validTransaction, null);
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.deleteTransaction("test-id"))
+                .isInstanceOf(TransactionException.class)
+                .extracting(e -> ((TransactionException) e).getCode())
+                .isEqualTo(ErrorCode.BALANCE_OUT_OF_RANGE);
+        verify(transactionDao).save(validTransaction);
+        ChangeFeedResponse changes = transactionService.getChanges(0L, changeLog.epoch(), 10);
+        assertThat(changes.getChanges()).extracting(TransactionChange::getType)
+                .containsExactly(ChangeType.DELETE, ChangeType.CREATE);
+    }
+
+    @Test
+    void getChanges_ShouldListWritesInOrderWithTombstones() {
+        // Given
+        when(transactionDao.existsByTransactionReference("REF001")).thenReturn(false);
+        when(transactionDao.save(any(Transaction.class))).thenReturn(validTransaction);
+        when(transactionDao.existsById("test-id")).thenReturn(true);
+        when(transactionDao.removeById("test-id")).thenReturn(Optional.of(validTransaction));
+        ChangeFeedResponse bookmark = transactionService.getChanges(null, null, 10);
+        transactionService.createTransaction(validRequest);
+        transactionService.deleteTransaction("test-id");
+
+        // When
+        ChangeFeedResponse response = transactionService.getChanges(bookmark.getLatestSequence(), bookmark.getEpoch(), 1);
+        ChangeFeedResponse next = transactionService.getChanges(response.getNextSince(), response.getEpoch(), 10);
+
+        // Then
+        assertThat(bookmark.getChanges()).isEmpty();
+        assertThat(response.getChanges()).extracting(TransactionChange::getType).containsExactly(ChangeType.CREATE);
+        assertThat(response.getChanges().get(0).getTransaction().getId()).isEqualTo("test-id");
+        assertThat(response.isHasMore()).isTrue();
+        assertThat(next.getChanges()).extracting(TransactionChange::getType).containsExactly(ChangeType.DELETE);
+        assertThat(next.getChanges().get(0).getTransaction()).isNull();
+        assertThat(next.isHasMore()).isFalse();
+        assertThat(next.getNextSince()).isEqualTo(next.getLatestSequence());
+    }
+
+    @Test
+    void getChanges_OtherEpoch_ShouldRequireResync() {
+        // Given: a sequence handed out before a restart, or by another instance
+        when(transactionDao.existsByTransactionReference("REF001")).thenReturn(false);
+        when(transactionDao.save(any(Transaction.class))).thenReturn(validTransaction);
+        transactionService.createTransaction(validRequest);
+
+        // When & Then
+        for (String epoch : Arrays.asList("other-epoch", null)) {
+            assertThatThrownBy(() -> transactionService.getChanges(0L, epoch, 10))
+                    .isInstanceOf(TransactionException.class)
+                    .extracting(e -> ((TransactionException) e).getCode())
+                    .isEqualTo(ErrorCode.RESYNC_REQUIRED);
+        }
+        assertThat(transactionService.getChanges(0L, changeLog.epoch(), 10).getChanges()).hasSize(1);
+    }
+
+    @Test
+    void getChanges_InvalidLimit_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> transactionService.getChanges(0L, changeLog.epoch(), 1001))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Change limit");
+    }
+
+    @Test
+    void getAccountBalance_ShouldAnswerInMajorUnits() {
+        // Given
+        when(balanceLedger.balancesOf("ACC-1")).thenReturn(Map.of(CurrencyCode.USD, 12_345L, CurrencyCode.JPY, -500L));
+
+        // When
+        AccountBalanceResponse response = transactionService.getAccountBalance("ACC-1");
+
+        // Then
+        assertThat(response.getAccountId()).isEqualTo("ACC-1");
+        assertThat(response.getBalances()).containsEntry(CurrencyCode.USD, new BigDecimal("123.45"))
+                .containsEntry(CurrencyCode.JPY, new BigDecimal("-500"));
+    }
+
+    @Test
+    void getAccountBalance_UnknownAccount_ShouldThrowException() {
+        // Given
+        when(balanceLedger.balancesOf("ACC-9")).thenReturn(null);
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.getAccountBalance("ACC-9"))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("ACC-9");
+    }
+
+    @Test
+    void getAmountQuantiles_ShouldFollowCreatesAndDeletes() {
+        // Given
+        when(transactionDao.existsByTransactionReference("REF001")).thenReturn(false);
+        when(transactionDao.save(any(Transaction.class))).thenReturn(validTransaction);
+        when(transactionDao.existsById("test-id")).thenReturn(true);
+        when(transactionDao.removeById("test-id")).thenReturn(Optional.of(validTransaction));
+        transactionService.createTransaction(validRequest);
+
+        // When
+        AmountQuantilesResponse created = transactionService.getAmountQuantiles("usd", null, "15m", null);
+        transactionService.deleteTransaction("test-id");
+        AmountQuantilesResponse deleted = transactionService.getAmountQuantiles(null, null, null, null);
+
+        // Then
+        assertThat(created.getWindow()).isEqualTo("PT15M");
+        assertThat(created.getDistributions()).hasSize(1);
+        assertThat(created.getDistributions().get(0).getTransactionType()).isEqualTo(TransactionType.DEPOSIT);
+        assertThat(created.getDistributions().get(0).getCount()).isEqualTo(1);
+        assertThat(created.getDistributions().get(0).getQuantiles()).containsOnlyKeys("p50", "p95", "p99");
+        assertThat(created.getDistributions().get(0).getQuantiles().get("p99"))
+                .isCloseTo(new BigDecimal("100.00"), within(new BigDecimal("1.00")));
+        assertThat(deleted.getWindow()).isEqualTo("PT1H");
+        assertThat(deleted.getDistributions()).isEmpty();
+    }
+
+    @Test
+    void getAmountQuantiles_InvalidArguments_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> transactionService.getAmountQuantiles(null, null, "2h", null))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Window");
+        assertThatThrownBy(() -> transactionService.getAmountQuantiles(null, null, null, List.of(0.5, 1.5)))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("Quantiles");
+        assertThatThrownBy(() -> transactionService.getAmountQuantiles("XXX", null, null, null))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("XXX");
+    }
+
+    @Test
+    void purgeExpiredTransactions_ShouldForgetThemLikeDeletes() {
+        // Given
+        ConcurrentMapCache idCache = new ConcurrentMapCache(CacheConfig.TRANSACTION_ID_CACHE);
+        ConcurrentMapCache bytesCache = new ConcurrentMapCache(CacheConfig.TRANSACTION_BYTES_CACHE);
+        ConcurrentMapCache listCache = new ConcurrentMapCache(CacheConfig.TRANSACTION_LIST_CACHE);
+        idCache.put("test-id", "cached");
+        bytesCache.put("test-id", "cached");
+        listCache.put("0-10", "cached");
+        when(cacheManager.getCache(CacheConfig.TRANSACTION_ID_CACHE)).thenReturn(idCache);
+        when(cacheManager.getCache(CacheConfig.TRANSACTION_BYTES_CACHE)).thenReturn(bytesCache);
+        when(cacheManager.getCache(CacheConfig.TRANSACTION_LIST_CACHE)).thenReturn(listCache);
+        when(transactionDao.purgeExpired()).thenReturn(List.of(validTransaction));
+
+        // When
+        int purged = transactionService.purgeExpiredTransactions();
+
+        // Then
+        assertThat(purged).isEqualTo(1);
+        assertThat(idCache.get("test-id")).isNull();
+        assertThat(bytesCache.get("test-id")).isNull();
+        assertThat(listCache.get("0-10")).isNull();
+        verify(balanceLedger).post(validTransaction, null);
+        verify(amountStatistics).record(validTransaction, null);
+        ChangeFeedResponse changes = transactionService.getChanges(0L, changeLog.epoch(), 10);
+        assertThat(changes.getChanges()).extracting(TransactionChange::getType).containsExactly(ChangeType.DELETE);
+        assertThat(changes.getChanges().get(0).getId()).isEqualTo("test-id");
+        assertThat(changes.getChanges().get(0).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void purgeExpiredTransactions_NothingExpired_ShouldTouchNothing() {
+        // Given
+        when(transactionDao.purgeExpired()).thenReturn(List.of());
+
+        // When
+        int purged = transactionService.purgeExpiredTransactions();
+
+        // Then
+        assertThat(purged).isZero();
+        verifyNoInteractions(cacheManager, balanceLedger);
+        assertThat(changeLog.latestSequence()).isZero();
     }
 
     @Test
@@ -258,6 +729,7 @@ class TransactionServiceTest {
 
         verify(transactionDao).existsById("non-existing");
         verify(transactionDao, never()).deleteById(any());
+        verify(transactionDao, never()).removeById(any());
     }
 
     @Test
@@ -285,4 +757,39 @@ class TransactionServiceTest {
         assertThat(exists).isFalse();
         verify(transactionDao).existsById("non-existing");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getTransactionsByIds_MixedHits_ShouldLoadOnlyMissesAndReportMissing() {
+        // Given
+        ConcurrentMapCache idCache = new ConcurrentMapCache(CacheConfig.TRANSACTION_ID_CACHE);
+        TransactionResponse cached = new TransactionResponse(
+                "cached-id", 50.00, CurrencyCode.EUR, TransactionType.WITHDRAWAL, "REF000", LocalDateTime.now());
+        idCache.put("cached-id", cached);
+        when(cacheManager.getCache(CacheConfig.TRANSACTION_ID_CACHE)).thenReturn(idCache);
+        when(transactionDao.findAllById(List.of("test-id", "unknown-id"))).thenReturn(List.of(validTransaction));
+
+        // When
+        TransactionLookupResponse response = transactionService.getTransactionsByIds(
+                List.of("test-id", "cached-id", "unknown-id", "test-id"));
+
+        // Then
+        assertThat(response.getTransactions())
+                .extracting(TransactionResponse::getId)
+                .containsExactly("test-id", "cached-id");
+        assertThat(response.getMissingIds()).containsExactly("unknown-id");
+        assertThat(idCache.get("test-id", TransactionResponse.class)).isNotNull();
+
+        verify(transactionDao).findAllById(List.of("test-id", "unknown-id"));
+        verify(transactionDao, never()).findById(any());
+    }
+
+    @Test
+    void getTransactionsByIds_EmptyIds_ShouldThrowException() {
+        // When & Then
+        assertThatThrownBy(() -> transactionService.getTransactionsByIds(List.of()))
+                .isInstanceOf(TransactionException.class)
+                .hasMessageContaining("cannot be empty");
+
+        verifyNoInteractions(transactionDao);
+    }
+}
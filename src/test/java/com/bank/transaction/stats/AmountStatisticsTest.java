@@ -0,0 +1,163 @@
+package com.bank.transaction.stats;
+
+import com.bank.transaction.model.CurrencyCode;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Amount Statistics Test Class
+ *
+ * @author YUNING TAO
+ */
+class AmountStatisticsTest {
+
+    private static final double ACCURACY = 0.01;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-02T03:00:00Z"));
+
+    @Test
+    void sketch_ShouldStayWithinRelativeAccuracyOfExactQuantiles() {
+        // Given: skewed amounts from cents to millions
+        Random random = new Random(7);
+        long[] amounts = new long[200_000];
+        AmountSketch sketch = new AmountSketch(ACCURACY);
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 1 + (long) Math.exp(random.nextGaussian() * 3 + 9);
+            sketch.add(amounts[i]);
+        }
+        Arrays.sort(amounts);
+
+        // When & Then
+        for (double quantile : new double[]{0.0, 0.5, 0.9, 0.95, 0.99, 0.999, 1.0}) {
+            long exact = amounts[(int) (quantile * (amounts.length - 1))];
+            assertThat(sketch.quantile(quantile)).isCloseTo(exact, within(exact * ACCURACY));
+        }
+        assertThat(sketch.quantiles(0.99, 0.5)).containsExactly(sketch.quantile(0.99), sketch.quantile(0.5));
+        assertThat(sketch.count()).isEqualTo(amounts.length);
+        assertThat(sketch.buckets()).isLessThan(2_200);
+    }
+
+    @Test
+    void sketch_RemoveAndMerge_ShouldMatchSketchOfRemainingAmounts() {
+        // Given
+        AmountSketch first = new AmountSketch(ACCURACY);
+        AmountSketch second = new AmountSketch(ACCURACY);
+        AmountSketch expected = new AmountSketch(ACCURACY);
+        for (long amount = 1; amount <= 10_000; amount++) {
+            (amount % 2 == 0 ? first : second).add(amount * 100);
+            if (amount > 5_000) {
+                expected.add(amount * 100);
+            }
+        }
+
+        // When
+        for (long amount = 1; amount <= 5_000; amount++) {
+            (amount % 2 == 0 ? first : second).remove(amount * 100);
+        }
+        first.merge(second);
+
+        // Then
+        assertThat(first.count()).isEqualTo(5_000);
+        for (double quantile : new double[]{0.0, 0.5, 0.99, 1.0}) {
+            assertThat(first.quantile(quantile)).isEqualTo(expected.quantile(quantile));
+        }
+        assertThat(new AmountSketch(ACCURACY).quantile(0.5)).isNaN();
+    }
+
+    @Test
+    void record_ShouldFollowUpdatesAndDeletes() {
+        // Given
+        AmountStatistics statistics = new AmountStatistics(Duration.ofMinutes(1), 60, ACCURACY, clock);
+        Transaction small = transaction("small", 1_000L, CurrencyCode.USD, clock.now());
+        Transaction large = transaction("large", 9_000L, CurrencyCode.USD, clock.now());
+        statistics.record(null, small);
+        statistics.record(null, large);
+
+        // When: the small one grows to 5,000, the large one is deleted
+        statistics.record(small, small.withDetails(5_000L, CurrencyCode.USD, TransactionType.DEPOSIT, null));
+        statistics.record(large, null);
+
+        // Then
+        AmountSketch window = statistics.window(CurrencyCode.USD, TransactionType.DEPOSIT, 60);
+        assertThat(window.count()).isEqualTo(1);
+        assertThat(window.quantile(0.5)).isCloseTo(5_000.0, within(50.0));
+        assertThat(statistics.window(CurrencyCode.EUR, TransactionType.DEPOSIT, 60).count()).isZero();
+    }
+
+    @Test
+    void window_ShouldOnlyCoverRecentSlots() {
+        // Given: one transaction a minute for ten minutes
+        AmountStatistics statistics = new AmountStatistics(Duration.ofMinutes(1), 5, ACCURACY, clock);
+        Transaction first = null;
+        for (int minute = 0; minute < 10; minute++) {
+            Transaction transaction = transaction("t" + minute, 100L * (minute + 1), CurrencyCode.JPY, clock.now());
+            statistics.record(null, transaction);
+            first = first == null ? transaction : first;
+            clock.advance(Duration.ofMinutes(1));
+        }
+        clock.advance(Duration.ofMinutes(-1));
+
+        // When
+        AmountSketch lastTwo = statistics.window(CurrencyCode.JPY, TransactionType.DEPOSIT, 2);
+        AmountSketch all = statistics.window(CurrencyCode.JPY, TransactionType.DEPOSIT, 60);
+        // Deleting a transaction that aged out of the ring changes nothing
+        statistics.record(first, null);
+
+        // Then
+        assertThat(lastTwo.count()).isEqualTo(2);
+        assertThat(lastTwo.quantile(0.0)).isCloseTo(900.0, within(9.0));
+        assertThat(all.count()).isEqualTo(5);
+        assertThat(statistics.window(CurrencyCode.JPY, TransactionType.DEPOSIT, 60).count()).isEqualTo(5);
+    }
+
+    private static Transaction transaction(String id, long amount, CurrencyCode currency, LocalDateTime timestamp) {
+        return new Transaction(id, amount, currency, TransactionType.DEPOSIT, null, timestamp, 1L);
+    }
+
+    /**
+     * Clock moved by the test
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        LocalDateTime now() {
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bank.transaction.warmup;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cache Warm-Up Test Class
+ *
+ * @author YUNING TAO
+ */
+class CacheWarmUpTest {
+
+    @TempDir
+    Path directory;
+
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final TransactionDao transactionDao = mock(TransactionDao.class);
+    private WarmUpProperties properties;
+    private WarmUpProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WarmUpProperties();
+        properties.setSnapshot(directory.resolve("hot-ids.snapshot").toString());
+        properties.setRecentTransactions(0);
+        properties.setListPages(0);
+        progress = new WarmUpProgress();
+    }
+
+    @Test
+    void run_Snapshot_ShouldLoadEverySnapshotId() throws IOException {
+        // Given
+        Files.write(directory.resolve("hot-ids.snapshot"), List.of("id-1", "", "id-2", "gone"));
+        when(transactionService.getTransactionById("gone")).thenThrow(new TransactionException("Not found"));
+
+        // When
+        warmUp().run(null);
+
+        // Then
+        verify(transactionService).getTransactionById("id-1");
+        verify(transactionService).getTransactionById("id-2");
+        assertThat(progress.getStatus()).isEqualTo(WarmUpProgress.Status.COMPLETED);
+        assertThat(progress.toMap())
+                .containsEntry("planned", 3)
+                .containsEntry("loaded", 2)
+                .containsEntry("missing", 1)
+                .containsEntry("failed", 0);
+    }
+
+    @Test
+    void run_ListPages_ShouldLoadThePagesAsWell() {
+        // Given: no snapshot yet
+        properties.setListPages(2);
+        properties.setListPageSize(25);
+
+        // When
+        warmUp().run(null);
+
+        // Then
+        verify(transactionService).getTransactions(0, 25);
+        verify(transactionService).getTransactions(1, 25);
+        assertThat(progress.toMap()).containsEntry("planned", 2).containsEntry("loaded", 2);
+    }
+
+    @Test
+    void run_ExhaustedBudget_ShouldStopLoading() throws IOException {
+        // Given
+        Files.write(directory.resolve("hot-ids.snapshot"), List.of("id-1", "id-2", "id-3", "id-4", "id-5"));
+        properties.setParallelism(1);
+        properties.setTimeBudget(Duration.ofMillis(100));
+        when(transactionService.getTransactionById(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return null;
+        });
+
+        // When
+        long started = System.nanoTime();
+        warmUp().run(null);
+
+        // Then: readiness is held back no longer than about the budget
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(progress.getStatus()).isEqualTo(WarmUpProgress.Status.BUDGET_EXCEEDED);
+        assertThat((Integer) progress.toMap().get("loaded")).isLessThan(5);
+    }
+
+    @Test
+    void readiness_ShouldOnlyAcceptTrafficOnceTheWarmUpIsDone() throws IOException {
+        // Given: a slow load
+        Files.write(directory.resolve("hot-ids.snapshot"), List.of("id-1"));
+        when(transactionService.getTransactionById("id-1")).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        });
+        AtomicReference<WarmUpProgress.Status> statusAtReadiness = new AtomicReference<>();
+        SpringApplication application = new SpringApplication(WarmUpOnly.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.addInitializers(context -> context.getBeanFactory().registerSingleton("cacheWarmUp", warmUp()));
+        application.addListeners(event -> {
+            if (event instanceof AvailabilityChangeEvent<?> change && change.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                statusAtReadiness.set(progress.getStatus());
+            }
+        });
+
+        // When
+        ConfigurableApplicationContext context = application.run();
+        context.close();
+
+        // Then
+        assertThat(statusAtReadiness.get()).isEqualTo(WarmUpProgress.Status.COMPLETED);
+    }
+
+    private CacheWarmUp warmUp() {
+        return new CacheWarmUp(transactionService, transactionDao, mock(CacheManager.class), properties, progress);
+    }
+
+    /**
+     * Context holding nothing but the warm-up, registered by the test
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class WarmUpOnly {
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.transaction.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JIT Warm-Up Test Class
+ *
+ * @author YUNING TAO
+ */
+class JitWarmUpTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void run_ShouldDriveEveryCycleAgainstTheScratchStore() {
+        // Given: JSON only, the binary formats are skipped
+        JitWarmUpProperties properties = new JitWarmUpProperties();
+        properties.setRoundSize(50);
+        properties.setTimeBudget(Duration.ofSeconds(2));
+        JitWarmUp warmUp = new JitWarmUp(objectMapper,
+                new HttpMessageConverters(false, List.of(new MappingJackson2HttpMessageConverter(objectMapper))),
+                Validation.buildDefaultValidatorFactory().getValidator(), properties);
+
+        // When
+        warmUp.run(null);
+
+        // Then
+        assertThat(warmUp.getStatus())
+                .isIn(WarmUpProgress.Status.COMPLETED, WarmUpProgress.Status.BUDGET_EXCEEDED);
+        assertThat(warmUp.toMap())
+                .containsEntry("failed", 0)
+                .hasEntrySatisfying("cycles", cycles -> assertThat((Integer) cycles).isPositive())
+                .containsKeys("firstRoundP99Micros", "lastRoundP99Micros", "elapsedMillis");
+    }
+
+    @Test
+    void run_ExhaustedBudget_ShouldStopWithoutCycles() {
+        // Given
+        JitWarmUpProperties properties = new JitWarmUpProperties();
+        properties.setTimeBudget(Duration.ZERO);
+        JitWarmUp warmUp = new JitWarmUp(objectMapper,
+                new HttpMessageConverters(false, List.of(new MappingJackson2HttpMessageConverter(objectMapper))),
+                Validation.buildDefaultValidatorFactory().getValidator(), properties);
+
+        // When
+        warmUp.run(null);
+
+        // Then
+        assertThat(warmUp.getStatus()).isEqualTo(WarmUpProgress.Status.BUDGET_EXCEEDED);
+        assertThat(warmUp.toMap()).containsEntry("cycles", 0).containsEntry("rounds", 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.bank.transaction.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Warm-Up Progress Test Class
+ *
+ * @author YUNING TAO
+ */
+class WarmUpProgressTest {
+
+    @Test
+    void toMap_NotStarted_ShouldReportPendingWithoutTimes() {
+        // When
+        WarmUpProgress progress = new WarmUpProgress();
+
+        // Then
+        assertThat(progress.getStatus()).isEqualTo(WarmUpProgress.Status.PENDING);
+        assertThat(progress.toMap())
+                .containsEntry("planned", 0)
+                .doesNotContainKeys("startedAt", "elapsedMillis");
+    }
+
+    @Test
+    void toMap_Finished_ShouldReportCountsAndElapsedTime() {
+        // Given
+        WarmUpProgress progress = new WarmUpProgress();
+
+        // When
+        progress.start(3);
+        progress.loaded();
+        progress.missing();
+        progress.failed();
+        progress.finish(WarmUpProgress.Status.BUDGET_EXCEEDED);
+
+        // Then
+        assertThat(progress.getStatus()).isEqualTo(WarmUpProgress.Status.BUDGET_EXCEEDED);
+        assertThat(progress.toMap())
+                .containsEntry("planned", 3)
+                .containsEntry("loaded", 1)
+                .containsEntry("missing", 1)
+                .containsEntry("failed", 1)
+                .containsKeys("startedAt", "elapsedMillis");
+    }
+}